@@ -32,6 +32,10 @@ public class CSVSimulationDTO extends StreamConfigurationDTO {
      * Flag to indicate whether the CSV records are ordered by timestamp or not
      */
     private boolean isOrdered = true;
+    /**
+     * Approximate number of bytes of records held in memory when sorting a CSV file which is not ordered
+     */
+    private long sortBufferSize;
 
     public CSVSimulationDTO() {
     }
@@ -60,6 +64,14 @@ public class CSVSimulationDTO extends StreamConfigurationDTO {
         isOrdered = ordered;
     }
 
+    public long getSortBufferSize() {
+        return sortBufferSize;
+    }
+
+    public void setSortBufferSize(long sortBufferSize) {
+        this.sortBufferSize = sortBufferSize;
+    }
+
     public List<Integer> getIndices() {
         return indices;
     }
@@ -74,6 +86,7 @@ public class CSVSimulationDTO extends StreamConfigurationDTO {
                 "\n fileName : " + fileName +
                 "\n delimiter : " + delimiter +
                 "\n isOrdered : " + isOrdered +
+                "\n sortBufferSize : " + sortBufferSize +
                 "\n indices : " + indices + "\n";
 
     }
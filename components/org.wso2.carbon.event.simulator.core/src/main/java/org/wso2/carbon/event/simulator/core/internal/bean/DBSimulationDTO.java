@@ -31,6 +31,8 @@ public class DBSimulationDTO extends StreamConfigurationDTO {
     private String password;
     private String tableName;
     private List<String> columnNames;
+    private int pageSize;
+    private int fetchSize;
 
 
     public DBSimulationDTO() {
@@ -85,6 +87,22 @@ public class DBSimulationDTO extends StreamConfigurationDTO {
         this.columnNames = columns;
     }
 
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
     @Override
     public String toString() {
         return getStreamConfiguration() +
@@ -93,6 +111,8 @@ public class DBSimulationDTO extends StreamConfigurationDTO {
                 "\n username : " + username +
                 "\n password : " + password +
                 "\n tableName : " + tableName +
-                "\n columnNames : " + columnNames + "\n";
+                "\n columnNames : " + columnNames +
+                "\n pageSize : " + pageSize +
+                "\n fetchSize : " + fetchSize + "\n";
     }
 }
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c)  2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.bean;
+
+/**
+ * LoadProfileDTO class contains the configuration of a load generation simulation, which sends events at a target
+ * rate instead of at a fixed time interval.
+ */
+public class LoadProfileDTO {
+
+    private RateProfile rateProfile;
+    private double eventsPerSecond;
+    private double endEventsPerSecond;
+    private long profileDuration;
+    private int noOfSteps;
+    private int batchSize;
+
+    public RateProfile getRateProfile() {
+        return rateProfile;
+    }
+
+    public void setRateProfile(RateProfile rateProfile) {
+        this.rateProfile = rateProfile;
+    }
+
+    public double getEventsPerSecond() {
+        return eventsPerSecond;
+    }
+
+    public void setEventsPerSecond(double eventsPerSecond) {
+        this.eventsPerSecond = eventsPerSecond;
+    }
+
+    public double getEndEventsPerSecond() {
+        return endEventsPerSecond;
+    }
+
+    public void setEndEventsPerSecond(double endEventsPerSecond) {
+        this.endEventsPerSecond = endEventsPerSecond;
+    }
+
+    public long getProfileDuration() {
+        return profileDuration;
+    }
+
+    public void setProfileDuration(long profileDuration) {
+        this.profileDuration = profileDuration;
+    }
+
+    public int getNoOfSteps() {
+        return noOfSteps;
+    }
+
+    public void setNoOfSteps(int noOfSteps) {
+        this.noOfSteps = noOfSteps;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Rate profile of a load generation simulation can be
+     * 1. CONSTANT : events are sent at eventsPerSecond throughout the simulation
+     * 2. RAMP : the rate grows linearly from eventsPerSecond to endEventsPerSecond within the profile duration
+     * 3. STEP : the rate goes from eventsPerSecond to endEventsPerSecond in equal steps within the profile duration
+     * Once the profile duration is over, events are sent at endEventsPerSecond.
+     */
+    public enum RateProfile {
+        CONSTANT, RAMP, STEP
+    }
+}
@@ -30,6 +30,7 @@ public class SimulationPropertiesDTO {
     private int noOfEventsRequired;
     private long startTimestamp;
     private long endTimestamp;
+    private LoadProfileDTO loadProfile;
 
     public String getSimulationName() {
         return simulationName;
@@ -79,4 +80,17 @@ public class SimulationPropertiesDTO {
         this.endTimestamp = endTimestamp;
     }
 
+    /**
+     * getLoadProfile() gives the load profile of a load generation simulation
+     *
+     * @return load profile, or null if events are sent at the time interval of the simulation
+     */
+    public LoadProfileDTO getLoadProfile() {
+        return loadProfile;
+    }
+
+    public void setLoadProfile(LoadProfileDTO loadProfile) {
+        this.loadProfile = loadProfile;
+    }
+
 }
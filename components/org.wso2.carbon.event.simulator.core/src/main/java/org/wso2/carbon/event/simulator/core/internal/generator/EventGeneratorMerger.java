@@ -0,0 +1,117 @@
+/*
+ * Copyright (c)  2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator;
+
+import org.wso2.siddhi.core.event.Event;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * EventGeneratorMerger merges the events of the event generators of a simulation in the order of their timestamps.
+ * Generators are kept in a heap ordered by the timestamp of their next event, hence getting the next event takes
+ * O(log n) time for n generators. When several generators have events with the same timestamp, the event of the
+ * generator which comes first in the simulation configuration is sent first.
+ */
+public class EventGeneratorMerger {
+    private static final Comparator<Source> SOURCE_ORDER = Comparator.comparingLong((Source source) ->
+            source.timestamp).thenComparingInt(source -> source.index);
+
+    private final List<EventGenerator> generators;
+    private final PriorityQueue<Source> sources;
+
+    public EventGeneratorMerger(List<EventGenerator> generators) {
+        this.generators = generators;
+        this.sources = new PriorityQueue<>(Math.max(generators.size(), 1), SOURCE_ORDER);
+    }
+
+    /**
+     * reset() rebuilds the heap from the next events of the generators. This must be called once the generators are
+     * started, and whenever the timestamps of their next events could have changed, i.e. when they are resumed.
+     */
+    public void reset() {
+        sources.clear();
+        for (int i = 0; i < generators.size(); i++) {
+            Event nextEvent = generators.get(i).peek();
+            if (nextEvent != null) {
+                sources.add(new Source(generators.get(i), i, nextEvent.getTimestamp()));
+            }
+        }
+    }
+
+    /**
+     * peek() returns the generator which produces the next event
+     *
+     * @return generator with the event having the least timestamp, or null if all generators are exhausted
+     */
+    public EventGenerator peek() {
+        Source source = sources.peek();
+        return source != null ? source.generator : null;
+    }
+
+    /**
+     * pollBatch() polls consecutive events of the generator which produces the next event, for as long as it keeps
+     * producing the event with the least timestamp.
+     *
+     * @param maxEvents         maximum number of events to poll
+     * @param sameTimestampOnly if true, only the events having the timestamp of the first event are polled
+     * @return events in the order of their timestamps, or an empty array if all generators are exhausted
+     */
+    public Event[] pollBatch(int maxEvents, boolean sameTimestampOnly) {
+        Source source = sources.poll();
+        if (source == null) {
+            return new Event[0];
+        }
+        long firstTimestamp = source.timestamp;
+        List<Event> events = new ArrayList<>(Math.min(maxEvents, 16));
+        while (true) {
+            events.add(source.generator.poll());
+            Event nextEvent = source.generator.peek();
+            if (nextEvent == null) {
+                // generator is exhausted, hence it is not added back to the heap
+                break;
+            }
+            source.timestamp = nextEvent.getTimestamp();
+            if (events.size() >= maxEvents || (sameTimestampOnly && source.timestamp != firstTimestamp)
+                    || (!sources.isEmpty() && SOURCE_ORDER.compare(source, sources.peek()) > 0)) {
+                sources.add(source);
+                break;
+            }
+        }
+        return events.toArray(new Event[events.size()]);
+    }
+
+    /**
+     * Source holds a generator in the heap along with the timestamp of its next event, so that the ordering of the
+     * heap does not change while the generator is in it.
+     */
+    private static class Source {
+        private final EventGenerator generator;
+        private final int index;
+        private long timestamp;
+
+        private Source(EventGenerator generator, int index, long timestamp) {
+            this.generator = generator;
+            this.index = index;
+            this.timestamp = timestamp;
+        }
+    }
+}
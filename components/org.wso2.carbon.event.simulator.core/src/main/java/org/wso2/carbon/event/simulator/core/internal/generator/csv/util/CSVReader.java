@@ -39,12 +39,11 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.List;
-import java.util.TreeMap;
 
 
 /**
@@ -55,13 +54,17 @@ public class CSVReader {
     private Reader fileReader = null;
     private BufferedReader bufferedReader = null;
     private CSVParser csvParser = null;
+    private ExternalRecordSorter recordSorter = null;
+    private MappedCSVReader mappedCSVReader = null;
+    private Path csvFilePath = null;
     private long lineNumber = 0;
     private long eventNumber = 0;
 
     /**
      * Constructor CSVReader is used to initialize an instance of class CSVReader
      * Initialize a file reader for the CSV file.
-     * If the CSV file is ordered by timestamp it will create a bufferedReader for the file reader.
+     * If the CSV file is ordered by timestamp it will create a bufferedReader for the file reader, which is used if
+     * the file cannot be read using a MappedCSVReader.
      * @throws ResourceNotFoundException if the CSV file is not found
      */
     public CSVReader(String fileName, boolean isOrdered) throws ResourceNotFoundException {
@@ -71,6 +74,7 @@ public class CSVReader {
             File csvFile = new File(Paths.get(csvFileDirectory, fileName).toString());
             if (csvFile.exists()) {
                 if (csvFile.length() != 0) {
+                    csvFilePath = csvFile.toPath();
                     fileReader = new InputStreamReader(new FileInputStream(Paths.get(csvFileDirectory,
                             fileName).toString()), StandardCharsets.UTF_8);
                     if (log.isDebugEnabled()) {
@@ -100,7 +104,9 @@ public class CSVReader {
     }
 
     /**
-     * If the CSV file is ordered by timestamp, this method reads the next line and produces an event
+     * If the CSV file is ordered by timestamp, this method reads the next line and produces an event.
+     * If the delimiter is a single character, the file is read using a MappedCSVReader, which parses lines ahead
+     * in parallel. Otherwise the lines are read using the bufferedReader and split using the delimiter.
      *
      * @param csvConfig        configuration of CSV simulation
      * @param streamAttributes list of attributes of the stream to which events are produced
@@ -110,6 +116,20 @@ public class CSVReader {
      */
     public Event getNextEvent(CSVSimulationDTO csvConfig, List<Attribute> streamAttributes, long startTimestamp,
                               long endTimestamp) {
+        if (mappedCSVReader == null && MappedCSVReader.isSupported(csvConfig)) {
+            try {
+                mappedCSVReader = new MappedCSVReader(csvFilePath, csvConfig, streamAttributes,
+                        EventSimulatorDataHolder.getInstance().getCsvParserExecutorService());
+            } catch (IOException e) {
+                closeParser(csvConfig.getFileName(), true);
+                throw new EventGenerationException("Error occurred when reading CSV file '" +
+                        csvConfig.getFileName() + "' to simulate stream '" + csvConfig.getStreamName() + "' using " +
+                        "source configuration : " + csvConfig.toString(), e);
+            }
+        }
+        if (mappedCSVReader != null) {
+            return getNextMappedEvent(csvConfig, startTimestamp, endTimestamp);
+        }
         Event event = null;
         int timestampPosition = Integer.parseInt(csvConfig.getTimestampAttribute());
         List<Integer> indices = csvConfig.getIndices();
@@ -189,31 +209,99 @@ public class CSVReader {
         return event;
     }
 
+    /**
+     * getNextMappedEvent() retrieves the next event parsed by the mappedCSVReader and applies the range of the event
+     * simulation to it.
+     *
+     * @param csvConfig      configuration of CSV simulation
+     * @param startTimestamp start timestamp of event simulation
+     * @param endTimestamp   end timestamp of event simulation
+     * @return event produced
+     */
+    private Event getNextMappedEvent(CSVSimulationDTO csvConfig, long startTimestamp, long endTimestamp) {
+        boolean timestampSpecified = !"-1".equals(csvConfig.getTimestampAttribute());
+        Event event;
+        try {
+            while ((event = mappedCSVReader.next()) != null) {
+                if (!timestampSpecified) {
+                    if (endTimestamp != -1 && startTimestamp > endTimestamp) {
+                        return null;
+                    }
+                    event.setTimestamp(startTimestamp);
+                } else if (event.getTimestamp() < startTimestamp
+                        || (endTimestamp != -1 && event.getTimestamp() > endTimestamp)) {
+                    continue;
+                }
+                eventNumber++;
+                return event;
+            }
+        } catch (EventGenerationException e) {
+            log.error(e.getMessage(), e);
+            closeParser(csvConfig.getFileName(), true);
+            throw e;
+        }
+        return null;
+    }
 
     /**
-     * If the CSV is not ordered by timestamp, getEventsMap() method is used to create a treeMap of events.
+     * If the CSV is not ordered by timestamp, sortRecords() method is used to sort the records of the CSV file by
+     * their timestamps. Records are sorted within the sort buffer size of the CSV simulation configuration, hence
+     * the records of large files are spilled to temporary files. The sorted events are then retrieved using
+     * getNextSortedEvent().
      *
-     * @param csvConfig        configuration of csv simulation
-     * @param streamAttributes list of attributes of the stream to which events are produced
-     * @param startTimestamp   start timestamp of event simulation
-     * @param endTimestamp     end timestamp of event simulation
-     * @return treeMap of events
+     * @param csvConfig      configuration of csv simulation
+     * @param startTimestamp start timestamp of event simulation
+     * @param endTimestamp   end timestamp of event simulation
      */
-    public TreeMap<Long, ArrayList<Event>> getEventsMap(CSVSimulationDTO csvConfig, List<Attribute> streamAttributes,
-                                                        long startTimestamp, long endTimestamp) {
+    public void sortRecords(CSVSimulationDTO csvConfig, long startTimestamp, long endTimestamp) {
         try {
             csvParser = parseFile(csvConfig.getDelimiter());
-            return createEventsMap(csvConfig, streamAttributes, startTimestamp,
-                    endTimestamp);
+            recordSorter = new ExternalRecordSorter(csvConfig.getSortBufferSize());
+            addRecords(csvConfig, startTimestamp, endTimestamp);
+            recordSorter.finish();
         } catch (IOException e) {
-            log.error("Error occurred when initializing CSVParser for CSV file '" + csvConfig.getFileName() + "' to " +
+            log.error("Error occurred when sorting CSV file '" + csvConfig.getFileName() + "' to " +
                     "simulate stream '" + csvConfig.getStreamName() + "' using source configuration : " +
                     csvConfig.toString(), e);
-            throw new EventGenerationException("Error occurred when initializing CSVParser for CSV file '" +
+            closeParser(csvConfig.getFileName(), false);
+            throw new EventGenerationException("Error occurred when sorting CSV file '" +
                     csvConfig.getFileName() + "' to simulate stream '" + csvConfig.getStreamName() + "' using source " +
                     "configuration : " + csvConfig.toString(), e);
         } finally {
+            closeCSVParser(csvConfig.getFileName());
+        }
+    }
+
+    /**
+     * If the CSV is not ordered by timestamp, getNextSortedEvent() method produces the event with the next least
+     * timestamp from the records sorted by sortRecords()
+     *
+     * @param csvConfig        configuration of csv simulation
+     * @param streamAttributes list of attributes of the stream to which events are produced
+     * @return event produced, or null if there are no more events
+     */
+    public Event getNextSortedEvent(CSVSimulationDTO csvConfig, List<Attribute> streamAttributes) {
+        try {
+            ExternalRecordSorter.SortRecord record;
+            while ((record = recordSorter.next()) != null) {
+                try {
+                    return EventConverter.eventConverter(streamAttributes, record.getValues(),
+                            record.getTimestamp());
+                } catch (EventGenerationException e) {
+                    log.error("Error occurred when generating event using CSV event generator to simulate" +
+                            " stream '" + csvConfig.getStreamName() + "' using source configuration : " +
+                            csvConfig.toString() + "Drop event and create next event.", e);
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            log.error("Error occurred when reading sorted records of CSV file '" + csvConfig.getFileName() + "' to " +
+                    "simulate stream '" + csvConfig.getStreamName() + "' using source configuration : " +
+                    csvConfig.toString(), e);
             closeParser(csvConfig.getFileName(), false);
+            throw new EventGenerationException("Error occurred when reading sorted records of CSV file '" +
+                    csvConfig.getFileName() + "' to simulate stream '" + csvConfig.getStreamName() + "' using source " +
+                    "configuration : " + csvConfig.toString(), e);
         }
     }
 
@@ -239,75 +327,56 @@ public class CSVReader {
 
 
     /**
-     * createEventsMap() methods creates a treeMap of events using the data in the CSV file.
-     * The key of the treeMap will be the event timestamp and the value will be an array list of events belonging to
-     * the timestamp.
+     * addRecords() method adds the records of the CSV file to the record sorter.
+     * Only the timestamp and the data elements required for the event are kept for each record.
      *
-     * @param csvConfig        configuration of csv simulation
-     * @param streamAttributes list of attributes of the stream to which events are produced
-     * @param startTimestamp   start timestamp of event simulation
-     * @param endTimestamp     end timestamp of event simulation
-     * @return a treeMap of events
+     * @param csvConfig      configuration of csv simulation
+     * @param startTimestamp start timestamp of event simulation
+     * @param endTimestamp   end timestamp of event simulation
+     * @throws IOException if the records cannot be spilled to a temporary file
      */
-    private TreeMap<Long, ArrayList<Event>> createEventsMap(CSVSimulationDTO csvConfig,
-                                                            List<Attribute> streamAttributes,
-                                                            long startTimestamp, long endTimestamp) {
-        TreeMap<Long, ArrayList<Event>> eventsMap = new TreeMap<>();
+    private void addRecords(CSVSimulationDTO csvConfig, long startTimestamp, long endTimestamp) throws IOException {
         int timestampPosition = Integer.parseInt(csvConfig.getTimestampAttribute());
         long lineNumber;
         long timestamp;
         List<Integer> indices = csvConfig.getIndices();
-        Event event;
+        long noOfRecords = 0;
         if (csvParser != null) {
             for (CSVRecord record : csvParser) {
                 lineNumber = csvParser.getCurrentLineNumber();
-                ArrayList<String> attributes = new ArrayList<>();
-                for (String attribute : record) {
-                    attributes.add(attribute);
-                }
                 /*
                  * retrieve the value at the position specified by timestamp attribute as the timestamp
                  * if the timestamp is within the range specified by the startTimestamp and endTimestamp, proceed to
-                 * creating an event, else ignore record and proceed to next record
+                 * adding the record, else ignore record and proceed to next record
                  * retrieve the data elements required for event using record using the indices specified
                  * */
                 try {
-                    timestamp = Long.parseLong(attributes.get(timestampPosition));
+                    timestamp = Long.parseLong(record.get(timestampPosition));
                     if (timestamp >= startTimestamp) {
                         if (endTimestamp == -1 || timestamp <= endTimestamp) {
-                            List<String> eventData = new ArrayList<>();
-                            indices.forEach(index -> eventData.add(attributes.get(index)));
-                            try {
-                                event = EventConverter.eventConverter(streamAttributes, eventData.toArray(), timestamp);
-                            } catch (EventGenerationException e) {
-                                log.error("Error occurred when generating event using CSV event generator to simulate" +
-                                        " stream '" + csvConfig.getStreamName() + "' using source configuration : " +
-                                        csvConfig.toString() + "Drop event and create next event.", e);
-                                continue;
-                            }
-                            if (!eventsMap.containsKey(timestamp)) {
-                                eventsMap.put(timestamp, new ArrayList<>(Collections.singletonList(event)));
-                            } else {
-                                eventsMap.get(timestamp).add(event);
+                            String[] eventData = new String[indices.size()];
+                            for (int i = 0; i < eventData.length; i++) {
+                                eventData[i] = record.get(indices.get(i));
                             }
+                            recordSorter.add(timestamp, eventData);
+                            noOfRecords++;
                         }
                     }
                 } catch (NumberFormatException e) {
-                    log.warn("Invalid data '" + attributes.get(timestampPosition) + "' provided for timestamp" +
-                            "attribute in line " + lineNumber + ". Line content : " + attributes + ". " +
+                    log.warn("Invalid data '" + record.get(timestampPosition) + "' provided for timestamp" +
+                            "attribute in line " + lineNumber + ". Line content : " + record + ". " +
                             "Ignore line and read next line. Source configuration : " + csvConfig.toString());
                 } catch (IndexOutOfBoundsException e) {
                     log.warn("Cannot retrieve data elements from line " + lineNumber + " for all indices "  +
-                            indices + ". Line content : " + attributes + ". Ignore line and read next line." +
+                            indices + ". Line content : " + record + ". Ignore line and read next line." +
                             " Source configuration : " + csvConfig.toString());
                 }
             }
         }
         if (log.isDebugEnabled()) {
-            log.debug("Create an ordered events map from CSV file '" + csvConfig.getFileName() + "' to simulate " +
-                    "stream '" + csvConfig.getStreamName() + "'.");
+            log.debug("Sorted " + noOfRecords + " records of CSV file '" + csvConfig.getFileName() + "' in " +
+                    recordSorter.getNoOfRuns() + " run(s) to simulate stream '" + csvConfig.getStreamName() + "'.");
         }
-        return eventsMap;
     }
 
 
@@ -325,10 +394,16 @@ public class CSVReader {
                 if (bufferedReader != null) {
                     bufferedReader.close();
                 }
+                if (mappedCSVReader != null) {
+                    mappedCSVReader.close();
+                }
             } else {
                 if (csvParser != null && !csvParser.isClosed()) {
                     csvParser.close();
                 }
+                if (recordSorter != null) {
+                    recordSorter.close();
+                }
             }
         } catch (IOException e) {
             log.error("Error occurred when closing CSV resources used for CSV file '" + fileName + "'", e);
@@ -338,4 +413,20 @@ public class CSVReader {
         }
     }
 
+    /**
+     * closeCSVParser() method is used to release the CSV file once its records are sorted
+     */
+    private void closeCSVParser(String fileName) {
+        try {
+            if (fileReader != null) {
+                fileReader.close();
+            }
+            if (csvParser != null && !csvParser.isClosed()) {
+                csvParser.close();
+            }
+        } catch (IOException e) {
+            log.error("Error occurred when closing CSV resources used for CSV file '" + fileName + "'", e);
+        }
+    }
+
 }
@@ -0,0 +1,359 @@
+/*
+ * Copyright (c)  2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator.csv.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * ExternalRecordSorter sorts CSV records by their timestamps within a bounded amount of memory.
+ * Records are buffered until the buffer exceeds the given size, upon which the buffer is sorted and spilled to a
+ * temporary run file. Once all records are added, the runs are merged while they are read, hence only one record of
+ * each run is held in memory. If there are more runs than the maximum fan-in, groups of consecutive runs are first
+ * merged into larger runs, so that the number of open files and their buffers stay bounded.
+ * Records having the same timestamp are returned in the order they were added.
+ * If all records fit in the buffer, they are sorted in memory without creating any files.
+ */
+public class ExternalRecordSorter implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(ExternalRecordSorter.class);
+    /**
+     * Approximate memory taken by a record and by each of its values, excluding the characters of the values
+     */
+    private static final int RECORD_OVERHEAD = 64;
+    private static final int VALUE_OVERHEAD = 48;
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_MAX_FAN_IN = 64;
+
+    private final long bufferSize;
+    private final int maxFanIn;
+    private final List<SortRecord> buffer = new ArrayList<>();
+    private long bufferedBytes = 0;
+    private final List<File> runFiles = new ArrayList<>();
+    private Iterator<SortRecord> inMemoryRecords;
+    private PriorityQueue<RunReader> runReaders;
+
+    /**
+     * @param bufferSize approximate number of bytes of records held in memory before they are spilled to a file
+     */
+    public ExternalRecordSorter(long bufferSize) {
+        this(bufferSize, DEFAULT_MAX_FAN_IN);
+    }
+
+    /**
+     * @param bufferSize approximate number of bytes of records held in memory before they are spilled to a file
+     * @param maxFanIn   maximum number of run files merged at once
+     */
+    ExternalRecordSorter(long bufferSize, int maxFanIn) {
+        this.bufferSize = bufferSize;
+        this.maxFanIn = Math.max(2, maxFanIn);
+    }
+
+    /**
+     * add() adds a record to be sorted
+     *
+     * @param timestamp timestamp of the record
+     * @param values    values of the record
+     * @throws IOException if the buffer cannot be spilled to a run file
+     */
+    public void add(long timestamp, String[] values) throws IOException {
+        buffer.add(new SortRecord(timestamp, values));
+        bufferedBytes += RECORD_OVERHEAD;
+        for (String value : values) {
+            bufferedBytes += VALUE_OVERHEAD + 2L * value.length();
+        }
+        if (bufferedBytes >= bufferSize) {
+            spill();
+        }
+    }
+
+    /**
+     * finish() is called once all records are added, to start reading the records in the order of their timestamps
+     *
+     * @throws IOException if the run files cannot be read
+     */
+    public void finish() throws IOException {
+        buffer.sort(SortRecord.TIMESTAMP_ORDER);
+        if (runFiles.isEmpty()) {
+            inMemoryRecords = buffer.iterator();
+            return;
+        }
+        if (!buffer.isEmpty()) {
+            spill();
+        }
+        while (runFiles.size() > maxFanIn) {
+            mergePass();
+        }
+        runReaders = openRuns(runFiles);
+        if (log.isDebugEnabled()) {
+            log.debug("Merging " + runFiles.size() + " sorted runs of CSV records.");
+        }
+    }
+
+    /**
+     * mergePass() merges each group of maxFanIn consecutive runs into a single run. Since the groups hold
+     * consecutive runs, records with the same timestamp keep the order they were added.
+     */
+    private void mergePass() throws IOException {
+        List<File> inputRuns = new ArrayList<>(runFiles);
+        runFiles.clear();
+        try {
+            for (int groupStart = 0; groupStart < inputRuns.size(); groupStart += maxFanIn) {
+                List<File> group = inputRuns.subList(groupStart, Math.min(groupStart + maxFanIn,
+                        inputRuns.size()));
+                if (group.size() == 1) {
+                    runFiles.add(group.get(0));
+                    continue;
+                }
+                File mergedRun = createRunFile();
+                PriorityQueue<RunReader> groupReaders = openRuns(group);
+                try (DataOutputStream outputStream = openRunOutput(mergedRun)) {
+                    RunReader runReader;
+                    while ((runReader = groupReaders.poll()) != null) {
+                        writeRecord(outputStream, runReader.current);
+                        if (runReader.advance()) {
+                            groupReaders.add(runReader);
+                        } else {
+                            runReader.close();
+                        }
+                    }
+                } finally {
+                    groupReaders.forEach(RunReader::close);
+                }
+                group.forEach(this::deleteRunFile);
+            }
+        } finally {
+            // run files of groups not merged due to an error are kept, so that close() deletes them
+            for (File inputRun : inputRuns) {
+                if (inputRun.exists() && !runFiles.contains(inputRun)) {
+                    runFiles.add(inputRun);
+                }
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Merged " + inputRuns.size() + " sorted runs of CSV records into " + runFiles.size() +
+                    " runs.");
+        }
+    }
+
+    private PriorityQueue<RunReader> openRuns(List<File> runs) throws IOException {
+        PriorityQueue<RunReader> readers = new PriorityQueue<>(runs.size(), RunReader.ORDER);
+        try {
+            for (int i = 0; i < runs.size(); i++) {
+                RunReader runReader = new RunReader(runs.get(i), i);
+                if (runReader.advance()) {
+                    readers.add(runReader);
+                } else {
+                    runReader.close();
+                }
+            }
+        } catch (IOException e) {
+            readers.forEach(RunReader::close);
+            throw e;
+        }
+        return readers;
+    }
+
+    /**
+     * next() returns the record with the next least timestamp
+     *
+     * @return the next record, or null if all records are read
+     * @throws IOException if a run file cannot be read
+     */
+    public SortRecord next() throws IOException {
+        if (inMemoryRecords != null) {
+            return inMemoryRecords.hasNext() ? inMemoryRecords.next() : null;
+        }
+        if (runReaders == null) {
+            return null;
+        }
+        RunReader runReader = runReaders.poll();
+        if (runReader == null) {
+            return null;
+        }
+        SortRecord record = runReader.current;
+        if (runReader.advance()) {
+            runReaders.add(runReader);
+        } else {
+            runReader.close();
+        }
+        return record;
+    }
+
+    /**
+     * getNoOfRuns() returns the number of runs spilled to files
+     *
+     * @return number of run files
+     */
+    public int getNoOfRuns() {
+        return runFiles.size();
+    }
+
+    /**
+     * close() releases the buffered records and deletes the run files
+     */
+    @Override
+    public void close() {
+        buffer.clear();
+        inMemoryRecords = null;
+        if (runReaders != null) {
+            runReaders.forEach(RunReader::close);
+            runReaders = null;
+        }
+        runFiles.forEach(this::deleteRunFile);
+        runFiles.clear();
+    }
+
+    private void deleteRunFile(File runFile) {
+        try {
+            Files.deleteIfExists(runFile.toPath());
+        } catch (IOException e) {
+            log.error("Error occurred when deleting temporary file '" + runFile.getPath() + "' used to sort " +
+                    "CSV records.", e);
+        }
+    }
+
+    /**
+     * createRunFile() creates a temporary run file, which is deleted by close(). deleteOnExit() is not used as it
+     * keeps an entry for each file until the JVM exits.
+     */
+    private File createRunFile() throws IOException {
+        File runFile = File.createTempFile("csv-sort-run-", ".tmp");
+        runFiles.add(runFile);
+        return runFile;
+    }
+
+    private static DataOutputStream openRunOutput(File runFile) throws IOException {
+        return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(runFile), IO_BUFFER_SIZE));
+    }
+
+    private static void writeRecord(DataOutputStream outputStream, SortRecord record) throws IOException {
+        outputStream.writeLong(record.timestamp);
+        outputStream.writeInt(record.values.length);
+        for (String value : record.values) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            outputStream.writeInt(bytes.length);
+            outputStream.write(bytes);
+        }
+    }
+
+    private void spill() throws IOException {
+        buffer.sort(SortRecord.TIMESTAMP_ORDER);
+        File runFile = createRunFile();
+        try (DataOutputStream outputStream = openRunOutput(runFile)) {
+            for (SortRecord record : buffer) {
+                writeRecord(outputStream, record);
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Spilled " + buffer.size() + " CSV records to temporary file '" + runFile.getPath() + "'.");
+        }
+        buffer.clear();
+        bufferedBytes = 0;
+    }
+
+    /**
+     * SortRecord holds the timestamp and the values of a CSV record
+     */
+    public static class SortRecord {
+        private static final Comparator<SortRecord> TIMESTAMP_ORDER =
+                Comparator.comparingLong(record -> record.timestamp);
+
+        private final long timestamp;
+        private final String[] values;
+
+        public SortRecord(long timestamp, String[] values) {
+            this.timestamp = timestamp;
+            this.values = values;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public String[] getValues() {
+            return values;
+        }
+    }
+
+    /**
+     * RunReader reads the records of a run file one at a time
+     */
+    private static class RunReader implements Closeable {
+        /**
+         * Runs hold consecutive records, hence records with the same timestamp are taken from earlier runs first
+         */
+        private static final Comparator<RunReader> ORDER = Comparator.comparingLong((RunReader reader) ->
+                reader.current.timestamp).thenComparingInt(reader -> reader.index);
+
+        private final DataInputStream inputStream;
+        private final int index;
+        private SortRecord current;
+
+        private RunReader(File runFile, int index) throws IOException {
+            this.inputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(runFile),
+                    IO_BUFFER_SIZE));
+            this.index = index;
+        }
+
+        private boolean advance() throws IOException {
+            long timestamp;
+            try {
+                timestamp = inputStream.readLong();
+            } catch (EOFException e) {
+                current = null;
+                return false;
+            }
+            String[] values = new String[inputStream.readInt()];
+            for (int i = 0; i < values.length; i++) {
+                byte[] bytes = new byte[inputStream.readInt()];
+                inputStream.readFully(bytes);
+                values[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            current = new SortRecord(timestamp, values);
+            return true;
+        }
+
+        @Override
+        public void close() {
+            try {
+                inputStream.close();
+            } catch (IOException e) {
+                log.error("Error occurred when closing a temporary file used to sort CSV records.", e);
+            }
+        }
+    }
+}
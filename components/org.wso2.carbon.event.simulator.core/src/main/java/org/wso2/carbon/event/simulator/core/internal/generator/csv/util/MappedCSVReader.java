@@ -0,0 +1,452 @@
+/*
+ * Copyright (c)  2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator.csv.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wso2.carbon.event.simulator.core.exception.EventGenerationException;
+import org.wso2.carbon.event.simulator.core.internal.bean.CSVSimulationDTO;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.query.api.definition.Attribute;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * MappedCSVReader reads CSV files ordered by timestamp using memory mapped chunks of the file.
+ * Chunks end at line boundaries and up to READ_AHEAD_CHUNKS chunks are parsed ahead using the given executor
+ * service, while their events are returned in the order of the file. If there is no executor service, chunks are
+ * parsed when they are needed. Delimiters are scanned in the mapped bytes, and only the timestamp column and the
+ * columns given by the indices of the CSV simulation are decoded, straight into the types of the stream attributes.
+ * Only delimiters of a single ASCII character are supported, which is checked using isSupported().
+ */
+public class MappedCSVReader implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(MappedCSVReader.class);
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    private static final int BOUNDARY_SCAN_SIZE = 8 * 1024;
+    private static final int READ_AHEAD_CHUNKS = 2;
+    private static final String REGEX_META_CHARACTERS = ".$|()[]{}^?*+\\";
+
+    private final CSVSimulationDTO csvConfig;
+    private final ExecutorService parserExecutorService;
+    private final List<Attribute> streamAttributes;
+    private final FileChannel fileChannel;
+    private final long fileSize;
+    private final byte delimiter;
+    private final int timestampPosition;
+    private final int[] indices;
+    private final int maxColumn;
+    private final Deque<Future<ParsedChunk>> pendingChunks = new ArrayDeque<>();
+    private long nextChunkStart = 0;
+    private ParsedChunk currentChunk;
+    private int eventPosition;
+    private long lineNumber = 0;
+
+    public MappedCSVReader(Path csvFile, CSVSimulationDTO csvConfig, List<Attribute> streamAttributes,
+                           ExecutorService parserExecutorService) throws IOException {
+        this.csvConfig = csvConfig;
+        this.parserExecutorService = parserExecutorService;
+        this.streamAttributes = streamAttributes;
+        this.delimiter = (byte) getDelimiterCharacter(csvConfig.getDelimiter());
+        this.timestampPosition = Integer.parseInt(csvConfig.getTimestampAttribute());
+        this.indices = new int[csvConfig.getIndices().size()];
+        int column = timestampPosition;
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = csvConfig.getIndices().get(i);
+            column = Math.max(column, indices[i]);
+        }
+        this.maxColumn = column;
+        this.fileChannel = FileChannel.open(csvFile, StandardOpenOption.READ);
+        this.fileSize = fileChannel.size();
+        if (log.isDebugEnabled()) {
+            log.debug("Initialize a memory mapped reader for CSV file '" + csvConfig.getFileName() + "'.");
+        }
+    }
+
+    /**
+     * isSupported() checks whether the delimiter of a CSV simulation can be scanned as a single byte.
+     * The delimiter of CSV files ordered by timestamp is a regular expression, hence regex meta characters are
+     * only supported when they are escaped.
+     *
+     * @param csvConfig configuration of CSV simulation
+     * @return true if the CSV file can be read using a MappedCSVReader
+     */
+    public static boolean isSupported(CSVSimulationDTO csvConfig) {
+        return getDelimiterCharacter(csvConfig.getDelimiter()) != -1;
+    }
+
+    private static int getDelimiterCharacter(String delimiter) {
+        if (delimiter == null) {
+            return -1;
+        }
+        char character;
+        if (delimiter.length() == 1 && REGEX_META_CHARACTERS.indexOf(delimiter.charAt(0)) == -1) {
+            character = delimiter.charAt(0);
+        } else if ("\\t".equals(delimiter)) {
+            character = '\t';
+        } else if (delimiter.length() == 2 && delimiter.charAt(0) == '\\'
+                && REGEX_META_CHARACTERS.indexOf(delimiter.charAt(1)) != -1) {
+            character = delimiter.charAt(1);
+        } else {
+            return -1;
+        }
+        return character < 0x80 && character != '\n' && character != '\r' ? character : -1;
+    }
+
+    /**
+     * next() returns the event created from the next valid line of the CSV file.
+     * If the timestamp attribute is not specified, the timestamp of the event is not set.
+     *
+     * @return the next event, or null if the end of the file is reached
+     */
+    public Event next() {
+        while (currentChunk == null || eventPosition >= currentChunk.events.size()) {
+            if (currentChunk != null) {
+                lineNumber += currentChunk.noOfLines;
+            }
+            currentChunk = takeChunk();
+            eventPosition = 0;
+            if (currentChunk == null) {
+                return null;
+            }
+            for (Warning warning : currentChunk.warnings) {
+                log.warn(warning.getMessage(lineNumber));
+            }
+        }
+        return currentChunk.events.get(eventPosition++);
+    }
+
+    /**
+     * getLineNumber() returns the number of lines read before the chunk of the last event
+     *
+     * @return line number
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    private ParsedChunk takeChunk() {
+        try {
+            while (pendingChunks.size() < READ_AHEAD_CHUNKS && nextChunkStart < fileSize) {
+                long chunkStart = nextChunkStart;
+                long chunkEnd = findChunkEnd(chunkStart);
+                nextChunkStart = chunkEnd;
+                pendingChunks.add(submitChunk(chunkStart, chunkEnd));
+            }
+            Future<ParsedChunk> chunk = pendingChunks.poll();
+            return chunk != null ? chunk.get() : null;
+        } catch (IOException | ExecutionException e) {
+            throw new EventGenerationException("Error occurred when reading CSV file '" + csvConfig.getFileName()
+                    + "' to simulate stream '" + csvConfig.getStreamName() + "' using source configuration : "
+                    + csvConfig.toString(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    /**
+     * submitChunk() parses a chunk using the executor service, or right away if the executor service is not
+     * available
+     */
+    private Future<ParsedChunk> submitChunk(long chunkStart, long chunkEnd) throws IOException {
+        if (parserExecutorService != null) {
+            try {
+                return parserExecutorService.submit(() -> parseChunk(chunkStart, chunkEnd));
+            } catch (RejectedExecutionException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("CSV parser executor service is shut down. Parse chunk of CSV file '"
+                            + csvConfig.getFileName() + "' in the simulation thread.");
+                }
+            }
+        }
+        return CompletableFuture.completedFuture(parseChunk(chunkStart, chunkEnd));
+    }
+
+    /**
+     * findChunkEnd() returns the position right after the first line break following CHUNK_SIZE bytes from the
+     * start of the chunk, so that a chunk always holds complete lines
+     */
+    private long findChunkEnd(long chunkStart) throws IOException {
+        long position = chunkStart + CHUNK_SIZE;
+        if (position >= fileSize) {
+            return fileSize;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(BOUNDARY_SCAN_SIZE);
+        while (position < fileSize) {
+            buffer.clear();
+            int bytesRead = fileChannel.read(buffer, position);
+            if (bytesRead <= 0) {
+                break;
+            }
+            for (int i = 0; i < bytesRead; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += bytesRead;
+        }
+        return fileSize;
+    }
+
+    private ParsedChunk parseChunk(long chunkStart, long chunkEnd) throws IOException {
+        MappedByteBuffer buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, chunkStart, chunkEnd - chunkStart);
+        ParsedChunk chunk = new ParsedChunk();
+        int[] fieldStarts = new int[maxColumn + 1];
+        int[] fieldEnds = new int[maxColumn + 1];
+        int limit = buffer.limit();
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            int nextLineStart = lineEnd + 1;
+            if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+            chunk.noOfLines++;
+            parseLine(buffer, lineStart, lineEnd, fieldStarts, fieldEnds, chunk);
+            lineStart = nextLineStart;
+        }
+        return chunk;
+    }
+
+    private void parseLine(ByteBuffer buffer, int lineStart, int lineEnd, int[] fieldStarts, int[] fieldEnds,
+                           ParsedChunk chunk) {
+        int noOfFields = 0;
+        int fieldStart = lineStart;
+        for (int i = lineStart; i <= lineEnd && noOfFields <= maxColumn; i++) {
+            if (i == lineEnd || buffer.get(i) == delimiter) {
+                fieldStarts[noOfFields] = fieldStart;
+                fieldEnds[noOfFields] = i;
+                noOfFields++;
+                fieldStart = i + 1;
+            }
+        }
+        noOfFields = excludeTrailingEmptyFields(buffer, noOfFields, fieldStarts, fieldEnds, lineEnd);
+        long timestamp = -1;
+        if (timestampPosition != -1) {
+            if (timestampPosition >= noOfFields) {
+                chunk.addWarning(buffer, lineStart, lineEnd, "Cannot retrieve data elements from line ",
+                        " for all indices " + csvConfig.getIndices() + ". Line content : ",
+                        ". Ignore line and read next line. Source configuration : " + csvConfig.toString());
+                return;
+            }
+            try {
+                timestamp = parseTimestamp(buffer, fieldStarts[timestampPosition], fieldEnds[timestampPosition]);
+            } catch (NumberFormatException e) {
+                chunk.addWarning(buffer, lineStart, lineEnd, "Invalid data '" + decode(buffer,
+                        fieldStarts[timestampPosition], fieldEnds[timestampPosition]) + "' provided for timestamp"
+                        + "attribute in line ", ". Line content : ", ". Ignore line and read next line. Source "
+                        + "configuration : " + csvConfig.toString());
+                return;
+            }
+        }
+        Object[] eventData = new Object[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            if (indices[i] >= noOfFields) {
+                chunk.addWarning(buffer, lineStart, lineEnd, "Cannot retrieve data elements from line ",
+                        " for all indices " + csvConfig.getIndices() + ". Line content : ",
+                        ". Ignore line and read next line. Source configuration : " + csvConfig.toString());
+                return;
+            }
+            Attribute attribute = streamAttributes.get(i);
+            try {
+                eventData[i] = parseValue(buffer, fieldStarts[indices[i]], fieldEnds[indices[i]], attribute.getType());
+            } catch (NumberFormatException e) {
+                chunk.addWarning(buffer, lineStart, lineEnd, "Error occurred when parsing event data of line ",
+                        " (", "). Attribute value is incompatible with stream attribute. Attribute '"
+                        + attribute.getName() + "' expects a value of type '" + attribute.getType() + "'. Drop event "
+                        + "and create next event. Source configuration : " + csvConfig.toString());
+                return;
+            }
+        }
+        Event event = new Event();
+        event.setTimestamp(timestamp);
+        event.setData(eventData);
+        chunk.events.add(event);
+    }
+
+    /**
+     * Lines used to be split using String.split(), which drops the empty fields at the end of a line. The same is
+     * done here, so that a line having fewer values than the indices is ignored in the same way.
+     */
+    private int excludeTrailingEmptyFields(ByteBuffer buffer, int noOfFields, int[] fieldStarts, int[] fieldEnds,
+                                           int lineEnd) {
+        if (noOfFields == 0) {
+            return 0;
+        }
+        for (int i = fieldEnds[noOfFields - 1]; i < lineEnd; i++) {
+            if (buffer.get(i) != delimiter) {
+                // a non empty field follows the fields read so far
+                return noOfFields;
+            }
+        }
+        while (noOfFields > 1 && fieldStarts[noOfFields - 1] == fieldEnds[noOfFields - 1]) {
+            noOfFields--;
+        }
+        return noOfFields;
+    }
+
+    private long parseTimestamp(ByteBuffer buffer, int start, int end) {
+        while (start < end && isHorizontalSpace(buffer.get(start))) {
+            start++;
+        }
+        while (end > start && isHorizontalSpace(buffer.get(end - 1))) {
+            end--;
+        }
+        Long timestamp = parseLong(buffer, start, end);
+        if (timestamp != null) {
+            return timestamp;
+        }
+        return Long.parseLong(decode(buffer, start, end).replaceAll("(^\\h*)|(\\h*$)", ""));
+    }
+
+    private Object parseValue(ByteBuffer buffer, int start, int end, Attribute.Type type) {
+        switch (type) {
+            case INT:
+                Long value = parseLong(buffer, start, end);
+                if (value != null && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                    return value.intValue();
+                }
+                return Integer.parseInt(decode(buffer, start, end));
+            case LONG:
+                value = parseLong(buffer, start, end);
+                return value != null ? value : Long.parseLong(decode(buffer, start, end));
+            case FLOAT:
+                return Float.parseFloat(decode(buffer, start, end));
+            case DOUBLE:
+                return Double.parseDouble(decode(buffer, start, end));
+            case BOOL:
+                return Boolean.parseBoolean(decode(buffer, start, end));
+            default:
+                return decode(buffer, start, end);
+        }
+    }
+
+    /**
+     * parseLong() parses a decimal number of at most 18 digits, which cannot overflow, directly from the buffer
+     *
+     * @return the number, or null if the value has to be parsed as a string
+     */
+    private static Long parseLong(ByteBuffer buffer, int start, int end) {
+        boolean negative = false;
+        if (start < end && (buffer.get(start) == '-' || buffer.get(start) == '+')) {
+            negative = buffer.get(start) == '-';
+            start++;
+        }
+        if (start == end || end - start > 18) {
+            return null;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return null;
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    private static boolean isHorizontalSpace(byte character) {
+        return character == ' ' || character == '\t';
+    }
+
+    private static String decode(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() {
+        pendingChunks.forEach(chunk -> chunk.cancel(true));
+        pendingChunks.clear();
+        currentChunk = null;
+        try {
+            fileChannel.close();
+        } catch (IOException e) {
+            log.error("Error occurred when closing memory mapped reader of CSV file '" + csvConfig.getFileName()
+                    + "'", e);
+        }
+    }
+
+    /**
+     * ParsedChunk holds the events and the warnings of a chunk of the CSV file
+     */
+    private static class ParsedChunk {
+        private final List<Event> events = new ArrayList<>();
+        private List<Warning> warnings = Collections.emptyList();
+        private int noOfLines = 0;
+
+        private void addWarning(ByteBuffer buffer, int lineStart, int lineEnd, String beforeLineNumber,
+                                String beforeLine, String afterLine) {
+            if (warnings.isEmpty()) {
+                warnings = new ArrayList<>();
+            }
+            warnings.add(new Warning(noOfLines, beforeLineNumber, beforeLine, decode(buffer, lineStart, lineEnd),
+                    afterLine));
+        }
+    }
+
+    /**
+     * Warning holds a warning of an ignored line, which is logged once the line number of the line is known.
+     * The message is built from the text before the line number, the text before the line content, the line
+     * content and the text after it.
+     */
+    static class Warning {
+        private final int lineInChunk;
+        private final String beforeLineNumber;
+        private final String beforeLine;
+        private final String line;
+        private final String afterLine;
+
+        Warning(int lineInChunk, String beforeLineNumber, String beforeLine, String line, String afterLine) {
+            this.lineInChunk = lineInChunk;
+            this.beforeLineNumber = beforeLineNumber;
+            this.beforeLine = beforeLine;
+            this.line = line;
+            this.afterLine = afterLine;
+        }
+
+        String getMessage(long linesBeforeChunk) {
+            return beforeLineNumber + (linesBeforeChunk + lineInChunk) + beforeLine + line + afterLine;
+        }
+    }
+}
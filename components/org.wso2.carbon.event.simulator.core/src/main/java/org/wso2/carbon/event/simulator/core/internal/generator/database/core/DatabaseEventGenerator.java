@@ -38,7 +38,6 @@ import org.wso2.siddhi.core.event.Event;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
 import java.sql.Connection;
-import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -57,7 +56,8 @@ public class DatabaseEventGenerator implements EventGenerator {
     private long currentTimestamp;
     private DBSimulationDTO dbSimulationConfig;
     private Event nextEvent = null;
-    private ResultSet resultSet;
+    private List<DatabaseConnector.DatabaseRecord> page;
+    private int pagePosition;
     private DatabaseConnector databaseConnection;
     private List<Attribute> streamAttributes;
     private List<String> columnNames;
@@ -123,7 +123,7 @@ public class DatabaseEventGenerator implements EventGenerator {
     }
 
     /**
-     * start() method is used to retrieve the resultSet from the data source and to obtain the first event
+     * start() method is used to retrieve the first page of data from the data source and to obtain the first event
      */
     @Override
     public void start() {
@@ -143,32 +143,24 @@ public class DatabaseEventGenerator implements EventGenerator {
         if (startTimestamp == -1 && "-1".equals(dbSimulationConfig.getTimestampAttribute())) {
             startTimestamp = System.currentTimeMillis();
         }
-        try {
-            resultSet = databaseConnection.getDatabaseEventItems(dbSimulationConfig.getTableName(),
-                                                                 dbSimulationConfig.getColumnNames(),
-                                                                 dbSimulationConfig.getTimestampAttribute(),
-                                                                 startTimestamp, endTimestamp);
-            if (resultSet != null && !resultSet.isBeforeFirst()) {
-                throw new EventGenerationException("Table '" + dbSimulationConfig.getTableName()
-                                                           + "' contains  no entries for the columns specified in "
-                                                           + "source configuration " + dbSimulationConfig.toString());
-            }
-            getNextEvent();
-        } catch (SQLException e) {
-            log.error("Error occurred when retrieving resultset from database ' " +
-                              dbSimulationConfig.getDataSourceLocation() + "' to simulate to simulate stream '" +
-                              dbSimulationConfig.getStreamName() + "' using source configuration " +
-                              dbSimulationConfig.toString(), e);
-            throw new SimulatorInitializationException("Error occurred when retrieving resultset from database ' "
-                                                               +dbSimulationConfig.getDataSourceLocation()
-                                                               + "' to simulate to simulate stream '"
-                                                               + dbSimulationConfig.getStreamName()
-                                                               + "' using source configuration "
-                                                               + dbSimulationConfig.toString(), e);
+        List<Attribute.Type> attributeTypes = new ArrayList<>();
+        streamAttributes.forEach(attribute -> attributeTypes.add(attribute.getType()));
+        databaseConnection.prepareDatabaseEventItems(dbSimulationConfig.getTableName(),
+                                                     dbSimulationConfig.getColumnNames(), attributeTypes,
+                                                     dbSimulationConfig.getTimestampAttribute(),
+                                                     startTimestamp, endTimestamp,
+                                                     dbSimulationConfig.getPageSize(),
+                                                     dbSimulationConfig.getFetchSize());
+        page = databaseConnection.getNextPage();
+        pagePosition = 0;
+        if (page.isEmpty()) {
+            throw new EventGenerationException("Table '" + dbSimulationConfig.getTableName()
+                                                       + "' contains  no entries for the columns specified in "
+                                                       + "source configuration " + dbSimulationConfig.toString());
         }
-
-        if (log.isDebugEnabled() && resultSet != null) {
-            log.debug("Retrieved resultset to simulate stream '" + dbSimulationConfig.getStreamName() +
+        getNextEvent();
+        if (log.isDebugEnabled()) {
+            log.debug("Retrieved first page of data to simulate stream '" + dbSimulationConfig.getStreamName() +
                               "' and initialized variable nextEvent.");
         }
         if (log.isDebugEnabled()) {
@@ -240,82 +232,68 @@ public class DatabaseEventGenerator implements EventGenerator {
      */
     @Override
     public void getNextEvent() {
+        /*
+         * if there is a next record, create an event using that record and assign it to nextEvent
+         * else, assign null to nextEvent
+         * */
+        DatabaseConnector.DatabaseRecord record = getNextRecord();
+        if (record == null) {
+            nextEvent = null;
+            return;
+        }
         try {
+            Object[] attributeValues = new Object[streamAttributes.size()];
+            long timestamp = -1;
             /*
-             * if the resultset has a next entry, create an event using that entry and assign it to nextEvent
-             * else, assign null to nextEvent
+             * if timestamp attribute is specified use the value of the respective column as timestamp
+             * else, calculate the timestamp.
+             * timestamp of first event will be currentTimestamp and timestamp of successive event
+             * will be (last event timestamp + interval)
              * */
-            if (resultSet != null) {
-                if (resultSet.next()) {
-                    Object[] attributeValues = new Object[streamAttributes.size()];
-                    long timestamp = -1;
-                    /*
-                     * if timestamp attribute is specified use the value of the respective column as timestamp
-                     * else, calculate the timestamp.
-                     * timestamp of first event will be currentTimestamp and timestamp of successive event
-                     * will be (last event timestamp + interval)
-                     * */
-                    if (dbSimulationConfig.getTimestampAttribute() != null) {
-                        timestamp = resultSet.getLong(dbSimulationConfig.getTimestampAttribute());
-                    } else if (endTimestamp == -1 || currentTimestamp <= endTimestamp) {
-                        // If the start timestamp is not given, then the system timestamp will be used.
-                        if (currentTimestamp == -1) {
-                            currentTimestamp = System.currentTimeMillis();
-                        }
-                        timestamp = currentTimestamp;
-                        currentTimestamp += dbSimulationConfig.getTimestampInterval();
-                    }
-                    if (timestamp != -1) {
-                        int i = 0;
-                        /*
-                         * For each attribute in streamAttributes, use attribute type to determine the getter method
-                         * to be used to access the resultset and use the attribute name to access a particular field
-                         * in resultset
-                         * */
-                        for (Attribute attribute : streamAttributes) {
-                            switch (attribute.getType()) {
-                                case STRING:
-                                    attributeValues[i] = resultSet.getString(columnNames.get(i++));
-                                    break;
-                                case INT:
-                                    attributeValues[i] = resultSet.getInt(columnNames.get(i++));
-                                    break;
-                                case DOUBLE:
-                                    attributeValues[i] = resultSet.getDouble(columnNames.get(i++));
-                                    break;
-                                case FLOAT:
-                                    attributeValues[i] = resultSet.getFloat(columnNames.get(i++));
-                                    break;
-                                case BOOL:
-                                    attributeValues[i] = resultSet.getBoolean(columnNames.get(i++));
-                                    break;
-                                case LONG:
-                                    attributeValues[i] = resultSet.getLong(columnNames.get(i++));
-                                    break;
-                                default:
-//                                this statement is never reaches since attribute type is an enum
-                            }
-                        }
-                    }
-                    nextEvent = EventConverter.eventConverter(streamAttributes, attributeValues, timestamp);
-                } else {
-                    nextEvent = null;
+            if (dbSimulationConfig.getTimestampAttribute() != null) {
+                timestamp = record.getTimestamp();
+            } else if (endTimestamp == -1 || currentTimestamp <= endTimestamp) {
+                // If the start timestamp is not given, then the system timestamp will be used.
+                if (currentTimestamp == -1) {
+                    currentTimestamp = System.currentTimeMillis();
                 }
+                timestamp = currentTimestamp;
+                currentTimestamp += dbSimulationConfig.getTimestampInterval();
             }
+            if (timestamp != -1) {
+                // the values of the record are read using the types of the stream attributes
+                attributeValues = record.getValues();
+            }
+            nextEvent = EventConverter.eventConverter(streamAttributes, attributeValues, timestamp);
         } catch (EventGenerationException e) {
             log.error("Error occurred when generating event using database event "
                               + "generator to simulate stream '" + dbSimulationConfig.getStreamName()
                               + "' using source configuration " + dbSimulationConfig.toString()
                               + "Drop event and create next event. ", e);
             getNextEvent();
-        } catch (SQLException e) {
-            throw new EventGenerationException("Error occurred when accessing result set to simulate to simulate "
-                                                       + "stream '" + dbSimulationConfig.getStreamName()
-                                                       + "' using source configuration "
-                                                       + dbSimulationConfig.toString(), e);
         }
     }
 
+    /**
+     * getNextRecord() returns the next record of the current page, retrieving the next page once the current page
+     * is consumed
+     *
+     * @return the next record, or null if there are no more records
+     */
+    private DatabaseConnector.DatabaseRecord getNextRecord() {
+        if (page == null) {
+            return null;
+        }
+        if (pagePosition >= page.size()) {
+            page = page.isEmpty() ? page : databaseConnection.getNextPage();
+            pagePosition = 0;
+            if (page.isEmpty()) {
+                return null;
+            }
+        }
+        return page.get(pagePosition++);
+    }
+
     /**
      * getStreamName() method returns the name of the stream to which events are generated
      *
@@ -481,6 +459,19 @@ public class DatabaseEventGenerator implements EventGenerator {
                     }
                 }
             }
+            for (String sizeProperty : Arrays.asList(EventSimulatorConstants.PAGE_SIZE,
+                                                     EventSimulatorConstants.FETCH_SIZE)) {
+                if (checkAvailability(sourceConfig, sizeProperty) && sourceConfig.getInt(sizeProperty) <= 0) {
+                    throw new InvalidConfigException(
+                                    ResourceNotFoundException.ResourceType.DATABASE_SIMULATION,
+                                    sourceConfig.getString(sizeProperty),
+                                    "Property '" + sizeProperty + "' must be a positive value for database " +
+                                    "simulation of stream '" +
+                                    sourceConfig.getString(EventSimulatorConstants.STREAM_NAME) +
+                                    "'. Invalid source configuration in '" + simulationName + "' simulation.\n" +
+                                    SourceConfigLogger.getLoggedEnabledSourceConfig(sourceConfig));
+                }
+            }
             if (sourceConfig.has(EventSimulatorConstants.COLUMN_NAMES_LIST)) {
                 if (!sourceConfig.isNull(EventSimulatorConstants.COLUMN_NAMES_LIST)) {
                     if (!sourceConfig.getString(EventSimulatorConstants.COLUMN_NAMES_LIST).isEmpty()) {
@@ -591,6 +582,12 @@ public class DatabaseEventGenerator implements EventGenerator {
             dbSimulationDTO.setTableName(sourceConfig.getString(EventSimulatorConstants.TABLE_NAME));
             dbSimulationDTO.setTimestampAttribute(timestampAttribute);
             dbSimulationDTO.setTimestampInterval(timestampInterval);
+            dbSimulationDTO.setPageSize(checkAvailability(sourceConfig, EventSimulatorConstants.PAGE_SIZE)
+                                                ? sourceConfig.getInt(EventSimulatorConstants.PAGE_SIZE)
+                                                : EventSimulatorConstants.DEFAULT_PAGE_SIZE);
+            dbSimulationDTO.setFetchSize(checkAvailability(sourceConfig, EventSimulatorConstants.FETCH_SIZE)
+                                                 ? sourceConfig.getInt(EventSimulatorConstants.FETCH_SIZE)
+                                                 : EventSimulatorConstants.DEFAULT_FETCH_SIZE);
             if (sourceConfig.isNull(EventSimulatorConstants.COLUMN_NAMES_LIST)) {
                 List<String> columns = new ArrayList<>();
                 streamAttributes.forEach(attribute -> columns.add(attribute.getName()));
@@ -26,6 +26,7 @@ import org.wso2.carbon.event.simulator.core.exception.EventGenerationException;
 import org.wso2.carbon.event.simulator.core.exception.SimulatorInitializationException;
 import org.wso2.carbon.event.simulator.core.util.LogEncoder;
 import org.wso2.carbon.event.simulator.core.model.DBConnectionModel;
+import org.wso2.siddhi.query.api.definition.Attribute;
 
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
@@ -33,62 +34,108 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 
 /**
  * DatabaseConnector is a utility class performs the following tasks
  * 1. Load the driver
  * 2. Connect to the database
- * 3. Create and execute a SELECT query
- * 4. Return a result set containing data required for database event simulation
+ * 3. Create SELECT queries and execute them page by page
+ * 4. Return pages of records containing data required for database event simulation
  * 5. Close database connection
  */
 public class DatabaseConnector {
 
     private static final Logger log = Logger.getLogger(DatabaseConnector.class);
-    private static final String query_attribute_OnlyStartTime = "SELECT %s,%s FROM %s WHERE %s >= %d ORDER BY ABS(%s);";
-    private static final String query_attribute_WithBothLimits = "SELECT %s,%s FROM %s WHERE %s >= %d AND %s <= %d " +
-            "ORDER BY ABS(%s);";
-    private static final String query_interval = "SELECT %s FROM %s;";
+    private static final String query_attribute_FirstPage = "SELECT %s,%s FROM %s WHERE %s >= ?%s ORDER BY %s";
+    private static final String query_attribute_NextPage = "SELECT %s,%s FROM %s WHERE %s > ?%s ORDER BY %s";
+    private static final String query_attribute_SameTimestamp = "SELECT %s,%s FROM %s WHERE %s = ?";
+    private static final String query_attribute_EndTime = " AND %s <= ?";
+    private static final String query_interval = "SELECT %s FROM %s";
+    private static final long PAGE_FETCHER_TIMEOUT_SECONDS = 5;
     private HikariDataSource dataSource;
     private Connection dbConnection;
     private String dataSourceLocation;
     private PreparedStatement preparedStatement = null;
+    private PreparedStatement nextPageStatement = null;
+    private PreparedStatement sameTimestampStatement = null;
     private ResultSet resultSet = null;
+    private ExecutorService pageFetcher = null;
+    private Future<List<DatabaseRecord>> nextPage = null;
+    private List<Attribute.Type> attributeTypes;
+    private String timestampAttribute;
+    private long timestampStartTime;
+    private long timestampEndTime;
+    private int pageSize;
+    private Long lastTimestamp = null;
+    private boolean lastPage = false;
 
 
     public DatabaseConnector() {
     }
 
     /**
-     * getDatabaseEvenItems method is used to obtain data from a database
+     * prepareDatabaseEventItems method is used to prepare the retrieval of data from a database.
+     * The data is retrieved in pages of at most pageSize rows using getNextPage(). If a timestamp attribute is
+     * specified, each page is retrieved using a query that continues from the last timestamp of the previous page,
+     * so that an index on the timestamp column can be used and no cursor is held open between pages.
      *
      * @param tableName          table from which data must be retrieved
      * @param columnNames        list of columns to be retrieved
+     * @param attributeTypes     types of the stream attributes to which the columns are mapped
      * @param timestampAttribute column containing timestamp
      * @param timestampStartTime least possible timestamp
      * @param timestampEndTime   maximum possible timestamp
-     * @return resultset containing data needed for event simulation
+     * @param pageSize           maximum number of rows retrieved by a page
+     * @param fetchSize          number of rows fetched from the database in a round trip
      */
-    public ResultSet getDatabaseEventItems(String tableName, List<String> columnNames, String timestampAttribute,
-                                           long timestampStartTime, long timestampEndTime) {
+    public void prepareDatabaseEventItems(String tableName, List<String> columnNames,
+                                          List<Attribute.Type> attributeTypes, String timestampAttribute,
+                                          long timestampStartTime, long timestampEndTime, int pageSize,
+                                          int fetchSize) {
         /*
          * check whether,
          * 1. database connection is established
          * 2. table exists
          * 3. column names are valid
          *
-         * if successful, create an sql query and retrieve data for event generation
+         * if successful, create the sql queries needed to retrieve data for event generation
          * else throw an exception
          * */
         try {
             if (dbConnection != null && !dbConnection.isClosed()) {
                 if (checkTableExists(tableName) && validateColumns(tableName, columnNames)) {
+                    this.attributeTypes = attributeTypes;
+                    this.timestampAttribute = timestampAttribute;
+                    this.timestampStartTime = timestampStartTime;
+                    this.timestampEndTime = timestampEndTime;
+                    this.pageSize = pageSize;
+                    this.lastTimestamp = null;
+                    this.lastPage = false;
+                    /*
+                     * some drivers, such as the PostgreSQL driver, only honour the fetch size within a transaction.
+                     * the connection is only used to read data, hence auto commit can be disabled. pages retrieved
+                     * using the timestamp attribute are committed one by one, so that a read transaction is not held
+                     * open for the whole simulation. without a timestamp attribute the single result set needs its
+                     * transaction until it is closed.
+                     * */
+                    dbConnection.setAutoCommit(false);
                     prepareSQLstatement(tableName, columnNames, timestampAttribute, timestampStartTime,
-                            timestampEndTime);
-                    this.resultSet = preparedStatement.executeQuery();
+                            timestampEndTime, fetchSize);
+                    pageFetcher = Executors.newSingleThreadExecutor(runnable -> {
+                        Thread thread = new Thread(runnable, "DatabasePageFetcher-" + tableName);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
                 }
             } else {
                 throw new EventGenerationException("Unable to connect to source '" + dataSourceLocation + "' to " +
@@ -109,7 +156,156 @@ public class DatabaseConnector {
                     "timestamp start time : '" + timestampStartTime + "' and timestamp end time : '" +
                     timestampEndTime + "'. ", e);
         }
-        return resultSet;
+    }
+
+    /**
+     * getNextPage method returns the next page of data. While the page returned is used, the page following it is
+     * retrieved in the background.
+     *
+     * @return list of records, which is empty if there are no more records
+     */
+    public List<DatabaseRecord> getNextPage() {
+        if (pageFetcher == null) {
+            return Collections.emptyList();
+        }
+        try {
+            if (nextPage == null) {
+                nextPage = pageFetcher.submit(this::fetchPage);
+            }
+            List<DatabaseRecord> page = nextPage.get();
+            nextPage = lastPage ? null : pageFetcher.submit(this::fetchPage);
+            return page;
+        } catch (ExecutionException e) {
+            log.error("Error occurred when retrieving data from source '" + dataSourceLocation + "'. ", e.getCause());
+            closeConnection();
+            throw new EventGenerationException("Error occurred when retrieving data from source '" +
+                    dataSourceLocation + "'. ", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * fetchPage method retrieves the page following the last page retrieved
+     *
+     * @return list of records of the page
+     * @throws SQLException if an error occurs when accessing the database
+     */
+    private List<DatabaseRecord> fetchPage() throws SQLException {
+        List<DatabaseRecord> page = new ArrayList<>();
+        if (lastPage) {
+            return page;
+        }
+        if (timestampAttribute == null) {
+            /*
+             * rows are not ordered when a timestamp attribute is not specified. hence a single result set is used,
+             * from which the rows are read page by page.
+             * */
+            if (resultSet == null) {
+                resultSet = preparedStatement.executeQuery();
+            }
+            readRecords(resultSet, page, pageSize, false);
+            lastPage = page.size() < pageSize;
+            return page;
+        }
+        try {
+            fetchTimestampPage(page);
+            dbConnection.commit();
+        } catch (SQLException e) {
+            dbConnection.rollback();
+            throw e;
+        }
+        return page;
+    }
+
+    /**
+     * fetchTimestampPage method retrieves the rows following the last timestamp of the previous page, ordered by
+     * the timestamp attribute
+     *
+     * @param page list to which the records of the page are added
+     * @throws SQLException if an error occurs when accessing the database
+     */
+    private void fetchTimestampPage(List<DatabaseRecord> page) throws SQLException {
+        PreparedStatement statement;
+        if (lastTimestamp == null) {
+            statement = preparedStatement;
+            statement.setLong(1, timestampStartTime);
+        } else {
+            statement = nextPageStatement;
+            statement.setLong(1, lastTimestamp);
+        }
+        if (timestampEndTime != -1) {
+            statement.setLong(2, timestampEndTime);
+        }
+        try (ResultSet pageResults = statement.executeQuery()) {
+            readRecords(pageResults, page, pageSize, true);
+        }
+        if (page.size() < pageSize) {
+            lastPage = true;
+            return;
+        }
+        /*
+         * the next page only contains timestamps greater than the last timestamp of this page. Hence the rows having
+         * the last timestamp are removed from this page and all of them are retrieved using a separate query.
+         * */
+        lastTimestamp = removeLastTimestamp(page);
+        sameTimestampStatement.setLong(1, lastTimestamp);
+        try (ResultSet sameTimestampResults = sameTimestampStatement.executeQuery()) {
+            readRecords(sameTimestampResults, page, Integer.MAX_VALUE, true);
+        }
+    }
+
+    /**
+     * readRecords method reads the rows of a result set into records using the types of the stream attributes
+     */
+    private void readRecords(ResultSet results, List<DatabaseRecord> page, int maxRecords, boolean hasTimestamp)
+            throws SQLException {
+        int offset = hasTimestamp ? 2 : 1;
+        while (page.size() < maxRecords && results.next()) {
+            Object[] values = new Object[attributeTypes.size()];
+            for (int i = 0; i < values.length; i++) {
+                switch (attributeTypes.get(i)) {
+                    case STRING:
+                        values[i] = results.getString(i + offset);
+                        break;
+                    case INT:
+                        values[i] = results.getInt(i + offset);
+                        break;
+                    case DOUBLE:
+                        values[i] = results.getDouble(i + offset);
+                        break;
+                    case FLOAT:
+                        values[i] = results.getFloat(i + offset);
+                        break;
+                    case BOOL:
+                        values[i] = results.getBoolean(i + offset);
+                        break;
+                    case LONG:
+                        values[i] = results.getLong(i + offset);
+                        break;
+                    default:
+//                        this statement is never reaches since attribute type is an enum
+                }
+            }
+            page.add(new DatabaseRecord(hasTimestamp ? results.getLong(1) : -1, values));
+        }
+    }
+
+    /**
+     * removeLastTimestamp method removes the records having the last timestamp of a page ordered by timestamp
+     *
+     * @param page records ordered by timestamp
+     * @return the last timestamp of the page
+     */
+    static long removeLastTimestamp(List<DatabaseRecord> page) {
+        long lastTimestamp = page.get(page.size() - 1).getTimestamp();
+        int size = page.size();
+        while (size > 0 && page.get(size - 1).getTimestamp() == lastTimestamp) {
+            size--;
+        }
+        page.subList(size, page.size()).clear();
+        return lastTimestamp;
     }
 
     /**
@@ -224,36 +420,40 @@ public class DatabaseConnector {
     }
 
     /**
-     * PrepareSQLstatement() method creates the prepared statement needed to retrieve resultset
+     * PrepareSQLstatement() method creates the prepared statements needed to retrieve pages of data
      *
      * @param tableName          table from which data must be retrieved
      * @param columnNames        list of columns to be retrieved
      * @param timestampAttribute column containing timestamp
      * @param timestampStartTime least possible value for timestamp
      * @param timestampEndTime   maximum possible value for timestamp
+     * @param fetchSize          number of rows fetched from the database in a round trip
      */
     @SuppressWarnings("SQL_PREPARED_STATEMENT_GENERATED_FROM_NONCONSTANT_STRING")
     private void prepareSQLstatement(String tableName, List<String> columnNames, String timestampAttribute,
-                                     long timestampStartTime, long timestampEndTime) {
+                                     long timestampStartTime, long timestampEndTime, int fetchSize) {
         /*
-         * create a prepared statement based on the timestamp start time and timestamp end time provided
-         * if an exception occurs while creating the prepared statement close resources and throw an exception
+         * create the prepared statements based on the timestamp end time provided. the timestamps are bound as
+         * parameters of the statements when retrieving pages.
+         * if an exception occurs while creating the prepared statements close resources and throw an exception
          * */
         String columns = String.join(",", columnNames);
         try {
             if (timestampAttribute == null) {
-                this.preparedStatement = dbConnection.prepareStatement(String.format(query_interval, columns,
-                        tableName));
+                this.preparedStatement = dbConnection.prepareStatement(createIntervalQuery(tableName, columns));
+                this.preparedStatement.setFetchSize(fetchSize);
             } else {
-                if (timestampEndTime == -1) {
-                    this.preparedStatement = dbConnection.prepareStatement(String.format(query_attribute_OnlyStartTime,
-                            timestampAttribute, columns, tableName, timestampAttribute, timestampStartTime,
-                            timestampAttribute));
-                } else {
-                    this.preparedStatement = dbConnection.prepareStatement(String.format(query_attribute_WithBothLimits,
-                            timestampAttribute, columns, tableName, timestampAttribute, timestampStartTime,
-                            timestampAttribute, timestampEndTime, timestampAttribute));
+                this.preparedStatement = dbConnection.prepareStatement(createPageQuery(tableName, columns,
+                        timestampAttribute, true, timestampEndTime != -1));
+                this.nextPageStatement = dbConnection.prepareStatement(createPageQuery(tableName, columns,
+                        timestampAttribute, false, timestampEndTime != -1));
+                this.sameTimestampStatement = dbConnection.prepareStatement(createSameTimestampQuery(tableName,
+                        columns, timestampAttribute));
+                for (PreparedStatement statement : Arrays.asList(preparedStatement, nextPageStatement)) {
+                    statement.setMaxRows(pageSize);
+                    statement.setFetchSize(Math.min(fetchSize, pageSize));
                 }
+                sameTimestampStatement.setFetchSize(fetchSize);
             }
         } catch (SQLException e) {
             log.error("Error occurred when forming prepared statement for the configuration table name : '" +
@@ -268,6 +468,34 @@ public class DatabaseConnector {
         }
     }
 
+    /**
+     * createPageQuery() creates the query used to retrieve a page of rows ordered by the timestamp column.
+     * The first page starts from the timestamp start time and the following pages start after the last timestamp
+     * of the previous page.
+     *
+     * @param tableName          table from which data must be retrieved
+     * @param columns            comma separated columns to be retrieved
+     * @param timestampAttribute column containing timestamp
+     * @param firstPage          true if the query retrieves the first page
+     * @param hasEndTime         true if a timestamp end time is specified
+     * @return SQL query
+     */
+    static String createPageQuery(String tableName, String columns, String timestampAttribute, boolean firstPage,
+                                  boolean hasEndTime) {
+        String endTimeCondition = hasEndTime ? String.format(query_attribute_EndTime, timestampAttribute) : "";
+        return String.format(firstPage ? query_attribute_FirstPage : query_attribute_NextPage, timestampAttribute,
+                columns, tableName, timestampAttribute, endTimeCondition, timestampAttribute);
+    }
+
+    static String createSameTimestampQuery(String tableName, String columns, String timestampAttribute) {
+        return String.format(query_attribute_SameTimestamp, timestampAttribute, columns, tableName,
+                timestampAttribute);
+    }
+
+    static String createIntervalQuery(String tableName, String columns) {
+        return String.format(query_interval, columns, tableName);
+    }
+
     public static HikariDataSource initializeDatasource(DBConnectionModel connectionDetails) {
         Properties connectionProperties = new Properties();
         String url = connectionDetails.getDataSourceLocation();
@@ -323,17 +551,25 @@ public class DatabaseConnector {
      * closeConnection method releases the database sources acquired.
      * <p>
      * It performs the following tasks
-     * 1. Close resultset obtained by querying the database
-     * 2. Close prepared statement used to query the database
+     * 1. Stop retrieving pages in the background
+     * 2. Close resultset and prepared statements used to query the database
      * 3. Close the database connection established
      */
     public void closeConnection() {
+        stopPageFetcher();
         try {
+            if (dbConnection != null && !dbConnection.isClosed() && !dbConnection.getAutoCommit()) {
+                dbConnection.rollback();
+            }
             if (resultSet != null) {
                 resultSet.close();
+                resultSet = null;
             }
-            if (preparedStatement != null) {
-                preparedStatement.close();
+            for (PreparedStatement statement : Arrays.asList(preparedStatement, nextPageStatement,
+                    sameTimestampStatement)) {
+                if (statement != null) {
+                    statement.close();
+                }
             }
             if (dbConnection != null && !dbConnection.isClosed()) {
                 dbConnection.close();
@@ -350,4 +586,65 @@ public class DatabaseConnector {
         }
     }
 
+    /**
+     * stopPageFetcher method stops retrieving pages in the background and waits for a page being retrieved, so that
+     * the statements and the connection used by it are not closed while in use. If the page is not retrieved
+     * within the timeout, its statements are cancelled.
+     */
+    private void stopPageFetcher() {
+        if (pageFetcher == null) {
+            return;
+        }
+        if (nextPage != null) {
+            nextPage.cancel(true);
+            nextPage = null;
+        }
+        pageFetcher.shutdownNow();
+        try {
+            if (!pageFetcher.awaitTermination(PAGE_FETCHER_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                for (PreparedStatement statement : Arrays.asList(preparedStatement, nextPageStatement,
+                        sameTimestampStatement)) {
+                    if (statement != null && !statement.isClosed()) {
+                        statement.cancel();
+                    }
+                }
+                if (!pageFetcher.awaitTermination(PAGE_FETCHER_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    log.warn("Retrieving a page from data source '" + dataSourceLocation + "' did not stop within " +
+                            (2 * PAGE_FETCHER_TIMEOUT_SECONDS) + " seconds. Closing its database resources.");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException e) {
+            log.warn("Error occurred when cancelling the retrieval of a page from data source '" +
+                    dataSourceLocation + "'. ", e);
+        }
+        pageFetcher = null;
+    }
+
+    /**
+     * DatabaseRecord holds the timestamp and the attribute values read from a row
+     */
+    public static class DatabaseRecord {
+        private final long timestamp;
+        private final Object[] values;
+
+        public DatabaseRecord(long timestamp, Object[] values) {
+            this.timestamp = timestamp;
+            this.values = values;
+        }
+
+        /**
+         * getTimestamp() returns the value of the timestamp column
+         *
+         * @return timestamp, or -1 if a timestamp attribute is not specified
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public Object[] getValues() {
+            return values;
+        }
+    }
 }
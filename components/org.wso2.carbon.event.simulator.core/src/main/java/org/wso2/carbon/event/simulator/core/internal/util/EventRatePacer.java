@@ -0,0 +1,156 @@
+/*
+ * Copyright (c)  2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.util;
+
+import org.wso2.carbon.event.simulator.core.internal.bean.LoadProfileDTO;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * EventRatePacer is used to send events at the rate given by a load profile. The number of events due at any point
+ * of the simulation is derived from the rate profile, so that a sender which falls behind catches up instead of
+ * accumulating the delay.
+ */
+public class EventRatePacer {
+    /**
+     * Waits shorter than this are spun, since parking a thread is not precise enough for them.
+     */
+    private static final long SPIN_THRESHOLD_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final LoadProfileDTO.RateProfile rateProfile;
+    private final double startRate;
+    private final double endRate;
+    private final double profileDuration;
+    private final int noOfSteps;
+    private long startTime;
+
+    public EventRatePacer(LoadProfileDTO loadProfile) {
+        this.rateProfile = loadProfile.getRateProfile();
+        this.startRate = loadProfile.getEventsPerSecond();
+        this.endRate = rateProfile == LoadProfileDTO.RateProfile.CONSTANT
+                ? startRate : loadProfile.getEndEventsPerSecond();
+        this.profileDuration = loadProfile.getProfileDuration() / 1000d;
+        this.noOfSteps = Math.max(loadProfile.getNoOfSteps(), 1);
+    }
+
+    /**
+     * start() marks the beginning of the simulation
+     */
+    public void start() {
+        startTime = System.nanoTime();
+    }
+
+    /**
+     * delay() excludes the given time, such as the time a simulation was paused, from the simulation
+     *
+     * @param nanos time to exclude in nanoseconds
+     */
+    public void delay(long nanos) {
+        startTime += nanos;
+    }
+
+    /**
+     * awaitEvents() blocks until the given number of events are due since the start of the simulation
+     *
+     * @param noOfEvents number of events sent so far including the events about to be sent
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public void awaitEvents(long noOfEvents) throws InterruptedException {
+        while (true) {
+            double elapsedSeconds = (System.nanoTime() - startTime) / NANOS_PER_SECOND;
+            double deficit = noOfEvents - getEventsDue(elapsedSeconds);
+            if (deficit <= 0) {
+                return;
+            }
+            long waitNanos = (long) (deficit / getRate(elapsedSeconds) * NANOS_PER_SECOND);
+            if (waitNanos > SPIN_THRESHOLD_NANOS) {
+                LockSupport.parkNanos(waitNanos - SPIN_THRESHOLD_NANOS / 2);
+            } else {
+                Thread.yield();
+            }
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * getRate() gives the target rate at the given point of the simulation
+     *
+     * @param elapsedSeconds time elapsed since the start of the simulation in seconds
+     * @return target number of events per second
+     */
+    public double getRate(double elapsedSeconds) {
+        if (elapsedSeconds >= profileDuration) {
+            return endRate;
+        }
+        switch (rateProfile) {
+            case RAMP:
+                return startRate + (endRate - startRate) * elapsedSeconds / profileDuration;
+            case STEP:
+                return getStepRate((int) (elapsedSeconds / getStepDuration()));
+            default:
+                return startRate;
+        }
+    }
+
+    /**
+     * getEventsDue() gives the number of events to be sent up to the given point of the simulation, which is the
+     * rate integrated over the elapsed time
+     *
+     * @param elapsedSeconds time elapsed since the start of the simulation in seconds
+     * @return number of events due
+     */
+    public double getEventsDue(double elapsedSeconds) {
+        if (rateProfile == LoadProfileDTO.RateProfile.CONSTANT) {
+            return startRate * elapsedSeconds;
+        }
+        double profileSeconds = Math.min(elapsedSeconds, profileDuration);
+        double eventsDue;
+        if (rateProfile == LoadProfileDTO.RateProfile.RAMP) {
+            eventsDue = startRate * profileSeconds
+                    + (endRate - startRate) * profileSeconds * profileSeconds / (2 * profileDuration);
+        } else {
+            double stepDuration = getStepDuration();
+            int step = Math.min((int) (profileSeconds / stepDuration), noOfSteps - 1);
+            eventsDue = 0;
+            for (int i = 0; i < step; i++) {
+                eventsDue += getStepRate(i) * stepDuration;
+            }
+            eventsDue += getStepRate(step) * (profileSeconds - step * stepDuration);
+        }
+        if (elapsedSeconds > profileDuration) {
+            eventsDue += endRate * (elapsedSeconds - profileDuration);
+        }
+        return eventsDue;
+    }
+
+    private double getStepDuration() {
+        return profileDuration / noOfSteps;
+    }
+
+    private double getStepRate(int step) {
+        if (noOfSteps == 1) {
+            return startRate;
+        }
+        return startRate + (endRate - startRate) * Math.min(step, noOfSteps - 1) / (noOfSteps - 1);
+    }
+}
@@ -39,6 +39,15 @@ public class EventSimulatorConstants {
     public static final String SIMULATION_TIME_INTERVAL = "timeInterval";
     public static final String NUMBER_OF_EVENTS_REQUIRED = "noOfEvents";
 
+    //Load generation constants
+    public static final String LOAD_PROFILE = "loadProfile";
+    public static final String RATE_PROFILE = "rateProfile";
+    public static final String EVENTS_PER_SECOND = "eventsPerSecond";
+    public static final String END_EVENTS_PER_SECOND = "endEventsPerSecond";
+    public static final String RATE_PROFILE_DURATION = "profileDuration";
+    public static final String NUMBER_OF_STEPS = "noOfSteps";
+    public static final String BATCH_SIZE = "batchSize";
+
     public static final String JSON_CONFIGURATION_RESOURCE_NAME = "JSON configuration";
     public static final String PROPERTIES_RESOURCE_NAME = "properties";
 
@@ -61,6 +70,8 @@ public class EventSimulatorConstants {
     public static final String DELIMITER = "delimiter";
     public static final String IS_ORDERED = "isOrdered";
     public static final String INDICES = "indices";
+    public static final String SORT_BUFFER_SIZE = "sortBufferSize";
+    public static final long DEFAULT_SORT_BUFFER_SIZE = 64 * 1024 * 1024;
 
 
     //Random data simulation constants
@@ -81,4 +92,8 @@ public class EventSimulatorConstants {
     public static final String PASSWORD = "password";
     public static final String TABLE_NAME = "tableName";
     public static final String COLUMN_NAMES_LIST = "columnNamesList";
+    public static final String PAGE_SIZE = "pageSize";
+    public static final String FETCH_SIZE = "fetchSize";
+    public static final int DEFAULT_PAGE_SIZE = 10000;
+    public static final int DEFAULT_FETCH_SIZE = 1000;
 }
@@ -24,16 +24,21 @@ import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.wso2.carbon.event.simulator.core.exception.*;
+import org.wso2.carbon.event.simulator.core.internal.bean.LoadProfileDTO;
 import org.wso2.carbon.event.simulator.core.internal.bean.SimulationPropertiesDTO;
 import org.wso2.carbon.event.simulator.core.internal.generator.EventGenerator;
+import org.wso2.carbon.event.simulator.core.internal.generator.EventGeneratorMerger;
 import org.wso2.carbon.event.simulator.core.internal.util.EventGeneratorFactoryImpl;
+import org.wso2.carbon.event.simulator.core.internal.util.EventRatePacer;
 import org.wso2.carbon.event.simulator.core.internal.util.EventSimulatorConstants;
 import org.wso2.carbon.event.simulator.core.util.LogEncoder;
 import org.wso2.carbon.stream.processor.common.exception.ResourceNotFoundException;
+import org.wso2.siddhi.core.event.Event;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.locks.ReentrantLock;
 import javax.annotation.concurrent.NotThreadSafe;
@@ -245,6 +250,7 @@ public class EventSimulator implements Runnable {
                     }
                 }
             }
+            createLoadProfileDTO(simulationPropertiesConfig);
         } catch (JSONException e) {
             log.error("Error occurred when accessing simulation configuration of simulation '" +
                         simulationPropertiesConfig.getString(EventSimulatorConstants.EVENT_SIMULATION_NAME) +
@@ -263,68 +269,61 @@ public class EventSimulator implements Runnable {
     /**
      * eventSimulation() method is responsible for sending events belonging to one simulation configuration in the
      * order of their timestamps
-     * Events will be sent at time intervals equal to the delay
+     * All events having the least timestamp are sent together, and the next timestamp is sent after a delay equal
+     * to the time interval of the simulation
      */
     @SuppressWarnings("SWL_SLEEP_WITH_LOCK_HELD")
     private void eventSimulation() {
-        long minTimestamp;
-        EventGenerator generator;
+        EventGeneratorMerger merger = new EventGeneratorMerger(generators);
         int eventsRemaining = simulationProperties.getNoOfEventsRequired();
         try {
+            merger.reset();
             while (!status.equals(Status.STOP) && !status.equals(Status.PENDING_STOP)) {
 //                if the simulator is paused, wait till it is resumed
                 if (status.equals(Status.PAUSE)) {
                     lock.acquire();
                     lock.release();
+                    // generators may have changed the timestamps of their next events when resumed
+                    merger.reset();
                 }
 
                 /*
                  * if there is no limit to the number of events to be sent or is the number of event remaining to be
-                 * sent is > 0, send an event, else stop event simulation
+                 * sent is > 0, send the events with the least timestamp, else stop event simulation
                  * */
                 if (eventsRemaining == -1 || eventsRemaining > 0) {
-                    minTimestamp = -1L;
-                    generator = null;
-                    /*
-                     * 1. for each event generator peek the next event (i.e. the next event with least timestamp)
-                     * 2. take the first event generator will a not null nextEvent as the first refferal value for
-                     * generator with minimum timestamp event, and take the events timestamp as the minimum
-                     * timestamp refferal value
-                     * 3. then compare the timestamp of the remaining not null nextEvents with the minimum timestamp
-                     * and update the minimum timestamp refferal value accordingly.
-                     * 4. once all generators are iterated and the event with minimum timestamp if obtained, send
-                     * event.
-                     * 5. if all generators has nextEvent == null, then stop event simulation
-                     * */
                     lockStop.lock();
                     try {
-                        for (EventGenerator eventGenerator : generators) {
-                            if (eventGenerator.peek() != null) {
-                                if (minTimestamp == -1L) {
-                                    minTimestamp = eventGenerator.peek().getTimestamp();
-                                    generator = eventGenerator;
-                                } else if (eventGenerator.peek().getTimestamp() < minTimestamp) {
-                                    minTimestamp = eventGenerator.peek().getTimestamp();
-                                    generator = eventGenerator;
+                        EventGenerator generator = merger.peek();
+                        if (generator == null) {
+                            // all generators are exhausted
+                            break;
+                        }
+                        long timestamp = generator.peek().getTimestamp();
+                        do {
+                            Event[] events = merger.pollBatch(eventsRemaining == -1
+                                    ? Integer.MAX_VALUE : eventsRemaining, true);
+                            if (log.isDebugEnabled()) {
+                                for (Event event : events) {
+                                    log.debug("Input Event (Simulation : '" + simulationName + "') : "
+                                                      + Arrays.deepToString(event.getData()));
                                 }
+                            }
+                            if (events.length == 1) {
+                                EventSimulatorDataHolder.getInstance().getEventStreamService()
+                                        .pushEvent(generator.getSiddhiAppName(), generator.getStreamName(),
+                                                   events[0]);
                             } else {
-                                generator = null;
+                                EventSimulatorDataHolder.getInstance().getEventStreamService()
+                                        .pushEvents(generator.getSiddhiAppName(), generator.getStreamName(),
+                                                    events);
                             }
-                        }
-                        if (minTimestamp >= 0L && generator != null) {
-                            if (log.isDebugEnabled()) {
-                                log.debug("Input Event (Simulation : '" + simulationName + "') : "
-                                                  + Arrays.deepToString(generator.peek().getData()));
+                            if (eventsRemaining > 0) {
+                                eventsRemaining -= events.length;
                             }
-                            EventSimulatorDataHolder.getInstance().getEventStreamService()
-                                    .pushEvent(generator.getSiddhiAppName(), generator.getStreamName(),
-                                               generator.poll());
-                        } else {
-                            break;
-                        }
-                        if (eventsRemaining > 0) {
-                            eventsRemaining--;
-                        }
+                            generator = merger.peek();
+                        } while (generator != null && eventsRemaining != 0
+                                && generator.peek().getTimestamp() == timestamp);
                     } finally {
                         lockStop.unlock();
                     }
@@ -420,6 +419,7 @@ public class EventSimulator implements Runnable {
             simulationPropertiesDTO.setStartTimestamp(startTimestamp);
             simulationPropertiesDTO.setEndTimestamp(endTimestamp);
             simulationPropertiesDTO.setNoOfEventsRequired(noOfEventsRequired);
+            simulationPropertiesDTO.setLoadProfile(createLoadProfileDTO(simulationPropertiesConfig));
             return simulationPropertiesDTO;
 
         } catch (JSONException e) {
@@ -435,6 +435,151 @@ public class EventSimulator implements Runnable {
         }
     }
 
+    /**
+     * createLoadProfileDTO() is used to validate and parse the load profile of a load generation simulation
+     *
+     * @param simulationPropertiesConfig a JSON object containing simulation properties
+     * @return LoadProfileDTO object, or null if the simulation does not have a load profile
+     * @throws InvalidConfigException if the load profile contains invalid data
+     */
+    private static LoadProfileDTO createLoadProfileDTO(JSONObject simulationPropertiesConfig)
+            throws InvalidConfigException {
+        if (!simulationPropertiesConfig.has(EventSimulatorConstants.LOAD_PROFILE)
+                || simulationPropertiesConfig.isNull(EventSimulatorConstants.LOAD_PROFILE)) {
+            return null;
+        }
+        String simulationName = simulationPropertiesConfig.getString(EventSimulatorConstants.EVENT_SIMULATION_NAME);
+        JSONObject loadProfileConfig = simulationPropertiesConfig.getJSONObject(EventSimulatorConstants.LOAD_PROFILE);
+        LoadProfileDTO loadProfileDTO = new LoadProfileDTO();
+        LoadProfileDTO.RateProfile rateProfile = LoadProfileDTO.RateProfile.CONSTANT;
+        if (checkAvailability(loadProfileConfig, EventSimulatorConstants.RATE_PROFILE)) {
+            try {
+                rateProfile = LoadProfileDTO.RateProfile.valueOf(loadProfileConfig
+                        .getString(EventSimulatorConstants.RATE_PROFILE).toUpperCase(Locale.ENGLISH));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidConfigException(
+                        ResourceNotFoundException.ResourceType.SIMULATION,
+                        EventSimulatorConstants.RATE_PROFILE,
+                        "Rate profile of simulation '" + simulationName + "' must be one of "
+                                + Arrays.toString(LoadProfileDTO.RateProfile.values()) + ". Invalid load profile "
+                                + "provided : " + loadProfileConfig.toString(), e);
+            }
+        }
+        loadProfileDTO.setRateProfile(rateProfile);
+        if (!checkAvailability(loadProfileConfig, EventSimulatorConstants.EVENTS_PER_SECOND)
+                || loadProfileConfig.getDouble(EventSimulatorConstants.EVENTS_PER_SECOND) <= 0) {
+            throw new InvalidConfigException(
+                    ResourceNotFoundException.ResourceType.SIMULATION,
+                    EventSimulatorConstants.EVENTS_PER_SECOND,
+                    "Events per second must be a positive value for simulation '" + simulationName + "'. "
+                            + "Invalid load profile provided : " + loadProfileConfig.toString());
+        }
+        loadProfileDTO.setEventsPerSecond(loadProfileConfig.getDouble(EventSimulatorConstants.EVENTS_PER_SECOND));
+        if (rateProfile != LoadProfileDTO.RateProfile.CONSTANT) {
+            if (!checkAvailability(loadProfileConfig, EventSimulatorConstants.END_EVENTS_PER_SECOND)
+                    || loadProfileConfig.getDouble(EventSimulatorConstants.END_EVENTS_PER_SECOND) <= 0
+                    || !checkAvailability(loadProfileConfig, EventSimulatorConstants.RATE_PROFILE_DURATION)
+                    || loadProfileConfig.getLong(EventSimulatorConstants.RATE_PROFILE_DURATION) <= 0) {
+                throw new InvalidConfigException(
+                        ResourceNotFoundException.ResourceType.SIMULATION,
+                        EventSimulatorConstants.LOAD_PROFILE,
+                        "End events per second and profile duration must be positive values for the "
+                                + rateProfile + " rate profile of simulation '" + simulationName + "'. "
+                                + "Invalid load profile provided : " + loadProfileConfig.toString());
+            }
+            loadProfileDTO.setEndEventsPerSecond(
+                    loadProfileConfig.getDouble(EventSimulatorConstants.END_EVENTS_PER_SECOND));
+            loadProfileDTO.setProfileDuration(loadProfileConfig.getLong(EventSimulatorConstants.RATE_PROFILE_DURATION));
+        }
+        int noOfSteps = 1;
+        if (rateProfile == LoadProfileDTO.RateProfile.STEP) {
+            if (!checkAvailability(loadProfileConfig, EventSimulatorConstants.NUMBER_OF_STEPS)
+                    || loadProfileConfig.getInt(EventSimulatorConstants.NUMBER_OF_STEPS) <= 0) {
+                throw new InvalidConfigException(
+                        ResourceNotFoundException.ResourceType.SIMULATION,
+                        EventSimulatorConstants.NUMBER_OF_STEPS,
+                        "Number of steps must be a positive value for the STEP rate profile of simulation '"
+                                + simulationName + "'. Invalid load profile provided : "
+                                + loadProfileConfig.toString());
+            }
+            noOfSteps = loadProfileConfig.getInt(EventSimulatorConstants.NUMBER_OF_STEPS);
+        }
+        loadProfileDTO.setNoOfSteps(noOfSteps);
+        int batchSize = 1;
+        if (checkAvailability(loadProfileConfig, EventSimulatorConstants.BATCH_SIZE)) {
+            batchSize = loadProfileConfig.getInt(EventSimulatorConstants.BATCH_SIZE);
+            if (batchSize <= 0) {
+                throw new InvalidConfigException(
+                        ResourceNotFoundException.ResourceType.SIMULATION,
+                        EventSimulatorConstants.BATCH_SIZE,
+                        "Batch size must be a positive value for simulation '" + simulationName + "'. "
+                                + "Invalid load profile provided : " + loadProfileConfig.toString());
+            }
+        }
+        loadProfileDTO.setBatchSize(batchSize);
+        return loadProfileDTO;
+    }
+
+    /**
+     * loadGeneration() method is responsible for sending events belonging to a load generation simulation in the
+     * order of their timestamps, at the rate given by the load profile of the simulation.
+     * Consecutive events of the same stream are sent to Siddhi as a batch of at most batchSize events.
+     */
+    private void loadGeneration() {
+        LoadProfileDTO loadProfile = simulationProperties.getLoadProfile();
+        EventRatePacer pacer = new EventRatePacer(loadProfile);
+        EventGeneratorMerger merger = new EventGeneratorMerger(generators);
+        long eventsSent = 0;
+        int eventsRemaining = simulationProperties.getNoOfEventsRequired();
+        try {
+            merger.reset();
+            pacer.start();
+            while (!status.equals(Status.STOP) && !status.equals(Status.PENDING_STOP)
+                    && (eventsRemaining == -1 || eventsRemaining > 0)) {
+                if (status.equals(Status.PAUSE)) {
+                    long pausedAt = System.nanoTime();
+                    lock.acquire();
+                    lock.release();
+                    // events are not made up for the time the simulation was paused
+                    pacer.delay(System.nanoTime() - pausedAt);
+                    merger.reset();
+                }
+                int noOfEvents = eventsRemaining == -1
+                        ? loadProfile.getBatchSize() : Math.min(eventsRemaining, loadProfile.getBatchSize());
+                pacer.awaitEvents(eventsSent + noOfEvents);
+                Event[] events;
+                lockStop.lock();
+                try {
+                    EventGenerator generator = merger.peek();
+                    if (generator == null) {
+                        break;
+                    }
+                    events = merger.pollBatch(noOfEvents, false);
+                    EventSimulatorDataHolder.getInstance().getEventStreamService()
+                            .pushEvents(generator.getSiddhiAppName(), generator.getStreamName(), events);
+                } finally {
+                    lockStop.unlock();
+                }
+                eventsSent += events.length;
+                if (eventsRemaining > 0) {
+                    eventsRemaining -= events.length;
+                }
+            }
+            if (log.isDebugEnabled()) {
+                log.debug("Sent " + eventsSent + " events for load generation simulation '" + simulationName + "'");
+            }
+            if (status.equals(Status.PENDING_STOP)) {
+                status = Status.STOP;
+            }
+            stop();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (EventGenerationException e) {
+            stop();
+            throw new EventGenerationException("Error occurred when generating an event for simulation '" +
+                                                       simulationProperties.getSimulationName() + "'. ", e);
+        }
+    }
 
     /**
      * run() method of runnable associated with the event simulator
@@ -448,7 +593,11 @@ public class EventSimulator implements Runnable {
                 log.debug("Event generators started. Begin event simulation of '" + simulationName + "'");
             }
             status = Status.RUN;
-            eventSimulation();
+            if (simulationProperties.getLoadProfile() != null) {
+                loadGeneration();
+            } else {
+                eventSimulation();
+            }
         } catch (SimulatorInitializationException e) {
             /*
              * catch exception so that any resources opened could be closed and rethrow an exception indicating which
@@ -21,6 +21,8 @@ package org.wso2.carbon.event.simulator.core.service;
 import org.wso2.carbon.analytics.permissions.PermissionProvider;
 import org.wso2.carbon.stream.processor.common.EventStreamService;
 
+import java.util.concurrent.ExecutorService;
+
 /**
  * EventSimulaorDataHolder referenced through ServiceComponent
  */
@@ -29,6 +31,7 @@ public class EventSimulatorDataHolder {
     private long maximumFileSize;
     private String csvFileDirectory;
     private EventStreamService eventStreamService;
+    private ExecutorService csvParserExecutorService;
     private static PermissionProvider permissionProvider;
 
 
@@ -63,6 +66,14 @@ public class EventSimulatorDataHolder {
         this.csvFileDirectory = csvFileDirectory;
     }
 
+    public ExecutorService getCsvParserExecutorService() {
+        return csvParserExecutorService;
+    }
+
+    public void setCsvParserExecutorService(ExecutorService csvParserExecutorService) {
+        this.csvParserExecutorService = csvParserExecutorService;
+    }
+
     public static PermissionProvider getPermissionProvider() {
         return EventSimulatorDataHolder.permissionProvider;
     }
@@ -18,17 +18,52 @@
 
 package org.wso2.carbon.event.simulator.core.service;
 
+import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
+import org.osgi.service.component.annotations.Deactivate;
 import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.component.annotations.ReferenceCardinality;
 import org.osgi.service.component.annotations.ReferencePolicy;
 import org.wso2.carbon.analytics.permissions.PermissionManager;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
 @Component(
         name = "Event-Simulator-Service Component",
         immediate = true
 )
 public class EventSimulatorServiceComponent {
+
+    /**
+     * Creates the executor service used to parse CSV files ahead of simulations.
+     */
+    @Activate
+    protected void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService csvParserExecutorService = Executors.newFixedThreadPool(
+                Runtime.getRuntime().availableProcessors(), runnable -> {
+                    Thread thread = new Thread(runnable, "CSVParser-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        EventSimulatorDataHolder.getInstance().setCsvParserExecutorService(csvParserExecutorService);
+    }
+
+    /**
+     * Shuts down the executor service used to parse CSV files.
+     */
+    @Deactivate
+    protected void stop() {
+        ExecutorService csvParserExecutorService = EventSimulatorDataHolder.getInstance()
+                .getCsvParserExecutorService();
+        EventSimulatorDataHolder.getInstance().setCsvParserExecutorService(null);
+        if (csvParserExecutorService != null) {
+            csvParserExecutorService.shutdownNow();
+        }
+    }
+
     @Reference(
             name = "permission-manager",
             service = PermissionManager.class,
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c)  2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator;
+
+import org.json.JSONObject;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.siddhi.core.event.Event;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * EventGeneratorMergerTest tests the merging of events of several event generators
+ */
+public class EventGeneratorMergerTest {
+
+    @Test
+    public void testMergeOrder() {
+        List<EventGenerator> generators = Arrays.asList(new ListEventGenerator("A", 1, 4, 6),
+                new ListEventGenerator("B", 2, 3, 7), new ListEventGenerator("C", 5));
+        EventGeneratorMerger merger = new EventGeneratorMerger(generators);
+        merger.reset();
+
+        List<String> events = new ArrayList<>();
+        while (merger.peek() != null) {
+            for (Event event : merger.pollBatch(1, false)) {
+                events.add(event.getData()[0] + ":" + event.getTimestamp());
+            }
+        }
+        Assert.assertEquals(events, Arrays.asList("A:1", "B:2", "B:3", "A:4", "C:5", "A:6", "B:7"));
+    }
+
+    @Test
+    public void testTiesFollowConfigurationOrder() {
+        List<EventGenerator> generators = Arrays.asList(new ListEventGenerator("A", 2, 2),
+                new ListEventGenerator("B", 1, 2), new ListEventGenerator("C", 2));
+        EventGeneratorMerger merger = new EventGeneratorMerger(generators);
+        merger.reset();
+
+        Assert.assertEquals(merger.peek().getStreamName(), "B");
+        Assert.assertEquals(merger.pollBatch(10, true).length, 1);
+        Assert.assertEquals(merger.peek().getStreamName(), "A");
+        Assert.assertEquals(merger.pollBatch(10, true).length, 2);
+        Assert.assertEquals(merger.peek().getStreamName(), "B");
+        Assert.assertEquals(merger.pollBatch(10, true).length, 1);
+        Assert.assertEquals(merger.peek().getStreamName(), "C");
+        Assert.assertEquals(merger.pollBatch(10, true).length, 1);
+        Assert.assertNull(merger.peek());
+        Assert.assertEquals(merger.pollBatch(10, true).length, 0);
+    }
+
+    @Test
+    public void testBatchStopsAtOtherGenerator() {
+        List<EventGenerator> generators = Arrays.asList(new ListEventGenerator("A", 1, 2, 3, 6),
+                new ListEventGenerator("B", 4));
+        EventGeneratorMerger merger = new EventGeneratorMerger(generators);
+        merger.reset();
+
+        Assert.assertEquals(merger.pollBatch(2, false).length, 2);
+        Assert.assertEquals(merger.pollBatch(10, false).length, 1);
+        Assert.assertEquals(merger.peek().getStreamName(), "B");
+        Assert.assertEquals(merger.pollBatch(10, false).length, 1);
+        Assert.assertEquals(merger.pollBatch(10, true).length, 1);
+        Assert.assertNull(merger.peek());
+    }
+
+    @Test
+    public void testResetAfterTimestampsChange() {
+        ListEventGenerator generatorA = new ListEventGenerator("A", 1);
+        ListEventGenerator generatorB = new ListEventGenerator("B", 2);
+        EventGeneratorMerger merger = new EventGeneratorMerger(Arrays.asList(generatorA, generatorB));
+        merger.reset();
+        Assert.assertEquals(merger.peek().getStreamName(), "A");
+
+        generatorA.peek().setTimestamp(3);
+        merger.reset();
+        Assert.assertEquals(merger.peek().getStreamName(), "B");
+    }
+
+    /**
+     * Event generator which produces events with the given timestamps
+     */
+    private static class ListEventGenerator implements EventGenerator {
+        private final String streamName;
+        private final LinkedList<Event> events = new LinkedList<>();
+
+        private ListEventGenerator(String streamName, long... timestamps) {
+            this.streamName = streamName;
+            for (long timestamp : timestamps) {
+                events.add(new Event(timestamp, new Object[]{streamName}));
+            }
+        }
+
+        @Override
+        public void init(JSONObject sourceConfig, long startTimestamp, long endTimestamp, String simulationName) {
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+        }
+
+        @Override
+        public void resume() {
+        }
+
+        @Override
+        public Event poll() {
+            return events.poll();
+        }
+
+        @Override
+        public Event peek() {
+            return events.peek();
+        }
+
+        @Override
+        public void getNextEvent() {
+        }
+
+        @Override
+        public String getStreamName() {
+            return streamName;
+        }
+
+        @Override
+        public String getSiddhiAppName() {
+            return "TestSiddhiApp";
+        }
+
+        @Override
+        public void validateSourceConfiguration(JSONObject sourceConfig, String simulationName) {
+        }
+
+        @Override
+        public void setStartTimestamp(long startTimestamp) {
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c)  2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator.csv.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * ExternalRecordSorterTest tests sorting CSV records in memory and using run files
+ */
+public class ExternalRecordSorterTest {
+
+    @Test
+    public void testInMemorySort() throws Exception {
+        try (ExternalRecordSorter sorter = new ExternalRecordSorter(1024 * 1024)) {
+            sorter.add(3, new String[]{"c"});
+            sorter.add(1, new String[]{"a"});
+            sorter.add(2, new String[]{"b"});
+            sorter.finish();
+            Assert.assertEquals(sorter.getNoOfRuns(), 0);
+            Assert.assertEquals(readAll(sorter), "1:a,2:b,3:c,");
+        }
+    }
+
+    @Test
+    public void testSortWithRuns() throws Exception {
+        Random random = new Random(42);
+        List<Long> timestamps = new ArrayList<>();
+        try (ExternalRecordSorter sorter = new ExternalRecordSorter(2048)) {
+            for (int i = 0; i < 1000; i++) {
+                long timestamp = random.nextInt(100);
+                timestamps.add(timestamp);
+                sorter.add(timestamp, new String[]{"WSO2", Integer.toString(i), "\u00e9v\u00e9nement"});
+            }
+            sorter.finish();
+            Assert.assertTrue(sorter.getNoOfRuns() > 1);
+
+            long lastTimestamp = Long.MIN_VALUE;
+            int lastIndex = -1;
+            int noOfRecords = 0;
+            ExternalRecordSorter.SortRecord record;
+            while ((record = sorter.next()) != null) {
+                int index = Integer.parseInt(record.getValues()[1]);
+                Assert.assertEquals(record.getTimestamp(), (long) timestamps.get(index));
+                Assert.assertEquals(record.getValues()[2], "\u00e9v\u00e9nement");
+                Assert.assertTrue(record.getTimestamp() >= lastTimestamp);
+                if (record.getTimestamp() == lastTimestamp) {
+                    // records with the same timestamp keep the order of the file
+                    Assert.assertTrue(index > lastIndex);
+                }
+                lastTimestamp = record.getTimestamp();
+                lastIndex = index;
+                noOfRecords++;
+            }
+            Assert.assertEquals(noOfRecords, 1000);
+        }
+    }
+
+    @Test
+    public void testLastRunOnlyInMemory() throws Exception {
+        try (ExternalRecordSorter sorter = new ExternalRecordSorter(1)) {
+            sorter.add(2, new String[]{"b"});
+            sorter.add(1, new String[]{"a"});
+            sorter.finish();
+            Assert.assertEquals(sorter.getNoOfRuns(), 2);
+            Assert.assertEquals(readAll(sorter), "1:a,2:b,");
+            Assert.assertNull(sorter.next());
+        }
+    }
+
+    @Test
+    public void testMultiPassMerge() throws Exception {
+        int noOfRunFiles = countRunFiles();
+        ExternalRecordSorter sorter = new ExternalRecordSorter(1, 3);
+        try {
+            // each record is spilled to its own run, hence 20 runs are merged in two passes
+            for (int i = 0; i < 20; i++) {
+                sorter.add(i % 4, new String[]{Integer.toString(i)});
+            }
+            sorter.finish();
+            Assert.assertTrue(sorter.getNoOfRuns() <= 3);
+            Assert.assertEquals(countRunFiles(), noOfRunFiles + sorter.getNoOfRuns());
+            StringBuilder expected = new StringBuilder();
+            for (int timestamp = 0; timestamp < 4; timestamp++) {
+                for (int i = timestamp; i < 20; i += 4) {
+                    expected.append(timestamp).append(':').append(i).append(',');
+                }
+            }
+            Assert.assertEquals(readAll(sorter), expected.toString());
+        } finally {
+            sorter.close();
+        }
+        Assert.assertEquals(countRunFiles(), noOfRunFiles);
+    }
+
+    private int countRunFiles() {
+        File[] runFiles = new File(System.getProperty("java.io.tmpdir"))
+                .listFiles((directory, name) -> name.startsWith("csv-sort-run-"));
+        return runFiles == null ? 0 : runFiles.length;
+    }
+
+    private String readAll(ExternalRecordSorter sorter) throws Exception {
+        StringBuilder records = new StringBuilder();
+        ExternalRecordSorter.SortRecord record;
+        while ((record = sorter.next()) != null) {
+            records.append(record.getTimestamp()).append(':').append(String.join("|", record.getValues()))
+                    .append(',');
+        }
+        return records.toString();
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c)  2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator.csv.util;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.event.simulator.core.internal.bean.CSVSimulationDTO;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.query.api.definition.Attribute;
+
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * MappedCSVReaderTest tests reading CSV files ordered by timestamp using memory mapped chunks
+ */
+public class MappedCSVReaderTest {
+    private static final List<Attribute> STREAM_ATTRIBUTES = Arrays.asList(
+            new Attribute("symbol", Attribute.Type.STRING), new Attribute("price", Attribute.Type.DOUBLE),
+            new Attribute("volume", Attribute.Type.INT), new Attribute("total", Attribute.Type.LONG),
+            new Attribute("active", Attribute.Type.BOOL));
+    private Path csvFile;
+
+    @BeforeMethod
+    public void createFile() throws Exception {
+        csvFile = Files.createTempFile("mapped-csv-reader", ".csv");
+    }
+
+    @AfterMethod
+    public void deleteFile() throws Exception {
+        Files.deleteIfExists(csvFile);
+    }
+
+    @Test
+    public void testTypedParsing() throws Exception {
+        Files.write(csvFile, ("1000,WSO2,55.6,100,-9000000000,true\r\n"
+                + " 1001 ,\u00e9v\u00e9nement,1e2,+7,9223372036854775807,FALSE\n"
+                + "1002,IBM,75.6,2147483648,1,true\n"
+                + "abc,IBM,75.6,1,1,true\n"
+                + "1003,ORCL,57.6,10,,\n"
+                + "1004,,57.6,10,5,false").getBytes(StandardCharsets.UTF_8));
+        try (MappedCSVReader reader = new MappedCSVReader(csvFile, createConfig(",", "0"), STREAM_ATTRIBUTES,
+                null)) {
+            Event event = reader.next();
+            Assert.assertEquals(event.getTimestamp(), 1000L);
+            Assert.assertEquals(event.getData(), new Object[]{"WSO2", 55.6, 100, -9000000000L, true});
+            event = reader.next();
+            Assert.assertEquals(event.getTimestamp(), 1001L);
+            Assert.assertEquals(event.getData(), new Object[]{"\u00e9v\u00e9nement", 100.0, 7, Long.MAX_VALUE,
+                    false});
+            // the volume of line 3 overflows, the timestamp of line 4 is invalid and line 5 misses trailing values
+            event = reader.next();
+            Assert.assertEquals(event.getTimestamp(), 1004L);
+            Assert.assertEquals(event.getData(), new Object[]{"", 57.6, 10, 5L, false});
+            Assert.assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void testMultipleChunks() throws Exception {
+        int noOfLines = 200000;
+        try (BufferedWriter writer = Files.newBufferedWriter(csvFile, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < noOfLines; i++) {
+                writer.write("WSO2\t" + i + "\t" + i + "\t" + (i * 10L) + "\ttrue\n");
+            }
+        }
+        Assert.assertTrue(Files.size(csvFile) > 2 * 1024 * 1024);
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            readAll(executorService, noOfLines);
+            executorService.shutdownNow();
+            // chunks are parsed in the simulation thread once the executor service is shut down
+            readAll(executorService, noOfLines);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void readAll(ExecutorService executorService, int noOfLines) throws Exception {
+        try (MappedCSVReader reader = new MappedCSVReader(csvFile, createConfig("\\t", "-1"), STREAM_ATTRIBUTES,
+                executorService)) {
+            for (int i = 0; i < noOfLines; i++) {
+                Event event = reader.next();
+                Assert.assertNotNull(event);
+                Assert.assertEquals(event.getData()[2], i);
+                Assert.assertEquals(event.getData()[3], i * 10L);
+            }
+            Assert.assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void testWarningMessage() {
+        MappedCSVReader.Warning warning = new MappedCSVReader.Warning(3, "Invalid data '%s' in line ",
+                ". Line content : ", "%d,%s,WSO2", ". Ignore line.");
+        Assert.assertEquals(warning.getMessage(10), "Invalid data '%s' in line 13. Line content : %d,%s,WSO2. "
+                + "Ignore line.");
+    }
+
+    @Test
+    public void testSupportedDelimiters() {
+        Assert.assertTrue(MappedCSVReader.isSupported(createConfig(",", "0")));
+        Assert.assertTrue(MappedCSVReader.isSupported(createConfig(";", "0")));
+        Assert.assertTrue(MappedCSVReader.isSupported(createConfig("\\t", "0")));
+        Assert.assertTrue(MappedCSVReader.isSupported(createConfig("\\|", "0")));
+        Assert.assertFalse(MappedCSVReader.isSupported(createConfig("|", "0")));
+        Assert.assertFalse(MappedCSVReader.isSupported(createConfig(",\\s*", "0")));
+        Assert.assertFalse(MappedCSVReader.isSupported(createConfig("::", "0")));
+    }
+
+    private CSVSimulationDTO createConfig(String delimiter, String timestampAttribute) {
+        CSVSimulationDTO csvConfig = new CSVSimulationDTO();
+        csvConfig.setFileName(csvFile.getFileName().toString());
+        csvConfig.setStreamName("FooStream");
+        csvConfig.setDelimiter(delimiter);
+        csvConfig.setTimestampAttribute(timestampAttribute);
+        csvConfig.setIndices("-1".equals(timestampAttribute) ? Arrays.asList(0, 1, 2, 3, 4)
+                : Arrays.asList(1, 2, 3, 4, 5));
+        return csvConfig;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c)  2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.generator.database.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DatabaseConnectorTest tests the queries and the page boundaries used to retrieve database data page by page
+ */
+public class DatabaseConnectorTest {
+
+    @Test
+    public void testPageQueries() {
+        Assert.assertEquals(DatabaseConnector.createPageQuery("Trades", "symbol,price", "ts", true, false),
+                "SELECT ts,symbol,price FROM Trades WHERE ts >= ? ORDER BY ts");
+        Assert.assertEquals(DatabaseConnector.createPageQuery("Trades", "symbol,price", "ts", true, true),
+                "SELECT ts,symbol,price FROM Trades WHERE ts >= ? AND ts <= ? ORDER BY ts");
+        Assert.assertEquals(DatabaseConnector.createPageQuery("Trades", "symbol,price", "ts", false, true),
+                "SELECT ts,symbol,price FROM Trades WHERE ts > ? AND ts <= ? ORDER BY ts");
+        Assert.assertEquals(DatabaseConnector.createSameTimestampQuery("Trades", "symbol,price", "ts"),
+                "SELECT ts,symbol,price FROM Trades WHERE ts = ?");
+        Assert.assertEquals(DatabaseConnector.createIntervalQuery("Trades", "symbol,price"),
+                "SELECT symbol,price FROM Trades");
+    }
+
+    @Test
+    public void testRemoveLastTimestamp() {
+        List<DatabaseConnector.DatabaseRecord> page = createPage(1, 2, 2, 3, 3, 3);
+        Assert.assertEquals(DatabaseConnector.removeLastTimestamp(page), 3L);
+        Assert.assertEquals(page.size(), 3);
+        Assert.assertEquals(page.get(2).getTimestamp(), 2L);
+    }
+
+    @Test
+    public void testRemoveLastTimestampOfPageWithSingleTimestamp() {
+        List<DatabaseConnector.DatabaseRecord> page = createPage(5, 5, 5);
+        Assert.assertEquals(DatabaseConnector.removeLastTimestamp(page), 5L);
+        Assert.assertTrue(page.isEmpty());
+    }
+
+    private List<DatabaseConnector.DatabaseRecord> createPage(long... timestamps) {
+        List<DatabaseConnector.DatabaseRecord> page = new ArrayList<>();
+        for (long timestamp : timestamps) {
+            page.add(new DatabaseConnector.DatabaseRecord(timestamp, new Object[]{"WSO2", timestamp}));
+        }
+        return page;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c)  2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.event.simulator.core.internal.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.event.simulator.core.internal.bean.LoadProfileDTO;
+
+/**
+ * EventRatePacerTest tests the number of events due for each rate profile of a load generation simulation
+ */
+public class EventRatePacerTest {
+    private static final double DELTA = 1e-6;
+
+    @Test
+    public void testConstantProfile() {
+        EventRatePacer pacer = new EventRatePacer(createLoadProfile(LoadProfileDTO.RateProfile.CONSTANT, 1000, 0,
+                0, 0));
+        Assert.assertEquals(pacer.getEventsDue(0), 0, DELTA);
+        Assert.assertEquals(pacer.getEventsDue(0.5), 500, DELTA);
+        Assert.assertEquals(pacer.getEventsDue(10), 10000, DELTA);
+        Assert.assertEquals(pacer.getRate(10), 1000, DELTA);
+    }
+
+    @Test
+    public void testRampProfile() {
+        EventRatePacer pacer = new EventRatePacer(createLoadProfile(LoadProfileDTO.RateProfile.RAMP, 1000, 3000,
+                2000, 0));
+        Assert.assertEquals(pacer.getRate(0), 1000, DELTA);
+        Assert.assertEquals(pacer.getRate(1), 2000, DELTA);
+        Assert.assertEquals(pacer.getRate(5), 3000, DELTA);
+        Assert.assertEquals(pacer.getEventsDue(1), 1500, DELTA);
+        Assert.assertEquals(pacer.getEventsDue(2), 4000, DELTA);
+        Assert.assertEquals(pacer.getEventsDue(3), 7000, DELTA);
+    }
+
+    @Test
+    public void testStepProfile() {
+        EventRatePacer pacer = new EventRatePacer(createLoadProfile(LoadProfileDTO.RateProfile.STEP, 1000, 3000,
+                3000, 3));
+        Assert.assertEquals(pacer.getRate(0.5), 1000, DELTA);
+        Assert.assertEquals(pacer.getRate(1.5), 2000, DELTA);
+        Assert.assertEquals(pacer.getRate(2.5), 3000, DELTA);
+        Assert.assertEquals(pacer.getEventsDue(1), 1000, DELTA);
+        Assert.assertEquals(pacer.getEventsDue(1.5), 2000, DELTA);
+        Assert.assertEquals(pacer.getEventsDue(3), 6000, DELTA);
+        Assert.assertEquals(pacer.getEventsDue(4), 9000, DELTA);
+    }
+
+    @Test
+    public void testAwaitEvents() throws Exception {
+        EventRatePacer pacer = new EventRatePacer(createLoadProfile(LoadProfileDTO.RateProfile.CONSTANT, 10000, 0,
+                0, 0));
+        pacer.start();
+        long start = System.nanoTime();
+        pacer.awaitEvents(1000);
+        long elapsedMillis = (System.nanoTime() - start) / 1000000;
+        Assert.assertTrue(elapsedMillis >= 99, "Events were sent too early: " + elapsedMillis + "ms");
+    }
+
+    private LoadProfileDTO createLoadProfile(LoadProfileDTO.RateProfile rateProfile, double eventsPerSecond,
+                                             double endEventsPerSecond, long profileDuration, int noOfSteps) {
+        LoadProfileDTO loadProfile = new LoadProfileDTO();
+        loadProfile.setRateProfile(rateProfile);
+        loadProfile.setEventsPerSecond(eventsPerSecond);
+        loadProfile.setEndEventsPerSecond(endEventsPerSecond);
+        loadProfile.setProfileDuration(profileDuration);
+        loadProfile.setNoOfSteps(noOfSteps);
+        loadProfile.setBatchSize(1);
+        return loadProfile;
+    }
+}
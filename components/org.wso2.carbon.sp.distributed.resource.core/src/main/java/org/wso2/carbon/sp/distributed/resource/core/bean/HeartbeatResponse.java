@@ -36,6 +36,18 @@ public class HeartbeatResponse {
      * Current nodes joined state. (whether NEW or EXISTS)
      */
     private String joinedState;
+    /**
+     * Version of the list of connected managers. The list is left out if this node already has this version.
+     */
+    private long managersVersion;
+    /**
+     * Whether the leader node requires the full configuration of this node with the next heartbeat.
+     */
+    private boolean configRequired;
+    /**
+     * Id of the current leadership over the resource pool, which changes when the leader node restarts.
+     */
+    private String leaderSessionId;
 
     /**
      * Getter for the leader.
@@ -91,6 +103,60 @@ public class HeartbeatResponse {
         this.joinedState = joinedState;
     }
 
+    /**
+     * Getter for the version of the list of connected managers.
+     *
+     * @return managersVersion
+     */
+    public long getManagersVersion() {
+        return managersVersion;
+    }
+
+    /**
+     * Setter for the version of the list of connected managers.
+     *
+     * @param managersVersion version of the list of connected managers.
+     */
+    public void setManagersVersion(long managersVersion) {
+        this.managersVersion = managersVersion;
+    }
+
+    /**
+     * Getter for whether the leader node requires the full configuration of this node.
+     *
+     * @return configRequired
+     */
+    public boolean isConfigRequired() {
+        return configRequired;
+    }
+
+    /**
+     * Setter for whether the leader node requires the full configuration of this node.
+     *
+     * @param configRequired whether the full configuration is required.
+     */
+    public void setConfigRequired(boolean configRequired) {
+        this.configRequired = configRequired;
+    }
+
+    /**
+     * Getter for the id of the current leadership over the resource pool.
+     *
+     * @return leaderSessionId
+     */
+    public String getLeaderSessionId() {
+        return leaderSessionId;
+    }
+
+    /**
+     * Setter for the id of the current leadership over the resource pool.
+     *
+     * @param leaderSessionId id of the current leadership.
+     */
+    public void setLeaderSessionId(String leaderSessionId) {
+        this.leaderSessionId = leaderSessionId;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
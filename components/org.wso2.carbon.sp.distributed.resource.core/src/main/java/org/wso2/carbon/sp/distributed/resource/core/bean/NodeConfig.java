@@ -50,6 +50,11 @@ public class NodeConfig implements Serializable {
      */
     private boolean isReceiverNode;
 
+    /**
+     * Version of the list of connected managers last received from the leader node.
+     */
+    private long managersVersion;
+
     /**
      * Getter for the node id.
      *
@@ -126,6 +131,15 @@ public class NodeConfig implements Serializable {
         return this;
     }
 
+    public long getManagersVersion() {
+        return managersVersion;
+    }
+
+    public NodeConfig setManagersVersion(long managersVersion) {
+        this.managersVersion = managersVersion;
+        return this;
+    }
+
     @Override
     public String toString() {
         return String.format("Node { id: %s, host: %s, port: %s, state: %s }",
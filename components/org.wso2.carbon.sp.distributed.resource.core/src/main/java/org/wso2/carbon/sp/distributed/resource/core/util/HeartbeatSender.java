@@ -25,12 +25,14 @@ import org.wso2.carbon.sp.distributed.resource.core.api.ManagerServiceFactory;
 import org.wso2.carbon.sp.distributed.resource.core.bean.HTTPSInterfaceConfig;
 import org.wso2.carbon.sp.distributed.resource.core.bean.HeartbeatResponse;
 import org.wso2.carbon.sp.distributed.resource.core.bean.ManagerNodeConfig;
+import org.wso2.carbon.sp.distributed.resource.core.bean.NodeConfig;
 import org.wso2.carbon.sp.distributed.resource.core.exception.ResourceNodeException;
 import org.wso2.carbon.sp.distributed.resource.core.internal.ServiceDataHolder;
 import org.wso2.carbon.stream.processor.statistics.bean.WorkerMetrics;
 import org.wso2.carbon.stream.processor.statistics.internal.OperatingSystemMetricSet;
 import org.wso2.carbon.stream.processor.statistics.internal.exception.MetricsConfigException;
 
+import java.util.Objects;
 import java.util.Timer;
 import java.util.TimerTask;
 
@@ -41,11 +43,34 @@ import java.util.TimerTask;
  */
 public class HeartbeatSender extends TimerTask {
     private static final Logger LOG = LoggerFactory.getLogger(HeartbeatSender.class);
+    /**
+     * Change of a worker metric below which the metric is not resent to the leader node. Relative to the last sent
+     * value when it is larger than 1, as for the load average.
+     */
+    private static final double METRICS_CHANGE_THRESHOLD = 0.05;
 
     /**
      * Timestamp of the last successful heartbeat.
      */
     private static long lastUpdatedTimestamp;
+    /**
+     * Id of the leader node which received the full configuration of this node. Heartbeats sent to the same leader
+     * leave out the configuration.
+     */
+    private static String configAcknowledgedBy;
+    /**
+     * Leader session in which the full configuration of this node was received, so that a leader node restarted with
+     * the same id gets the configuration again.
+     */
+    private static String acknowledgedSessionId;
+    /**
+     * Worker metrics last received by the leader node. Heartbeats leave out the metrics until they change.
+     */
+    private static WorkerMetrics acknowledgedMetrics;
+    /**
+     * Version of the list of connected managers last received from the leader node.
+     */
+    private static long managersVersion;
     /**
      * Timer to schedule heartbeat sending task.
      */
@@ -166,11 +191,12 @@ public class HeartbeatSender extends TimerTask {
                 }
             }
             long startTime = System.currentTimeMillis();
+            NodeConfig heartbeat = createHeartbeat();
             // Send request to the heartbeat endpoint.
             managerResponse = ManagerServiceFactory.getManagerHttpsClient(HTTPSClientUtil.PROTOCOL +
                     HTTPSClientUtil.generateURLHostPort(config.getHost(),
                             String.valueOf(config.getPort())), config.getUsername(), config.getPassword())
-                    .sendHeartBeat(gson.toJson(ServiceDataHolder.getCurrentNodeConfig()));
+                    .sendHeartBeat(gson.toJson(heartbeat));
 
             if (LOG.isDebugEnabled()) {
                 LOG.debug("Time taken to update heartbeat: " + (System.currentTimeMillis() - startTime));
@@ -182,12 +208,26 @@ public class HeartbeatSender extends TimerTask {
                         String hbResponseBody = managerResponse.body().toString();
                         hbRes = gson.fromJson(hbResponseBody, HeartbeatResponse.class);
                         ServiceDataHolder.setLeaderNodeConfig(hbRes.getLeader());
+                        if (hbRes.isConfigRequired()) {
+                            // The leader does not know this node, hence send the full configuration right away.
+                            configAcknowledgedBy = null;
+                            acknowledgedMetrics = null;
+                            if (heartbeat.getHttpsInterface() == null) {
+                                connected = sendHeartbeat(config);
+                            }
+                            break;
+                        }
+                        acknowledge(heartbeat, hbRes);
                         /* Response will also contain list of managers which are connected to managers cluster.
                          * This might contain managers which are not specified in Resource nodes "resourceManagers"
                          * We'll add those to the resourceManagers list as well, so that managers can later be added
-                         * w/o needing to specify them in the resource node.
+                         * w/o needing to specify them in the resource node. The list is left out if this node
+                         * already has its latest version.
                          */
-                        ServiceDataHolder.getResourceManagers().addAll(hbRes.getConnectedManagers());
+                        if (hbRes.getConnectedManagers() != null) {
+                            ServiceDataHolder.getResourceManagers().addAll(hbRes.getConnectedManagers());
+                        }
+                        managersVersion = hbRes.getManagersVersion();
                         if (ResourceConstants.STATE_NEW.equalsIgnoreCase(hbRes.getJoinedState())) {
                             if (!ResourceConstants.STATE_NEW.equalsIgnoreCase(ServiceDataHolder.getCurrentNodeConfig()
                                     .getState())) {
@@ -247,4 +287,71 @@ public class HeartbeatSender extends TimerTask {
         }
         return connected;
     }
+
+    /**
+     * Creates the heartbeat to be sent to the leader node. The interface configuration is only sent until the current
+     * leader node received it, and the worker metrics are only sent when they have changed since the last heartbeat.
+     *
+     * @return node configuration holding only the changed details.
+     */
+    static NodeConfig createHeartbeat() {
+        NodeConfig currentNodeConfig = ServiceDataHolder.getCurrentNodeConfig();
+        NodeConfig heartbeat = new NodeConfig()
+                .setId(currentNodeConfig.getId())
+                .setState(currentNodeConfig.getState())
+                .setReceiverNode(currentNodeConfig.isReceiverNode());
+        ManagerNodeConfig leader = ServiceDataHolder.getLeaderNodeConfig();
+        boolean fullConfig = leader == null || configAcknowledgedBy == null
+                || !configAcknowledgedBy.equals(leader.getId());
+        if (fullConfig) {
+            heartbeat.setHttpsInterface(currentNodeConfig.getHttpsInterface());
+        } else {
+            heartbeat.setManagersVersion(managersVersion);
+        }
+        WorkerMetrics workerMetrics = currentNodeConfig.getWorkerMetrics();
+        if (fullConfig || !isSameMetrics(workerMetrics, acknowledgedMetrics)) {
+            heartbeat.setWorkerMetrics(workerMetrics);
+        }
+        return heartbeat;
+    }
+
+    /**
+     * Records what the leader node received with a successful heartbeat. If the leader node answers a heartbeat
+     * without the configuration from a session other than the one which received it, the leader restarted and the
+     * next heartbeat carries the full configuration again.
+     *
+     * @param heartbeat heartbeat received by the leader node.
+     * @param hbRes     response of the leader node.
+     */
+    static void acknowledge(NodeConfig heartbeat, HeartbeatResponse hbRes) {
+        if (heartbeat.getHttpsInterface() != null) {
+            configAcknowledgedBy = hbRes.getLeader().getId();
+            acknowledgedSessionId = hbRes.getLeaderSessionId();
+        } else if (!Objects.equals(acknowledgedSessionId, hbRes.getLeaderSessionId())) {
+            configAcknowledgedBy = null;
+            acknowledgedMetrics = null;
+            return;
+        }
+        if (heartbeat.getWorkerMetrics() != null) {
+            acknowledgedMetrics = heartbeat.getWorkerMetrics();
+        }
+    }
+
+    /**
+     * Whether the worker metrics did not change enough since the given metrics were sent. The metrics are compared
+     * against the last sent ones, so that slow drifts are still sent once they add up to the threshold.
+     */
+    static boolean isSameMetrics(WorkerMetrics workerMetrics, WorkerMetrics sentMetrics) {
+        if (workerMetrics == null || sentMetrics == null) {
+            return workerMetrics == sentMetrics;
+        }
+        return isSameMetric(workerMetrics.getProcessCPU(), sentMetrics.getProcessCPU())
+                && isSameMetric(workerMetrics.getSystemCPU(), sentMetrics.getSystemCPU())
+                && isSameMetric(workerMetrics.getLoadAverage(), sentMetrics.getLoadAverage())
+                && isSameMetric(workerMetrics.getTotalMemory(), sentMetrics.getTotalMemory());
+    }
+
+    private static boolean isSameMetric(double value, double sentValue) {
+        return Math.abs(value - sentValue) < METRICS_CHANGE_THRESHOLD * Math.max(1, Math.abs(sentValue));
+    }
 }
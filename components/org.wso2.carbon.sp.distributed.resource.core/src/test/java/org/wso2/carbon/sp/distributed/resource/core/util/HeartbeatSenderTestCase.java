@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.sp.distributed.resource.core.util;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.sp.distributed.resource.core.bean.HTTPSInterfaceConfig;
+import org.wso2.carbon.sp.distributed.resource.core.bean.HeartbeatResponse;
+import org.wso2.carbon.sp.distributed.resource.core.bean.ManagerNodeConfig;
+import org.wso2.carbon.sp.distributed.resource.core.bean.NodeConfig;
+import org.wso2.carbon.sp.distributed.resource.core.internal.ServiceDataHolder;
+import org.wso2.carbon.stream.processor.statistics.bean.WorkerMetrics;
+
+import java.util.UUID;
+
+public class HeartbeatSenderTestCase {
+    private NodeConfig currentNodeConfig;
+    private ManagerNodeConfig leader;
+
+    @BeforeMethod
+    public void setUp() {
+        HTTPSInterfaceConfig httpsInterface = new HTTPSInterfaceConfig();
+        httpsInterface.setHost("localhost");
+        httpsInterface.setPort(9443);
+        currentNodeConfig = new NodeConfig().setId("worker-1").setState(ResourceConstants.STATE_EXISTS)
+                .setHttpsInterface(httpsInterface);
+        currentNodeConfig.setWorkerMetrics(createMetrics(0.5, 2));
+        ServiceDataHolder.setCurrentNodeConfig(currentNodeConfig);
+        // A leader unknown to the heartbeat sender, so that each test starts with the full configuration
+        leader = new ManagerNodeConfig();
+        leader.setId("manager-" + UUID.randomUUID());
+        ServiceDataHolder.setLeaderNodeConfig(leader);
+    }
+
+    @Test
+    public void testSmallMetricChangesAreNotResent() {
+        NodeConfig heartbeat = HeartbeatSender.createHeartbeat();
+        Assert.assertNotNull(heartbeat.getHttpsInterface());
+        Assert.assertNotNull(heartbeat.getWorkerMetrics());
+        HeartbeatSender.acknowledge(heartbeat, createResponse("session-1"));
+
+        currentNodeConfig.setWorkerMetrics(createMetrics(0.52, 2.05));
+        heartbeat = HeartbeatSender.createHeartbeat();
+        Assert.assertNull(heartbeat.getHttpsInterface());
+        Assert.assertNull(heartbeat.getWorkerMetrics(), "Small metric changes should not be resent");
+        HeartbeatSender.acknowledge(heartbeat, createResponse("session-1"));
+
+        // Changes are compared against the last sent metrics, so that a slow drift is still sent
+        currentNodeConfig.setWorkerMetrics(createMetrics(0.56, 2.05));
+        heartbeat = HeartbeatSender.createHeartbeat();
+        Assert.assertEquals(heartbeat.getWorkerMetrics().getSystemCPU(), 0.56);
+        HeartbeatSender.acknowledge(heartbeat, createResponse("session-1"));
+
+        // Load average changes are relative to its last sent value
+        currentNodeConfig.setWorkerMetrics(createMetrics(0.56, 2.2));
+        Assert.assertNotNull(HeartbeatSender.createHeartbeat().getWorkerMetrics());
+    }
+
+    @Test
+    public void testRestartedLeaderGetsFullConfig() {
+        NodeConfig heartbeat = HeartbeatSender.createHeartbeat();
+        HeartbeatSender.acknowledge(heartbeat, createResponse("session-1"));
+        heartbeat = HeartbeatSender.createHeartbeat();
+        Assert.assertNull(heartbeat.getHttpsInterface());
+        Assert.assertNull(heartbeat.getWorkerMetrics());
+
+        // The leader restarted with the same id, hence answers from a new session
+        HeartbeatSender.acknowledge(heartbeat, createResponse("session-2"));
+        heartbeat = HeartbeatSender.createHeartbeat();
+        Assert.assertNotNull(heartbeat.getHttpsInterface());
+        Assert.assertNotNull(heartbeat.getWorkerMetrics());
+
+        HeartbeatSender.acknowledge(heartbeat, createResponse("session-2"));
+        heartbeat = HeartbeatSender.createHeartbeat();
+        Assert.assertNull(heartbeat.getHttpsInterface());
+        Assert.assertNull(heartbeat.getWorkerMetrics());
+    }
+
+    private HeartbeatResponse createResponse(String leaderSessionId) {
+        HeartbeatResponse heartbeatResponse = new HeartbeatResponse();
+        heartbeatResponse.setLeader(leader);
+        heartbeatResponse.setJoinedState(ResourceConstants.STATE_EXISTS);
+        heartbeatResponse.setLeaderSessionId(leaderSessionId);
+        return heartbeatResponse;
+    }
+
+    private WorkerMetrics createMetrics(double cpu, double loadAverage) {
+        WorkerMetrics workerMetrics = new WorkerMetrics();
+        workerMetrics.setSystemCPU(cpu);
+        workerMetrics.setProcessCPU(cpu);
+        workerMetrics.setLoadAverage(loadAverage);
+        workerMetrics.setTotalMemory(0.4);
+        return workerMetrics;
+    }
+}
@@ -31,6 +31,8 @@ import org.wso2.msf4j.Request;
 import org.wso2.msf4j.interceptor.annotation.RequestInterceptor;
 
 import javax.ws.rs.GET;
+import javax.ws.rs.POST;
+import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
@@ -205,4 +207,96 @@ public class ManagersApi implements Microservice {
             throws NotFoundException {
         return managersApi.isActive(request);
     }
+
+    @PUT
+    @Path("/siddhi-apps/{appName}/execution-groups/{groupName}")
+    @Produces({"application/json"})
+    @io.swagger.annotations.ApiOperation(value = "Change the parallelism of an execution group",
+            notes = "Re-deploys only the child siddhi apps of the parent siddhi app which are affected by the new "
+                    + "parallelism of the execution group.",
+            response = void.class, tags = {"Managers",})
+    @io.swagger.annotations.ApiResponses(value = {
+            @io.swagger.annotations.ApiResponse(code = 200, message = "Execution group successfully rescaled.",
+                    response = void.class),
+
+            @io.swagger.annotations.ApiResponse(code = 400, message = "The given parallelism is invalid.",
+                    response = void.class),
+
+            @io.swagger.annotations.ApiResponse(code = 404, message = "The parent application or the execution "
+                    + "group is not found.", response = void.class),
+
+            @io.swagger.annotations.ApiResponse(code = 409, message = "Current node is not the active node.",
+                    response = void.class),
+
+            @io.swagger.annotations.ApiResponse(code = 500, message = "An unexpexted error occured.",
+                    response = void.class)})
+    public Response rescaleExecutionGroup(
+            @Context Request request,
+            @ApiParam(value = "name of the parent siddhi app.", required = true)
+            @PathParam("appName") String appName,
+            @ApiParam(value = "name of the execution group.", required = true)
+            @PathParam("groupName") String groupName,
+            @ApiParam(value = "new parallelism of the execution group.", required = true)
+            @QueryParam("parallelism") Integer parallelism) throws NotFoundException {
+        return managersApi.rescaleExecutionGroup(appName, groupName, parallelism, request);
+    }
+
+    @POST
+    @Path("/siddhi-apps/{appName}/partial-apps/{partialAppName}/migrate")
+    @Produces({"application/json"})
+    @io.swagger.annotations.ApiOperation(value = "Move a child siddhi app to another resource node",
+            notes = "Persists the state of the child siddhi app, deploys it in the given resource node which "
+                    + "restores the state, and un-deploys it from the resource node it was deployed in.",
+            response = void.class, tags = {"Managers",})
+    @io.swagger.annotations.ApiResponses(value = {
+            @io.swagger.annotations.ApiResponse(code = 200, message = "Child siddhi app successfully migrated.",
+                    response = void.class),
+
+            @io.swagger.annotations.ApiResponse(code = 400, message = "The target resource node is not given.",
+                    response = void.class),
+
+            @io.swagger.annotations.ApiResponse(code = 404, message = "The child siddhi app or the resource node is "
+                    + "not found.", response = void.class),
+
+            @io.swagger.annotations.ApiResponse(code = 409, message = "Current node is not the active node.",
+                    response = void.class),
+
+            @io.swagger.annotations.ApiResponse(code = 500, message = "An unexpexted error occured.",
+                    response = void.class)})
+    public Response migratePartialApp(
+            @Context Request request,
+            @ApiParam(value = "name of the parent siddhi app.", required = true)
+            @PathParam("appName") String appName,
+            @ApiParam(value = "name of the child siddhi app.", required = true)
+            @PathParam("partialAppName") String partialAppName,
+            @ApiParam(value = "id of the resource node to move the child siddhi app to.", required = true)
+            @QueryParam("targetNode") String targetNode) throws NotFoundException {
+        return managersApi.migratePartialApp(appName, partialAppName, targetNode, request);
+    }
+
+    @POST
+    @Path("/resource-nodes/{nodeId}/drain")
+    @Produces({"application/json"})
+    @io.swagger.annotations.ApiOperation(value = "Move all child siddhi apps out of a resource node",
+            notes = "Migrates all the child siddhi apps deployed in the resource node to other resource nodes along "
+                    + "with their state, so that the resource node can be shut down.",
+            response = void.class, tags = {"Managers",})
+    @io.swagger.annotations.ApiResponses(value = {
+            @io.swagger.annotations.ApiResponse(code = 200, message = "Resource node successfully drained.",
+                    response = void.class),
+
+            @io.swagger.annotations.ApiResponse(code = 404, message = "The resource node is not found.",
+                    response = void.class),
+
+            @io.swagger.annotations.ApiResponse(code = 409, message = "Current node is not the active node.",
+                    response = void.class),
+
+            @io.swagger.annotations.ApiResponse(code = 500, message = "An unexpexted error occured.",
+                    response = void.class)})
+    public Response drainResourceNode(
+            @Context Request request,
+            @ApiParam(value = "id of the resource node.", required = true)
+            @PathParam("nodeId") String nodeId) throws NotFoundException {
+        return managersApi.drainResourceNode(nodeId, request);
+    }
 }
@@ -44,4 +44,12 @@ public abstract class ManagersApiService {
     public abstract Response getKafkaDetails(String appName, Request request) throws NotFoundException;
 
     public abstract Response isActive(Request request) throws NotFoundException;
+
+    public abstract Response rescaleExecutionGroup(String appName, String groupName, Integer parallelism,
+                                                   Request request) throws NotFoundException;
+
+    public abstract Response migratePartialApp(String appName, String partialAppName, String targetNode,
+                                               Request request) throws NotFoundException;
+
+    public abstract Response drainResourceNode(String nodeId, Request request) throws NotFoundException;
 }
@@ -43,6 +43,12 @@ public class HeartbeatResponse {
     private List<InterfaceConfig> connectedManagers = new ArrayList<InterfaceConfig>();
     @JsonProperty("joinedState")
     private JoinedStateEnum joinedState = null;
+    @JsonProperty("managersVersion")
+    private long managersVersion;
+    @JsonProperty("configRequired")
+    private boolean configRequired;
+    @JsonProperty("leaderSessionId")
+    private String leaderSessionId = null;
 
     public HeartbeatResponse leader(ManagerNodeConfig leader) {
         this.leader = leader;
@@ -106,6 +112,64 @@ public class HeartbeatResponse {
         this.joinedState = joinedState;
     }
 
+    public HeartbeatResponse managersVersion(long managersVersion) {
+        this.managersVersion = managersVersion;
+        return this;
+    }
+
+    /**
+     * Get managersVersion. The connectedManagers are left out if the resource node already has this version.
+     *
+     * @return managersVersion
+     **/
+    @ApiModelProperty(value = "")
+    public long getManagersVersion() {
+        return managersVersion;
+    }
+
+    public void setManagersVersion(long managersVersion) {
+        this.managersVersion = managersVersion;
+    }
+
+    public HeartbeatResponse configRequired(boolean configRequired) {
+        this.configRequired = configRequired;
+        return this;
+    }
+
+    /**
+     * Get configRequired. Set when the resource node has to send its full configuration with the next heartbeat.
+     *
+     * @return configRequired
+     **/
+    @ApiModelProperty(value = "")
+    public boolean isConfigRequired() {
+        return configRequired;
+    }
+
+    public void setConfigRequired(boolean configRequired) {
+        this.configRequired = configRequired;
+    }
+
+    public HeartbeatResponse leaderSessionId(String leaderSessionId) {
+        this.leaderSessionId = leaderSessionId;
+        return this;
+    }
+
+    /**
+     * Get leaderSessionId. Changes whenever a manager node takes over the resource pool as the leader, even when it
+     * has the same id as the previous leader.
+     *
+     * @return leaderSessionId
+     **/
+    @ApiModelProperty(value = "")
+    public String getLeaderSessionId() {
+        return leaderSessionId;
+    }
+
+    public void setLeaderSessionId(String leaderSessionId) {
+        this.leaderSessionId = leaderSessionId;
+    }
+
     @Override
     public boolean equals(java.lang.Object o) {
         if (this == o) {
@@ -117,12 +181,16 @@ public class HeartbeatResponse {
         HeartbeatResponse heartbeatResponse = (HeartbeatResponse) o;
         return Objects.equals(this.leader, heartbeatResponse.leader) &&
                 Objects.equals(this.connectedManagers, heartbeatResponse.connectedManagers) &&
-                Objects.equals(this.joinedState, heartbeatResponse.joinedState);
+                Objects.equals(this.joinedState, heartbeatResponse.joinedState) &&
+                this.managersVersion == heartbeatResponse.managersVersion &&
+                this.configRequired == heartbeatResponse.configRequired &&
+                Objects.equals(this.leaderSessionId, heartbeatResponse.leaderSessionId);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(leader, connectedManagers, joinedState);
+        return Objects.hash(leader, connectedManagers, joinedState, managersVersion, configRequired,
+                leaderSessionId);
     }
 
     @Override
@@ -133,6 +201,9 @@ public class HeartbeatResponse {
         sb.append("    leader: ").append(toIndentedString(leader)).append("\n");
         sb.append("    connectedManagers: ").append(toIndentedString(connectedManagers)).append("\n");
         sb.append("    joinedState: ").append(toIndentedString(joinedState)).append("\n");
+        sb.append("    managersVersion: ").append(toIndentedString(managersVersion)).append("\n");
+        sb.append("    configRequired: ").append(toIndentedString(configRequired)).append("\n");
+        sb.append("    leaderSessionId: ").append(toIndentedString(leaderSessionId)).append("\n");
         sb.append("}");
         return sb.toString();
     }
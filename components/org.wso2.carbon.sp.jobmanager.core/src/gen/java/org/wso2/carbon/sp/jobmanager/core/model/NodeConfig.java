@@ -43,6 +43,8 @@ public class NodeConfig {
     private WorkerMetrics workerMetrics = null;
     @JsonProperty("isReceiverNode")
     private boolean isReceiverNode;
+    @JsonProperty("managersVersion")
+    private long managersVersion;
 
     public NodeConfig id(String id) {
         this.id = id;
@@ -92,11 +94,11 @@ public class NodeConfig {
     }
 
     /**
-     * Get httpsInterface
+     * Get httpsInterface, which is left out once the leader has it.
      *
      * @return httpsInterface
      **/
-    @ApiModelProperty(required = true, value = "")
+    @ApiModelProperty(required = false, value = "")
     public InterfaceConfig getHttpsInterface() {
         return httpsInterface;
     }
@@ -120,6 +122,25 @@ public class NodeConfig {
         return this;
     }
 
+    public NodeConfig managersVersion(long managersVersion) {
+        this.managersVersion = managersVersion;
+        return this;
+    }
+
+    /**
+     * Get managersVersion, the version of the connected managers list the resource node has.
+     *
+     * @return managersVersion
+     **/
+    @ApiModelProperty(required = false, value = "")
+    public long getManagersVersion() {
+        return managersVersion;
+    }
+
+    public void setManagersVersion(long managersVersion) {
+        this.managersVersion = managersVersion;
+    }
+
     @Override
     public boolean equals(java.lang.Object o) {
         if (this == o) {
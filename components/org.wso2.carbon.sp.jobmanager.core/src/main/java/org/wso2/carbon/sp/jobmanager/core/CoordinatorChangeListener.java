@@ -38,6 +38,8 @@ public class CoordinatorChangeListener extends MemberEventListener {
 
     @Override
     public void memberAdded(NodeDetail nodeDetail) {
+        // Connected managers sent to the resource nodes are rebuilt with the next heartbeat
+        ServiceDataHolder.setManagerClusterView(null);
         if (ServiceDataHolder.isLeader() && ServiceDataHolder.getResourcePool() != null
                 && nodeDetail.getPropertiesMap() != null){
             Map<String, Object> propertiesMap = nodeDetail.getPropertiesMap();
@@ -51,6 +53,7 @@ public class CoordinatorChangeListener extends MemberEventListener {
 
     @Override
     public void memberRemoved(NodeDetail nodeDetail) {
+        ServiceDataHolder.setManagerClusterView(null);
         if (ServiceDataHolder.isLeader() && ServiceDataHolder.getResourcePool() != null) {
             Map<String, Object> propertiesMap = nodeDetail.getPropertiesMap();
             String nodeId = (String) propertiesMap.get(ResourceManagerConstants.KEY_NODE_ID);
@@ -63,6 +66,7 @@ public class CoordinatorChangeListener extends MemberEventListener {
 
     @Override
     public void coordinatorChanged(NodeDetail nodeDetail) {
+        ServiceDataHolder.setManagerClusterView(null);
         Map<String, Object> propertiesMap = nodeDetail.getPropertiesMap();
         String nodeId = (String) propertiesMap.get(ResourceManagerConstants.KEY_NODE_ID);
         Integer heartbeatInterval = (Integer) propertiesMap.get(ResourceManagerConstants.KEY_NODE_INTERVAL);
@@ -89,6 +93,8 @@ public class CoordinatorChangeListener extends MemberEventListener {
             ResourcePool existingResourcePool = ServiceDataHolder.getRdbmsService().getResourcePool(groupId);
             ServiceDataHolder.setResourcePool((existingResourcePool != null) ? existingResourcePool
                     : new ResourcePool(groupId));
+            ServiceDataHolder.getResourcePool().setStateLock(ServiceDataHolder.getDeploymentManager()
+                    .getResourcePoolLock());
             ServiceDataHolder.getResourcePool().init();
             log.info(leader + " became the leader of the resource pool.");
             // if clustering is disabled leader node and resource pool is set when worker heart beat is
@@ -34,6 +34,19 @@ public interface DeploymentManager {
      */
     DeploymentStatus deploy(DistributedSiddhiQuery distributedSiddhiQuery);
 
+    /**
+     * Re-deploy a distributed Siddhi app which is already deployed, by only deploying, updating and un-deploying the
+     * partial apps which differ from the deployed ones.
+     * <p>
+     * A changed partial app is updated in place, which makes the resource node re-create it and restore it from its
+     * last persisted revision. Hence, the state changes since that revision are not carried over to the updated
+     * partial app, unlike a migration which persists the state with the sources paused before moving the app.
+     *
+     * @param distributedSiddhiQuery distributed Siddhi app
+     * @return the deployment status of the Siddhi app
+     */
+    DeploymentStatus reDeploy(DistributedSiddhiQuery distributedSiddhiQuery);
+
     /**
      * Un-deploy a distributed Siddhi app.
      *
@@ -30,11 +30,26 @@ import java.util.List;
  */
 public interface SiddhiAppCreator {
     /**
-     * Create valid concrete Siddhi Apps for each Query Group in the given {@link SiddhiTopology}
+     * Create valid concrete Siddhi Apps for each Query Group in the given {@link SiddhiTopology}. The topology must not
+     * be modified, as it is a cached plan which is used again whenever the Siddhi App is distributed with the same
+     * parallelism.
      *
      * @param topology Input topology to create Siddhi Apps
      * @return List of {@link DeployableSiddhiQueryGroup}s. Length of the list should be equal to no. of groups user
      * has defined. Length of the list should be greater than zero always.
      */
     List<DeployableSiddhiQueryGroup> createApps(SiddhiTopology topology);
+
+    /**
+     * Create Siddhi Apps for a topology whose transport channels were already created by
+     * {@link #createApps(SiddhiTopology)}, i.e. a topology with the same input streams and a subset of the output
+     * streams of a topology passed to it. Implementations which create or validate transport channels skip doing
+     * so again.
+     *
+     * @param topology Input topology to create Siddhi Apps
+     * @return List of {@link DeployableSiddhiQueryGroup}s, as returned by {@link #createApps(SiddhiTopology)}
+     */
+    default List<DeployableSiddhiQueryGroup> createAppsOnExistingChannels(SiddhiTopology topology) {
+        return createApps(topology);
+    }
 }
@@ -19,6 +19,9 @@
 package org.wso2.carbon.sp.jobmanager.core;
 
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
 import org.apache.log4j.Logger;
 import org.wso2.carbon.sp.jobmanager.core.api.ResourceServiceFactory;
 import org.wso2.carbon.sp.jobmanager.core.appcreator.SiddhiQuery;
@@ -110,6 +113,41 @@ public class SiddhiAppDeployer {
         }
     }
 
+    /**
+     * Persist the current state of a Siddhi app deployed in a given resource node.
+     *
+     * @param node          resource node.
+     * @param siddhiAppName name of the Siddhi app.
+     * @param pauseSources  whether the sources of the Siddhi app should be kept paused once the state is persisted.
+     * @return revision of the persisted state, or null if the state could not be persisted.
+     */
+    public static String backup(ResourceNode node, String siddhiAppName, boolean pauseSources) {
+        feign.Response resourceResponse = null;
+        try {
+            resourceResponse = ResourceServiceFactory.getResourceHttpsClient(Constants.PROTOCOL +
+                            HTTPSClientUtil.generateURLHostPort(node.getHttpsInterface().getHost(),
+                                    String.valueOf(node.getHttpsInterface().getPort())),
+                    node.getHttpsInterface().getUsername(), node.getHttpsInterface().getPassword())
+                    .backupSiddhiApp(siddhiAppName, pauseSources);
+            if (resourceResponse.status() == 201) {
+                JsonElement revision = new Gson().fromJson(resourceResponse.body().toString(), JsonObject.class)
+                        .get("revision");
+                return revision != null && !revision.isJsonNull() ? revision.getAsString() : null;
+            }
+            return null;
+        } catch (feign.FeignException | JsonParseException e) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Error occurred while persisting the state of Siddhi app " + siddhiAppName + " in "
+                        + node, e);
+            }
+            return null;
+        } finally {
+            if (resourceResponse != null) {
+                resourceResponse.close();
+            }
+        }
+    }
+
     /**
      * Get list of deployed Siddhi app names in a given resource node.
      *
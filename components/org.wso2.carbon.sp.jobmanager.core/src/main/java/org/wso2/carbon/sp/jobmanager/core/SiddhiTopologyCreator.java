@@ -20,6 +20,8 @@ package org.wso2.carbon.sp.jobmanager.core;
 
 import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiTopology;
 
+import java.util.Map;
+
 /**
  * Topology Creator will consume a Siddhi App and produce a {@link SiddhiTopology} based on distributed annotations.
  * Implementation of this should not change depending on different distribution methodologies(Ex: default, yarn
@@ -33,4 +35,14 @@ public interface SiddhiTopologyCreator {
      * @return {@link SiddhiTopology} representing the given siddhi app
      */
     SiddhiTopology createTopology(String userDefinedSiddhiApp);
+
+    /**
+     * consume a Siddhi App and produce a {@link SiddhiTopology}, where the parallelism of the given execution groups
+     * overrides the parallelism given in their distributed annotations
+     *
+     * @param userDefinedSiddhiApp Siddhi app deployed by the user
+     * @param parallelism          map of query group name -> parallelism
+     * @return {@link SiddhiTopology} representing the given siddhi app
+     */
+    SiddhiTopology createTopology(String userDefinedSiddhiApp, Map<String, Integer> parallelism);
 }
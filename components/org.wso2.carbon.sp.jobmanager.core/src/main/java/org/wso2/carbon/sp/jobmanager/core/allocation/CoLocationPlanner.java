@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.sp.jobmanager.core.allocation;
+
+import org.wso2.carbon.sp.jobmanager.core.model.ResourceNode;
+import org.wso2.carbon.sp.jobmanager.core.model.SiddhiAppHolder;
+import org.wso2.carbon.sp.jobmanager.core.topology.InputStreamDataHolder;
+import org.wso2.carbon.sp.jobmanager.core.topology.OutputStreamDataHolder;
+import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiQueryGroup;
+import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiTopology;
+import org.wso2.carbon.sp.jobmanager.core.util.TransportStrategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Plans the placement of partial Siddhi apps based on the edges of the {@link SiddhiTopology}. Query groups which
+ * communicate with each other are clustered into co-location groups, giving priority to the edges which carry the
+ * most events across nodes. When placing, the i<sup>th</sup> instance of every query group of a co-location group
+ * forms a slot which is deployed in a single resource node, while the slots of a co-location group are spread across
+ * resource nodes.
+ */
+public class CoLocationPlanner {
+
+    private CoLocationPlanner() {
+    }
+
+    /**
+     * Cluster the query groups of the topology into co-location groups. Receiver query groups are not co-located as
+     * they are deployed in receiver nodes.
+     *
+     * @param topology topology of the user defined Siddhi app.
+     * @param capacity maximum number of partial apps in a resource node, or 0 if unlimited.
+     * @return query group name to co-location group id.
+     */
+    public static Map<String, Integer> createCoLocationGroups(SiddhiTopology topology, int capacity) {
+        List<SiddhiQueryGroup> queryGroups = new ArrayList<>();
+        Map<String, List<Integer>> producers = new HashMap<>();
+        for (SiddhiQueryGroup queryGroup : topology.getQueryGroupList()) {
+            if (queryGroup.isReceiverQueryGroup()) {
+                continue;
+            }
+            for (OutputStreamDataHolder outputStream : queryGroup.getOutputStreams().values()) {
+                if (!outputStream.isInnerGroupStream()) {
+                    producers.computeIfAbsent(outputStream.getStreamName(), name -> new ArrayList<>())
+                            .add(queryGroups.size());
+                }
+            }
+            queryGroups.add(queryGroup);
+        }
+        List<int[]> edges = new ArrayList<>();
+        for (int consumer = 0; consumer < queryGroups.size(); consumer++) {
+            for (InputStreamDataHolder inputStream : queryGroups.get(consumer).getInputStreams().values()) {
+                List<Integer> streamProducers = producers.get(inputStream.getStreamName());
+                if (streamProducers == null || inputStream.isInnerGroupStream()
+                        || inputStream.getSubscriptionStrategy() == null) {
+                    continue;
+                }
+                for (int producer : streamProducers) {
+                    if (producer != consumer) {
+                        edges.add(new int[]{producer, consumer,
+                                getEdgeWeight(inputStream.getSubscriptionStrategy().getStrategy())});
+                    }
+                }
+            }
+        }
+        // Heavier edges are merged first so that they are the last to be cut when the capacity is reached
+        edges.sort((e1, e2) -> Integer.compare(e2[2], e1[2]));
+        int[] parents = new int[queryGroups.size()];
+        int[] sizes = new int[queryGroups.size()];
+        for (int i = 0; i < parents.length; i++) {
+            parents[i] = i;
+            sizes[i] = 1;
+        }
+        for (int[] edge : edges) {
+            int root1 = find(parents, edge[0]);
+            int root2 = find(parents, edge[1]);
+            if (root1 != root2 && (capacity <= 0 || sizes[root1] + sizes[root2] <= capacity)) {
+                parents[root2] = root1;
+                sizes[root1] += sizes[root2];
+            }
+        }
+        Map<String, Integer> coLocationGroups = new HashMap<>();
+        for (int i = 0; i < queryGroups.size(); i++) {
+            coLocationGroups.put(queryGroups.get(i).getName(), find(parents, i));
+        }
+        return coLocationGroups;
+    }
+
+    /**
+     * Assign a resource node for each of the given partial apps.
+     *
+     * @param appHolders       partial apps of a parent Siddhi app, in the order of their query groups.
+     * @param coLocationGroups query group name to co-location group id.
+     * @param resourceNodeMap  resource nodes available for the partial apps.
+     * @param nodeAppMapping   partial apps already deployed in each resource node.
+     * @param capacity         maximum number of partial apps in a resource node, or 0 if unlimited.
+     * @return partial app name to resource node assignments, or null if the resource nodes do not have enough
+     * capacity.
+     */
+    public static Map<String, ResourceNode> place(List<SiddhiAppHolder> appHolders,
+                                                  Map<String, Integer> coLocationGroups,
+                                                  Map<String, ResourceNode> resourceNodeMap,
+                                                  Map<ResourceNode, List<SiddhiAppHolder>> nodeAppMapping,
+                                                  int capacity) {
+        if (resourceNodeMap.isEmpty()) {
+            return null;
+        }
+        Map<ResourceNode, Integer> loads = new LinkedHashMap<>();
+        for (ResourceNode resourceNode : resourceNodeMap.values()) {
+            loads.put(resourceNode, nodeAppMapping.getOrDefault(resourceNode, Collections.emptyList()).size());
+        }
+        Map<String, Integer> instanceIndexes = new HashMap<>();
+        Map<List<Object>, List<SiddhiAppHolder>> slots = new LinkedHashMap<>();
+        for (SiddhiAppHolder appHolder : appHolders) {
+            int instanceIndex = instanceIndexes.merge(appHolder.getGroupName(), 1, Integer::sum) - 1;
+            Object coLocationGroup = coLocationGroups.containsKey(appHolder.getGroupName())
+                    ? coLocationGroups.get(appHolder.getGroupName()) : appHolder.getGroupName();
+            slots.computeIfAbsent(Arrays.asList(coLocationGroup, instanceIndex), key -> new ArrayList<>())
+                    .add(appHolder);
+        }
+        List<Map.Entry<List<Object>, List<SiddhiAppHolder>>> orderedSlots = new ArrayList<>(slots.entrySet());
+        orderedSlots.sort((s1, s2) -> Integer.compare(s2.getValue().size(), s1.getValue().size()));
+
+        Map<String, ResourceNode> assignments = new LinkedHashMap<>();
+        Map<Object, Set<ResourceNode>> coLocationGroupNodes = new HashMap<>();
+        for (Map.Entry<List<Object>, List<SiddhiAppHolder>> slot : orderedSlots) {
+            Set<ResourceNode> usedNodes = coLocationGroupNodes.computeIfAbsent(slot.getKey().get(0),
+                    key -> new HashSet<>());
+            List<SiddhiAppHolder> slotApps = slot.getValue();
+            ResourceNode resourceNode = selectNode(loads, usedNodes, slotApps.size(), capacity);
+            if (resourceNode != null) {
+                slotApps.forEach(appHolder -> assignments.put(appHolder.getAppName(), resourceNode));
+                loads.merge(resourceNode, slotApps.size(), Integer::sum);
+                usedNodes.add(resourceNode);
+            } else {
+                // No node can hold the whole slot, hence splitting it across nodes
+                for (SiddhiAppHolder appHolder : slotApps) {
+                    ResourceNode node = selectNode(loads, Collections.emptySet(), 1, capacity);
+                    if (node == null) {
+                        return null;
+                    }
+                    assignments.put(appHolder.getAppName(), node);
+                    loads.merge(node, 1, Integer::sum);
+                    usedNodes.add(node);
+                }
+            }
+        }
+        return assignments;
+    }
+
+    private static ResourceNode selectNode(Map<ResourceNode, Integer> loads, Set<ResourceNode> usedNodes,
+                                           int requiredCapacity, int capacity) {
+        ResourceNode selectedNode = null;
+        boolean selectedNodeUsed = true;
+        int selectedNodeLoad = Integer.MAX_VALUE;
+        for (Map.Entry<ResourceNode, Integer> entry : loads.entrySet()) {
+            int load = entry.getValue();
+            if (capacity > 0 && load + requiredCapacity > capacity) {
+                continue;
+            }
+            boolean used = usedNodes.contains(entry.getKey());
+            // Prefer nodes not holding other instances of the same co-location group, then the least loaded
+            if (selectedNode == null || (selectedNodeUsed && !used)
+                    || (selectedNodeUsed == used && load < selectedNodeLoad)) {
+                selectedNode = entry.getKey();
+                selectedNodeUsed = used;
+                selectedNodeLoad = load;
+            }
+        }
+        return selectedNode;
+    }
+
+    private static int getEdgeWeight(TransportStrategy strategy) {
+        switch (strategy) {
+            case ALL:
+                // every instance of the consumer receives all the events
+                return 3;
+            case FIELD_GROUPING:
+                return 2;
+            default:
+                return 1;
+        }
+    }
+
+    private static int find(int[] parents, int index) {
+        while (parents[index] != index) {
+            parents[index] = parents[parents[index]];
+            index = parents[index];
+        }
+        return index;
+    }
+}
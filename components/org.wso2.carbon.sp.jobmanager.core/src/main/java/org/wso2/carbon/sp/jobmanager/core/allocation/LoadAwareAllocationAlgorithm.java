@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.sp.jobmanager.core.allocation;
+
+import org.apache.log4j.Logger;
+import org.wso2.carbon.sp.jobmanager.core.bean.DeploymentConfig;
+import org.wso2.carbon.sp.jobmanager.core.internal.ServiceDataHolder;
+import org.wso2.carbon.sp.jobmanager.core.model.ResourceNode;
+import org.wso2.carbon.sp.jobmanager.core.model.SiddhiAppHolder;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Allocation algorithm which combines the CPU, load average and memory metrics of the resource nodes with the
+ * estimated weight of the partial Siddhi apps already deployed in them. Each placement is tentatively reserved
+ * until the partial app shows up in the resource pool, so that a burst of deployments is spread across the nodes
+ * instead of landing on the node which was the least loaded at the last heartbeat.
+ */
+public class LoadAwareAllocationAlgorithm implements ResourceAllocationAlgorithm {
+    private static final Logger logger = Logger.getLogger(LoadAwareAllocationAlgorithm.class);
+    private static final double SYSTEM_CPU_WEIGHT = 1;
+    private static final double PROCESS_CPU_WEIGHT = 1;
+    private static final double LOAD_AVERAGE_WEIGHT = 0.5;
+    private static final double MEMORY_WEIGHT = 0.5;
+    private static final double APP_LOAD_WEIGHT = 1;
+    /**
+     * Estimated weight of partial Siddhi apps a single resource node is considered to be fully loaded with.
+     */
+    private static final double NODE_APP_CAPACITY = 20;
+    private static final Pattern QUERY_PATTERN = Pattern.compile("\\bfrom\\b", Pattern.CASE_INSENSITIVE);
+    private final Map<String, Reservation> reservations = new HashMap<>();
+    /**
+     * Weights of the deployed partial apps by the app name, as the Siddhi app of a holder changes when it switches
+     * to its fallback app.
+     */
+    private final Map<String, AppWeight> appWeights = new HashMap<>();
+
+    @Override
+    public ResourceNode getNextResourceNode(Map<String, ResourceNode> resourceNodeMap, int minResourceCount) {
+        return getNextResourceNode(resourceNodeMap, minResourceCount, null);
+    }
+
+    @Override
+    public synchronized ResourceNode getNextResourceNode(Map<String, ResourceNode> resourceNodeMap,
+                                                         int minResourceCount, String siddhiApp) {
+        DeploymentConfig deploymentConfig = ServiceDataHolder.getDeploymentConfig();
+        if (deploymentConfig != null && !resourceNodeMap.isEmpty()) {
+            if (resourceNodeMap.size() >= minResourceCount) {
+                return allocate(resourceNodeMap, Math.max(deploymentConfig.getHeartbeatInterval() * 2L,
+                        deploymentConfig.getDeploymentTimeout()), siddhiApp);
+            } else {
+                logger.error("Minimum resource requirement did not match, hence not deploying the partial siddhi app ");
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized void reserve(ResourceNode resourceNode, String siddhiApp) {
+        int deployedAppCount = ServiceDataHolder.getResourcePool().getNodeAppMapping()
+                .getOrDefault(resourceNode, Collections.emptyList()).size();
+        reservations.computeIfAbsent(resourceNode.getId(), id -> new Reservation())
+                .reserve(deployedAppCount, calculateWeight(siddhiApp), System.currentTimeMillis());
+    }
+
+    private ResourceNode allocate(Map<String, ResourceNode> resourceNodeMap, long reservationTimeout,
+                                  String siddhiApp) {
+        Map<ResourceNode, List<SiddhiAppHolder>> nodeAppMapping = ServiceDataHolder.getResourcePool()
+                .getNodeAppMapping();
+        reservations.keySet().retainAll(resourceNodeMap.keySet());
+        Set<String> deployedAppNames = new HashSet<>();
+        int totalAppWeight = 0;
+        for (List<SiddhiAppHolder> deployedApps : nodeAppMapping.values()) {
+            for (SiddhiAppHolder deployedApp : deployedApps) {
+                deployedAppNames.add(deployedApp.getAppName());
+                totalAppWeight += getWeight(deployedApp);
+            }
+        }
+        appWeights.keySet().retainAll(deployedAppNames);
+        // Reserved the same way as the deployed apps are weighted, or as an average deployed app if not given
+        double newAppWeight = (siddhiApp != null) ? calculateWeight(siddhiApp)
+                : deployedAppNames.isEmpty() ? 1 : (double) totalAppWeight / deployedAppNames.size();
+        double maxLoadAverage = 0;
+        double totalMetricLoad = 0;
+        int metricsUpdatedNodes = 0;
+        for (ResourceNode resourceNode : resourceNodeMap.values()) {
+            if (resourceNode.isMetricsUpdated()) {
+                maxLoadAverage = Math.max(maxLoadAverage, resourceNode.getLoadAverage());
+            }
+        }
+        Map<ResourceNode, Double> metricLoads = new HashMap<>();
+        for (ResourceNode resourceNode : resourceNodeMap.values()) {
+            if (resourceNode.isMetricsUpdated()) {
+                double metricLoad = calculateMetricLoad(resourceNode, maxLoadAverage);
+                metricLoads.put(resourceNode, metricLoad);
+                totalMetricLoad += metricLoad;
+                metricsUpdatedNodes++;
+            }
+        }
+        // Nodes which did not report metrics yet are assumed to be as loaded as an average node
+        double averageMetricLoad = metricsUpdatedNodes > 0 ? totalMetricLoad / metricsUpdatedNodes : 0;
+
+        long currentTimestamp = System.currentTimeMillis();
+        ResourceNode selectedNode = null;
+        int selectedNodeAppCount = 0;
+        double minLoad = Double.MAX_VALUE;
+        for (ResourceNode resourceNode : resourceNodeMap.values()) {
+            List<SiddhiAppHolder> deployedApps = nodeAppMapping.getOrDefault(resourceNode,
+                    Collections.emptyList());
+            double appWeight = 0;
+            for (SiddhiAppHolder deployedApp : deployedApps) {
+                appWeight += getWeight(deployedApp);
+            }
+            Reservation reservation = reservations.get(resourceNode.getId());
+            if (reservation != null) {
+                double pendingAppWeight = reservation.getPendingAppWeight(deployedApps.size(), currentTimestamp,
+                        reservationTimeout);
+                if (pendingAppWeight == 0) {
+                    reservations.remove(resourceNode.getId());
+                } else {
+                    appWeight += pendingAppWeight;
+                }
+            }
+            double load = metricLoads.getOrDefault(resourceNode, averageMetricLoad)
+                    + APP_LOAD_WEIGHT * appWeight / NODE_APP_CAPACITY;
+            if (logger.isDebugEnabled()) {
+                logger.debug(String.format("Estimated load of %s is %.4f with %d deployed partial apps.",
+                        resourceNode, load, deployedApps.size()));
+            }
+            if (load < minLoad) {
+                minLoad = load;
+                selectedNode = resourceNode;
+                selectedNodeAppCount = deployedApps.size();
+            }
+        }
+        if (selectedNode != null) {
+            reservations.computeIfAbsent(selectedNode.getId(), id -> new Reservation())
+                    .reserve(selectedNodeAppCount, newAppWeight, currentTimestamp);
+            if (logger.isDebugEnabled()) {
+                logger.debug("Next node to get allocated is " + selectedNode.getId());
+            }
+        }
+        return selectedNode;
+    }
+
+    /**
+     * Metric based load of a node, normalized to be within 0 and 1.
+     */
+    private double calculateMetricLoad(ResourceNode resourceNode, double maxLoadAverage) {
+        double loadAverage = maxLoadAverage > 0 ? Math.max(resourceNode.getLoadAverage(), 0) / maxLoadAverage : 0;
+        double load = SYSTEM_CPU_WEIGHT * normalize(resourceNode.getSystemCPU())
+                + PROCESS_CPU_WEIGHT * normalize(resourceNode.getProcessCPU())
+                + LOAD_AVERAGE_WEIGHT * loadAverage
+                + MEMORY_WEIGHT * normalize(resourceNode.getMemoryUsage());
+        return load / (SYSTEM_CPU_WEIGHT + PROCESS_CPU_WEIGHT + LOAD_AVERAGE_WEIGHT + MEMORY_WEIGHT);
+    }
+
+    private double normalize(double ratio) {
+        // Metrics are reported as -1 when they are not available in the platform
+        return Math.min(Math.max(ratio, 0), 1);
+    }
+
+    /**
+     * Estimated weight of a partial Siddhi app, which is the number of queries in it.
+     */
+    private int getWeight(SiddhiAppHolder siddhiAppHolder) {
+        String siddhiApp = siddhiAppHolder.getSiddhiApp();
+        AppWeight appWeight = appWeights.get(siddhiAppHolder.getAppName());
+        if (appWeight == null || !Objects.equals(appWeight.siddhiApp, siddhiApp)) {
+            appWeight = new AppWeight(siddhiApp, calculateWeight(siddhiApp));
+            appWeights.put(siddhiAppHolder.getAppName(), appWeight);
+        }
+        return appWeight.weight;
+    }
+
+    private int calculateWeight(String siddhiApp) {
+        if (siddhiApp == null) {
+            return 1;
+        }
+        int queries = 0;
+        Matcher matcher = QUERY_PATTERN.matcher(siddhiApp);
+        while (matcher.find()) {
+            queries++;
+        }
+        return Math.max(queries, 1);
+    }
+
+    /**
+     * Weight of a deployed partial app, along with the Siddhi app it was calculated for.
+     */
+    private static class AppWeight {
+        private final String siddhiApp;
+        private final int weight;
+
+        private AppWeight(String siddhiApp, int weight) {
+            this.siddhiApp = siddhiApp;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Partial apps allocated to a node which are not yet deployed in it.
+     */
+    private static class Reservation {
+        private int baselineAppCount;
+        private int reservedApps;
+        private double reservedAppWeight;
+        private long lastReservedTimestamp;
+
+        /**
+         * Weight of the reserved apps which are not deployed yet. The apps may show up in any order, so each of
+         * them is taken to be of the average reserved weight.
+         */
+        private double getPendingAppWeight(int deployedAppCount, long currentTimestamp, long reservationTimeout) {
+            if (currentTimestamp - lastReservedTimestamp > reservationTimeout) {
+                return 0;
+            }
+            int pendingApps = Math.max(reservedApps - Math.max(deployedAppCount - baselineAppCount, 0), 0);
+            return pendingApps * reservedAppWeight / reservedApps;
+        }
+
+        private void reserve(int deployedAppCount, double appWeight, long currentTimestamp) {
+            if (reservedApps == 0) {
+                baselineAppCount = deployedAppCount;
+            }
+            reservedApps++;
+            reservedAppWeight += appWeight;
+            lastReservedTimestamp = currentTimestamp;
+        }
+    }
+}
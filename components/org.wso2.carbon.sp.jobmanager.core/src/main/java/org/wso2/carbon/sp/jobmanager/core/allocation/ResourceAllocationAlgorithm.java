@@ -33,4 +33,25 @@ public interface ResourceAllocationAlgorithm {
      * @return Elected resource node for next deployment
      */
     ResourceNode getNextResourceNode(Map<String, ResourceNode> resourceNodeMap, int minResourceCount);
+
+    /**
+     * Get next ResourceNode to deploy the given partial siddhi app
+     * @param resourceNodeMap ResourceNode Map
+     * @param minResourceCount Minimum resource requirement for SiddhiQuery
+     * @param siddhiApp Partial siddhi app to be deployed, for the algorithms which consider its weight
+     * @return Elected resource node for next deployment
+     */
+    default ResourceNode getNextResourceNode(Map<String, ResourceNode> resourceNodeMap, int minResourceCount,
+                                             String siddhiApp) {
+        return getNextResourceNode(resourceNodeMap, minResourceCount);
+    }
+
+    /**
+     * Record that the given partial siddhi app is allocated to the ResourceNode without going through this algorithm,
+     * as when it is co-located with its peers, for the algorithms which keep track of pending deployments
+     * @param resourceNode ResourceNode the partial siddhi app is allocated to
+     * @param siddhiApp Partial siddhi app to be deployed
+     */
+    default void reserve(ResourceNode resourceNode, String siddhiApp) {
+    }
 }
@@ -45,4 +45,8 @@ public interface ResourceServiceStub {
     @Headers("Content-Type: application/json")
     @RequestLine("GET /siddhi-apps")
     Response getSiddhiApps();
+
+    @Headers("Content-Type: application/json")
+    @RequestLine("POST /siddhi-apps/{appName}/backup?pauseSources={pauseSources}")
+    Response backupSiddhiApp(@Param("appName") String appName, @Param("pauseSources") boolean pauseSources);
 }
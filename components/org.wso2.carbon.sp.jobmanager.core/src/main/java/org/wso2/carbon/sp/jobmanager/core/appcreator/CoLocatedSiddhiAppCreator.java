@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.sp.jobmanager.core.appcreator;
+
+import org.apache.log4j.Logger;
+import org.wso2.carbon.sp.jobmanager.core.SiddhiAppCreator;
+import org.wso2.carbon.sp.jobmanager.core.allocation.CoLocationPlanner;
+import org.wso2.carbon.sp.jobmanager.core.topology.InputStreamDataHolder;
+import org.wso2.carbon.sp.jobmanager.core.topology.OutputStreamDataHolder;
+import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiQueryGroup;
+import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiTopology;
+import org.wso2.carbon.sp.jobmanager.core.util.EventHolder;
+import org.wso2.carbon.sp.jobmanager.core.util.ResourceManagerConstants;
+import org.wso2.carbon.sp.jobmanager.core.util.TransportStrategy;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link SiddhiAppCreator} which lets co-located query groups pass events in-process. Siddhi apps are created by the
+ * given app creator, after which the streams between co-located query groups, which can be passed in-process without
+ * changing the semantics of their transport strategy, are published through in-memory sinks instead of the broker.
+ * <p>
+ * A stream is passed in-process only if it has a single consuming query group, and either both query groups have a
+ * parallelism of one, or the stream is round robin distributed between query groups of the same parallelism, in
+ * which case the i<sup>th</sup> instance of the producer publishes to the i<sup>th</sup> instance of the consumer.
+ * Consumers keep their broker sources, hence a producer switches to its broker based fallback app whenever its local
+ * peers are not deployed in the same node.
+ */
+public class CoLocatedSiddhiAppCreator implements SiddhiAppCreator {
+    private static final Logger log = Logger.getLogger(CoLocatedSiddhiAppCreator.class);
+    private final SiddhiAppCreator appCreator;
+    private final int maxPartialAppsPerNode;
+
+    public CoLocatedSiddhiAppCreator(SiddhiAppCreator appCreator, int maxPartialAppsPerNode) {
+        this.appCreator = appCreator;
+        this.maxPartialAppsPerNode = maxPartialAppsPerNode;
+    }
+
+    @Override
+    public List<DeployableSiddhiQueryGroup> createApps(SiddhiTopology topology) {
+        List<DeployableSiddhiQueryGroup> brokerQueryGroups = appCreator.createApps(topology);
+        Map<String, Map<String, String>> localStreams = getLocalStreams(topology);
+        if (localStreams.isEmpty()) {
+            return brokerQueryGroups;
+        }
+        List<SiddhiQueryGroup> queryGroups = new ArrayList<>(topology.getQueryGroupList().size());
+        for (SiddhiQueryGroup queryGroup : topology.getQueryGroupList()) {
+            Map<String, String> streams = localStreams.get(queryGroup.getName());
+            queryGroups.add(streams != null ? withoutPublishing(queryGroup, streams.keySet()) : queryGroup);
+        }
+        SiddhiTopology localTopology = new SiddhiTopology(topology.getName(), queryGroups,
+                topology.isTransportChannelCreationEnabled());
+        // The broker channels of the local topology are a subset of the ones created for the fallback apps
+        List<DeployableSiddhiQueryGroup> localQueryGroups = appCreator.createAppsOnExistingChannels(localTopology);
+
+        Map<String, SiddhiQuery> fallbackQueries = new HashMap<>();
+        brokerQueryGroups.forEach(queryGroup -> queryGroup.getSiddhiQueries().forEach(
+                query -> fallbackQueries.put(query.getAppName(), query)));
+        Map<String, List<SiddhiQuery>> queries = new HashMap<>();
+        localQueryGroups.forEach(queryGroup -> queries.put(queryGroup.getGroupName(), queryGroup.getSiddhiQueries()));
+
+        // Consumers are wired first, so that producers whose consumers could not be wired keep the broker. The
+        // fallback apps get the in-memory sources too, as a consumer may fall back while its producers do not.
+        Set<String> unwiredSources = new HashSet<>();
+        Set<String> wiredSources = new HashSet<>();
+        for (Map<String, String> streams : localStreams.values()) {
+            for (Map.Entry<String, String> stream : streams.entrySet()) {
+                for (SiddhiQuery consumer : queries.get(stream.getValue())) {
+                    String sourceKey = consumer.getAppName() + ":" + stream.getKey();
+                    if (wiredSources.contains(sourceKey) || unwiredSources.contains(sourceKey)) {
+                        continue;
+                    }
+                    String topic = getTopicName(topology.getName(), stream.getKey(), consumer.getAppName());
+                    SiddhiQuery fallbackQuery = fallbackQueries.get(consumer.getAppName());
+                    String app = addTransport(consumer.getApp(), stream.getKey(),
+                            ResourceManagerConstants.IN_MEMORY_SOURCE_TEMPLATE, topic);
+                    String fallbackApp = addTransport(fallbackQuery.getApp(), stream.getKey(),
+                            ResourceManagerConstants.IN_MEMORY_SOURCE_TEMPLATE, topic);
+                    if (app != null && fallbackApp != null) {
+                        consumer.setApp(app);
+                        fallbackQuery.setApp(fallbackApp);
+                        wiredSources.add(sourceKey);
+                    } else {
+                        unwiredSources.add(sourceKey);
+                    }
+                }
+            }
+        }
+        for (Map.Entry<String, Map<String, String>> entry : localStreams.entrySet()) {
+            List<SiddhiQuery> producers = queries.get(entry.getKey());
+            for (int i = 0; i < producers.size(); i++) {
+                SiddhiQuery producer = producers.get(i);
+                String app = producer.getApp();
+                List<String> localPeers = new ArrayList<>();
+                for (Map.Entry<String, String> stream : entry.getValue().entrySet()) {
+                    List<SiddhiQuery> consumers = queries.get(stream.getValue());
+                    SiddhiQuery consumer = consumers.get(consumers.size() == producers.size() ? i : 0);
+                    if (unwiredSources.contains(consumer.getAppName() + ":" + stream.getKey())) {
+                        app = null;
+                        break;
+                    }
+                    app = addTransport(app, stream.getKey(), ResourceManagerConstants.IN_MEMORY_SINK_TEMPLATE,
+                            getTopicName(topology.getName(), stream.getKey(), consumer.getAppName()));
+                    if (app == null) {
+                        break;
+                    }
+                    if (!localPeers.contains(consumer.getAppName())) {
+                        localPeers.add(consumer.getAppName());
+                    }
+                }
+                String fallbackApp = fallbackQueries.get(producer.getAppName()).getApp();
+                if (app != null) {
+                    producer.setApp(app).setFallbackApp(fallbackApp).setLocalPeers(localPeers);
+                } else {
+                    log.warn("Could not wire the in-process streams of " + producer.getAppName() + " of Siddhi app "
+                            + topology.getName() + ". Hence, publishing its events through the broker.");
+                    producer.setApp(fallbackApp);
+                }
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Streams " + localStreams + " of Siddhi app " + topology.getName() + " are passed in-process "
+                    + "between co-located query groups.");
+        }
+        return localQueryGroups;
+    }
+
+    /**
+     * Find the streams which can be passed in-process between co-located query groups.
+     *
+     * @param topology topology of the Siddhi app.
+     * @return map of producing query group name -> (stream name -> consuming query group name).
+     */
+    private Map<String, Map<String, String>> getLocalStreams(SiddhiTopology topology) {
+        Map<String, Integer> coLocationGroups = CoLocationPlanner.createCoLocationGroups(topology,
+                maxPartialAppsPerNode);
+        Map<String, List<SiddhiQueryGroup>> consumers = new HashMap<>();
+        for (SiddhiQueryGroup queryGroup : topology.getQueryGroupList()) {
+            for (InputStreamDataHolder inputStream : queryGroup.getInputStreams().values()) {
+                if (!inputStream.isUserGiven() && !inputStream.isInnerGroupStream()) {
+                    consumers.computeIfAbsent(inputStream.getStreamName(), name -> new ArrayList<>())
+                            .add(queryGroup);
+                }
+            }
+        }
+        Map<String, Map<String, String>> localStreams = new LinkedHashMap<>();
+        for (SiddhiQueryGroup producer : topology.getQueryGroupList()) {
+            Integer coLocationGroup = coLocationGroups.get(producer.getName());
+            if (producer.isReceiverQueryGroup() || coLocationGroup == null) {
+                continue;
+            }
+            for (OutputStreamDataHolder outputStream : producer.getOutputStreams().values()) {
+                List<SiddhiQueryGroup> streamConsumers = consumers.get(outputStream.getStreamName());
+                if (outputStream.getEventHolderType() != EventHolder.STREAM || outputStream.isInnerGroupStream()
+                        || streamConsumers == null || streamConsumers.size() != 1) {
+                    continue;
+                }
+                SiddhiQueryGroup consumer = streamConsumers.get(0);
+                if (consumer == producer || !coLocationGroup.equals(coLocationGroups.get(consumer.getName()))) {
+                    continue;
+                }
+                TransportStrategy strategy = consumer.getInputStreams().get(outputStream.getStreamName())
+                        .getSubscriptionStrategy().getStrategy();
+                if ((producer.getParallelism() == 1 && consumer.getParallelism() == 1)
+                        || (strategy == TransportStrategy.ROUND_ROBIN
+                        && producer.getParallelism() == consumer.getParallelism())) {
+                    localStreams.computeIfAbsent(producer.getName(), name -> new LinkedHashMap<>())
+                            .put(outputStream.getStreamName(), consumer.getName());
+                }
+            }
+        }
+        return localStreams;
+    }
+
+    /**
+     * Copy the query group without the broker publishing strategies of the given output streams.
+     */
+    private SiddhiQueryGroup withoutPublishing(SiddhiQueryGroup queryGroup, Set<String> streams) {
+        SiddhiQueryGroup copy = new SiddhiQueryGroup(queryGroup.getName(), queryGroup.getParallelism());
+        queryGroup.getQueryList().forEach(copy::addQuery);
+        copy.setReceiverQueryGroup(queryGroup.isReceiverQueryGroup());
+        copy.addInputStreams(queryGroup.getInputStreams());
+        for (Map.Entry<String, OutputStreamDataHolder> entry : queryGroup.getOutputStreams().entrySet()) {
+            OutputStreamDataHolder outputStream = entry.getValue();
+            if (streams.contains(entry.getKey())) {
+                OutputStreamDataHolder localStream = new OutputStreamDataHolder(outputStream.getStreamName(),
+                        outputStream.getStreamDefinition(), outputStream.getEventHolderType(),
+                        outputStream.isUserGiven());
+                localStream.setInnerGroupStream(outputStream.isInnerGroupStream());
+                localStream.setSinkBridgeAdded(outputStream.isSinkBridgeAdded());
+                copy.addOutputStream(entry.getKey(), localStream);
+            } else {
+                copy.addOutputStream(entry.getKey(), outputStream);
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Add the given transport annotation to the definition of the stream.
+     *
+     * @return updated Siddhi app, or null if the stream definition is not found.
+     */
+    private String addTransport(String siddhiApp, String streamName, String template, String topic) {
+        Matcher matcher = Pattern.compile("(?i:define\\s+stream)\\s+" + Pattern.quote(streamName) + "\\s*\\(")
+                .matcher(siddhiApp);
+        if (!matcher.find()) {
+            return null;
+        }
+        return siddhiApp.substring(0, matcher.start()) + template.replace("${" + ResourceManagerConstants
+                .TOPIC_LIST + "}", topic) + "\n" + siddhiApp.substring(matcher.start());
+    }
+
+    private String getTopicName(String siddhiAppName, String streamName, String consumerAppName) {
+        return siddhiAppName + "_" + streamName + "_" + consumerAppName;
+    }
+}
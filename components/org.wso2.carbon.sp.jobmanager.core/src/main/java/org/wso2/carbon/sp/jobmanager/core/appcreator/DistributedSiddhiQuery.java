@@ -19,6 +19,7 @@
 package org.wso2.carbon.sp.jobmanager.core.appcreator;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * POJO Class to hold created query groups and other information of a single Siddhi Apps.
@@ -26,6 +27,10 @@ import java.util.List;
 public class DistributedSiddhiQuery {
     private String appName;
     private List<DeployableSiddhiQueryGroup> queryGroups;
+    /**
+     * Query group name to co-location group id, null when the query groups are placed independently.
+     */
+    private Map<String, Integer> coLocationGroups;
 
     public DistributedSiddhiQuery(String appName, List<DeployableSiddhiQueryGroup> queryGroups) {
         this.appName = appName;
@@ -48,6 +53,14 @@ public class DistributedSiddhiQuery {
         this.queryGroups = queryGroups;
     }
 
+    public Map<String, Integer> getCoLocationGroups() {
+        return coLocationGroups;
+    }
+
+    public void setCoLocationGroups(Map<String, Integer> coLocationGroups) {
+        this.coLocationGroups = coLocationGroups;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -28,6 +28,7 @@ import org.wso2.carbon.sp.jobmanager.core.topology.InputStreamDataHolder;
 import org.wso2.carbon.sp.jobmanager.core.topology.OutputStreamDataHolder;
 import org.wso2.carbon.sp.jobmanager.core.topology.PublishingStrategyDataHolder;
 import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiQueryGroup;
+import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiTopology;
 import org.wso2.carbon.sp.jobmanager.core.topology.SubscriptionStrategyDataHolder;
 import org.wso2.carbon.sp.jobmanager.core.util.ResourceManagerConstants;
 import org.wso2.carbon.sp.jobmanager.core.util.SiddhiTopologyCreatorConstants;
@@ -48,6 +49,48 @@ import java.util.concurrent.TimeUnit;
 public class KafkaSiddhiAppCreator extends AbstractSiddhiAppCreator {
     private static final Logger log = Logger.getLogger(KafkaSiddhiAppCreator.class);
     private static final int TIMEOUT = 120;
+    private boolean createTopics = true;
+    private SafeZkClient safeZkClient;
+    private ZkUtils zkUtils;
+    /**
+     * Map of parentSiddhiAppName -> (topic -> partition count) of the partitioned topics retained with more
+     * partitions than planned, found when the Siddhi apps of the topology were last created.
+     */
+    private final Map<String, Map<String, Integer>> retainedPartitions = new HashMap<>();
+
+    /**
+     * Create the Siddhi apps along with their topics. A single ZooKeeper client is shared by all the topic checks
+     * of the topology, which is opened only if the topology has topics to be checked.
+     */
+    @Override
+    public synchronized List<DeployableSiddhiQueryGroup> createApps(SiddhiTopology topology) {
+        try {
+            Map<String, Integer> topicPartitions = getRetainedPartitions(topology);
+            if (topicPartitions.isEmpty()) {
+                retainedPartitions.remove(topology.getName());
+            } else {
+                retainedPartitions.put(topology.getName(), topicPartitions);
+            }
+            return super.createApps(topology);
+        } finally {
+            closeZkClient();
+        }
+    }
+
+    /**
+     * Create the Siddhi apps without creating or validating their topics, which were already created for a topology
+     * with the same input streams and a superset of the output streams of the given topology. The partition counts
+     * retained when creating the Siddhi apps of that topology are used for the partitioned topics.
+     */
+    @Override
+    public synchronized List<DeployableSiddhiQueryGroup> createAppsOnExistingChannels(SiddhiTopology topology) {
+        createTopics = false;
+        try {
+            return super.createApps(topology);
+        } finally {
+            createTopics = true;
+        }
+    }
 
     @Override
     protected List<SiddhiQuery> createApps(String siddhiAppName, SiddhiQueryGroup queryGroup) {
@@ -81,17 +124,19 @@ public class KafkaSiddhiAppCreator extends AbstractSiddhiAppCreator {
                         outputStream.getStreamName() + (holder.getGroupingField() == null ? "" : ("." + holder
                         .getGroupingField())));
                 if (holder.getStrategy() == TransportStrategy.FIELD_GROUPING) {
+                    int parallelism = getPartitionCount(siddhiAppName,
+                            sinkValuesMap.get(ResourceManagerConstants.TOPIC_LIST), holder.getParallelism());
                     if (partitionKeys.get(holder.getGroupingField()) != null &&
-                            partitionKeys.get(holder.getGroupingField()) > holder.getParallelism()) {
+                            partitionKeys.get(holder.getGroupingField()) > parallelism) {
                         continue;
                     }
                     //Remove if there is any previous R/R or ALL publishing
                     sinkList.remove(siddhiAppName + "." + outputStream.getStreamName());
-                    partitionKeys.put(holder.getGroupingField(), holder.getParallelism());
+                    partitionKeys.put(holder.getGroupingField(), parallelism);
                     sinkValuesMap.put(ResourceManagerConstants.PARTITION_KEY, holder.getGroupingField());
-                    List<String> destinations = new ArrayList<>(holder.getParallelism());
-                    for (int i = 0; i < holder.getParallelism(); i++) {
-                        Map<String, String> destinationMap = new HashMap<>(holder.getParallelism());
+                    List<String> destinations = new ArrayList<>(parallelism);
+                    for (int i = 0; i < parallelism; i++) {
+                        Map<String, String> destinationMap = new HashMap<>(parallelism);
                         destinationMap.put(ResourceManagerConstants.PARTITION_NO, String.valueOf(i));
                         destinations.add(getUpdatedQuery(ResourceManagerConstants.DESTINATION, destinationMap));
                     }
@@ -99,8 +144,7 @@ public class KafkaSiddhiAppCreator extends AbstractSiddhiAppCreator {
                     String sinkString = getUpdatedQuery(ResourceManagerConstants.PARTITIONED_KAFKA_SINK_TEMPLATE,
                             sinkValuesMap);
                     sinkList.put(sinkValuesMap.get(ResourceManagerConstants.TOPIC_LIST), sinkString);
-                    topicParallelismMap.put(sinkValuesMap.get(ResourceManagerConstants.TOPIC_LIST),
-                            holder.getParallelism());
+                    topicParallelismMap.put(sinkValuesMap.get(ResourceManagerConstants.TOPIC_LIST), parallelism);
                 } else {
                     //ATM we are handling both strategies in same manner. Later will improve to have multiple
                     // partitions for RR
@@ -115,15 +159,86 @@ public class KafkaSiddhiAppCreator extends AbstractSiddhiAppCreator {
             Map<String, String> queryValuesMap = new HashMap<>(1);
             queryValuesMap.put(outputStream.getStreamName(), StringUtils.join(sinkList.values(), "\n"));
             updateQueryList(queryList, queryValuesMap);
-            createTopicPartitions(topicParallelismMap);
+            if (createTopics) {
+                createTopicPartitions(topicParallelismMap);
+            }
         }
     }
 
-    private void createTopicPartitions(Map<String, Integer> topicParallelismMap) {
-        ZkUtils zkUtils;
-        String[] bootstrapServerURLs = null;
-        SafeZkClient safeZkClient;
-        String bootstrapServerURL = ServiceDataHolder.getDeploymentConfig().getBootstrapURLs();
+    /**
+     * Partitioned topics which already have more partitions than required are kept as they are, and the partial
+     * apps publishing to and consuming from them are created for the existing partition count. Hence, reducing the
+     * parallelism of an execution group does not delete the topic along with the events which are not consumed
+     * yet, and events of the same key keep going to the same partition.
+     * <p>
+     * The retained partition counts are not written to the topology, as it may be a cached plan which is created
+     * again for other partition counts later.
+     *
+     * @param topology topology of the Siddhi app
+     * @return map of topic -> partition count of the topics which are retained with more partitions than planned
+     */
+    private Map<String, Integer> getRetainedPartitions(SiddhiTopology topology) {
+        Map<String, List<PublishingStrategyDataHolder>> publishingStrategies = new HashMap<>();
+        for (SiddhiQueryGroup queryGroup : topology.getQueryGroupList()) {
+            for (OutputStreamDataHolder outputStream : queryGroup.getOutputStreams().values()) {
+                for (PublishingStrategyDataHolder holder : outputStream.getPublishingStrategyList()) {
+                    if (holder.getStrategy() == TransportStrategy.FIELD_GROUPING) {
+                        String topic = topology.getName() + "." + outputStream.getStreamName() + "."
+                                + holder.getGroupingField();
+                        publishingStrategies.computeIfAbsent(topic, key -> new ArrayList<>()).add(holder);
+                    }
+                }
+            }
+        }
+        Map<String, Integer> topicPartitions = new HashMap<>();
+        if (publishingStrategies.isEmpty()) {
+            return topicPartitions;
+        }
+        ZkUtils zkUtils = getZkUtils();
+        for (Map.Entry<String, List<PublishingStrategyDataHolder>> entry : publishingStrategies.entrySet()) {
+            String topic = entry.getKey();
+            int partitions = 0;
+            for (PublishingStrategyDataHolder holder : entry.getValue()) {
+                partitions = Math.max(partitions, holder.getParallelism());
+            }
+            if (AdminUtils.topicExists(zkUtils, topic)) {
+                int existingPartitions = AdminUtils.fetchTopicMetadataFromZk(topic, zkUtils)
+                        .partitionMetadata().size();
+                if (existingPartitions > partitions) {
+                    topicPartitions.put(topic, existingPartitions);
+                    log.info("Topic " + topic + " has " + existingPartitions + " partitions, which is higher "
+                            + "than the expected partition count " + partitions + ". Hence retaining the "
+                            + "existing partitions.");
+                }
+            }
+        }
+        return topicPartitions;
+    }
+
+    private int getPartitionCount(String siddhiAppName, String topic, int plannedPartitions) {
+        Map<String, Integer> topicPartitions = retainedPartitions.get(siddhiAppName);
+        Integer partitions = topicPartitions == null ? null : topicPartitions.get(topic);
+        return partitions == null ? plannedPartitions : partitions;
+    }
+
+    private ZkUtils getZkUtils() {
+        if (zkUtils == null) {
+            SafeZkClient client = new SafeZkClient();
+            zkUtils = createZkUtils(client);
+            safeZkClient = client;
+        }
+        return zkUtils;
+    }
+
+    private void closeZkClient() {
+        if (safeZkClient != null) {
+            safeZkClient.closeClient();
+            safeZkClient = null;
+        }
+        zkUtils = null;
+    }
+
+    private ZkUtils createZkUtils(SafeZkClient safeZkClient) {
         ZooKeeperConfig zooKeeperConfig = ServiceDataHolder.getDeploymentConfig().getZooKeeperConfig();
         String zooKeeperServerURL;
         if (zooKeeperConfig != null) {
@@ -140,10 +255,14 @@ public class KafkaSiddhiAppCreator extends AbstractSiddhiAppCreator {
         } else {
             String[] zooKeeperServerURLs = zooKeeperServerURL.replaceAll("\\s+", "").split(",");
             boolean isSecureKafkaCluster = false;
-            safeZkClient = new SafeZkClient();
-            zkUtils = safeZkClient.createZkClient(zooKeeperServerURLs, isSecureKafkaCluster,
+            return safeZkClient.createZkClient(zooKeeperServerURLs, isSecureKafkaCluster,
                     zooKeeperConfig.getSessionTimeout(), zooKeeperConfig.getConnectionTimeout());
         }
+    }
+
+    private void createTopicPartitions(Map<String, Integer> topicParallelismMap) {
+        String[] bootstrapServerURLs = null;
+        String bootstrapServerURL = ServiceDataHolder.getDeploymentConfig().getBootstrapURLs();
 
         if (bootstrapServerURL != null) {
             bootstrapServerURLs = bootstrapServerURL.replaceAll("\\s+", "").split(",");
@@ -151,7 +270,11 @@ public class KafkaSiddhiAppCreator extends AbstractSiddhiAppCreator {
             throw new SiddhiAppCreationException("Bootstrap server URLs  are not provided " +
                     "in deployment.yaml under deployment.config. Hence cannot create required topics.");
         }
+        if (topicParallelismMap.isEmpty()) {
+            return;
+        }
 
+        ZkUtils zkUtils = getZkUtils();
         Properties topicConfig = new Properties();
         for (Map.Entry<String, Integer> entry : topicParallelismMap.entrySet()) {
             String topic = entry.getKey();
@@ -209,7 +332,6 @@ public class KafkaSiddhiAppCreator extends AbstractSiddhiAppCreator {
                 }
             }
         }
-        safeZkClient.closeClient();
     }
 
     private void processInputStreams(String siddhiAppName, String groupName, List<SiddhiQuery> queryList,
@@ -225,9 +347,11 @@ public class KafkaSiddhiAppCreator extends AbstractSiddhiAppCreator {
             if (!inputStream.isUserGiven()) {
                 if (subscriptionStrategy.getStrategy() == TransportStrategy.FIELD_GROUPING) {
                     sourceValuesMap.put(ResourceManagerConstants.CONSUMER_GROUP_ID, groupName);
+                    int offeredParallelism = getPartitionCount(siddhiAppName,
+                            sourceValuesMap.get(ResourceManagerConstants.TOPIC_LIST),
+                            subscriptionStrategy.getOfferedParallelism());
                     for (int i = 0; i < queryList.size(); i++) {
-                        List<Integer> partitionNumbers = getPartitionNumbers(queryList.size(), subscriptionStrategy
-                                .getOfferedParallelism(), i);
+                        List<Integer> partitionNumbers = getPartitionNumbers(queryList.size(), offeredParallelism, i);
                         sourceValuesMap.put(ResourceManagerConstants.PARTITION_LIST, StringUtils.join(partitionNumbers,
                                 ","));
                         String sourceString =
@@ -18,6 +18,9 @@
 
 package org.wso2.carbon.sp.jobmanager.core.appcreator;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Gives details about siddhi application.
  */
@@ -25,6 +28,8 @@ public class SiddhiQuery {
     private String appName;
     private String app;
     private boolean isReceiverQuery;
+    private String fallbackApp;
+    private List<String> localPeers = new ArrayList<>();
 
     private SiddhiQuery() {
         // Avoiding empty initialization
@@ -58,6 +63,34 @@ public class SiddhiQuery {
         return isReceiverQuery;
     }
 
+    /**
+     * Broker based variant of the app, which is used when the app cannot reach its local peers in-process.
+     *
+     * @return fallback app, or null if the app does not publish events in-process.
+     */
+    public String getFallbackApp() {
+        return fallbackApp;
+    }
+
+    public SiddhiQuery setFallbackApp(String fallbackApp) {
+        this.fallbackApp = fallbackApp;
+        return this;
+    }
+
+    /**
+     * Names of the apps which consume events of this app in-process, hence have to be deployed in the same node.
+     *
+     * @return names of the local peers.
+     */
+    public List<String> getLocalPeers() {
+        return localPeers;
+    }
+
+    public SiddhiQuery setLocalPeers(List<String> localPeers) {
+        this.localPeers = localPeers;
+        return this;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.sp.jobmanager.core.autoscaling;
+
+import org.apache.log4j.Logger;
+import org.wso2.carbon.sp.jobmanager.core.bean.AutoScalingConfig;
+import org.wso2.carbon.sp.jobmanager.core.impl.DistributionManagerServiceImpl;
+import org.wso2.carbon.sp.jobmanager.core.internal.ServiceDataHolder;
+import org.wso2.carbon.sp.jobmanager.core.model.ResourceNode;
+import org.wso2.carbon.sp.jobmanager.core.model.ResourcePool;
+import org.wso2.carbon.sp.jobmanager.core.model.SiddhiAppHolder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically evaluates the execution groups of the deployed Siddhi apps and recommends, or applies, parallelism
+ * changes for the groups which became a bottleneck. An execution group is considered a bottleneck when the consumer
+ * lag of its transport topics stays above the threshold and keeps growing for a number of evaluations. Groups which
+ * were scaled up are scaled back down, up to the parallelism given by the user, once their lag stays close to zero.
+ * Partial apps running in resource nodes whose CPU usage is above the threshold are moved, along with their state, to
+ * the least loaded resource node. Only a limited number of partial apps are moved in each evaluation, and a moved
+ * partial app, as well as the resource nodes it was moved between, are left as they are for the cooldown period, so
+ * that the CPU usage reported by the resource nodes reflects the move before the next one.
+ */
+public class AutoScaler {
+    private static final Logger log = Logger.getLogger(AutoScaler.class);
+    private final AutoScalingConfig config;
+    private final ConsumerLagReader lagReader;
+    private final DistributionManagerServiceImpl distributionService;
+    /**
+     * Map of parentSiddhiAppName -> (execution group name -> state of the group).
+     */
+    private final Map<String, Map<String, GroupState>> groupStates = new ConcurrentHashMap<>();
+    /**
+     * Time each partial app, and each resource node, was last involved in a move keyed by app name and node id.
+     */
+    private final Map<String, Long> movedApps = new ConcurrentHashMap<>();
+    private final Map<String, Long> movedNodes = new ConcurrentHashMap<>();
+    private volatile List<ScalingRecommendation> recommendations = Collections.emptyList();
+    private ScheduledExecutorService executorService;
+
+    public AutoScaler(AutoScalingConfig config, ConsumerLagReader lagReader,
+                      DistributionManagerServiceImpl distributionService) {
+        this.config = config;
+        this.lagReader = lagReader;
+        this.distributionService = distributionService;
+    }
+
+    public synchronized void start() {
+        if (executorService == null) {
+            executorService = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "Execution-Group-Auto-Scaler");
+                thread.setDaemon(true);
+                return thread;
+            });
+            executorService.scheduleWithFixedDelay(this::evaluate, config.getEvaluationInterval(),
+                    config.getEvaluationInterval(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+        if (executorService != null) {
+            // Closed by the evaluating thread once the running evaluation is over, since it uses the consumers
+            executorService.execute(lagReader::close);
+            executorService.shutdown();
+            executorService = null;
+        }
+    }
+
+    /**
+     * Recommendations of the latest evaluation.
+     *
+     * @return list of recommended changes.
+     */
+    public List<ScalingRecommendation> getRecommendations() {
+        return recommendations;
+    }
+
+    private void evaluate() {
+        try {
+            ResourcePool resourcePool = ServiceDataHolder.getResourcePool();
+            if (!ServiceDataHolder.isLeader() || resourcePool == null) {
+                groupStates.clear();
+                movedApps.clear();
+                movedNodes.clear();
+                lagReader.close();
+                return;
+            }
+            List<ScalingRecommendation> newRecommendations = new ArrayList<>();
+            Map<String, Long> lags = new HashMap<>();
+            Map<String, List<SiddhiAppHolder>> siddhiAppHoldersMap = new HashMap<>(
+                    resourcePool.getSiddhiAppHoldersMap());
+            groupStates.keySet().retainAll(siddhiAppHoldersMap.keySet());
+            for (Map.Entry<String, List<SiddhiAppHolder>> entry : siddhiAppHoldersMap.entrySet()) {
+                String parentAppName = entry.getKey();
+                Map<String, List<SiddhiAppHolder>> executionGroups = new LinkedHashMap<>();
+                for (SiddhiAppHolder appHolder : entry.getValue()) {
+                    if (!appHolder.isReceiverQueryGroup()) {
+                        executionGroups.computeIfAbsent(appHolder.getGroupName(), name -> new ArrayList<>())
+                                .add(appHolder);
+                    }
+                }
+                Map<String, GroupState> states = groupStates.computeIfAbsent(parentAppName,
+                        name -> new ConcurrentHashMap<>());
+                states.keySet().retainAll(executionGroups.keySet());
+                for (Map.Entry<String, List<SiddhiAppHolder>> group : executionGroups.entrySet()) {
+                    long lag = lagReader.getLag(group.getValue());
+                    lags.put(group.getKey(), lag);
+                    ScalingRecommendation recommendation = evaluateGroup(parentAppName, group.getKey(),
+                            group.getValue().get(0).getParallelism(),
+                            distributionService.isParallelismOverridden(parentAppName, group.getKey()), lag,
+                            System.currentTimeMillis());
+                    if (recommendation != null) {
+                        newRecommendations.add(recommendation);
+                        apply(recommendation);
+                    }
+                }
+            }
+            List<ScalingRecommendation> moves = recommendMoves(resourcePool.getResourceNodeMap(),
+                    resourcePool.getNodeAppMapping(), lags);
+            newRecommendations.addAll(moves);
+            for (ScalingRecommendation move : selectMoves(moves, resourcePool.getResourceNodeMap(),
+                    System.currentTimeMillis())) {
+                apply(move);
+            }
+            recommendations = Collections.unmodifiableList(newRecommendations);
+        } catch (RuntimeException e) {
+            // Keep evaluating in the next round, since an exception would cancel the scheduled task
+            log.error("Error occurred while evaluating the execution groups for auto scaling.", e);
+        }
+    }
+
+    private void apply(ScalingRecommendation recommendation) {
+        if (!config.isApplyEnabled()) {
+            log.info("Recommended: " + recommendation);
+            return;
+        }
+        log.info("Applying: " + recommendation);
+        try {
+            if (recommendation.getType() == ScalingRecommendation.Type.MOVE) {
+                ServiceDataHolder.getDeploymentManager().migrate(recommendation.getParentAppName(),
+                        recommendation.getAppName(), recommendation.getTargetNodeId());
+            } else {
+                distributionService.rescale(recommendation.getParentAppName(), recommendation.getGroupName(),
+                        recommendation.getRecommendedParallelism());
+            }
+        } catch (RuntimeException e) {
+            log.error(String.format("Couldn't apply the recommended change to execution group %s of %s.",
+                    recommendation.getGroupName(), recommendation.getParentAppName()), e);
+        }
+    }
+
+    /**
+     * Update the state of an execution group with the latest consumer lag, and decide whether it should be
+     * rescaled.
+     *
+     * @param parentAppName name of the parent Siddhi app.
+     * @param groupName     name of the execution group.
+     * @param parallelism   current parallelism of the execution group.
+     * @param overridden    whether the parallelism differs from the one given by the user.
+     * @param lag           consumer lag of the execution group, or -1 if it is not known.
+     * @param now           current time in milliseconds.
+     * @return recommended change, or null if the execution group should be left as it is.
+     */
+    public ScalingRecommendation evaluateGroup(String parentAppName, String groupName, int parallelism,
+                                               boolean overridden, long lag, long now) {
+        GroupState state = groupStates.computeIfAbsent(parentAppName, name -> new ConcurrentHashMap<>())
+                .computeIfAbsent(groupName, name -> new GroupState());
+        if (!overridden) {
+            state.userParallelism = parallelism;
+        }
+        if (lag < 0) {
+            state.growingEvaluations = 0;
+            state.idleEvaluations = 0;
+            state.lastLag = -1;
+            return null;
+        }
+        if (lag > config.getLagThreshold() && lag >= state.lastLag) {
+            state.growingEvaluations++;
+        } else {
+            state.growingEvaluations = 0;
+        }
+        if (lag <= config.getLagThreshold() / 10) {
+            state.idleEvaluations++;
+        } else {
+            state.idleEvaluations = 0;
+        }
+        state.lastLag = lag;
+        if (state.lastRescaleTime >= 0 && now - state.lastRescaleTime < config.getCooldownPeriod()) {
+            return null;
+        }
+        int recommendedParallelism = parallelism;
+        String reason = null;
+        if (state.growingEvaluations >= config.getScaleUpEvaluations() && parallelism < config.getMaxParallelism()) {
+            recommendedParallelism = parallelism + 1;
+            reason = "its consumer lag of " + lag + " events kept growing for " + state.growingEvaluations
+                    + " evaluations";
+        } else if (state.idleEvaluations >= config.getScaleDownEvaluations() && state.userParallelism > 0
+                && parallelism > state.userParallelism) {
+            recommendedParallelism = parallelism - 1;
+            reason = "its consumer lag stayed at most " + config.getLagThreshold() / 10 + " events for "
+                    + state.idleEvaluations + " evaluations";
+        }
+        if (reason == null) {
+            return null;
+        }
+        state.growingEvaluations = 0;
+        state.idleEvaluations = 0;
+        state.lastRescaleTime = now;
+        return ScalingRecommendation.rescale(parentAppName, groupName, parallelism, recommendedParallelism,
+                reason);
+    }
+
+    /**
+     * Recommend moving a partial app out of each overloaded resource node to the least loaded resource node. The
+     * partial app of the execution group with the highest consumer lag is picked, as it gains the most from the
+     * spare capacity. Each partial app is assumed to take an equal share of the CPU usage of its node, and the
+     * projected CPU usage of both nodes is updated with every recommended move, so that the moves of one evaluation
+     * are spread over the nodes with spare capacity instead of all going to the same node.
+     *
+     * @param resourceNodeMap map of resource node id to resource node.
+     * @param nodeAppMapping  partial apps deployed in each resource node.
+     * @param lags            consumer lag of each execution group.
+     * @return recommended moves.
+     */
+    public List<ScalingRecommendation> recommendMoves(Map<String, ResourceNode> resourceNodeMap,
+                                                      Map<ResourceNode, List<SiddhiAppHolder>> nodeAppMapping,
+                                                      Map<String, Long> lags) {
+        Map<String, Double> projectedLoads = new LinkedHashMap<>();
+        List<ResourceNode> overloadedNodes = new ArrayList<>();
+        for (ResourceNode resourceNode : resourceNodeMap.values()) {
+            if (resourceNode.isMetricsUpdated()) {
+                projectedLoads.put(resourceNode.getId(), resourceNode.getSystemCPU());
+                if (resourceNode.getSystemCPU() > config.getCpuThreshold()) {
+                    overloadedNodes.add(resourceNode);
+                }
+            }
+        }
+        // The most overloaded nodes get the spare capacity first
+        overloadedNodes.sort((node1, node2) -> Double.compare(node2.getSystemCPU(), node1.getSystemCPU()));
+        List<ScalingRecommendation> moves = new ArrayList<>();
+        for (ResourceNode resourceNode : overloadedNodes) {
+            List<SiddhiAppHolder> deployedApps = nodeAppMapping.get(resourceNode);
+            if (deployedApps == null || deployedApps.size() < 2) {
+                continue;
+            }
+            SiddhiAppHolder appToMove = null;
+            long maxLag = -1;
+            for (SiddhiAppHolder appHolder : deployedApps) {
+                long lag = lags.getOrDefault(appHolder.getGroupName(), -1L);
+                if (!appHolder.isReceiverQueryGroup() && (appToMove == null || lag > maxLag)) {
+                    appToMove = appHolder;
+                    maxLag = lag;
+                }
+            }
+            if (appToMove == null) {
+                continue;
+            }
+            String targetNodeId = null;
+            for (Map.Entry<String, Double> entry : projectedLoads.entrySet()) {
+                if (targetNodeId == null || entry.getValue() < projectedLoads.get(targetNodeId)) {
+                    targetNodeId = entry.getKey();
+                }
+            }
+            double appLoad = resourceNode.getSystemCPU() / deployedApps.size();
+            double targetLoad = projectedLoads.get(targetNodeId);
+            if (targetLoad >= config.getCpuThreshold() / 2 || targetLoad + appLoad > config.getCpuThreshold()) {
+                // Even the least loaded node has no room for the partial app
+                continue;
+            }
+            projectedLoads.put(targetNodeId, targetLoad + appLoad);
+            projectedLoads.put(resourceNode.getId(), projectedLoads.get(resourceNode.getId()) - appLoad);
+            moves.add(ScalingRecommendation.move(appToMove.getParentAppName(), appToMove.getGroupName(),
+                    appToMove.getAppName(), resourceNode.getId(), targetNodeId,
+                    String.format("the CPU usage of %s is %.2f", resourceNode.getId(), resourceNode.getSystemCPU())));
+        }
+        return moves;
+    }
+
+    /**
+     * Pick the recommended moves to be applied in this evaluation. Moves of partial apps, or between resource nodes,
+     * which were involved in a move within the cooldown period are held back, as well as the moves to resource nodes
+     * which are no longer available or not lightly loaded anymore. The picked moves are considered done from now on.
+     *
+     * @param moves           recommended moves.
+     * @param resourceNodeMap map of resource node id to resource node.
+     * @param now             current time in milliseconds.
+     * @return moves to be applied, at most the configured number of moves per evaluation.
+     */
+    public List<ScalingRecommendation> selectMoves(List<ScalingRecommendation> moves,
+                                                   Map<String, ResourceNode> resourceNodeMap, long now) {
+        movedApps.values().removeIf(time -> now - time >= config.getCooldownPeriod());
+        movedNodes.values().removeIf(time -> now - time >= config.getCooldownPeriod());
+        List<ScalingRecommendation> selectedMoves = new ArrayList<>();
+        for (ScalingRecommendation move : moves) {
+            if (selectedMoves.size() >= config.getMaxMovesPerEvaluation()) {
+                break;
+            }
+            ResourceNode targetNode = resourceNodeMap.get(move.getTargetNodeId());
+            if (movedApps.containsKey(move.getAppName()) || movedNodes.containsKey(move.getSourceNodeId())
+                    || movedNodes.containsKey(move.getTargetNodeId()) || targetNode == null
+                    || !targetNode.isMetricsUpdated() || targetNode.getSystemCPU() >= config.getCpuThreshold() / 2) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Holding back: " + move);
+                }
+                continue;
+            }
+            movedApps.put(move.getAppName(), now);
+            movedNodes.put(move.getSourceNodeId(), now);
+            movedNodes.put(move.getTargetNodeId(), now);
+            selectedMoves.add(move);
+        }
+        return selectedMoves;
+    }
+
+    /**
+     * Signals observed for an execution group over the evaluations.
+     */
+    private static class GroupState {
+        private long lastLag = -1;
+        private int growingEvaluations;
+        private int idleEvaluations;
+        private int userParallelism;
+        private long lastRescaleTime = -1;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.sp.jobmanager.core.autoscaling;
+
+import org.wso2.carbon.sp.jobmanager.core.model.SiddhiAppHolder;
+
+import java.util.List;
+
+/**
+ * Reads the number of events which are published to the transport topics of an execution group but not consumed
+ * by its partial apps yet.
+ */
+public interface ConsumerLagReader {
+
+    /**
+     * Get the consumer lag of an execution group.
+     *
+     * @param partialApps partial apps of the execution group.
+     * @return number of events not consumed yet, or -1 if the lag cannot be read.
+     */
+    long getLag(List<SiddhiAppHolder> partialApps);
+
+    /**
+     * Release the connections kept open to read the consumer lag. The reader can still be used afterwards.
+     */
+    default void close() {
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.sp.jobmanager.core.autoscaling;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.log4j.Logger;
+import org.wso2.carbon.sp.jobmanager.core.model.SiddhiAppHolder;
+import org.wso2.siddhi.query.api.SiddhiApp;
+import org.wso2.siddhi.query.api.annotation.Annotation;
+import org.wso2.siddhi.query.api.annotation.Element;
+import org.wso2.siddhi.query.api.definition.StreamDefinition;
+import org.wso2.siddhi.query.compiler.SiddhiCompiler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * {@link ConsumerLagReader} which reads the lag of the Kafka sources of the partial apps that consume from the
+ * transport topics created by the job manager. Sources reading from other Kafka clusters are not considered.
+ */
+public class KafkaConsumerLagReader implements ConsumerLagReader {
+    private static final Logger log = Logger.getLogger(KafkaConsumerLagReader.class);
+    private static final int MAX_CONSUMERS = 32;
+    private final String bootstrapServerURLs;
+    /**
+     * Consumers of the consumer groups, kept open across the evaluations. The least recently used consumer is closed
+     * once there are more consumer groups than {@link #MAX_CONSUMERS}.
+     */
+    private final Map<String, KafkaConsumer<byte[], byte[]>> consumers =
+            new LinkedHashMap<String, KafkaConsumer<byte[], byte[]>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, KafkaConsumer<byte[], byte[]>> eldest) {
+                    if (size() > MAX_CONSUMERS) {
+                        eldest.getValue().close();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+
+    public KafkaConsumerLagReader(String bootstrapServerURLs) {
+        this.bootstrapServerURLs = bootstrapServerURLs;
+    }
+
+    @Override
+    public synchronized long getLag(List<SiddhiAppHolder> partialApps) {
+        if (bootstrapServerURLs == null) {
+            return -1;
+        }
+        // consumer group id -> topic -> partitions, where null stands for all the partitions of the topic
+        Map<String, Map<String, Set<Integer>>> subscriptions = new HashMap<>();
+        for (SiddhiAppHolder appHolder : partialApps) {
+            addSubscriptions(appHolder.getSiddhiApp(), subscriptions);
+        }
+        if (subscriptions.isEmpty()) {
+            return -1;
+        }
+        long lag = 0;
+        for (Map.Entry<String, Map<String, Set<Integer>>> entry : subscriptions.entrySet()) {
+            KafkaConsumer<byte[], byte[]> consumer = consumers.computeIfAbsent(entry.getKey(), this::createConsumer);
+            try {
+                List<TopicPartition> topicPartitions = new ArrayList<>();
+                for (Map.Entry<String, Set<Integer>> topic : entry.getValue().entrySet()) {
+                    if (topic.getValue() != null) {
+                        topic.getValue().forEach(partition ->
+                                topicPartitions.add(new TopicPartition(topic.getKey(), partition)));
+                    } else {
+                        List<PartitionInfo> partitionInfos = consumer.partitionsFor(topic.getKey());
+                        if (partitionInfos != null) {
+                            partitionInfos.forEach(partitionInfo -> topicPartitions.add(
+                                    new TopicPartition(topic.getKey(), partitionInfo.partition())));
+                        }
+                    }
+                }
+                consumer.assign(topicPartitions);
+                consumer.seekToEnd(topicPartitions);
+                for (TopicPartition topicPartition : topicPartitions) {
+                    // Partitions which are not consumed from yet have no committed offset to measure the lag from
+                    OffsetAndMetadata committed = consumer.committed(topicPartition);
+                    if (committed != null) {
+                        lag += Math.max(0, consumer.position(topicPartition) - committed.offset());
+                    }
+                }
+            } catch (KafkaException e) {
+                log.warn("Couldn't read the consumer lag of consumer group " + entry.getKey() + ".", e);
+                consumers.remove(entry.getKey());
+                consumer.close();
+                return -1;
+            }
+        }
+        return lag;
+    }
+
+    @Override
+    public synchronized void close() {
+        consumers.values().forEach(KafkaConsumer::close);
+        consumers.clear();
+    }
+
+    private void addSubscriptions(String app, Map<String, Map<String, Set<Integer>>> subscriptions) {
+        SiddhiApp siddhiApp = SiddhiCompiler.parse(app);
+        for (StreamDefinition streamDefinition : siddhiApp.getStreamDefinitionMap().values()) {
+            for (Annotation annotation : streamDefinition.getAnnotations()) {
+                if (!annotation.getName().equalsIgnoreCase("source")) {
+                    continue;
+                }
+                Map<String, String> elements = new HashMap<>();
+                for (Element element : annotation.getElements()) {
+                    elements.put(element.getKey(), element.getValue());
+                }
+                if (!"kafka".equalsIgnoreCase(elements.get("type")) || elements.get("group.id") == null
+                        || elements.get("topic.list") == null
+                        || !bootstrapServerURLs.equals(elements.get("bootstrap.servers"))) {
+                    continue;
+                }
+                Map<String, Set<Integer>> topics = subscriptions.computeIfAbsent(elements.get("group.id"),
+                        groupId -> new HashMap<>());
+                String partitionList = elements.get("partition.no.list");
+                for (String topic : elements.get("topic.list").split(",")) {
+                    topic = topic.trim();
+                    if (partitionList == null) {
+                        topics.put(topic, null);
+                    } else if (!topics.containsKey(topic) || topics.get(topic) != null) {
+                        Set<Integer> partitions = topics.computeIfAbsent(topic, key -> new HashSet<>());
+                        for (String partition : partitionList.split(",")) {
+                            partitions.add(Integer.parseInt(partition.trim()));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private KafkaConsumer<byte[], byte[]> createConsumer(String groupId) {
+        Properties properties = new Properties();
+        properties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServerURLs);
+        properties.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        return new KafkaConsumer<>(properties, new ByteArrayDeserializer(), new ByteArrayDeserializer());
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.sp.jobmanager.core.autoscaling;
+
+/**
+ * Change recommended by the {@link AutoScaler} for an execution group which is a bottleneck, or for a partial app
+ * running in an overloaded resource node.
+ */
+public class ScalingRecommendation {
+    /**
+     * Kind of the recommended change.
+     */
+    public enum Type {
+        SCALE_UP, SCALE_DOWN, MOVE
+    }
+
+    private final Type type;
+    private final String parentAppName;
+    private final String groupName;
+    private final String appName;
+    private final int currentParallelism;
+    private final int recommendedParallelism;
+    private final String sourceNodeId;
+    private final String targetNodeId;
+    private final String reason;
+
+    private ScalingRecommendation(Type type, String parentAppName, String groupName, String appName,
+                                  int currentParallelism, int recommendedParallelism, String sourceNodeId,
+                                  String targetNodeId, String reason) {
+        this.type = type;
+        this.parentAppName = parentAppName;
+        this.groupName = groupName;
+        this.appName = appName;
+        this.currentParallelism = currentParallelism;
+        this.recommendedParallelism = recommendedParallelism;
+        this.sourceNodeId = sourceNodeId;
+        this.targetNodeId = targetNodeId;
+        this.reason = reason;
+    }
+
+    public static ScalingRecommendation rescale(String parentAppName, String groupName, int currentParallelism,
+                                                int recommendedParallelism, String reason) {
+        return new ScalingRecommendation(recommendedParallelism > currentParallelism ? Type.SCALE_UP
+                : Type.SCALE_DOWN, parentAppName, groupName, null, currentParallelism, recommendedParallelism,
+                null, null, reason);
+    }
+
+    public static ScalingRecommendation move(String parentAppName, String groupName, String appName,
+                                             String sourceNodeId, String targetNodeId, String reason) {
+        return new ScalingRecommendation(Type.MOVE, parentAppName, groupName, appName, 0, 0, sourceNodeId,
+                targetNodeId, reason);
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getParentAppName() {
+        return parentAppName;
+    }
+
+    public String getGroupName() {
+        return groupName;
+    }
+
+    /**
+     * Partial app to be moved.
+     *
+     * @return name of the partial app, or null if the execution group is to be rescaled.
+     */
+    public String getAppName() {
+        return appName;
+    }
+
+    public int getCurrentParallelism() {
+        return currentParallelism;
+    }
+
+    public int getRecommendedParallelism() {
+        return recommendedParallelism;
+    }
+
+    public String getSourceNodeId() {
+        return sourceNodeId;
+    }
+
+    public String getTargetNodeId() {
+        return targetNodeId;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    @Override
+    public String toString() {
+        if (type == Type.MOVE) {
+            return String.format("Move partial app %s of %s from %s to %s, since %s.", appName, parentAppName,
+                    sourceNodeId, targetNodeId, reason);
+        }
+        return String.format("Rescale execution group %s of %s from %d to %d, since %s.", groupName, parentAppName,
+                currentParallelism, recommendedParallelism, reason);
+    }
+}
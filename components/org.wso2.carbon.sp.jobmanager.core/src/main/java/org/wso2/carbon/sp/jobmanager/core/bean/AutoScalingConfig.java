@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.sp.jobmanager.core.bean;
+
+import org.wso2.carbon.config.annotation.Configuration;
+import org.wso2.carbon.config.annotation.Element;
+
+import java.io.Serializable;
+
+/**
+ * This class represents the configurations of the execution group auto scaler.
+ */
+@Configuration(description = "Auto scaling configurations")
+public class AutoScalingConfig implements Serializable {
+    private static final long serialVersionUID = 1L;
+    @Element(description = "Watch the execution groups and recommend parallelism changes and partial app moves")
+    private boolean enabled = false;
+    @Element(description = "Apply the recommended parallelism changes and partial app moves instead of only logging "
+            + "them")
+    private boolean applyEnabled = false;
+    @Element(description = "Time in milliseconds between two evaluations of the execution groups")
+    private long evaluationInterval = 30000;
+    @Element(description = "Consumer lag of an execution group, in events, above which it is considered a bottleneck")
+    private long lagThreshold = 10000;
+    @Element(description = "Consecutive evaluations with a growing lag above the threshold before scaling up")
+    private int scaleUpEvaluations = 3;
+    @Element(description = "Consecutive evaluations with a lag below a tenth of the threshold before scaling down")
+    private int scaleDownEvaluations = 10;
+    @Element(description = "Maximum parallelism an execution group is scaled up to")
+    private int maxParallelism = 8;
+    @Element(description = "Time in milliseconds an execution group is left as it is after it is rescaled, and a "
+            + "partial app and its resource nodes are left as they are after it is moved")
+    private long cooldownPeriod = 120000;
+    @Element(description = "Maximum number of partial apps moved in one evaluation")
+    private int maxMovesPerEvaluation = 1;
+    @Element(description = "System CPU usage, between 0 and 1, above which a resource node is considered overloaded")
+    private double cpuThreshold = 0.9;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isApplyEnabled() {
+        return applyEnabled;
+    }
+
+    public void setApplyEnabled(boolean applyEnabled) {
+        this.applyEnabled = applyEnabled;
+    }
+
+    public long getEvaluationInterval() {
+        return evaluationInterval;
+    }
+
+    public void setEvaluationInterval(long evaluationInterval) {
+        this.evaluationInterval = evaluationInterval;
+    }
+
+    public long getLagThreshold() {
+        return lagThreshold;
+    }
+
+    public void setLagThreshold(long lagThreshold) {
+        this.lagThreshold = lagThreshold;
+    }
+
+    public int getScaleUpEvaluations() {
+        return scaleUpEvaluations;
+    }
+
+    public void setScaleUpEvaluations(int scaleUpEvaluations) {
+        this.scaleUpEvaluations = scaleUpEvaluations;
+    }
+
+    public int getScaleDownEvaluations() {
+        return scaleDownEvaluations;
+    }
+
+    public void setScaleDownEvaluations(int scaleDownEvaluations) {
+        this.scaleDownEvaluations = scaleDownEvaluations;
+    }
+
+    public int getMaxParallelism() {
+        return maxParallelism;
+    }
+
+    public void setMaxParallelism(int maxParallelism) {
+        this.maxParallelism = maxParallelism;
+    }
+
+    public long getCooldownPeriod() {
+        return cooldownPeriod;
+    }
+
+    public void setCooldownPeriod(long cooldownPeriod) {
+        this.cooldownPeriod = cooldownPeriod;
+    }
+
+    public int getMaxMovesPerEvaluation() {
+        return maxMovesPerEvaluation;
+    }
+
+    public void setMaxMovesPerEvaluation(int maxMovesPerEvaluation) {
+        this.maxMovesPerEvaluation = maxMovesPerEvaluation;
+    }
+
+    public double getCpuThreshold() {
+        return cpuThreshold;
+    }
+
+    public void setCpuThreshold(double cpuThreshold) {
+        this.cpuThreshold = cpuThreshold;
+    }
+}
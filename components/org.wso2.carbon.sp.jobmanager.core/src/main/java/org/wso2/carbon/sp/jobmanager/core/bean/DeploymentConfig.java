@@ -41,6 +41,21 @@ public class DeploymentConfig implements Serializable {
     private int heartbeatInterval = 10000;
     private int heartbeatMaxRetry = 2;
     private int minResourceCount = 1;
+    @Element(description = "Number of partial Siddhi apps deployed concurrently")
+    private int deploymentThreadPoolSize = 10;
+    @Element(description = "Time in milliseconds to wait for a node to deploy or un-deploy a partial Siddhi app")
+    private long deploymentTimeout = 30000;
+    @Element(description = "Time in milliseconds within which resource pool changes are coalesced before persisting. "
+            + "Changes within it are lost if the leader fails, 0 persists every change before it is acknowledged")
+    private long resourcePoolPersistDelay = 500;
+    @Element(description = "Co-locate the query groups which communicate with each other in the same resource node")
+    private boolean coLocationEnabled = false;
+    @Element(description = "Maximum number of partial Siddhi apps in a resource node when co-locating, 0 for no limit")
+    private int maxPartialAppsPerNode = 0;
+    @Element(description = "Pass events in-process between co-located query groups instead of through the broker")
+    private boolean inProcessTransportEnabled = false;
+    @Element(description = "Auto scaling configurations")
+    private AutoScalingConfig autoScalingConfig = new AutoScalingConfig();
     @Element(description = "datasource to persist resource mappings", required = true)
     private String datasource;
     @Element(description = "bootstrap urls for Kafka", required = true)
@@ -139,6 +154,62 @@ public class DeploymentConfig implements Serializable {
         this.minResourceCount = minResourceCount;
     }
 
+    public int getDeploymentThreadPoolSize() {
+        return deploymentThreadPoolSize;
+    }
+
+    public void setDeploymentThreadPoolSize(int deploymentThreadPoolSize) {
+        this.deploymentThreadPoolSize = deploymentThreadPoolSize;
+    }
+
+    public long getDeploymentTimeout() {
+        return deploymentTimeout;
+    }
+
+    public void setDeploymentTimeout(long deploymentTimeout) {
+        this.deploymentTimeout = deploymentTimeout;
+    }
+
+    public long getResourcePoolPersistDelay() {
+        return resourcePoolPersistDelay;
+    }
+
+    public void setResourcePoolPersistDelay(long resourcePoolPersistDelay) {
+        this.resourcePoolPersistDelay = resourcePoolPersistDelay;
+    }
+
+    public boolean isCoLocationEnabled() {
+        return coLocationEnabled;
+    }
+
+    public void setCoLocationEnabled(boolean coLocationEnabled) {
+        this.coLocationEnabled = coLocationEnabled;
+    }
+
+    public int getMaxPartialAppsPerNode() {
+        return maxPartialAppsPerNode;
+    }
+
+    public void setMaxPartialAppsPerNode(int maxPartialAppsPerNode) {
+        this.maxPartialAppsPerNode = maxPartialAppsPerNode;
+    }
+
+    public boolean isInProcessTransportEnabled() {
+        return inProcessTransportEnabled;
+    }
+
+    public void setInProcessTransportEnabled(boolean inProcessTransportEnabled) {
+        this.inProcessTransportEnabled = inProcessTransportEnabled;
+    }
+
+    public AutoScalingConfig getAutoScalingConfig() {
+        return autoScalingConfig;
+    }
+
+    public void setAutoScalingConfig(AutoScalingConfig autoScalingConfig) {
+        this.autoScalingConfig = autoScalingConfig;
+    }
+
     public String getDatasource() {
         return datasource;
     }
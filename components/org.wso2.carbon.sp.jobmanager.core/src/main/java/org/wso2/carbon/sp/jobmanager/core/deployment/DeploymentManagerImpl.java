@@ -23,10 +23,12 @@ import org.apache.log4j.Logger;
 import org.wso2.carbon.sp.jobmanager.core.DeploymentManager;
 import org.wso2.carbon.sp.jobmanager.core.allocation.ResourceAllocationAlgorithm;
 import org.wso2.carbon.sp.jobmanager.core.ResourcePoolChangeListener;
-import org.wso2.carbon.sp.jobmanager.core.SiddhiAppDeployer;
+import org.wso2.carbon.sp.jobmanager.core.allocation.CoLocationPlanner;
 import org.wso2.carbon.sp.jobmanager.core.allocation.RoundRobinAllocationAlgorithm;
 import org.wso2.carbon.sp.jobmanager.core.appcreator.DistributedSiddhiQuery;
 import org.wso2.carbon.sp.jobmanager.core.appcreator.SiddhiQuery;
+import org.wso2.carbon.sp.jobmanager.core.bean.DeploymentConfig;
+import org.wso2.carbon.sp.jobmanager.core.exception.ResourceManagerException;
 import org.wso2.carbon.sp.jobmanager.core.internal.ServiceDataHolder;
 import org.wso2.carbon.sp.jobmanager.core.model.ResourceNode;
 import org.wso2.carbon.sp.jobmanager.core.model.ResourcePool;
@@ -37,9 +39,12 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -49,84 +54,202 @@ import java.util.concurrent.locks.ReentrantLock;
 public class DeploymentManagerImpl implements DeploymentManager, ResourcePoolChangeListener {
     private static final Logger log = Logger.getLogger(DeploymentManagerImpl.class);
     private final Lock lock = new ReentrantLock();
+    private final ConcurrentMap<String, Lock> appLocks = new ConcurrentHashMap<>();
+    /**
+     * Map of parentSiddhiAppName -> (query group name -> co-location group id).
+     */
+    private final ConcurrentMap<String, Map<String, Integer>> coLocationGroupsMap = new ConcurrentHashMap<>();
+    private final PartialAppDeploymentExecutor.NodeClient nodeClient;
+    private PartialAppDeploymentExecutor deploymentExecutor;
     private ResourceAllocationAlgorithm resourceAllocationAlgorithm = ServiceDataHolder.getAllocationAlgorithm();
     private ResourceAllocationAlgorithm receiverAllocationAlgorithm = new RoundRobinAllocationAlgorithm();
 
+    public DeploymentManagerImpl() {
+        this(PartialAppDeploymentExecutor.SIDDHI_APP_DEPLOYER);
+    }
+
+    public DeploymentManagerImpl(PartialAppDeploymentExecutor.NodeClient nodeClient) {
+        this.nodeClient = nodeClient;
+    }
+
     @Override
     public DeploymentStatus deploy(DistributedSiddhiQuery distributedSiddhiQuery) {
-        Map<String, List<SiddhiAppHolder>> deployedSiddhiAppHoldersMap = ServiceDataHolder
-                .getResourcePool().getSiddhiAppHoldersMap();
+        String parentAppName = distributedSiddhiQuery.getAppName();
+        ResourcePool resourcePool = ServiceDataHolder.getResourcePool();
+        Map<String, List<SiddhiAppHolder>> deployedSiddhiAppHoldersMap = resourcePool.getSiddhiAppHoldersMap();
         List<SiddhiAppHolder> appsToDeploy = getSiddhiAppHolders(distributedSiddhiQuery);
-        List<SiddhiAppHolder> deployedApps = new ArrayList<>();
+        List<SiddhiAppHolder> appsToUnDeploy = null;
+        List<SiddhiAppHolder> deployedApps;
         boolean shouldDeploy = true;
 
-        lock.lock();
+        Lock appLock = getAppLock(parentAppName);
+        appLock.lock();
         try {
-            if (deployedSiddhiAppHoldersMap.containsKey(distributedSiddhiQuery.getAppName())) {
-                List<SiddhiAppHolder> existingApps = deployedSiddhiAppHoldersMap
-                        .get(distributedSiddhiQuery.getAppName());
-                if (CollectionUtils.isEqualCollection(existingApps, appsToDeploy)) {
-                    boolean waitingToDeploy = false;
-                    for (SiddhiAppHolder app : existingApps) {
-                        if (app.getDeployedNode() == null) {
-                            waitingToDeploy = true;
-                            break;
+            if (distributedSiddhiQuery.getCoLocationGroups() != null) {
+                coLocationGroupsMap.put(parentAppName, distributedSiddhiQuery.getCoLocationGroups());
+            } else {
+                coLocationGroupsMap.remove(parentAppName);
+            }
+            lock.lock();
+            try {
+                if (deployedSiddhiAppHoldersMap.containsKey(parentAppName)) {
+                    List<SiddhiAppHolder> existingApps = deployedSiddhiAppHoldersMap.get(parentAppName);
+                    if (CollectionUtils.isEqualCollection(existingApps, appsToDeploy)) {
+                        boolean waitingToDeploy = false;
+                        for (SiddhiAppHolder app : existingApps) {
+                            if (app.getDeployedNode() == null) {
+                                waitingToDeploy = true;
+                                break;
+                            }
+                        }
+                        if (waitingToDeploy) {
+                            log.info(String.format("Exact Siddhi app with name: %s is already exists in waiting " +
+                                    "mode. Hence, trying to re-deploy.", parentAppName));
+                            appsToUnDeploy = deployedSiddhiAppHoldersMap.remove(parentAppName);
+                        } else {
+                            log.info(String.format("Exact Siddhi app with name: %s is already deployed.",
+                                    parentAppName));
+                            shouldDeploy = false;
                         }
+                    } else {
+                        log.info("Different Siddhi app with name:" + parentAppName + " is already deployed. " +
+                                "Hence, un-deploying existing Siddhi app.");
+                        appsToUnDeploy = deployedSiddhiAppHoldersMap.remove(parentAppName);
                     }
-                    if (waitingToDeploy) {
-                        log.info(String.format("Exact Siddhi app with name: %s is already exists in waiting mode. " +
-                                "Hence, trying to re-deploy.", distributedSiddhiQuery
-                                .getAppName()));
-                        rollback(existingApps);
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (!shouldDeploy) {
+                deployedApps = deployedSiddhiAppHoldersMap.get(parentAppName);
+            } else {
+                // Nodes are only contacted outside the pool lock, the pool is updated once all nodes responded
+                rollback(appsToUnDeploy);
+                boolean isDeployed = deployPartialApps(appsToDeploy);
+                lock.lock();
+                try {
+                    if (isDeployed) {
+                        deployedSiddhiAppHoldersMap.put(parentAppName, appsToDeploy);
+                        resourcePool.getAppsWaitingForDeploy().remove(parentAppName);
+                        deployedApps = appsToDeploy;
+                        log.info("Siddhi app " + parentAppName + " successfully deployed.");
                     } else {
-                        log.info(String.format("Exact Siddhi app with name: %s is already deployed.",
-                                distributedSiddhiQuery.getAppName()));
-                        shouldDeploy = false;
+                        resourcePool.getAppsWaitingForDeploy().put(parentAppName, appsToDeploy);
+                        deployedApps = Collections.emptyList();
+                        log.info("Siddhi app " + parentAppName + " held back in waiting mode.");
+                    }
+                    resourcePool.persist();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        } finally {
+            appLock.unlock();
+        }
+        // Returning true as the deployment state, since we might put some apps on wait.
+        return getDeploymentStatus(true, deployedApps);
+    }
+
+    @Override
+    public DeploymentStatus reDeploy(DistributedSiddhiQuery distributedSiddhiQuery) {
+        String parentAppName = distributedSiddhiQuery.getAppName();
+        ResourcePool resourcePool = ServiceDataHolder.getResourcePool();
+        Map<String, List<SiddhiAppHolder>> deployedSiddhiAppHoldersMap = resourcePool.getSiddhiAppHoldersMap();
+        List<SiddhiAppHolder> appsToDeploy = getSiddhiAppHolders(distributedSiddhiQuery);
+
+        Lock appLock = getAppLock(parentAppName);
+        appLock.lock();
+        try {
+            List<SiddhiAppHolder> existingApps;
+            lock.lock();
+            try {
+                existingApps = deployedSiddhiAppHoldersMap.get(parentAppName);
+            } finally {
+                lock.unlock();
+            }
+            if (existingApps == null) {
+                // Nothing is running, hence there is nothing to keep
+                return deploy(distributedSiddhiQuery);
+            }
+            Map<String, SiddhiAppHolder> existingAppMap = new HashMap<>();
+            existingApps.forEach(appHolder -> existingAppMap.put(appHolder.getAppName(), appHolder));
+            List<SiddhiAppHolder> newApps = new ArrayList<>();
+            List<SiddhiAppHolder> changedApps = new ArrayList<>();
+            for (SiddhiAppHolder appHolder : appsToDeploy) {
+                SiddhiAppHolder existingApp = existingAppMap.remove(appHolder.getAppName());
+                if (existingApp == null || existingApp.getDeployedNode() == null
+                        || existingApp.isReceiverQueryGroup() != appHolder.isReceiverQueryGroup()) {
+                    newApps.add(appHolder);
+                    if (existingApp != null) {
+                        existingAppMap.put(existingApp.getAppName(), existingApp);
+                    }
+                } else {
+                    appHolder.setDeployedNode(existingApp.getDeployedNode());
+                    if (!existingApp.equals(appHolder)) {
+                        changedApps.add(appHolder);
                     }
+                }
+            }
+            List<SiddhiAppHolder> removedApps = new ArrayList<>(existingAppMap.values());
+
+            Map<String, Integer> existingCoLocationGroups = coLocationGroupsMap.get(parentAppName);
+            if (distributedSiddhiQuery.getCoLocationGroups() != null) {
+                coLocationGroupsMap.put(parentAppName, distributedSiddhiQuery.getCoLocationGroups());
+            } else {
+                coLocationGroupsMap.remove(parentAppName);
+            }
+            // New partial apps are deployed first, so that the running Siddhi app is left as it is if they cannot be
+            if (!newApps.isEmpty() && !deployPartialApps(newApps)) {
+                if (existingCoLocationGroups != null) {
+                    coLocationGroupsMap.put(parentAppName, existingCoLocationGroups);
                 } else {
-                    log.info("Different Siddhi app with name:" + distributedSiddhiQuery.getAppName() + " is already " +
-                            "deployed. Hence, un-deploying existing Siddhi app.");
-                    rollback(deployedSiddhiAppHoldersMap.get(distributedSiddhiQuery.getAppName()));
+                    coLocationGroupsMap.remove(parentAppName);
                 }
+                log.warn(String.format("Insufficient resources to re-deploy Siddhi app %s. Hence, keeping the "
+                        + "deployed Siddhi app.", parentAppName));
+                return getDeploymentStatus(false, existingApps);
             }
+            // Partial apps with the same name are updated in the resource nodes they are already deployed in, which
+            // restores them from their last persisted revision
             boolean isDeployed = true;
-            if (shouldDeploy) {
-                for (SiddhiAppHolder appHolder : appsToDeploy) {
-                    ResourceNode deployedNode;
-                    deployedNode = deploy(new SiddhiQuery(appHolder.getAppName(), appHolder.getSiddhiApp(),
-                            appHolder.isReceiverQueryGroup()), 0, appHolder.getParallelism());
-                    if (deployedNode != null) {
-                        appHolder.setDeployedNode(deployedNode);
-                        deployedApps.add(appHolder);
-                        log.info(String.format("Siddhi app %s of %s successfully deployed in %s.",
-                                appHolder.getAppName(), appHolder.getParentAppName(), deployedNode));
-                    } else {
-                        log.warn(String.format("Insufficient resources to deploy Siddhi app %s of %s. Hence, rolling " +
-                                "back.", appHolder.getAppName(), appHolder.getParentAppName()));
-                        isDeployed = false;
-                        break;
-                    }
+            if (!changedApps.isEmpty()) {
+                Map<String, ResourceNode> assignments = new LinkedHashMap<>();
+                changedApps.forEach(appHolder -> assignments.put(appHolder.getAppName(),
+                        appHolder.getDeployedNode()));
+                fallBackSeparatedApps(assignments, appsToDeploy);
+                List<SiddhiAppHolder> failedApps = getDeploymentExecutor().deploy(changedApps, assignments);
+                if (!failedApps.isEmpty()) {
+                    log.warn(String.format("Couldn't update partial Siddhi apps %s of %s in place. Hence, "
+                            + "re-deploying them in other resource nodes.", failedApps, parentAppName));
+                    rollback(failedApps);
+                    failedApps.forEach(appHolder -> appHolder.setDeployedNode(null));
+                    isDeployed = deployPartialApps(failedApps);
                 }
+            }
+            rollback(removedApps);
+            if (!isDeployed) {
+                rollback(appsToDeploy);
+            }
+            lock.lock();
+            try {
                 if (isDeployed) {
-                    deployedSiddhiAppHoldersMap.put(distributedSiddhiQuery.getAppName(), deployedApps);
-                    log.info("Siddhi app " + distributedSiddhiQuery.getAppName() + " successfully deployed.");
+                    deployedSiddhiAppHoldersMap.put(parentAppName, appsToDeploy);
+                    log.info(String.format("Siddhi app %s successfully re-deployed by deploying %d, updating %d "
+                                    + "and un-deploying %d partial apps.", parentAppName, newApps.size(),
+                            changedApps.size(), removedApps.size()));
                 } else {
-                    rollback(deployedApps);
-                    deployedApps = Collections.emptyList();
-                    deployedSiddhiAppHoldersMap.remove(distributedSiddhiQuery.getAppName());
-                    ServiceDataHolder.getResourcePool().getAppsWaitingForDeploy()
-                            .put(distributedSiddhiQuery.getAppName(), appsToDeploy);
-                    log.info("Siddhi app " + distributedSiddhiQuery.getAppName() + " held back in waiting mode.");
+                    deployedSiddhiAppHoldersMap.remove(parentAppName);
+                    resourcePool.getAppsWaitingForDeploy().put(parentAppName, appsToDeploy);
+                    log.info("Siddhi app " + parentAppName + " held back in waiting mode.");
                 }
-            } else {
-                deployedApps = deployedSiddhiAppHoldersMap.get(distributedSiddhiQuery.getAppName());
+                resourcePool.persist();
+            } finally {
+                lock.unlock();
             }
-            ServiceDataHolder.getResourcePool().persist();
+            return getDeploymentStatus(true, isDeployed ? appsToDeploy : Collections.emptyList());
         } finally {
-            lock.unlock();
+            appLock.unlock();
         }
-        // Returning true as the deployment state, since we might put some apps on wait.
-        return getDeploymentStatus(true, deployedApps);
     }
 
     private DeploymentStatus getDeploymentStatus(boolean isDeployed, List<SiddhiAppHolder> siddhiAppHolders) {
@@ -150,9 +273,12 @@ public class DeploymentManagerImpl implements DeploymentManager, ResourcePoolCha
         List<SiddhiAppHolder> siddhiAppHolders = new ArrayList<>();
         distributedSiddhiQuery.getQueryGroups().forEach(queryGroup -> {
             queryGroup.getSiddhiQueries().forEach(query -> {
-                siddhiAppHolders.add(new SiddhiAppHolder(distributedSiddhiQuery.getAppName(),
+                SiddhiAppHolder appHolder = new SiddhiAppHolder(distributedSiddhiQuery.getAppName(),
                         queryGroup.getGroupName(), query.getAppName(), query.getApp(),
-                        null, queryGroup.isReceiverQueryGroup(), queryGroup.getParallelism()));
+                        null, queryGroup.isReceiverQueryGroup(), queryGroup.getParallelism());
+                appHolder.setFallbackSiddhiApp(query.getFallbackApp());
+                appHolder.setLocalPeers(query.getLocalPeers());
+                siddhiAppHolders.add(appHolder);
             });
         });
         return siddhiAppHolders;
@@ -166,25 +292,36 @@ public class DeploymentManagerImpl implements DeploymentManager, ResourcePoolCha
         Map<String, List<SiddhiAppHolder>> waitingAppList = ServiceDataHolder
                 .getResourcePool().getAppsWaitingForDeploy();
 
-        lock.lock();
+        Lock appLock = getAppLock(siddhiAppName);
+        appLock.lock();
         try {
-            if (siddhiAppHoldersMap.containsKey(siddhiAppName) || waitingAppList.containsKey(siddhiAppName)) {
-                // remove from the deployed apps
-                rollback(siddhiAppHoldersMap.get(siddhiAppName));
-                siddhiAppHoldersMap.remove(siddhiAppName);
-
-                // remove from the waiting list
-                rollback(siddhiAppHoldersMap.get(siddhiAppName));
-                waitingAppList.remove(siddhiAppName);
-                unDeployed = true;
-
+            List<SiddhiAppHolder> appsToUnDeploy = null;
+            lock.lock();
+            try {
+                if (siddhiAppHoldersMap.containsKey(siddhiAppName) || waitingAppList.containsKey(siddhiAppName)) {
+                    // remove from the deployed apps and the waiting list
+                    appsToUnDeploy = siddhiAppHoldersMap.remove(siddhiAppName);
+                    waitingAppList.remove(siddhiAppName);
+                    coLocationGroupsMap.remove(siddhiAppName);
+                    unDeployed = true;
+                } else {
+                    log.warn("Siddhi app " + siddhiAppName + " is not deployed. Therefore, cannot un-deploy.");
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (unDeployed) {
+                rollback(appsToUnDeploy);
                 log.info("Siddhi app " + siddhiAppName + "un-deployed successfully");
-            } else {
-                log.warn("Siddhi app " + siddhiAppName + " is not deployed. Therefore, cannot un-deploy.");
+                lock.lock();
+                try {
+                    ServiceDataHolder.getResourcePool().persist();
+                } finally {
+                    lock.unlock();
+                }
             }
-            ServiceDataHolder.getResourcePool().persist();
         } finally {
-            lock.unlock();
+            appLock.unlock();
         }
         return unDeployed;
     }
@@ -199,50 +336,51 @@ public class DeploymentManagerImpl implements DeploymentManager, ResourcePoolCha
                 || waitingAppList.containsKey(parentSiddhiAppName);
     }
 
+    /**
+     * Get the lock which guards the partial apps of the resource pool, holding which they are seen in a consistent
+     * state.
+     *
+     * @return lock of the resource pool state.
+     */
+    public Lock getResourcePoolLock() {
+        return lock;
+    }
 
     @Override
     public void resourceAdded(ResourceNode resourceNode) {
         Map<String, List<SiddhiAppHolder>> waitingList = ServiceDataHolder.getResourcePool().getAppsWaitingForDeploy();
         Set<String> waitingParentAppNames = new HashSet<>(waitingList.keySet());
-        List<SiddhiAppHolder> partialAppHoldersOfSiddhiApp;
-        List<SiddhiAppHolder> currentDeployedPartialApps;
-        boolean deployedCompletely;
-
-        lock.lock();
-        try {
-            for (String parentSiddhiAppName : waitingParentAppNames) {
-                partialAppHoldersOfSiddhiApp = waitingList.getOrDefault(parentSiddhiAppName, Collections.emptyList());
-                deployedCompletely = true;
-                currentDeployedPartialApps = new ArrayList<>();
 
-                for (SiddhiAppHolder partialAppHolder : partialAppHoldersOfSiddhiApp) {
-                    ResourceNode deployedNode = deploy(new SiddhiQuery(partialAppHolder.getAppName(),
-                                    partialAppHolder.getSiddhiApp(), partialAppHolder.isReceiverQueryGroup()), 0,
-                            partialAppHolder.getParallelism());
-
-                    if (deployedNode != null) {
-                        partialAppHolder.setDeployedNode(deployedNode);
-                        currentDeployedPartialApps.add(partialAppHolder);
-                        log.info(String.format("Siddhi app %s of %s successfully deployed in %s.",
-                                partialAppHolder.getAppName(), partialAppHolder.getParentAppName(),
-                                deployedNode));
-                    } else {
-                        deployedCompletely = false;
-                        break;
-                    }
+        for (String parentSiddhiAppName : waitingParentAppNames) {
+            Lock appLock = getAppLock(parentSiddhiAppName);
+            appLock.lock();
+            try {
+                List<SiddhiAppHolder> partialAppHoldersOfSiddhiApp = waitingList.get(parentSiddhiAppName);
+                if (partialAppHoldersOfSiddhiApp == null) {
+                    // deployed or un-deployed meanwhile
+                    continue;
                 }
-                if (deployedCompletely) {
-                    ServiceDataHolder.getResourcePool().getSiddhiAppHoldersMap()
-                            .put(parentSiddhiAppName, partialAppHoldersOfSiddhiApp);
-                    waitingList.remove(parentSiddhiAppName);
+                if (deployPartialApps(partialAppHoldersOfSiddhiApp)) {
+                    lock.lock();
+                    try {
+                        ServiceDataHolder.getResourcePool().getSiddhiAppHoldersMap()
+                                .put(parentSiddhiAppName, partialAppHoldersOfSiddhiApp);
+                        waitingList.remove(parentSiddhiAppName);
+                    } finally {
+                        lock.unlock();
+                    }
                     log.info("Siddhi app " + parentSiddhiAppName + " successfully deployed.");
                 } else {
                     log.warn(String.format("Still insufficient resources to deploy %s. Hence, rolling back the " +
                                     "deployment and waiting for additional resources.",
                             parentSiddhiAppName));
-                    rollback(currentDeployedPartialApps);
                 }
+            } finally {
+                appLock.unlock();
             }
+        }
+        lock.lock();
+        try {
             ServiceDataHolder.getResourcePool().persist();
         } finally {
             lock.unlock();
@@ -260,6 +398,7 @@ public class DeploymentManagerImpl implements DeploymentManager, ResourcePoolCha
                 log.info(String.format("Siddhi apps %s were affected by the removal of node %s. Hence, re-deploying "
                         + "them in other resource nodes.", affectedPartialApps, resourceNode));
                 rollback(affectedPartialApps);
+                fallBackLocalProducers(affectedPartialApps);
 
                 affectedPartialApps.forEach(affectedPartialApp -> {
                     ResourceNode deployedNode = deploy(new SiddhiQuery(affectedPartialApp.getAppName(),
@@ -301,7 +440,7 @@ public class DeploymentManagerImpl implements DeploymentManager, ResourcePoolCha
             if (resourceNode != null && deployedAppHolders != null) {
 
                 deployedAppHolders.forEach(appHolder -> {
-                    String appName = SiddhiAppDeployer.deploy(resourceNode, new SiddhiQuery(appHolder.getAppName(),
+                    String appName = nodeClient.deploy(resourceNode, new SiddhiQuery(appHolder.getAppName(),
                             appHolder.getSiddhiApp(), appHolder.isReceiverQueryGroup()));
                     if (appName == null || appName.isEmpty()) {
                         log.warn(String.format("Couldn't re-deploy partial Siddhi app %s of %s in %s. Therefore, " +
@@ -327,6 +466,178 @@ public class DeploymentManagerImpl implements DeploymentManager, ResourcePoolCha
         }
     }
 
+    /**
+     * Move a deployed partial Siddhi app to the given resource node along with its state. The sources of the partial
+     * app are paused and its state is persisted before it is deployed in the target node, which restores the state
+     * from the persistence store shared by the resource nodes. The partial app is un-deployed from its current node
+     * only once it is deployed in the target node, otherwise it is resumed in its current node.
+     *
+     * @param parentAppName parent Siddhi app name.
+     * @param appName       partial Siddhi app name.
+     * @param targetNodeId  id of the resource node to move the partial app to.
+     * @return whether the partial app got moved.
+     * @throws ResourceManagerException if the partial app is not deployed or the resource node is not available.
+     */
+    public boolean migrate(String parentAppName, String appName, String targetNodeId) {
+        Lock appLock = getAppLock(parentAppName);
+        appLock.lock();
+        try {
+            SiddhiAppHolder migratingApp = null;
+            ResourceNode targetNode;
+            lock.lock();
+            try {
+                List<SiddhiAppHolder> appHolders = ServiceDataHolder.getResourcePool().getSiddhiAppHoldersMap()
+                        .get(parentAppName);
+                if (appHolders != null) {
+                    for (SiddhiAppHolder appHolder : appHolders) {
+                        if (appHolder.getAppName().equals(appName)) {
+                            migratingApp = appHolder;
+                            break;
+                        }
+                    }
+                }
+                if (migratingApp == null || migratingApp.getDeployedNode() == null) {
+                    throw new ResourceManagerException("Siddhi app " + appName + " of " + parentAppName
+                            + " is not deployed.");
+                }
+                targetNode = getNodeMap(migratingApp).get(targetNodeId);
+                if (targetNode == null) {
+                    throw new ResourceManagerException("Resource node " + targetNodeId + " is not available to "
+                            + "deploy Siddhi app " + appName + " of " + parentAppName + ".");
+                }
+            } finally {
+                lock.unlock();
+            }
+            return migrate(migratingApp, targetNode);
+        } finally {
+            appLock.unlock();
+        }
+    }
+
+    /**
+     * Move all the partial Siddhi apps deployed in the given resource node to other resource nodes along with their
+     * state, so that the resource node can be taken out of the cluster without interrupting the Siddhi apps.
+     *
+     * @param nodeId id of the resource node to drain.
+     * @return whether all the partial apps got moved out of the resource node.
+     * @throws ResourceManagerException if the resource node is not available.
+     */
+    public boolean drainResourceNode(String nodeId) {
+        ResourcePool resourcePool = ServiceDataHolder.getResourcePool();
+        ResourceNode drainingNode;
+        List<SiddhiAppHolder> deployedAppHolders;
+        lock.lock();
+        try {
+            drainingNode = resourcePool.getResourceNodeMap().containsKey(nodeId)
+                    ? resourcePool.getResourceNodeMap().get(nodeId) : resourcePool.getReceiverNodeMap().get(nodeId);
+            if (drainingNode == null) {
+                throw new ResourceManagerException("Resource node " + nodeId + " is not available in the resource "
+                        + "pool.");
+            }
+            deployedAppHolders = new ArrayList<>(resourcePool.getNodeAppMapping()
+                    .getOrDefault(drainingNode, Collections.emptyList()));
+        } finally {
+            lock.unlock();
+        }
+        boolean drained = true;
+        for (SiddhiAppHolder appHolder : deployedAppHolders) {
+            Lock appLock = getAppLock(appHolder.getParentAppName());
+            appLock.lock();
+            try {
+                ResourceNode targetNode;
+                lock.lock();
+                try {
+                    if (!drainingNode.equals(appHolder.getDeployedNode())) {
+                        // re-deployed or un-deployed meanwhile
+                        continue;
+                    }
+                    Map<String, ResourceNode> nodeMap = new HashMap<>(getNodeMap(appHolder));
+                    nodeMap.remove(nodeId);
+                    targetNode = allocateResourceNode(appHolder, nodeMap);
+                } finally {
+                    lock.unlock();
+                }
+                if (targetNode == null) {
+                    log.warn(String.format("Insufficient resources to move Siddhi app %s of %s out of %s.",
+                            appHolder.getAppName(), appHolder.getParentAppName(), drainingNode));
+                    drained = false;
+                } else if (!migrate(appHolder, targetNode)) {
+                    drained = false;
+                }
+            } finally {
+                appLock.unlock();
+            }
+        }
+        if (drained) {
+            log.info("All the Siddhi apps are moved out of resource node " + drainingNode + ".");
+        }
+        return drained;
+    }
+
+    /**
+     * Move the given deployed partial app to the given resource node. The caller should hold the lock of its parent
+     * Siddhi app.
+     *
+     * @param appHolder  partial Siddhi app to be moved.
+     * @param targetNode resource node to move the partial app to.
+     * @return whether the partial app got moved.
+     */
+    private boolean migrate(SiddhiAppHolder appHolder, ResourceNode targetNode) {
+        ResourceNode sourceNode = appHolder.getDeployedNode();
+        if (targetNode.equals(sourceNode)) {
+            return true;
+        }
+        // In-process events cannot reach peers in other nodes, hence the partial app and its local producers have to
+        // exchange events through the broker once moved
+        String deployedSiddhiApp = appHolder.getSiddhiApp();
+        fallBackLocalProducers(Collections.singletonList(appHolder));
+        SiddhiQuery siddhiQuery = new SiddhiQuery(appHolder.getAppName(), appHolder.getSiddhiApp(),
+                appHolder.isReceiverQueryGroup());
+
+        String revision = nodeClient.backup(sourceNode, appHolder.getAppName(), true);
+        if (revision == null) {
+            log.warn(String.format("Couldn't persist the state of Siddhi app %s of %s in %s. Therefore, cannot "
+                    + "migrate.", appHolder.getAppName(), appHolder.getParentAppName(), sourceNode));
+            if (!deployedSiddhiApp.equals(appHolder.getSiddhiApp())) {
+                // the local producers already publish through the broker
+                resume(siddhiQuery, sourceNode);
+            }
+            return false;
+        }
+        String appName = nodeClient.deploy(targetNode, siddhiQuery);
+        if (appName == null || appName.isEmpty()) {
+            log.warn(String.format("Couldn't deploy Siddhi app %s of %s in %s. Hence, resuming it in %s.",
+                    appHolder.getAppName(), appHolder.getParentAppName(), targetNode, sourceNode));
+            resume(siddhiQuery, sourceNode);
+            return false;
+        }
+        if (!nodeClient.unDeploy(sourceNode, appHolder.getAppName())) {
+            log.warn(String.format("Couldn't un-deploy Siddhi app %s of %s from %s after it is moved to %s.",
+                    appHolder.getAppName(), appHolder.getParentAppName(), sourceNode, targetNode));
+        }
+        lock.lock();
+        try {
+            appHolder.setDeployedNode(targetNode);
+            ServiceDataHolder.getResourcePool().persist();
+        } finally {
+            lock.unlock();
+        }
+        log.info(String.format("Siddhi app %s of %s successfully migrated from %s to %s with state revision %s.",
+                appHolder.getAppName(), appHolder.getParentAppName(), sourceNode, targetNode, revision));
+        return true;
+    }
+
+    /**
+     * Re-deploy a partial app in the node it is deployed in, which restores its last persisted state and resumes its
+     * sources.
+     */
+    private void resume(SiddhiQuery siddhiQuery, ResourceNode resourceNode) {
+        String appName = nodeClient.deploy(resourceNode, siddhiQuery);
+        if (appName == null || appName.isEmpty()) {
+            log.warn(String.format("Couldn't resume Siddhi app %s in %s.", siddhiQuery.getAppName(), resourceNode));
+        }
+    }
+
     private ResourceNode deploy(SiddhiQuery siddhiQuery, int retry, int parallelism) {
         ResourcePool resourcePool = ServiceDataHolder.getResourcePool();
         Map<String, ResourceNode> nodeMap;
@@ -338,11 +649,11 @@ public class DeploymentManagerImpl implements DeploymentManager, ResourcePoolCha
         } else {
             nodeMap = resourcePool.getResourceNodeMap();
             resourceNode = resourceAllocationAlgorithm.getNextResourceNode(nodeMap,
-                    ServiceDataHolder.getDeploymentConfig().getMinResourceCount());
+                    ServiceDataHolder.getDeploymentConfig().getMinResourceCount(), siddhiQuery.getApp());
         }
         ResourceNode deployedNode = null;
         if (resourceNode != null) {
-            String appName = SiddhiAppDeployer.deploy(resourceNode, siddhiQuery);
+            String appName = nodeClient.deploy(resourceNode, siddhiQuery);
             if (appName == null || appName.isEmpty()) {
                 log.warn(String.format("Couldn't deploy partial Siddhi app %s in %s", siddhiQuery.getAppName(),
                         resourceNode));
@@ -365,6 +676,252 @@ public class DeploymentManagerImpl implements DeploymentManager, ResourcePoolCha
         return deployedNode;
     }
 
+    /**
+     * Deploys the given partial Siddhi apps in two phases. First, a resource node is allocated for every partial app
+     * while holding the pool lock. Then the partial apps are deployed in their nodes concurrently without holding the
+     * lock, and the partial apps which failed are retried on newly allocated nodes. If any partial app cannot be
+     * deployed, the partial apps deployed so far are rolled back.
+     *
+     * @param siddhiAppHolders partial Siddhi apps to be deployed.
+     * @return whether all the partial Siddhi apps got deployed.
+     */
+    private boolean deployPartialApps(List<SiddhiAppHolder> siddhiAppHolders) {
+        Map<String, Integer> attempts = new HashMap<>();
+        List<SiddhiAppHolder> pendingApps = siddhiAppHolders;
+        while (!pendingApps.isEmpty()) {
+            Map<String, ResourceNode> assignments = new LinkedHashMap<>();
+            lock.lock();
+            try {
+                // Retried partial apps are allocated independently, as their co-located peers are already deployed
+                Map<String, ResourceNode> coLocatedNodes = attempts.isEmpty()
+                        ? placeCoLocatedApps(siddhiAppHolders) : Collections.emptyMap();
+                if (coLocatedNodes == null) {
+                    log.warn(String.format("Insufficient capacity to co-locate the partial apps of Siddhi app %s.",
+                            siddhiAppHolders.get(0).getParentAppName()));
+                    return false;
+                }
+                for (SiddhiAppHolder appHolder : pendingApps) {
+                    ResourceNode resourceNode;
+                    if (coLocatedNodes.containsKey(appHolder.getAppName())) {
+                        // Reserved the same way as the allocated apps, so that they are accounted for until deployed
+                        resourceNode = coLocatedNodes.get(appHolder.getAppName());
+                        resourceAllocationAlgorithm.reserve(resourceNode, appHolder.getSiddhiApp());
+                    } else {
+                        resourceNode = allocateResourceNode(appHolder);
+                    }
+                    if (resourceNode == null) {
+                        log.warn(String.format("Insufficient resources to deploy Siddhi app %s of %s. Hence, " +
+                                "rolling back.", appHolder.getAppName(), appHolder.getParentAppName()));
+                        assignments = null;
+                        break;
+                    }
+                    assignments.put(appHolder.getAppName(), resourceNode);
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (assignments == null) {
+                rollback(siddhiAppHolders);
+                return false;
+            }
+            fallBackSeparatedApps(assignments, siddhiAppHolders);
+            List<SiddhiAppHolder> failedApps = getDeploymentExecutor().deploy(pendingApps, assignments);
+            for (SiddhiAppHolder appHolder : pendingApps) {
+                if (appHolder.getDeployedNode() != null) {
+                    log.info(String.format("Siddhi app %s of %s successfully deployed in %s.",
+                            appHolder.getAppName(), appHolder.getParentAppName(), appHolder.getDeployedNode()));
+                }
+            }
+            for (SiddhiAppHolder appHolder : failedApps) {
+                int attempt = attempts.merge(appHolder.getAppName(), 1, Integer::sum);
+                if (attempt > getNodeMap(appHolder).size()) {
+                    log.warn(String.format("Couldn't deploy partial Siddhi app %s even after %s attempts. Hence, " +
+                            "rolling back.", appHolder.getAppName(), attempt));
+                    rollback(siddhiAppHolders);
+                    return false;
+                }
+            }
+            pendingApps = withLocalProducers(failedApps, siddhiAppHolders);
+        }
+        return true;
+    }
+
+    /**
+     * Switch the partial apps whose local peers are not assigned to the same resource node to their broker based
+     * fallback, as in-process events cannot reach peers in other nodes.
+     *
+     * @param assignments      partial app name to resource node assignments.
+     * @param siddhiAppHolders partial Siddhi apps of the parent Siddhi app.
+     */
+    private void fallBackSeparatedApps(Map<String, ResourceNode> assignments,
+                                       List<SiddhiAppHolder> siddhiAppHolders) {
+        Map<String, SiddhiAppHolder> appHolderMap = new HashMap<>();
+        siddhiAppHolders.forEach(appHolder -> appHolderMap.put(appHolder.getAppName(), appHolder));
+        for (SiddhiAppHolder appHolder : siddhiAppHolders) {
+            ResourceNode resourceNode = assignments.get(appHolder.getAppName());
+            if (resourceNode == null) {
+                continue;
+            }
+            for (String localPeer : appHolder.getLocalPeers()) {
+                SiddhiAppHolder peerHolder = appHolderMap.get(localPeer);
+                ResourceNode peerNode = null;
+                if (peerHolder != null) {
+                    peerNode = assignments.containsKey(localPeer)
+                            ? assignments.get(localPeer) : peerHolder.getDeployedNode();
+                }
+                if (!resourceNode.equals(peerNode)) {
+                    appHolder.switchToFallbackApp();
+                    log.info(String.format("Local peers of Siddhi app %s of %s are not deployed in %s. Hence, "
+                            + "publishing its events through the broker.", appHolder.getAppName(),
+                            appHolder.getParentAppName(), resourceNode));
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the deployed partial apps which publish events in-process to any of the failed partial apps, as the failed
+     * ones are re-allocated independently of their local producers. Such producers are un-deployed, so that they
+     * are re-deployed along with the failed partial apps.
+     *
+     * @param failedApps       partial apps which failed to deploy.
+     * @param siddhiAppHolders partial Siddhi apps of the parent Siddhi app.
+     * @return partial apps to be re-allocated.
+     */
+    private List<SiddhiAppHolder> withLocalProducers(List<SiddhiAppHolder> failedApps,
+                                                     List<SiddhiAppHolder> siddhiAppHolders) {
+        Set<String> failedAppNames = new HashSet<>();
+        failedApps.forEach(appHolder -> failedAppNames.add(appHolder.getAppName()));
+        List<SiddhiAppHolder> localProducers = new ArrayList<>();
+        for (SiddhiAppHolder appHolder : siddhiAppHolders) {
+            if (appHolder.getDeployedNode() != null
+                    && !Collections.disjoint(appHolder.getLocalPeers(), failedAppNames)) {
+                localProducers.add(appHolder);
+            }
+        }
+        if (localProducers.isEmpty()) {
+            return failedApps;
+        }
+        rollback(localProducers);
+        List<SiddhiAppHolder> pendingApps = new ArrayList<>(failedApps);
+        pendingApps.addAll(localProducers);
+        return pendingApps;
+    }
+
+    /**
+     * Switch the partial apps which publish events in-process to, or from, the given partial apps to their broker
+     * based fallback, since the given partial apps are re-deployed independently. Local producers deployed in other
+     * nodes are updated in place.
+     *
+     * @param affectedApps partial apps to be re-deployed.
+     */
+    private void fallBackLocalProducers(List<SiddhiAppHolder> affectedApps) {
+        Set<String> affectedAppNames = new HashSet<>();
+        Set<String> parentAppNames = new HashSet<>();
+        for (SiddhiAppHolder appHolder : affectedApps) {
+            appHolder.switchToFallbackApp();
+            affectedAppNames.add(appHolder.getAppName());
+            parentAppNames.add(appHolder.getParentAppName());
+        }
+        Map<String, List<SiddhiAppHolder>> siddhiAppHoldersMap = ServiceDataHolder.getResourcePool()
+                .getSiddhiAppHoldersMap();
+        for (String parentAppName : parentAppNames) {
+            List<SiddhiAppHolder> appHolders = siddhiAppHoldersMap.get(parentAppName);
+            if (appHolders == null) {
+                continue;
+            }
+            for (SiddhiAppHolder appHolder : appHolders) {
+                if (appHolder.getDeployedNode() == null || affectedAppNames.contains(appHolder.getAppName())
+                        || Collections.disjoint(appHolder.getLocalPeers(), affectedAppNames)) {
+                    continue;
+                }
+                appHolder.switchToFallbackApp();
+                String appName = nodeClient.deploy(appHolder.getDeployedNode(), new SiddhiQuery(
+                        appHolder.getAppName(), appHolder.getSiddhiApp(), appHolder.isReceiverQueryGroup()));
+                if (appName == null || appName.isEmpty()) {
+                    log.warn(String.format("Couldn't switch Siddhi app %s of %s in %s to publish its events "
+                                    + "through the broker.", appHolder.getAppName(), parentAppName,
+                            appHolder.getDeployedNode()));
+                }
+            }
+        }
+    }
+
+    /**
+     * Place the partial apps of the parent Siddhi app, which are not deployed in receiver nodes, based on the
+     * co-location groups of its query groups.
+     *
+     * @param siddhiAppHolders partial Siddhi apps of a parent Siddhi app.
+     * @return partial app to resource node assignments, which is empty if the Siddhi app is not co-located, or
+     * null if the resource nodes do not have enough capacity.
+     */
+    private Map<String, ResourceNode> placeCoLocatedApps(List<SiddhiAppHolder> siddhiAppHolders) {
+        DeploymentConfig deploymentConfig = ServiceDataHolder.getDeploymentConfig();
+        if (siddhiAppHolders.isEmpty() || !deploymentConfig.isCoLocationEnabled()) {
+            return Collections.emptyMap();
+        }
+        Map<String, Integer> coLocationGroups = coLocationGroupsMap.get(siddhiAppHolders.get(0).getParentAppName());
+        if (coLocationGroups == null) {
+            return Collections.emptyMap();
+        }
+        ResourcePool resourcePool = ServiceDataHolder.getResourcePool();
+        if (resourcePool.getResourceNodeMap().size() < deploymentConfig.getMinResourceCount()) {
+            log.error("Minimum resource requirement did not match, hence not deploying the partial siddhi app ");
+            return null;
+        }
+        List<SiddhiAppHolder> appHolders = new ArrayList<>();
+        for (SiddhiAppHolder appHolder : siddhiAppHolders) {
+            if (!appHolder.isReceiverQueryGroup()) {
+                appHolders.add(appHolder);
+            }
+        }
+        return CoLocationPlanner.place(appHolders, coLocationGroups, resourcePool.getResourceNodeMap(),
+                resourcePool.getNodeAppMapping(), deploymentConfig.getMaxPartialAppsPerNode());
+    }
+
+    private ResourceNode allocateResourceNode(SiddhiAppHolder appHolder) {
+        return allocateResourceNode(appHolder, getNodeMap(appHolder));
+    }
+
+    private ResourceNode allocateResourceNode(SiddhiAppHolder appHolder, Map<String, ResourceNode> nodeMap) {
+        if (appHolder.isReceiverQueryGroup()) {
+            return receiverAllocationAlgorithm.getNextResourceNode(nodeMap, appHolder.getParallelism());
+        } else {
+            return resourceAllocationAlgorithm.getNextResourceNode(nodeMap,
+                    ServiceDataHolder.getDeploymentConfig().getMinResourceCount(), appHolder.getSiddhiApp());
+        }
+    }
+
+    private Map<String, ResourceNode> getNodeMap(SiddhiAppHolder appHolder) {
+        ResourcePool resourcePool = ServiceDataHolder.getResourcePool();
+        return appHolder.isReceiverQueryGroup() ? resourcePool.getReceiverNodeMap()
+                : resourcePool.getResourceNodeMap();
+    }
+
+    /**
+     * Stops the threads used to deploy partial Siddhi apps.
+     */
+    public synchronized void shutdown() {
+        if (deploymentExecutor != null) {
+            deploymentExecutor.shutdown();
+            deploymentExecutor = null;
+        }
+    }
+
+    private Lock getAppLock(String parentAppName) {
+        return appLocks.computeIfAbsent(parentAppName, name -> new ReentrantLock());
+    }
+
+    private synchronized PartialAppDeploymentExecutor getDeploymentExecutor() {
+        if (deploymentExecutor == null) {
+            DeploymentConfig deploymentConfig = ServiceDataHolder.getDeploymentConfig();
+            deploymentExecutor = new PartialAppDeploymentExecutor(deploymentConfig.getDeploymentThreadPoolSize(),
+                    deploymentConfig.getDeploymentTimeout(), nodeClient);
+        }
+        return deploymentExecutor;
+    }
+
     /**
      * Rollback (un-deploy) already deployed Siddhi apps.
      *
@@ -372,20 +929,7 @@ public class DeploymentManagerImpl implements DeploymentManager, ResourcePoolCha
      */
     private void rollback(List<SiddhiAppHolder> siddhiAppHolders) {
         if (siddhiAppHolders != null) {
-            siddhiAppHolders.forEach(appHolder -> {
-                if (appHolder.getDeployedNode() != null) {
-                    if (!SiddhiAppDeployer.unDeploy(appHolder.getDeployedNode(), appHolder.getAppName())) {
-                        log.warn(String.format("Could not un-deploy Siddhi app %s from %s.",
-                                appHolder.getAppName(), appHolder.getDeployedNode()));
-                    } else {
-                        appHolder.setDeployedNode(null);
-                        if (log.isDebugEnabled()) {
-                            log.debug(String.format("Siddhi app %s un-deployed from %s.",
-                                    appHolder.getAppName(), appHolder.getDeployedNode()));
-                        }
-                    }
-                }
-            });
+            getDeploymentExecutor().unDeploy(siddhiAppHolders);
         }
     }
 }
@@ -0,0 +1,309 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.sp.jobmanager.core.deployment;
+
+import org.apache.log4j.Logger;
+import org.wso2.carbon.sp.jobmanager.core.SiddhiAppDeployer;
+import org.wso2.carbon.sp.jobmanager.core.appcreator.SiddhiQuery;
+import org.wso2.carbon.sp.jobmanager.core.model.ResourceNode;
+import org.wso2.carbon.sp.jobmanager.core.model.SiddhiAppHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deploys and un-deploys partial Siddhi apps on their resource nodes concurrently, so that deploying a distributed
+ * Siddhi app takes a single round trip to the slowest node rather than one round trip per partial app. A node that
+ * does not respond within the configured timeout is treated as a failed deployment.
+ * <p>
+ * A deployment that timed out may still succeed on its node. Hence the partial app is un-deployed from that node
+ * before it is reported as failed, and un-deployed again once the pending deployment call completes successfully, so
+ * that it does not keep running there when it is deployed in another node.
+ */
+public class PartialAppDeploymentExecutor {
+    private static final Logger log = Logger.getLogger(PartialAppDeploymentExecutor.class);
+    /**
+     * {@link NodeClient} which calls the resource nodes through their HTTPS interface.
+     */
+    public static final NodeClient SIDDHI_APP_DEPLOYER = new NodeClient() {
+        @Override
+        public String deploy(ResourceNode resourceNode, SiddhiQuery siddhiQuery) {
+            return SiddhiAppDeployer.deploy(resourceNode, siddhiQuery);
+        }
+
+        @Override
+        public boolean unDeploy(ResourceNode resourceNode, String siddhiAppName) {
+            return SiddhiAppDeployer.unDeploy(resourceNode, siddhiAppName);
+        }
+
+        @Override
+        public String backup(ResourceNode resourceNode, String siddhiAppName, boolean pauseSources) {
+            return SiddhiAppDeployer.backup(resourceNode, siddhiAppName, pauseSources);
+        }
+    };
+    private final ExecutorService executorService;
+    private final long timeout;
+    private final NodeClient nodeClient;
+
+    public PartialAppDeploymentExecutor(int poolSize, long timeout) {
+        this(poolSize, timeout, SIDDHI_APP_DEPLOYER);
+    }
+
+    public PartialAppDeploymentExecutor(int poolSize, long timeout, NodeClient nodeClient) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executorService = Executors.newFixedThreadPool(poolSize, runnable -> {
+            Thread thread = new Thread(runnable, "Partial-App-Deployer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timeout = timeout;
+        this.nodeClient = nodeClient;
+    }
+
+    /**
+     * Deploys each partial Siddhi app in the resource node assigned to it. The deployed node is set in each partial
+     * app that got deployed.
+     *
+     * @param appHolders  partial Siddhi apps to be deployed.
+     * @param assignments names of the partial Siddhi apps mapped to the resource nodes they should be deployed in.
+     * @return partial Siddhi apps that could not be deployed.
+     */
+    public List<SiddhiAppHolder> deploy(List<SiddhiAppHolder> appHolders, Map<String, ResourceNode> assignments) {
+        List<ResourceNode> resourceNodes = new ArrayList<>(appHolders.size());
+        List<DeployTask> tasks = new ArrayList<>(appHolders.size());
+        List<Future<String>> futures = new ArrayList<>(appHolders.size());
+        for (SiddhiAppHolder appHolder : appHolders) {
+            ResourceNode resourceNode = assignments.get(appHolder.getAppName());
+            DeployTask task = new DeployTask(resourceNode, new SiddhiQuery(appHolder.getAppName(),
+                    appHolder.getSiddhiApp(), appHolder.isReceiverQueryGroup()));
+            resourceNodes.add(resourceNode);
+            tasks.add(task);
+            futures.add(executorService.submit(task));
+        }
+        List<SiddhiAppHolder> failedApps = new ArrayList<>();
+        List<SiddhiAppHolder> abandonedApps = new ArrayList<>();
+        List<ResourceNode> abandonedNodes = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + timeout;
+        for (int i = 0; i < appHolders.size(); i++) {
+            SiddhiAppHolder appHolder = appHolders.get(i);
+            ResourceNode resourceNode = resourceNodes.get(i);
+            String appName = await(futures.get(i), deadline, appHolder, resourceNode);
+            if (appName == null && !futures.get(i).isDone()) {
+                if (tasks.get(i).abandon()) {
+                    log.warn(String.format("%s did not respond within %d ms for partial Siddhi app %s. Hence "
+                            + "un-deploying it from the node.", resourceNode, timeout, appHolder.getAppName()));
+                    abandonedApps.add(appHolder);
+                    abandonedNodes.add(resourceNode);
+                } else {
+                    // The deployment call completed right after the timeout
+                    appName = getCompleted(futures.get(i), appHolder, resourceNode);
+                }
+            }
+            if (appName == null || appName.isEmpty()) {
+                log.warn(String.format("Couldn't deploy partial Siddhi app %s in %s", appHolder.getAppName(),
+                        resourceNode));
+                failedApps.add(appHolder);
+            } else {
+                appHolder.setDeployedNode(resourceNode);
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Partial Siddhi app %s successfully deployed in %s.",
+                            appName, resourceNode));
+                }
+            }
+        }
+        if (!abandonedApps.isEmpty()) {
+            unDeployAbandoned(abandonedApps, abandonedNodes);
+        }
+        return failedApps;
+    }
+
+    /**
+     * Un-deploys the given partial Siddhi apps from the resource nodes they are deployed in. The deployed node is
+     * cleared in each partial app that got un-deployed.
+     *
+     * @param siddhiAppHolders partial Siddhi apps to be un-deployed.
+     */
+    public void unDeploy(List<SiddhiAppHolder> siddhiAppHolders) {
+        List<SiddhiAppHolder> deployedApps = new ArrayList<>();
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (SiddhiAppHolder appHolder : siddhiAppHolders) {
+            ResourceNode resourceNode = appHolder.getDeployedNode();
+            if (resourceNode != null) {
+                deployedApps.add(appHolder);
+                futures.add(executorService.submit(() ->
+                        nodeClient.unDeploy(resourceNode, appHolder.getAppName())));
+            }
+        }
+        long deadline = System.currentTimeMillis() + timeout;
+        for (int i = 0; i < deployedApps.size(); i++) {
+            SiddhiAppHolder appHolder = deployedApps.get(i);
+            Boolean unDeployed = await(futures.get(i), deadline, appHolder, appHolder.getDeployedNode());
+            if (unDeployed == null || !unDeployed) {
+                futures.get(i).cancel(true);
+                log.warn(String.format("Could not un-deploy Siddhi app %s from %s.",
+                        appHolder.getAppName(), appHolder.getDeployedNode()));
+            } else {
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Siddhi app %s un-deployed from %s.",
+                            appHolder.getAppName(), appHolder.getDeployedNode()));
+                }
+                appHolder.setDeployedNode(null);
+            }
+        }
+    }
+
+    /**
+     * Un-deploys the partial Siddhi apps whose deployment timed out from the nodes they were sent to, in case the
+     * nodes deployed them without responding in time. Deployments which are still pending are un-deployed by their
+     * own {@link DeployTask} once they complete.
+     */
+    private void unDeployAbandoned(List<SiddhiAppHolder> appHolders, List<ResourceNode> resourceNodes) {
+        List<Future<Boolean>> futures = new ArrayList<>(appHolders.size());
+        for (int i = 0; i < appHolders.size(); i++) {
+            SiddhiAppHolder appHolder = appHolders.get(i);
+            ResourceNode resourceNode = resourceNodes.get(i);
+            futures.add(executorService.submit(() -> nodeClient.unDeploy(resourceNode, appHolder.getAppName())));
+        }
+        long deadline = System.currentTimeMillis() + timeout;
+        for (int i = 0; i < appHolders.size(); i++) {
+            SiddhiAppHolder appHolder = appHolders.get(i);
+            ResourceNode resourceNode = resourceNodes.get(i);
+            Boolean unDeployed = await(futures.get(i), deadline, appHolder, resourceNode);
+            if (unDeployed == null || !unDeployed) {
+                futures.get(i).cancel(true);
+                if (log.isDebugEnabled()) {
+                    log.debug(String.format("Partial Siddhi app %s is not deployed in %s yet. It will be "
+                            + "un-deployed once its pending deployment completes.", appHolder.getAppName(),
+                            resourceNode));
+                }
+            } else if (log.isDebugEnabled()) {
+                log.debug(String.format("Partial Siddhi app %s whose deployment timed out is un-deployed from %s.",
+                        appHolder.getAppName(), resourceNode));
+            }
+        }
+    }
+
+    private <T> T await(Future<T> future, long deadline, SiddhiAppHolder appHolder, ResourceNode resourceNode) {
+        try {
+            return future.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("%s did not respond within %d ms for partial Siddhi app %s.", resourceNode,
+                        timeout, appHolder.getAppName()));
+            }
+        } catch (ExecutionException e) {
+            log.warn(String.format("Error occurred while calling %s for partial Siddhi app %s.", resourceNode,
+                    appHolder.getAppName()), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    /**
+     * Get the result of a deployment call which completed without being abandoned. The result is awaited even if the
+     * calling thread is interrupted, since the call has already returned.
+     */
+    private String getCompleted(Future<String> future, SiddhiAppHolder appHolder, ResourceNode resourceNode) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            log.warn(String.format("Error occurred while calling %s for partial Siddhi app %s.", resourceNode,
+                    appHolder.getAppName()), e.getCause());
+            return null;
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Calls made to resource nodes to deploy, un-deploy and persist the state of partial Siddhi apps.
+     */
+    public interface NodeClient {
+        String deploy(ResourceNode resourceNode, SiddhiQuery siddhiQuery);
+
+        boolean unDeploy(ResourceNode resourceNode, String siddhiAppName);
+
+        String backup(ResourceNode resourceNode, String siddhiAppName, boolean pauseSources);
+    }
+
+    /**
+     * Deploys a partial Siddhi app, and un-deploys it again if the deployment succeeds after it was abandoned due to
+     * a timeout.
+     */
+    private class DeployTask implements Callable<String> {
+        private final ResourceNode resourceNode;
+        private final SiddhiQuery siddhiQuery;
+        private final AtomicBoolean completed = new AtomicBoolean();
+
+        DeployTask(ResourceNode resourceNode, SiddhiQuery siddhiQuery) {
+            this.resourceNode = resourceNode;
+            this.siddhiQuery = siddhiQuery;
+        }
+
+        @Override
+        public String call() {
+            String appName = null;
+            try {
+                appName = nodeClient.deploy(resourceNode, siddhiQuery);
+                return appName;
+            } finally {
+                if (!completed.compareAndSet(false, true) && appName != null && !appName.isEmpty()) {
+                    log.warn(String.format("Partial Siddhi app %s got deployed in %s after its deployment timed "
+                            + "out. Hence un-deploying it.", siddhiQuery.getAppName(), resourceNode));
+                    if (!nodeClient.unDeploy(resourceNode, appName)) {
+                        log.error(String.format("Could not un-deploy partial Siddhi app %s from %s.",
+                                siddhiQuery.getAppName(), resourceNode));
+                    }
+                }
+            }
+        }
+
+        /**
+         * Abandon the deployment.
+         *
+         * @return true if the deployment call was still pending, in which case it gets un-deployed once it succeeds.
+         */
+        boolean abandon() {
+            return completed.compareAndSet(false, true);
+        }
+    }
+}
@@ -18,12 +18,17 @@
 
 package org.wso2.carbon.sp.jobmanager.core.impl;
 
+import org.apache.log4j.Logger;
 import org.wso2.carbon.sp.jobmanager.core.DeploymentManager;
 import org.wso2.carbon.sp.jobmanager.core.SiddhiAppCreator;
 import org.wso2.carbon.sp.jobmanager.core.SiddhiTopologyCreator;
+import org.wso2.carbon.sp.jobmanager.core.allocation.CoLocationPlanner;
 import org.wso2.carbon.sp.jobmanager.core.appcreator.DeployableSiddhiQueryGroup;
 import org.wso2.carbon.sp.jobmanager.core.appcreator.DistributedSiddhiQuery;
+import org.wso2.carbon.sp.jobmanager.core.bean.DeploymentConfig;
+import org.wso2.carbon.sp.jobmanager.core.exception.ResourceManagerException;
 import org.wso2.carbon.sp.jobmanager.core.internal.ServiceDataHolder;
+import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiQueryGroup;
 import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiTopology;
 import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiTopologyCreatorImpl;
 import org.wso2.carbon.stream.processor.core.distribution.DeploymentStatus;
@@ -31,20 +36,28 @@ import org.wso2.carbon.stream.processor.core.distribution.DistributionService;
 import org.wso2.carbon.stream.processor.core.util.DeploymentMode;
 import org.wso2.carbon.stream.processor.core.util.RuntimeMode;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Abstract implementation of {@link DistributionService}. This implementation mandate to use an
  * {@link SiddhiAppCreator}  and {@link DeploymentManager} to fulfill distribution of Siddhi App.
  */
 public class DistributionManagerServiceImpl implements DistributionService {
+    private static final Logger log = Logger.getLogger(DistributionManagerServiceImpl.class);
 
     private SiddhiAppCreator appCreator;
     private DeploymentManager deploymentManager;
     private SiddhiTopologyCreator siddhiTopologyCreator;
     private Map<String, String> serviceHolder = new HashMap<>();
+    /**
+     * Map of parentSiddhiAppName -> (execution group name -> parallelism) set at runtime.
+     */
+    private final Map<String, Map<String, Integer>> parallelismOverrides = new ConcurrentHashMap<>();
+    private final TopologyPlanCache topologyPlanCache = new TopologyPlanCache();
 
     private DistributionManagerServiceImpl() {
         //Do nothing
@@ -56,13 +69,104 @@ public class DistributionManagerServiceImpl implements DistributionService {
         siddhiTopologyCreator = new SiddhiTopologyCreatorImpl();
     }
 
+    /**
+     * Distribute a Siddhi app. The topology of an app which was planned before is taken from the plan cache, and
+     * when an app with the same name is already deployed only its added, removed or changed partial apps are
+     * deployed, un-deployed or updated.
+     *
+     * @param userDefinedSiddhiApp Siddhi app given by the user
+     * @return the deployment status of the Siddhi app
+     */
     @Override
     public DeploymentStatus distribute(String userDefinedSiddhiApp) {
-        SiddhiTopology topology = siddhiTopologyCreator.createTopology(userDefinedSiddhiApp);
-        List<DeployableSiddhiQueryGroup> deployableQueryGroupList = appCreator.createApps(topology);
-        serviceHolder.put(topology.getName(), userDefinedSiddhiApp);
+        String planKey = TopologyPlanCache.createKey(userDefinedSiddhiApp, Collections.emptyMap());
+        SiddhiTopology topology = topologyPlanCache.get(planKey);
+        if (topology == null) {
+            topology = siddhiTopologyCreator.createTopology(userDefinedSiddhiApp);
+        } else if (log.isDebugEnabled()) {
+            log.debug("Using the cached topology of Siddhi app " + topology.getName() + ".");
+        }
+        DistributedSiddhiQuery distributedSiddhiQuery = createDistributedSiddhiQuery(topology);
+        topologyPlanCache.put(planKey, topology);
+        String parentSiddhiAppName = distributedSiddhiQuery.getAppName();
+        parallelismOverrides.remove(parentSiddhiAppName);
+        serviceHolder.put(parentSiddhiAppName, userDefinedSiddhiApp);
         ServiceDataHolder.setUserDefinedSiddhiApp(serviceHolder);
-        return deploymentManager.deploy(new DistributedSiddhiQuery(topology.getName(), deployableQueryGroupList));
+        return deploymentManager.reDeploy(distributedSiddhiQuery);
+    }
+
+    /**
+     * Change the parallelism of an execution group of a distributed Siddhi app at runtime. Only the partial apps
+     * which get added, removed or changed due to the new parallelism are deployed, un-deployed or updated.
+     *
+     * @param parentSiddhiAppName name of the distributed Siddhi app
+     * @param execGroupName       name of the execution group to rescale
+     * @param parallelism         new parallelism of the execution group
+     * @return the deployment status of the Siddhi app
+     */
+    public synchronized DeploymentStatus rescale(String parentSiddhiAppName, String execGroupName,
+                                                 int parallelism) {
+        String userDefinedSiddhiApp = serviceHolder.get(parentSiddhiAppName);
+        if (userDefinedSiddhiApp == null || !deploymentManager.isDeployed(parentSiddhiAppName)) {
+            throw new ResourceManagerException("Siddhi app " + parentSiddhiAppName + " is not deployed.");
+        }
+        if (parallelism < 1) {
+            throw new ResourceManagerException("Invalid parallelism " + parallelism + " given for execution group "
+                    + execGroupName + ".");
+        }
+        Map<String, Integer> overrides = new HashMap<>(parallelismOverrides.getOrDefault(parentSiddhiAppName,
+                Collections.emptyMap()));
+        overrides.put(execGroupName, parallelism);
+        String planKey = TopologyPlanCache.createKey(userDefinedSiddhiApp, overrides);
+        SiddhiTopology topology = topologyPlanCache.get(planKey);
+        if (topology == null) {
+            topology = siddhiTopologyCreator.createTopology(userDefinedSiddhiApp, overrides);
+            SiddhiQueryGroup queryGroup = null;
+            for (SiddhiQueryGroup group : topology.getQueryGroupList()) {
+                if (group.getName().equals(execGroupName)) {
+                    queryGroup = group;
+                    break;
+                }
+            }
+            if (queryGroup == null || queryGroup.isReceiverQueryGroup()) {
+                throw new ResourceManagerException("Siddhi app " + parentSiddhiAppName + " does not contain an "
+                        + "execution group named " + execGroupName + ".");
+            }
+        }
+        DistributedSiddhiQuery distributedSiddhiQuery = createDistributedSiddhiQuery(topology);
+        topologyPlanCache.put(planKey, topology);
+        parallelismOverrides.put(parentSiddhiAppName, overrides);
+        return deploymentManager.reDeploy(distributedSiddhiQuery);
+    }
+
+    /**
+     * Check whether the parallelism of an execution group was changed at runtime.
+     *
+     * @param parentSiddhiAppName name of the distributed Siddhi app
+     * @param execGroupName       name of the execution group
+     * @return true if the execution group does not run with the parallelism given by the user
+     */
+    public boolean isParallelismOverridden(String parentSiddhiAppName, String execGroupName) {
+        Map<String, Integer> overrides = parallelismOverrides.get(parentSiddhiAppName);
+        return overrides != null && overrides.containsKey(execGroupName);
+    }
+
+    /**
+     * Create the partial apps of a topology. This is done even for cached topologies, since the app creator also
+     * creates and validates the transport channels, which may have changed since the topology was planned. The app
+     * creator keeps any state found about the transport channels to itself, so that the cached topology stays as
+     * planned.
+     */
+    private DistributedSiddhiQuery createDistributedSiddhiQuery(SiddhiTopology topology) {
+        List<DeployableSiddhiQueryGroup> deployableQueryGroupList = appCreator.createApps(topology);
+        DistributedSiddhiQuery distributedSiddhiQuery = new DistributedSiddhiQuery(topology.getName(),
+                deployableQueryGroupList);
+        DeploymentConfig deploymentConfig = ServiceDataHolder.getDeploymentConfig();
+        if (deploymentConfig != null && deploymentConfig.isCoLocationEnabled()) {
+            distributedSiddhiQuery.setCoLocationGroups(CoLocationPlanner.createCoLocationGroups(topology,
+                    deploymentConfig.getMaxPartialAppsPerNode()));
+        }
+        return distributedSiddhiQuery;
     }
 
     @Override
@@ -82,6 +186,8 @@ public class DistributionManagerServiceImpl implements DistributionService {
 
     @Override
     public void undeploy(String parentSiddhiAppName) {
+        parallelismOverrides.remove(parentSiddhiAppName);
+        topologyPlanCache.remove(parentSiddhiAppName);
         deploymentManager.unDeploy(parentSiddhiAppName);
     }
 
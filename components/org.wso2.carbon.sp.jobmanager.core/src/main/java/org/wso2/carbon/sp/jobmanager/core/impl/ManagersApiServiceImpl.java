@@ -33,17 +33,21 @@ import org.wso2.carbon.sp.jobmanager.core.api.ApiResponseMessage;
 import org.wso2.carbon.sp.jobmanager.core.api.ManagersApiService;
 import org.wso2.carbon.sp.jobmanager.core.api.NotFoundException;
 import org.wso2.carbon.sp.jobmanager.core.bean.KafkaTransportDetails;
+import org.wso2.carbon.sp.jobmanager.core.exception.ResourceManagerException;
 import org.wso2.carbon.sp.jobmanager.core.impl.utils.Constants;
 import org.wso2.carbon.sp.jobmanager.core.internal.ServiceDataHolder;
 import org.wso2.carbon.sp.jobmanager.core.model.ManagerDetails;
 import org.wso2.carbon.sp.jobmanager.core.model.ManagerNode;
 import org.wso2.carbon.sp.jobmanager.core.model.SiddhiAppDetails;
 import org.wso2.carbon.sp.jobmanager.core.model.SiddhiAppHolder;
+import org.wso2.carbon.stream.processor.core.distribution.DeploymentStatus;
 import org.wso2.msf4j.Request;
+import org.wso2.siddhi.core.exception.SiddhiAppCreationException;
 import org.wso2.siddhi.query.api.SiddhiApp;
 import org.wso2.siddhi.query.api.annotation.Annotation;
 import org.wso2.siddhi.query.api.annotation.Element;
 import org.wso2.siddhi.query.api.definition.StreamDefinition;
+import org.wso2.siddhi.query.api.exception.SiddhiAppValidationException;
 import org.wso2.siddhi.query.compiler.SiddhiCompiler;
 
 import java.util.ArrayList;
@@ -285,6 +289,103 @@ public class ManagersApiServiceImpl extends ManagersApiService {
         }
     }
 
+    /**
+     * Change the parallelism of an execution group of a parent siddhi app.
+     *
+     * @param appName     name of the parent siddhi app
+     * @param groupName   name of the execution group
+     * @param parallelism new parallelism of the execution group
+     * @return deployment status of the parent siddhi app
+     */
+    public Response rescaleExecutionGroup(String appName, String groupName, Integer parallelism) {
+        if (!ServiceDataHolder.isLeader()) {
+            return Response.status(Response.Status.CONFLICT).entity(
+                    new ApiResponseMessage(ApiResponseMessage.ERROR, "Not the active node")).build();
+        }
+        if (parallelism == null || parallelism < 1) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(
+                    new ApiResponseMessage(ApiResponseMessage.ERROR, "Parallelism should be a positive "
+                            + "integer")).build();
+        }
+        DistributionManagerServiceImpl distributionManagerService = ServiceDataHolder
+                .getDistributionManagerService();
+        if (distributionManagerService == null || !distributionManagerService.isDistributed(appName)) {
+            return Response.status(Response.Status.NOT_FOUND).entity(
+                    new ApiResponseMessage(ApiResponseMessage.ERROR, "There is no siddhi app named " + appName
+                            + " in the manager node")).build();
+        }
+        try {
+            DeploymentStatus deploymentStatus = distributionManagerService.rescale(appName, groupName,
+                    parallelism);
+            return Response.ok().entity(deploymentStatus).build();
+        } catch (ResourceManagerException e) {
+            return Response.status(Response.Status.NOT_FOUND).entity(
+                    new ApiResponseMessage(ApiResponseMessage.ERROR, e.getMessage())).build();
+        } catch (SiddhiAppValidationException e) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(
+                    new ApiResponseMessage(ApiResponseMessage.ERROR, e.getMessage())).build();
+        } catch (SiddhiAppCreationException e) {
+            logger.error("Error occurred while rescaling execution group " + groupName + " of siddhi app "
+                    + appName, e);
+            return Response.serverError().entity(
+                    new ApiResponseMessage(ApiResponseMessage.ERROR, e.getMessage())).build();
+        }
+    }
+
+    /**
+     * Move a child siddhi app of a parent siddhi app to another resource node along with its state.
+     *
+     * @param appName        name of the parent siddhi app
+     * @param partialAppName name of the child siddhi app
+     * @param targetNode     id of the resource node to move the child siddhi app to
+     * @return whether the child siddhi app got migrated
+     */
+    public Response migratePartialApp(String appName, String partialAppName, String targetNode) {
+        if (!ServiceDataHolder.isLeader()) {
+            return Response.status(Response.Status.CONFLICT).entity(
+                    new ApiResponseMessage(ApiResponseMessage.ERROR, "Not the active node")).build();
+        }
+        if (targetNode == null || targetNode.isEmpty()) {
+            return Response.status(Response.Status.BAD_REQUEST).entity(
+                    new ApiResponseMessage(ApiResponseMessage.ERROR, "Target resource node is not given")).build();
+        }
+        try {
+            if (ServiceDataHolder.getDeploymentManager().migrate(appName, partialAppName, targetNode)) {
+                return Response.ok().entity(new ApiResponseMessage(ApiResponseMessage.OK, "Siddhi app "
+                        + partialAppName + " successfully migrated to " + targetNode)).build();
+            }
+            return Response.serverError().entity(new ApiResponseMessage(ApiResponseMessage.ERROR, "Couldn't "
+                    + "migrate siddhi app " + partialAppName + " to " + targetNode)).build();
+        } catch (ResourceManagerException e) {
+            return Response.status(Response.Status.NOT_FOUND).entity(
+                    new ApiResponseMessage(ApiResponseMessage.ERROR, e.getMessage())).build();
+        }
+    }
+
+    /**
+     * Move all the child siddhi apps deployed in a resource node to other resource nodes along with their state.
+     *
+     * @param nodeId id of the resource node
+     * @return whether all the child siddhi apps got moved out of the resource node
+     */
+    public Response drainResourceNode(String nodeId) {
+        if (!ServiceDataHolder.isLeader()) {
+            return Response.status(Response.Status.CONFLICT).entity(
+                    new ApiResponseMessage(ApiResponseMessage.ERROR, "Not the active node")).build();
+        }
+        try {
+            if (ServiceDataHolder.getDeploymentManager().drainResourceNode(nodeId)) {
+                return Response.ok().entity(new ApiResponseMessage(ApiResponseMessage.OK, "Resource node "
+                        + nodeId + " successfully drained")).build();
+            }
+            return Response.serverError().entity(new ApiResponseMessage(ApiResponseMessage.ERROR, "Couldn't "
+                    + "move all the siddhi apps out of resource node " + nodeId)).build();
+        } catch (ResourceManagerException e) {
+            return Response.status(Response.Status.NOT_FOUND).entity(
+                    new ApiResponseMessage(ApiResponseMessage.ERROR, e.getMessage())).build();
+        }
+    }
+
     /**
      * This method helps to get the kafka sink source details
      *
@@ -452,6 +553,41 @@ public class ManagersApiServiceImpl extends ManagersApiService {
         }
     }
 
+    @Override
+    public Response rescaleExecutionGroup(String appName, String groupName, Integer parallelism,
+                                          Request request) throws NotFoundException {
+        if (getUserName(request) != null && !getPermissionProvider().hasPermission(getUserName(request), new
+                Permission(Constants.PERMISSION_APP_NAME, MANAGE_SIDDHI_APP_PERMISSION_STRING))) {
+            return Response.status(Response.Status.FORBIDDEN).entity("Insufficient permissions to rescale "
+                    + "execution groups").build();
+        } else {
+            return rescaleExecutionGroup(appName, groupName, parallelism);
+        }
+    }
+
+    @Override
+    public Response migratePartialApp(String appName, String partialAppName, String targetNode,
+                                      Request request) throws NotFoundException {
+        if (getUserName(request) != null && !getPermissionProvider().hasPermission(getUserName(request), new
+                Permission(Constants.PERMISSION_APP_NAME, MANAGE_SIDDHI_APP_PERMISSION_STRING))) {
+            return Response.status(Response.Status.FORBIDDEN).entity("Insufficient permissions to migrate "
+                    + "siddhi apps").build();
+        } else {
+            return migratePartialApp(appName, partialAppName, targetNode);
+        }
+    }
+
+    @Override
+    public Response drainResourceNode(String nodeId, Request request) throws NotFoundException {
+        if (getUserName(request) != null && !getPermissionProvider().hasPermission(getUserName(request), new
+                Permission(Constants.PERMISSION_APP_NAME, MANAGE_SIDDHI_APP_PERMISSION_STRING))) {
+            return Response.status(Response.Status.FORBIDDEN).entity("Insufficient permissions to drain "
+                    + "resource nodes").build();
+        } else {
+            return drainResourceNode(nodeId);
+        }
+    }
+
     private PermissionProvider getPermissionProvider() {
         return ServiceDataHolder.getPermissionProvider();
     }
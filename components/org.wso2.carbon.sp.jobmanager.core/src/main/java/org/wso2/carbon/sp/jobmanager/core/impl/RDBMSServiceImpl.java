@@ -29,24 +29,31 @@ import org.wso2.carbon.datasource.core.exception.DataSourceException;
 import org.wso2.carbon.sp.jobmanager.core.bean.DeploymentConfig;
 import org.wso2.carbon.sp.jobmanager.core.exception.ResourceManagerException;
 import org.wso2.carbon.sp.jobmanager.core.internal.ServiceDataHolder;
+import org.wso2.carbon.sp.jobmanager.core.model.ResourceNode;
+import org.wso2.carbon.sp.jobmanager.core.model.ResourceNodeRecord;
 import org.wso2.carbon.sp.jobmanager.core.model.ResourcePool;
+import org.wso2.carbon.sp.jobmanager.core.model.ResourcePoolChange;
+import org.wso2.carbon.sp.jobmanager.core.model.SiddhiAppHolder;
+import org.wso2.carbon.sp.jobmanager.core.model.SiddhiAppHolderRecord;
 import org.wso2.carbon.sp.jobmanager.core.util.ResourceManagerConstants;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.constructor.CustomClassLoaderConstructor;
 import org.yaml.snakeyaml.introspector.BeanAccess;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.io.StringReader;
 import java.net.URL;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import javax.sql.DataSource;
@@ -110,88 +117,327 @@ public class RDBMSServiceImpl {
         } finally {
             close(conn, "Closing connection used to get database information.");
         }
-        createResourcePoolTable();
+        createResourcePoolTables();
     }
 
     /**
-     * Create resource pool persistence table.
+     * Create resource pool persistence tables.
      */
-    private void createResourcePoolTable() {
+    private void createResourcePoolTables() {
+        createTable(ResourceManagerConstants.CHECK_FOR_RESOURCE_MAPPING_TABLE,
+                ResourceManagerConstants.CREATE_RESOURCE_MAPPING_TABLE, "resource mapping");
+        createTable(ResourceManagerConstants.CHECK_FOR_RESOURCE_NODE_TABLE,
+                ResourceManagerConstants.CREATE_RESOURCE_NODE_TABLE, "resource node");
+        createTable(ResourceManagerConstants.CHECK_FOR_SIDDHI_APP_HOLDER_TABLE,
+                ResourceManagerConstants.CREATE_SIDDHI_APP_HOLDER_TABLE, "Siddhi app holder");
+    }
+
+    /**
+     * Create a table if it does not exist.
+     *
+     * @param checkQueryKey  key of the query which checks whether the table exists
+     * @param createQueryKey key of the query which creates the table
+     * @param tableName      name of the table used for logging
+     */
+    private void createTable(String checkQueryKey, String createQueryKey, String tableName) {
         Connection connection = null;
         PreparedStatement preparedStatement = null;
         try {
             connection = getConnection();
             try {
-                preparedStatement = connection.prepareStatement(
-                        queries.get(ResourceManagerConstants.CHECK_FOR_RESOURCE_MAPPING_TABLE));
+                preparedStatement = connection.prepareStatement(queries.get(checkQueryKey));
                 preparedStatement.execute();
             } catch (SQLException e) {
                 try {
                     // this is due to clean up the connection because postgreSQL will not terminate the execution
                     // by itself so you need to rollback manually. Or it will execute the same query again
                     connection.rollback();
-                    preparedStatement = connection.prepareStatement(
-                            queries.get(ResourceManagerConstants.CREATE_RESOURCE_MAPPING_TABLE));
+                    close(preparedStatement, "Execute query when checking " + tableName + " table");
+                    preparedStatement = connection.prepareStatement(queries.get(createQueryKey));
                     preparedStatement.execute();
                     if (log.isDebugEnabled()) {
-                        log.debug("Resource Mapping Table Created Successfully");
+                        log.debug(tableName + " table created successfully");
                     }
                 } catch (SQLException ex) {
-                    throw new ResourceManagerException("Error in executing create resource mapping table query.", ex);
+                    throw new ResourceManagerException("Error in executing create " + tableName + " table query.",
+                            ex);
                 }
             } finally {
                 connection.commit();
             }
         } catch (SQLException e) {
-            throw new ResourceManagerException("Error when getting the connection for to create resource mapping " +
-                    "table.", e);
+            throw new ResourceManagerException("Error when getting the connection for to create " + tableName +
+                    " table.", e);
         } finally {
-            close(preparedStatement, "Execute query when creating resource mapping table");
-            close(connection, "Execute query when creating resource mapping table");
+            close(preparedStatement, "Execute query when creating " + tableName + " table");
+            close(connection, "Execute query when creating " + tableName + " table");
         }
     }
 
-    public void persistResourcePool(ResourcePool resourcePool) throws ResourceManagerException {
-        if (resourcePool != null && resourcePool.getGroupId() != null) {
-            Connection connection = null;
-            PreparedStatement preparedStatement = null;
-            try {
-                connection = getConnection();
-                ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-                ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream);
-                objectOutputStream.writeObject(resourcePool);
-                byte[] resourceMappingAsBytes = byteArrayOutputStream.toByteArray();
-                preparedStatement = connection.prepareStatement(
-                        queries.get(ResourceManagerConstants.PS_DELETE_RESOURCE_MAPPING_ROW));
-                preparedStatement.setString(1, resourcePool.getGroupId());
-                preparedStatement.executeUpdate();
-                close(preparedStatement, "Execute delete mapping row query");
-                preparedStatement = connection.prepareStatement(
-                        queries.get(ResourceManagerConstants.PS_INSERT_RESOURCE_MAPPING_ROW));
-                preparedStatement.setString(1, resourcePool.getGroupId());
-                preparedStatement.setBinaryStream(2, new ByteArrayInputStream(resourceMappingAsBytes));
-                preparedStatement.executeUpdate();
-                connection.commit();
-                if (log.isDebugEnabled()) {
-                    log.debug(ResourceManagerConstants.TASK_UPSERT_RESOURCE_MAPPING + " " +
-                            resourcePool.getGroupId() + " executed successfully");
+    /**
+     * Persist the changes of the resource pool state within a single transaction. Rows of each kind are written
+     * using batched statements.
+     *
+     * @param groupId     resource pool group id
+     * @param nodeChanges changes of the resource node rows
+     * @param appChanges  changes of the partial Siddhi app rows
+     * @param replaceAll  whether all existing rows of the group have to be removed before applying the changes
+     * @throws ResourceManagerException if the changes could not be persisted
+     */
+    public void persistResourcePoolChanges(String groupId, List<ResourcePoolChange<ResourceNodeRecord>> nodeChanges,
+                                           List<ResourcePoolChange<SiddhiAppHolderRecord>> appChanges,
+                                           boolean replaceAll) throws ResourceManagerException {
+        Connection connection = null;
+        try {
+            connection = getConnection();
+            if (replaceAll) {
+                executeUpdate(connection, ResourceManagerConstants.PS_DELETE_RESOURCE_MAPPING_ROW, groupId);
+                executeUpdate(connection, ResourceManagerConstants.PS_DELETE_RESOURCE_NODE_ROWS, groupId);
+                executeUpdate(connection, ResourceManagerConstants.PS_DELETE_SIDDHI_APP_HOLDER_ROWS, groupId);
+            }
+            // Deletes are applied first, so that a row which moved within the state does not violate a key
+            executeNodeChanges(connection, groupId, nodeChanges, ResourcePoolChange.Operation.DELETE);
+            executeAppChanges(connection, groupId, appChanges, ResourcePoolChange.Operation.DELETE);
+            executeNodeChanges(connection, groupId, nodeChanges, ResourcePoolChange.Operation.UPDATE);
+            executeAppChanges(connection, groupId, appChanges, ResourcePoolChange.Operation.UPDATE);
+            executeNodeChanges(connection, groupId, nodeChanges, ResourcePoolChange.Operation.INSERT);
+            executeAppChanges(connection, groupId, appChanges, ResourcePoolChange.Operation.INSERT);
+            connection.commit();
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("%s %s executed successfully with %d node changes and %d app changes.",
+                        ResourceManagerConstants.TASK_PERSIST_RESOURCE_POOL_CHANGES, groupId, nodeChanges.size(),
+                        appChanges.size()));
+            }
+        } catch (SQLException e) {
+            rollback(connection, ResourceManagerConstants.TASK_PERSIST_RESOURCE_POOL_CHANGES);
+            throw new ResourceManagerException("Error occurred while " +
+                    ResourceManagerConstants.TASK_PERSIST_RESOURCE_POOL_CHANGES + " " + groupId, e);
+        } finally {
+            close(connection, ResourceManagerConstants.TASK_PERSIST_RESOURCE_POOL_CHANGES);
+        }
+    }
+
+    private void executeUpdate(Connection connection, String queryKey, String groupId) throws SQLException {
+        PreparedStatement preparedStatement = null;
+        try {
+            preparedStatement = connection.prepareStatement(queries.get(queryKey));
+            preparedStatement.setString(1, groupId);
+            preparedStatement.executeUpdate();
+        } finally {
+            close(preparedStatement, ResourceManagerConstants.TASK_PERSIST_RESOURCE_POOL_CHANGES);
+        }
+    }
+
+    private void executeNodeChanges(Connection connection, String groupId,
+                                    List<ResourcePoolChange<ResourceNodeRecord>> changes,
+                                    ResourcePoolChange.Operation operation) throws SQLException {
+        PreparedStatement preparedStatement = null;
+        try {
+            for (ResourcePoolChange<ResourceNodeRecord> change : changes) {
+                if (change.getOperation() != operation) {
+                    continue;
                 }
-            } catch (SQLException e) {
-                rollback(connection, ResourceManagerConstants.TASK_UPSERT_RESOURCE_MAPPING);
-                throw new ResourceManagerException("Error occurred while " +
-                        ResourceManagerConstants.TASK_UPSERT_RESOURCE_MAPPING
-                        + ". Group ID" +
-                        resourcePool.getGroupId(), e);
-            } catch (IOException e) {
-                throw new ResourceManagerException(e);
-            } finally {
-                close(preparedStatement, ResourceManagerConstants.TASK_UPSERT_RESOURCE_MAPPING);
-                close(connection, ResourceManagerConstants.TASK_UPSERT_RESOURCE_MAPPING);
+                if (preparedStatement == null) {
+                    String queryKey;
+                    if (operation == ResourcePoolChange.Operation.INSERT) {
+                        queryKey = ResourceManagerConstants.PS_INSERT_RESOURCE_NODE_ROW;
+                    } else if (operation == ResourcePoolChange.Operation.UPDATE) {
+                        queryKey = ResourceManagerConstants.PS_UPDATE_RESOURCE_NODE_ROW;
+                    } else {
+                        queryKey = ResourceManagerConstants.PS_DELETE_RESOURCE_NODE_ROW;
+                    }
+                    preparedStatement = connection.prepareStatement(queries.get(queryKey));
+                }
+                if (operation == ResourcePoolChange.Operation.DELETE) {
+                    preparedStatement.setString(1, groupId);
+                    preparedStatement.setString(2, change.getPrevious().getNodeId());
+                } else {
+                    ResourceNodeRecord record = change.getRecord();
+                    int index = 1;
+                    if (operation == ResourcePoolChange.Operation.INSERT) {
+                        preparedStatement.setString(index++, groupId);
+                        preparedStatement.setString(index++, record.getNodeId());
+                    }
+                    preparedStatement.setInt(index++, record.isReceiverNode() ? 1 : 0);
+                    preparedStatement.setString(index++, record.getState());
+                    preparedStatement.setString(index++, record.getHost());
+                    preparedStatement.setInt(index++, record.getPort());
+                    preparedStatement.setString(index++, record.getUsername());
+                    if (operation == ResourcePoolChange.Operation.UPDATE) {
+                        preparedStatement.setString(index++, groupId);
+                        preparedStatement.setString(index, record.getNodeId());
+                    }
+                }
+                preparedStatement.addBatch();
+            }
+            if (preparedStatement != null) {
+                preparedStatement.executeBatch();
             }
+        } finally {
+            close(preparedStatement, ResourceManagerConstants.TASK_PERSIST_RESOURCE_POOL_CHANGES);
         }
     }
 
+    private void executeAppChanges(Connection connection, String groupId,
+                                   List<ResourcePoolChange<SiddhiAppHolderRecord>> changes,
+                                   ResourcePoolChange.Operation operation) throws SQLException {
+        PreparedStatement preparedStatement = null;
+        PreparedStatement placementStatement = null;
+        try {
+            for (ResourcePoolChange<SiddhiAppHolderRecord> change : changes) {
+                if (change.getOperation() != operation) {
+                    continue;
+                }
+                SiddhiAppHolderRecord record = change.getRecord();
+                if (operation == ResourcePoolChange.Operation.DELETE) {
+                    if (preparedStatement == null) {
+                        preparedStatement = connection.prepareStatement(
+                                queries.get(ResourceManagerConstants.PS_DELETE_SIDDHI_APP_HOLDER_ROW));
+                    }
+                    preparedStatement.setString(1, groupId);
+                    preparedStatement.setString(2, change.getPrevious().getParentAppName());
+                    preparedStatement.setString(3, change.getPrevious().getAppName());
+                    preparedStatement.addBatch();
+                } else if (operation == ResourcePoolChange.Operation.UPDATE
+                        && change.getPrevious().hasSameDefinition(record)) {
+                    // Only the placement changed, hence the Siddhi app itself is not re-written
+                    if (placementStatement == null) {
+                        placementStatement = connection.prepareStatement(
+                                queries.get(ResourceManagerConstants.PS_UPDATE_SIDDHI_APP_PLACEMENT_ROW));
+                    }
+                    placementStatement.setString(1, record.getDeployedNodeId());
+                    placementStatement.setInt(2, record.isWaiting() ? 1 : 0);
+                    placementStatement.setInt(3, record.getAppIndex());
+                    placementStatement.setString(4, groupId);
+                    placementStatement.setString(5, record.getParentAppName());
+                    placementStatement.setString(6, record.getAppName());
+                    placementStatement.addBatch();
+                } else {
+                    int index = 1;
+                    if (preparedStatement == null) {
+                        preparedStatement = connection.prepareStatement(queries.get(
+                                operation == ResourcePoolChange.Operation.INSERT
+                                        ? ResourceManagerConstants.PS_INSERT_SIDDHI_APP_HOLDER_ROW
+                                        : ResourceManagerConstants.PS_UPDATE_SIDDHI_APP_HOLDER_ROW));
+                    }
+                    if (operation == ResourcePoolChange.Operation.INSERT) {
+                        preparedStatement.setString(index++, groupId);
+                        preparedStatement.setString(index++, record.getParentAppName());
+                        preparedStatement.setString(index++, record.getAppName());
+                    }
+                    preparedStatement.setString(index++, record.getGroupName());
+                    preparedStatement.setCharacterStream(index++, new StringReader(record.getSiddhiApp()),
+                            record.getSiddhiApp().length());
+                    preparedStatement.setInt(index++, record.isReceiverQueryGroup() ? 1 : 0);
+                    preparedStatement.setInt(index++, record.getParallelism());
+                    preparedStatement.setString(index++, record.getDeployedNodeId());
+                    preparedStatement.setInt(index++, record.isWaiting() ? 1 : 0);
+                    preparedStatement.setInt(index++, record.getAppIndex());
+                    if (record.getFallbackSiddhiApp() != null) {
+                        preparedStatement.setCharacterStream(index++,
+                                new StringReader(record.getFallbackSiddhiApp()),
+                                record.getFallbackSiddhiApp().length());
+                    } else {
+                        preparedStatement.setNull(index++, Types.VARCHAR);
+                    }
+                    preparedStatement.setString(index++, record.getLocalPeers());
+                    if (operation == ResourcePoolChange.Operation.UPDATE) {
+                        preparedStatement.setString(index++, groupId);
+                        preparedStatement.setString(index++, record.getParentAppName());
+                        preparedStatement.setString(index, record.getAppName());
+                    }
+                    preparedStatement.addBatch();
+                }
+            }
+            if (preparedStatement != null) {
+                preparedStatement.executeBatch();
+            }
+            if (placementStatement != null) {
+                placementStatement.executeBatch();
+            }
+        } finally {
+            close(preparedStatement, ResourceManagerConstants.TASK_PERSIST_RESOURCE_POOL_CHANGES);
+            close(placementStatement, ResourceManagerConstants.TASK_PERSIST_RESOURCE_POOL_CHANGES);
+        }
+    }
+
+    /**
+     * Restore the resource pool of the given group. The legacy serialized resource mapping is used when the group
+     * has no resource node or Siddhi app rows, which will be migrated with the next persist.
+     *
+     * @param groupId resource pool group id
+     * @return restored resource pool, or null if no state is persisted for the group
+     * @throws ResourceManagerException if the state could not be read
+     */
     public ResourcePool getResourcePool(String groupId) throws ResourceManagerException {
+        Connection connection = null;
+        PreparedStatement preparedStatement = null;
+        ResultSet resultSet = null;
+        Map<String, ResourceNodeRecord> nodeRecords = new HashMap<>();
+        Map<List<String>, SiddhiAppHolderRecord> appRecords = new LinkedHashMap<>();
+        try {
+            connection = getConnection();
+            preparedStatement = connection.prepareStatement(
+                    queries.get(ResourceManagerConstants.PS_SELECT_RESOURCE_NODE_ROWS));
+            preparedStatement.setString(1, groupId);
+            resultSet = preparedStatement.executeQuery();
+            while (resultSet.next()) {
+                ResourceNodeRecord record = new ResourceNodeRecord(resultSet.getString(1), resultSet.getInt(2) == 1,
+                        resultSet.getString(3), resultSet.getString(4), resultSet.getInt(5),
+                        resultSet.getString(6));
+                nodeRecords.put(record.getNodeId(), record);
+            }
+            close(resultSet, ResourceManagerConstants.TASK_GET_RESOURCE_MAPPING);
+            close(preparedStatement, ResourceManagerConstants.TASK_GET_RESOURCE_MAPPING);
+            preparedStatement = connection.prepareStatement(
+                    queries.get(ResourceManagerConstants.PS_SELECT_SIDDHI_APP_HOLDER_ROWS));
+            preparedStatement.setString(1, groupId);
+            resultSet = preparedStatement.executeQuery();
+            while (resultSet.next()) {
+                SiddhiAppHolderRecord record = new SiddhiAppHolderRecord(resultSet.getString(1),
+                        resultSet.getString(2), resultSet.getString(3), resultSet.getString(4),
+                        resultSet.getInt(5) == 1, resultSet.getInt(6), resultSet.getString(7),
+                        resultSet.getInt(8) == 1, resultSet.getInt(9), resultSet.getString(10),
+                        resultSet.getString(11));
+                appRecords.put(record.getKey(), record);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new ResourceManagerException("Error occurred while " +
+                    ResourceManagerConstants.TASK_GET_RESOURCE_MAPPING, e);
+        } finally {
+            close(resultSet, ResourceManagerConstants.TASK_GET_RESOURCE_MAPPING);
+            close(preparedStatement, ResourceManagerConstants.TASK_GET_RESOURCE_MAPPING);
+            close(connection, ResourceManagerConstants.TASK_GET_RESOURCE_MAPPING);
+        }
+        if (nodeRecords.isEmpty() && appRecords.isEmpty()) {
+            return getLegacyResourcePool(groupId);
+        }
+        ResourcePool resourcePool = new ResourcePool(groupId);
+        nodeRecords.values().forEach(record -> {
+            if (record.isReceiverNode()) {
+                resourcePool.getReceiverNodeMap().put(record.getNodeId(), record.toResourceNode());
+            } else {
+                resourcePool.getResourceNodeMap().put(record.getNodeId(), record.toResourceNode());
+            }
+        });
+        appRecords.values().forEach(record -> {
+            ResourceNode deployedNode = null;
+            if (record.getDeployedNodeId() != null) {
+                deployedNode = record.isReceiverQueryGroup()
+                        ? resourcePool.getReceiverNodeMap().get(record.getDeployedNodeId())
+                        : resourcePool.getResourceNodeMap().get(record.getDeployedNodeId());
+            }
+            Map<String, List<SiddhiAppHolder>> appHoldersMap = record.isWaiting()
+                    ? resourcePool.getAppsWaitingForDeploy() : resourcePool.getSiddhiAppHoldersMap();
+            appHoldersMap.computeIfAbsent(record.getParentAppName(), name -> new ArrayList<>())
+                    .add(record.toSiddhiAppHolder(deployedNode));
+        });
+        resourcePool.setPersistedRecords(nodeRecords, appRecords);
+        return resourcePool;
+    }
+
+    private ResourcePool getLegacyResourcePool(String groupId) throws ResourceManagerException {
         Connection connection = null;
         PreparedStatement preparedStatement = null;
         ResultSet resultSet = null;
@@ -209,6 +455,8 @@ public class RDBMSServiceImpl {
                 Object blobObject = ois.readObject();
                 if (blobObject instanceof ResourcePool) {
                     resourcePool = (ResourcePool) blobObject;
+                    log.info("Restored resource pool of group " + groupId + " from the legacy resource mapping. " +
+                            "It will be migrated to the resource node and Siddhi app holder tables.");
                 }
             }
             connection.commit();
@@ -223,7 +471,6 @@ public class RDBMSServiceImpl {
         return resourcePool;
     }
 
-
     /**
      * Get the connection to the database.
      */
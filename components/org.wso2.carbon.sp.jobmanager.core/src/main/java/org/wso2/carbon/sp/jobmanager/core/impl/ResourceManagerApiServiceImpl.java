@@ -26,6 +26,7 @@ import org.wso2.carbon.sp.jobmanager.core.api.ResourceManagerApiService;
 import org.wso2.carbon.sp.jobmanager.core.internal.ServiceDataHolder;
 import org.wso2.carbon.sp.jobmanager.core.model.HeartbeatResponse;
 import org.wso2.carbon.sp.jobmanager.core.model.InterfaceConfig;
+import org.wso2.carbon.sp.jobmanager.core.model.ManagerClusterView;
 import org.wso2.carbon.sp.jobmanager.core.model.ManagerNode;
 import org.wso2.carbon.sp.jobmanager.core.model.ManagerNodeConfig;
 import org.wso2.carbon.sp.jobmanager.core.model.NodeConfig;
@@ -37,6 +38,7 @@ import org.wso2.carbon.sp.jobmanager.core.util.TypeConverter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.ws.rs.core.Response;
 
 /**
@@ -45,6 +47,12 @@ import javax.ws.rs.core.Response;
 public class ResourceManagerApiServiceImpl extends ResourceManagerApiService {
     private static final Logger LOG = Logger.getLogger(ResourceManagerApiServiceImpl.class);
 
+    /**
+     * Version given to the next list of connected managers. Starts from the current time, so that the versions
+     * given by a new leader do not match the ones given by the previous leaders.
+     */
+    private static final AtomicLong MANAGERS_VERSION = new AtomicLong(System.currentTimeMillis());
+
     @Override
     public Response getDeployment() {
         // TODO: 10/31/17 To be implemented.
@@ -67,6 +75,8 @@ public class ResourceManagerApiServiceImpl extends ResourceManagerApiService {
                 ResourcePool existingResourcePool = ServiceDataHolder.getRdbmsService().getResourcePool(groupId);
                 ServiceDataHolder.setResourcePool((existingResourcePool != null) ? existingResourcePool
                         : new ResourcePool(groupId));
+                ServiceDataHolder.getResourcePool().setStateLock(ServiceDataHolder.getDeploymentManager()
+                        .getResourcePoolLock());
                 ServiceDataHolder.getResourcePool().init();
                 LOG.info(ServiceDataHolder.getCurrentNode() + " is the leader of the resource pool.");
             }
@@ -84,29 +94,10 @@ public class ResourceManagerApiServiceImpl extends ResourceManagerApiService {
                 LOG.debug("Leader node received heartbeat from " + nodeConfig.getId());
             }
             ResourcePool resourcePool = ServiceDataHolder.getResourcePool();
-            List<InterfaceConfig> connectedManagers = new ArrayList<>();
-            ClusterCoordinator clusterCoordinator = ServiceDataHolder.getCoordinator();
-            if (clusterCoordinator != null) {
-                for (NodeDetail nodeDetail : clusterCoordinator.getAllNodeDetails()) {
-                    if (nodeDetail.getPropertiesMap() != null) {
-                        Map<String, Object> propertiesMap = nodeDetail.getPropertiesMap();
-                        String httpsInterfaceHost = (String) propertiesMap.get(ResourceManagerConstants.KEY_NODE_HOST);
-                        int httpsInterfacePort = (int) propertiesMap.get(ResourceManagerConstants.KEY_NODE_PORT);
-                        String httpsInterfaceUsername = (String) propertiesMap.get(
-                                ResourceManagerConstants.KEY_NODE_USERNAME);
-                        String httpsInterfacePassword = (String) propertiesMap.get(
-                                ResourceManagerConstants.KEY_NODE_PASSWORD);
-                        InterfaceConfig interfaceConfig = new InterfaceConfig();
-                        interfaceConfig.setHost(httpsInterfaceHost);
-                        interfaceConfig.setPort(httpsInterfacePort);
-                        interfaceConfig.setUsername(httpsInterfaceUsername);
-                        interfaceConfig.setPassword(httpsInterfacePassword);
-                        connectedManagers.add(interfaceConfig);
-                    }
-                }
-            } else {
-                connectedManagers.add(TypeConverter.convert(ServiceDataHolder.getCurrentNode().getHttpsInterface()));
-            }
+            ManagerClusterView managerClusterView = getManagerClusterView();
+            // Resource nodes which already have the latest list of managers are not sent it again
+            List<InterfaceConfig> connectedManagers = (nodeConfig.getManagersVersion()
+                    == managerClusterView.getVersion()) ? null : managerClusterView.getConnectedManagers();
             ResourceNode existingResourceNode;
             if (isReceiverNode) {
                 existingResourceNode = resourcePool.getReceiverNodeMap().get(nodeConfig.getId());
@@ -117,6 +108,21 @@ public class ResourceManagerApiServiceImpl extends ResourceManagerApiService {
                     ? HeartbeatResponse.JoinedStateEnum.NEW
                     : HeartbeatResponse.JoinedStateEnum.EXISTS;
             ManagerNodeConfig leader = TypeConverter.convert(resourcePool.getLeaderNode());
+            if (nodeConfig.getHttpsInterface() == null && (existingResourceNode == null
+                    || existingResourceNode.getHttpsInterface() == null
+                    || existingResourceNode.getHttpsInterface().getPassword() == null)) {
+                // The resource node left out its interface configuration, which is not known by this leader yet or
+                // was restored from the database without its credentials
+                return Response
+                        .ok()
+                        .entity(new HeartbeatResponse()
+                                .connectedManagers(null)
+                                .joinedState(null)
+                                .configRequired(true)
+                                .leaderSessionId(resourcePool.getSessionId())
+                                .leader(leader))
+                        .build();
+            }
             if (existingResourceNode == null) {
                 ResourceNode resourceNode = new ResourceNode(nodeConfig.getId());
                 resourceNode.setState(HeartbeatResponse.JoinedStateEnum.EXISTS.toString());
@@ -131,9 +137,13 @@ public class ResourceManagerApiServiceImpl extends ResourceManagerApiService {
                     resourcePool.addResourceNode(resourceNode);
                 }
             } else {
-                InterfaceConfig existingIFace = TypeConverter.convert(existingResourceNode.getHttpsInterface());
                 InterfaceConfig currentIFace = nodeConfig.getHttpsInterface();
-                if (currentIFace.equals(existingIFace)) {
+                if (currentIFace == null
+                        || currentIFace.equals(TypeConverter.convert(existingResourceNode.getHttpsInterface()))) {
+                    if (currentIFace != null) {
+                        // Credentials are not persisted, so a restored resource node gets them from the heartbeat
+                        existingResourceNode.setHttpsInterface(TypeConverter.convert(currentIFace));
+                    }
                     if (nodeConfig.getWorkerMetrics() != null) {
                         existingResourceNode.updateResourceMetrics(nodeConfig.getWorkerMetrics());
                     }
@@ -164,7 +174,9 @@ public class ResourceManagerApiServiceImpl extends ResourceManagerApiService {
                     .ok()
                     .entity(new HeartbeatResponse()
                             .connectedManagers(connectedManagers)
+                            .managersVersion(managerClusterView.getVersion())
                             .joinedState(joinedState)
+                            .leaderSessionId(resourcePool.getSessionId())
                             .leader(leader))
                     .build();
         } else {
@@ -177,4 +189,43 @@ public class ResourceManagerApiServiceImpl extends ResourceManagerApiService {
                     .build();
         }
     }
+
+    /**
+     * Get the list of managers connected to the manager cluster. The list is only rebuilt once the members of the
+     * manager cluster change, instead of on every heartbeat.
+     *
+     * @return current view of the manager cluster.
+     */
+    private ManagerClusterView getManagerClusterView() {
+        ManagerClusterView managerClusterView = ServiceDataHolder.getManagerClusterView();
+        if (managerClusterView != null) {
+            return managerClusterView;
+        }
+        List<InterfaceConfig> connectedManagers = new ArrayList<>();
+        ClusterCoordinator clusterCoordinator = ServiceDataHolder.getCoordinator();
+        if (clusterCoordinator != null) {
+            for (NodeDetail nodeDetail : clusterCoordinator.getAllNodeDetails()) {
+                if (nodeDetail.getPropertiesMap() != null) {
+                    Map<String, Object> propertiesMap = nodeDetail.getPropertiesMap();
+                    String httpsInterfaceHost = (String) propertiesMap.get(ResourceManagerConstants.KEY_NODE_HOST);
+                    int httpsInterfacePort = (int) propertiesMap.get(ResourceManagerConstants.KEY_NODE_PORT);
+                    String httpsInterfaceUsername = (String) propertiesMap.get(
+                            ResourceManagerConstants.KEY_NODE_USERNAME);
+                    String httpsInterfacePassword = (String) propertiesMap.get(
+                            ResourceManagerConstants.KEY_NODE_PASSWORD);
+                    InterfaceConfig interfaceConfig = new InterfaceConfig();
+                    interfaceConfig.setHost(httpsInterfaceHost);
+                    interfaceConfig.setPort(httpsInterfacePort);
+                    interfaceConfig.setUsername(httpsInterfaceUsername);
+                    interfaceConfig.setPassword(httpsInterfacePassword);
+                    connectedManagers.add(interfaceConfig);
+                }
+            }
+        } else {
+            connectedManagers.add(TypeConverter.convert(ServiceDataHolder.getCurrentNode().getHttpsInterface()));
+        }
+        managerClusterView = new ManagerClusterView(connectedManagers, MANAGERS_VERSION.incrementAndGet());
+        ServiceDataHolder.setManagerClusterView(managerClusterView);
+        return managerClusterView;
+    }
 }
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.sp.jobmanager.core.impl;
+
+import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiTopology;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Caches the topologies planned for the latest versions and parallelisms of each distributed Siddhi app, so that
+ * distributing or rescaling the same app again does not parse it and re-create its topology. Topologies are looked
+ * up by a hash of the app, in which whitespace outside string literals is normalised, and of the parallelism of its
+ * execution groups. Only the topologies of the {@link #MAX_PLANS_PER_APP} most recently used keys of each app are
+ * kept.
+ * <p>
+ * The partial apps are not cached, as creating them also creates and validates the transport channels of the app.
+ * The cached topologies are shared by every deployment of the same key, hence they are never modified once planned.
+ */
+public class TopologyPlanCache {
+    static final int MAX_PLANS_PER_APP = 4;
+    /**
+     * Map of plan key -> Siddhi topology.
+     */
+    private final Map<String, SiddhiTopology> plans = new HashMap<>();
+    /**
+     * Map of parentSiddhiAppName -> plan keys of its topologies, the most recently used first.
+     */
+    private final Map<String, Deque<String>> planKeys = new HashMap<>();
+
+    /**
+     * Get the topology planned for the given key.
+     *
+     * @param planKey key created for the Siddhi app.
+     * @return Siddhi topology, or null if the Siddhi app was not planned with the given key.
+     */
+    public synchronized SiddhiTopology get(String planKey) {
+        SiddhiTopology topology = plans.get(planKey);
+        if (topology != null) {
+            Deque<String> appPlanKeys = planKeys.get(topology.getName());
+            appPlanKeys.remove(planKey);
+            appPlanKeys.addFirst(planKey);
+        }
+        return topology;
+    }
+
+    /**
+     * Cache the topology planned for the given key. The least recently used plan of the same Siddhi app is evicted
+     * if the app already has {@link #MAX_PLANS_PER_APP} plans.
+     *
+     * @param planKey  key created for the Siddhi app.
+     * @param topology topology planned for the Siddhi app.
+     */
+    public synchronized void put(String planKey, SiddhiTopology topology) {
+        Deque<String> appPlanKeys = planKeys.computeIfAbsent(topology.getName(), name -> new ArrayDeque<>());
+        appPlanKeys.remove(planKey);
+        appPlanKeys.addFirst(planKey);
+        plans.put(planKey, topology);
+        while (appPlanKeys.size() > MAX_PLANS_PER_APP) {
+            plans.remove(appPlanKeys.removeLast());
+        }
+    }
+
+    /**
+     * Remove the plans of a Siddhi app.
+     *
+     * @param parentSiddhiAppName name of the distributed Siddhi app.
+     */
+    public synchronized void remove(String parentSiddhiAppName) {
+        Deque<String> appPlanKeys = planKeys.remove(parentSiddhiAppName);
+        if (appPlanKeys != null) {
+            appPlanKeys.forEach(plans::remove);
+        }
+    }
+
+    /**
+     * Create the key of a Siddhi app, which is the same for apps differing only in whitespace outside string
+     * literals.
+     *
+     * @param userDefinedSiddhiApp Siddhi app given by the user.
+     * @param parallelism          map of execution group name -> parallelism set at runtime.
+     * @return SHA-256 hash of the normalised Siddhi app and the parallelism in hex.
+     */
+    public static String createKey(String userDefinedSiddhiApp, Map<String, Integer> parallelism) {
+        StringBuilder keySource = new StringBuilder(normalise(userDefinedSiddhiApp));
+        for (Map.Entry<String, Integer> entry : new TreeMap<>(parallelism).entrySet()) {
+            keySource.append('\n').append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(keySource.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Collapse each run of whitespace outside string literals into a single space, or a single line break if the run
+     * contains one, and drop the whitespace at the start and the end of the app.
+     */
+    static String normalise(String siddhiApp) {
+        StringBuilder normalised = new StringBuilder(siddhiApp.length());
+        char quote = 0;
+        boolean escaped = false;
+        char pendingWhitespace = 0;
+        for (int i = 0; i < siddhiApp.length(); i++) {
+            char c = siddhiApp.charAt(i);
+            if (quote != 0) {
+                normalised.append(c);
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                if (c == '\n' || c == '\r') {
+                    pendingWhitespace = '\n';
+                } else if (pendingWhitespace == 0) {
+                    pendingWhitespace = ' ';
+                }
+                continue;
+            }
+            if (pendingWhitespace != 0 && normalised.length() > 0) {
+                normalised.append(pendingWhitespace);
+            }
+            pendingWhitespace = 0;
+            if (c == '\'' || c == '"') {
+                quote = c;
+            }
+            normalised.append(c);
+        }
+        return normalised.toString();
+    }
+}
@@ -34,9 +34,13 @@ import org.wso2.carbon.config.ConfigurationException;
 import org.wso2.carbon.config.provider.ConfigProvider;
 import org.wso2.carbon.datasource.core.api.DataSourceService;
 import org.wso2.carbon.sp.jobmanager.core.CoordinatorChangeListener;
+import org.wso2.carbon.sp.jobmanager.core.SiddhiAppCreator;
 import org.wso2.carbon.sp.jobmanager.core.allocation.ResourceAllocationAlgorithm;
 import org.wso2.carbon.sp.jobmanager.core.api.ResourceManagerApi;
 import org.wso2.carbon.sp.jobmanager.core.appcreator.AbstractSiddhiAppCreator;
+import org.wso2.carbon.sp.jobmanager.core.appcreator.CoLocatedSiddhiAppCreator;
+import org.wso2.carbon.sp.jobmanager.core.autoscaling.AutoScaler;
+import org.wso2.carbon.sp.jobmanager.core.autoscaling.KafkaConsumerLagReader;
 import org.wso2.carbon.stream.processor.common.utils.config.ClusterConfig;
 import org.wso2.carbon.sp.jobmanager.core.bean.DeploymentConfig;
 import org.wso2.carbon.sp.jobmanager.core.deployment.DeploymentManagerImpl;
@@ -82,11 +86,25 @@ public class ServiceComponent {
                     new ResourceManagerApi(), null);
             String siddhiAppCreatorClassName = ServiceDataHolder.getDeploymentConfig().getAppCreatorClass();
             try {
-                AbstractSiddhiAppCreator siddhiAppCreator = (AbstractSiddhiAppCreator)
+                SiddhiAppCreator siddhiAppCreator = (AbstractSiddhiAppCreator)
                         Class.forName(siddhiAppCreatorClassName).newInstance();
+                DeploymentConfig deploymentConfig = ServiceDataHolder.getDeploymentConfig();
+                if (deploymentConfig.isCoLocationEnabled() && deploymentConfig.isInProcessTransportEnabled()) {
+                    siddhiAppCreator = new CoLocatedSiddhiAppCreator(siddhiAppCreator,
+                            deploymentConfig.getMaxPartialAppsPerNode());
+                }
+                ServiceDataHolder.setDistributionManagerService(new DistributionManagerServiceImpl(
+                        siddhiAppCreator, ServiceDataHolder.getDeploymentManager()));
                 distributionServiceRegistration = bundleContext.registerService(
-                        DistributionService.class.getName(), new DistributionManagerServiceImpl(siddhiAppCreator,
-                                ServiceDataHolder.getDeploymentManager()), null);
+                        DistributionService.class.getName(), ServiceDataHolder.getDistributionManagerService(),
+                        null);
+                if (deploymentConfig.getAutoScalingConfig() != null
+                        && deploymentConfig.getAutoScalingConfig().isEnabled()) {
+                    ServiceDataHolder.setAutoScaler(new AutoScaler(deploymentConfig.getAutoScalingConfig(),
+                            new KafkaConsumerLagReader(deploymentConfig.getBootstrapURLs()),
+                            ServiceDataHolder.getDistributionManagerService()));
+                    ServiceDataHolder.getAutoScaler().start();
+                }
                 if (log.isDebugEnabled()) {
                     log.debug(siddhiAppCreatorClassName + " chosen as Siddhi Distributed App Creator");
                 }
@@ -112,6 +130,16 @@ public class ServiceComponent {
         if (distributionServiceRegistration != null) {
             distributionServiceRegistration.unregister();
         }
+        if (ServiceDataHolder.getAutoScaler() != null) {
+            ServiceDataHolder.getAutoScaler().stop();
+        }
+        if (ServiceDataHolder.getDeploymentManager() != null) {
+            ServiceDataHolder.getDeploymentManager().shutdown();
+        }
+        if (ServiceDataHolder.getResourcePool() != null) {
+            // write resource pool changes which are still waiting to be coalesced
+            ServiceDataHolder.getResourcePool().flush();
+        }
     }
 
     /**
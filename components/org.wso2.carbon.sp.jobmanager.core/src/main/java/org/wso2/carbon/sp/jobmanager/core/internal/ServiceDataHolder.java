@@ -23,10 +23,13 @@ import org.wso2.carbon.analytics.permissions.PermissionProvider;
 import org.wso2.carbon.cluster.coordinator.service.ClusterCoordinator;
 import org.wso2.carbon.datasource.core.api.DataSourceService;
 import org.wso2.carbon.sp.jobmanager.core.allocation.ResourceAllocationAlgorithm;
+import org.wso2.carbon.sp.jobmanager.core.autoscaling.AutoScaler;
 import org.wso2.carbon.stream.processor.common.utils.config.ClusterConfig;
 import org.wso2.carbon.sp.jobmanager.core.bean.DeploymentConfig;
 import org.wso2.carbon.sp.jobmanager.core.deployment.DeploymentManagerImpl;
+import org.wso2.carbon.sp.jobmanager.core.impl.DistributionManagerServiceImpl;
 import org.wso2.carbon.sp.jobmanager.core.impl.RDBMSServiceImpl;
+import org.wso2.carbon.sp.jobmanager.core.model.ManagerClusterView;
 import org.wso2.carbon.sp.jobmanager.core.model.ManagerNode;
 import org.wso2.carbon.sp.jobmanager.core.model.ResourcePool;
 import org.wso2.carbon.stream.processor.core.util.DeploymentMode;
@@ -50,6 +53,9 @@ public class ServiceDataHolder {
     private static ClusterCoordinator coordinator;
     private static ResourcePool resourcePool;
     private static DeploymentManagerImpl deploymentManager;
+    private static DistributionManagerServiceImpl distributionManagerService;
+    private static AutoScaler autoScaler;
+    private static volatile ManagerClusterView managerClusterView;
     private static boolean leader;
     private static PermissionProvider permissionProvider;
     private static Map<String, String> userDefinedSiddhiApp;
@@ -148,6 +154,30 @@ public class ServiceDataHolder {
         ServiceDataHolder.deploymentManager = deploymentManager;
     }
 
+    public static DistributionManagerServiceImpl getDistributionManagerService() {
+        return distributionManagerService;
+    }
+
+    public static void setDistributionManagerService(DistributionManagerServiceImpl distributionManagerService) {
+        ServiceDataHolder.distributionManagerService = distributionManagerService;
+    }
+
+    public static AutoScaler getAutoScaler() {
+        return autoScaler;
+    }
+
+    public static void setAutoScaler(AutoScaler autoScaler) {
+        ServiceDataHolder.autoScaler = autoScaler;
+    }
+
+    public static ManagerClusterView getManagerClusterView() {
+        return managerClusterView;
+    }
+
+    public static void setManagerClusterView(ManagerClusterView managerClusterView) {
+        ServiceDataHolder.managerClusterView = managerClusterView;
+    }
+
     public static String getUserDefinedSiddhiApp(String siddhiAppName) {
         return ServiceDataHolder.userDefinedSiddhiApp.get(siddhiAppName);
     }
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.sp.jobmanager.core.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Snapshot of the manager nodes connected to the manager cluster, which is handed over to the resource nodes along
+ * with the heartbeat responses. The snapshot is versioned, so that it is only sent to the resource nodes which do not
+ * have the latest one.
+ */
+public class ManagerClusterView {
+    private final List<InterfaceConfig> connectedManagers;
+    private final long version;
+
+    public ManagerClusterView(List<InterfaceConfig> connectedManagers, long version) {
+        this.connectedManagers = Collections.unmodifiableList(connectedManagers);
+        this.version = version;
+    }
+
+    public List<InterfaceConfig> getConnectedManagers() {
+        return connectedManagers;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
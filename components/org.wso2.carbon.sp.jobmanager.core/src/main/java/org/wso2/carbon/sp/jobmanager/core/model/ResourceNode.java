@@ -121,6 +121,10 @@ public class ResourceNode implements Serializable {
         return loadAverage;
     }
 
+    public double getMemoryUsage() {
+        return memoryUsage;
+    }
+
 
     @Override
     public String toString() {
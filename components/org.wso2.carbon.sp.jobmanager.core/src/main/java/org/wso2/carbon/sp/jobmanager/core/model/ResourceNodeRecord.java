@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.sp.jobmanager.core.model;
+
+import org.wso2.carbon.sp.jobmanager.core.bean.InterfaceConfig;
+
+import java.util.Objects;
+
+/**
+ * Persisted row of a {@link ResourceNode}. Only the attributes which identify the node are kept, heartbeat driven
+ * attributes such as the last ping timestamp and the resource metrics are not persisted. The password of the HTTPS
+ * interface is not persisted either, a restored node gets it from the next heartbeat of the resource node.
+ */
+public class ResourceNodeRecord {
+    private final String nodeId;
+    private final boolean receiverNode;
+    private final String state;
+    private final String host;
+    private final int port;
+    private final String username;
+
+    public ResourceNodeRecord(String nodeId, boolean receiverNode, String state, String host, int port,
+                              String username) {
+        this.nodeId = nodeId;
+        this.receiverNode = receiverNode;
+        this.state = state;
+        this.host = host;
+        this.port = port;
+        this.username = username;
+    }
+
+    public ResourceNodeRecord(ResourceNode resourceNode) {
+        this.nodeId = resourceNode.getId();
+        this.receiverNode = resourceNode.isReceiverNode();
+        this.state = resourceNode.getState();
+        InterfaceConfig httpsInterface = resourceNode.getHttpsInterface();
+        if (httpsInterface != null) {
+            this.host = httpsInterface.getHost();
+            this.port = httpsInterface.getPort();
+            this.username = httpsInterface.getUsername();
+        } else {
+            this.host = null;
+            this.port = 0;
+            this.username = null;
+        }
+    }
+
+    public ResourceNode toResourceNode() {
+        ResourceNode resourceNode = new ResourceNode(nodeId);
+        resourceNode.setState(state);
+        resourceNode.setReceiverNode(receiverNode);
+        if (host != null) {
+            resourceNode.setHttpsInterface(new InterfaceConfig(host, port, username, null));
+        }
+        return resourceNode;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public boolean isReceiverNode() {
+        return receiverNode;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public String getHost() {
+        return host;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ResourceNodeRecord that = (ResourceNodeRecord) o;
+        return receiverNode == that.receiverNode && port == that.port && Objects.equals(nodeId, that.nodeId)
+                && Objects.equals(state, that.state) && Objects.equals(host, that.host)
+                && Objects.equals(username, that.username);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(nodeId, receiverNode, state, host, port);
+    }
+}
@@ -26,11 +26,17 @@ import org.wso2.carbon.sp.jobmanager.core.internal.ResourceNodeMonitor;
 import org.wso2.carbon.sp.jobmanager.core.internal.ServiceDataHolder;
 
 import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
 /**
@@ -52,6 +58,22 @@ public class ResourcePool implements Serializable {
      */
     private Map<String, List<SiddhiAppHolder>> appsWaitingForDeploy;
     private transient List<ResourcePoolChangeListener> poolChangeListeners;
+    /**
+     * Rows known to be in the database, null when unknown and the whole state has to be re-written.
+     */
+    private transient Map<String, ResourceNodeRecord> persistedNodes;
+    private transient Map<List<String>, SiddhiAppHolderRecord> persistedApps;
+    private transient AtomicBoolean persistScheduled;
+    private transient AtomicLong snapshotVersion;
+    private transient long writtenVersion;
+    /**
+     * Lock under which the partial apps of the pool are changed, null if they are not changed concurrently.
+     */
+    private transient Lock stateLock;
+    /**
+     * Id of the current leadership over this resource pool, which lets the resource nodes notice a restarted leader.
+     */
+    private transient String sessionId;
 
     public ResourcePool(String groupId) {
         this.groupId = groupId;
@@ -59,10 +81,20 @@ public class ResourcePool implements Serializable {
         this.receiverNodeMap = new ConcurrentHashMap<>();
         this.siddhiAppHoldersMap = new ConcurrentHashMap<>();
         this.appsWaitingForDeploy = new ConcurrentHashMap<>();
+        this.persistedNodes = Collections.emptyMap();
+        this.persistedApps = Collections.emptyMap();
+        this.persistScheduled = new AtomicBoolean(false);
+        this.snapshotVersion = new AtomicLong();
     }
 
     public void init() {
         this.poolChangeListeners = new CopyOnWriteArrayList<>();
+        this.sessionId = UUID.randomUUID().toString();
+        if (persistScheduled == null) {
+            // Transient state of a resource pool restored from the legacy resource mapping
+            this.persistScheduled = new AtomicBoolean(false);
+            this.snapshotVersion = new AtomicLong();
+        }
         DeploymentConfig deploymentConfig = ServiceDataHolder.getDeploymentConfig();
         setLeaderNode(ServiceDataHolder.getLeaderNode());
         registerResourcePoolChangeListener(ServiceDataHolder.getDeploymentManager());
@@ -77,10 +109,24 @@ public class ResourcePool implements Serializable {
 
     }
 
+    /**
+     * Set the lock under which the partial apps of the pool are changed, so that the state to be persisted is read
+     * while holding it.
+     *
+     * @param stateLock lock guarding the partial apps of the pool.
+     */
+    public void setStateLock(Lock stateLock) {
+        this.stateLock = stateLock;
+    }
+
     public String getGroupId() {
         return groupId;
     }
 
+    public String getSessionId() {
+        return sessionId;
+    }
+
     public ManagerNode getLeaderNode() {
         return leaderNode;
     }
@@ -143,8 +189,10 @@ public class ResourcePool implements Serializable {
             resourceNode = resourceNodeMap.get(nodeId);
         }
         if (resourceNode != null) {
-            List<SiddhiAppHolder> deployedApps = getNodeAppMapping().get(resourceNode);
-            if (deployedApps != null && !deployedApps.isEmpty()) {
+            // Only checks whether the node has any partial app, since this is done for every heartbeat
+            boolean hasDeployedApps = siddhiAppHoldersMap.values().stream().flatMap(List::stream)
+                    .anyMatch(siddhiAppHolder -> resourceNode.equals(siddhiAppHolder.getDeployedNode()));
+            if (hasDeployedApps) {
                 if (redeploy) {
                     ServiceDataHolder.getDeploymentManager().reDeployAppsInResourceNode(resourceNode);
                 }
@@ -174,14 +222,113 @@ public class ResourcePool implements Serializable {
         this.appsWaitingForDeploy = appsWaitingForDeploy;
     }
 
+    /**
+     * Schedule the resource pool state to be persisted. Changes made within the persist delay are coalesced and only
+     * the rows which changed since the last successful write are written to the database. Changes which are not
+     * written yet are lost if the leader fails within the delay, they are only written on a graceful shutdown. A delay
+     * of 0 writes the changes before returning.
+     */
     public void persist() {
+        long delay = ServiceDataHolder.getDeploymentConfig().getResourcePoolPersistDelay();
+        if (delay <= 0) {
+            flush();
+        } else {
+            schedulePersist(delay);
+        }
+    }
+
+    private void schedulePersist(long delay) {
+        if (persistScheduled.compareAndSet(false, true)) {
+            ServiceDataHolder.getExecutorService().schedule(this::flush, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write the pending changes of the resource pool state to the database.
+     */
+    public void flush() {
+        persistScheduled.set(false);
+        if (!ServiceDataHolder.isLeader() || ServiceDataHolder.getResourcePool() != this) {
+            // Only the leader owns the persisted state of the resource pool
+            return;
+        }
+        // Partial apps are changed by the deployment threads while holding the state lock, so the snapshot is taken
+        // under the same lock. It is written outside of it to not block deployments on the database.
+        Lock lock = stateLock;
+        Snapshot snapshot;
+        if (lock != null) {
+            lock.lock();
+            try {
+                snapshot = takeSnapshot();
+            } finally {
+                lock.unlock();
+            }
+        } else {
+            snapshot = takeSnapshot();
+        }
+        write(snapshot);
+    }
+
+    private Snapshot takeSnapshot() {
+        Map<String, ResourceNodeRecord> nodes = new HashMap<>();
+        resourceNodeMap.values().forEach(node -> nodes.put(node.getId(), new ResourceNodeRecord(node)));
+        receiverNodeMap.values().forEach(node -> nodes.put(node.getId(), new ResourceNodeRecord(node)));
+        Map<List<String>, SiddhiAppHolderRecord> apps = new HashMap<>();
+        collectAppRecords(siddhiAppHoldersMap, false, apps);
+        collectAppRecords(appsWaitingForDeploy, true, apps);
+        return new Snapshot(snapshotVersion.incrementAndGet(), nodes, apps);
+    }
+
+    private synchronized void write(Snapshot snapshot) {
+        if (snapshot.version <= writtenVersion) {
+            // A later snapshot is already written by a concurrent flush
+            return;
+        }
+        boolean replaceAll = persistedNodes == null || persistedApps == null;
+        List<ResourcePoolChange<ResourceNodeRecord>> nodeChanges = ResourcePoolChange.diff(
+                replaceAll ? Collections.emptyMap() : persistedNodes, snapshot.nodes);
+        List<ResourcePoolChange<SiddhiAppHolderRecord>> appChanges = ResourcePoolChange.diff(
+                replaceAll ? Collections.emptyMap() : persistedApps, snapshot.apps);
+        if (!replaceAll && nodeChanges.isEmpty() && appChanges.isEmpty()) {
+            writtenVersion = snapshot.version;
+            return;
+        }
         try {
-            ServiceDataHolder.getRdbmsService().persistResourcePool(ServiceDataHolder.getResourcePool());
+            ServiceDataHolder.getRdbmsService().persistResourcePoolChanges(groupId, nodeChanges, appChanges,
+                    replaceAll);
+            persistedNodes = snapshot.nodes;
+            persistedApps = snapshot.apps;
+            writtenVersion = snapshot.version;
         } catch (ResourceManagerException e) {
-            LOG.error("Could not persist resource pool state to the database.", e);
+            LOG.error("Could not persist resource pool state to the database. Retrying with the complete state.", e);
+            persistedNodes = null;
+            persistedApps = null;
+            schedulePersist(ServiceDataHolder.getDeploymentConfig().getHeartbeatInterval());
         }
     }
 
+    /**
+     * Set the rows which are already in the database, used when the resource pool is restored.
+     *
+     * @param nodes persisted resource node rows keyed by node id.
+     * @param apps  persisted partial Siddhi app rows keyed by {@link SiddhiAppHolderRecord#getKey()}.
+     */
+    public synchronized void setPersistedRecords(Map<String, ResourceNodeRecord> nodes,
+                                                 Map<List<String>, SiddhiAppHolderRecord> apps) {
+        this.persistedNodes = nodes;
+        this.persistedApps = apps;
+    }
+
+    private void collectAppRecords(Map<String, List<SiddhiAppHolder>> appHoldersMap, boolean waiting,
+                                   Map<List<String>, SiddhiAppHolderRecord> records) {
+        appHoldersMap.values().forEach(appHolders -> {
+            for (int i = 0; i < appHolders.size(); i++) {
+                SiddhiAppHolderRecord record = new SiddhiAppHolderRecord(appHolders.get(i), waiting, i);
+                records.put(record.getKey(), record);
+            }
+        });
+    }
+
     /**
      * This will return ResourceNode -> List of SiddhiAppHolders mapping
      * mapping using the siddhiAppHoldersMap.
@@ -194,4 +341,20 @@ public class ResourcePool implements Serializable {
                 .getDeployedNode() != null)
                 .collect(Collectors.groupingBy(SiddhiAppHolder::getDeployedNode));
     }
+
+    /**
+     * Rows of the resource pool state at a point in time.
+     */
+    private static class Snapshot {
+        private final long version;
+        private final Map<String, ResourceNodeRecord> nodes;
+        private final Map<List<String>, SiddhiAppHolderRecord> apps;
+
+        private Snapshot(long version, Map<String, ResourceNodeRecord> nodes,
+                         Map<List<String>, SiddhiAppHolderRecord> apps) {
+            this.version = version;
+            this.nodes = nodes;
+            this.apps = apps;
+        }
+    }
 }
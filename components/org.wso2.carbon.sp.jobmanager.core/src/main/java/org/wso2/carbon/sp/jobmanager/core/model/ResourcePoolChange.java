@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.sp.jobmanager.core.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Change record of the persisted resource pool state. Each change maps to a single row which has to be inserted,
+ * updated or deleted.
+ *
+ * @param <T> type of the persisted row.
+ */
+public class ResourcePoolChange<T> {
+    private final Operation operation;
+    private final T previous;
+    private final T record;
+
+    private ResourcePoolChange(Operation operation, T previous, T record) {
+        this.operation = operation;
+        this.previous = previous;
+        this.record = record;
+    }
+
+    /**
+     * Compute the changes needed to bring the persisted rows to the current rows.
+     *
+     * @param persisted rows which are already persisted, keyed by their primary key.
+     * @param current   rows representing the current state, keyed by their primary key.
+     * @param <K>       type of the primary key.
+     * @param <T>       type of the persisted row.
+     * @return list of changes, which is empty when both states are equal.
+     */
+    public static <K, T> List<ResourcePoolChange<T>> diff(Map<K, T> persisted, Map<K, T> current) {
+        List<ResourcePoolChange<T>> changes = new ArrayList<>();
+        for (Map.Entry<K, T> entry : persisted.entrySet()) {
+            if (!current.containsKey(entry.getKey())) {
+                changes.add(new ResourcePoolChange<>(Operation.DELETE, entry.getValue(), null));
+            }
+        }
+        for (Map.Entry<K, T> entry : current.entrySet()) {
+            T previous = persisted.get(entry.getKey());
+            if (previous == null) {
+                changes.add(new ResourcePoolChange<>(Operation.INSERT, null, entry.getValue()));
+            } else if (!previous.equals(entry.getValue())) {
+                changes.add(new ResourcePoolChange<>(Operation.UPDATE, previous, entry.getValue()));
+            }
+        }
+        return changes;
+    }
+
+    public Operation getOperation() {
+        return operation;
+    }
+
+    /**
+     * @return the persisted row, or null for {@link Operation#INSERT}.
+     */
+    public T getPrevious() {
+        return previous;
+    }
+
+    /**
+     * @return the row to be persisted, or null for {@link Operation#DELETE}.
+     */
+    public T getRecord() {
+        return record;
+    }
+
+    /**
+     * Row level operations.
+     */
+    public enum Operation {
+        INSERT, UPDATE, DELETE
+    }
+}
@@ -19,6 +19,9 @@
 package org.wso2.carbon.sp.jobmanager.core.model;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Represents a deployed child Siddhi app.
@@ -32,6 +35,8 @@ public class SiddhiAppHolder implements Serializable {
     private ResourceNode deployedNode;
     private boolean isReceiverQueryGroup;
     private int parallelism;
+    private String fallbackSiddhiApp;
+    private List<String> localPeers = new ArrayList<>();
 
     public SiddhiAppHolder(String parentAppName, String groupName, String appName, String siddhiApp,
                            ResourceNode deployedNode, Boolean isReceiverQueryGroup, int parallelism) {
@@ -96,6 +101,39 @@ public class SiddhiAppHolder implements Serializable {
         return parallelism;
     }
 
+    public String getFallbackSiddhiApp() {
+        return fallbackSiddhiApp;
+    }
+
+    public void setFallbackSiddhiApp(String fallbackSiddhiApp) {
+        this.fallbackSiddhiApp = fallbackSiddhiApp;
+    }
+
+    public List<String> getLocalPeers() {
+        // Holders restored from the legacy resource mapping do not have local peers
+        return localPeers != null ? localPeers : Collections.emptyList();
+    }
+
+    public void setLocalPeers(List<String> localPeers) {
+        this.localPeers = new ArrayList<>(localPeers);
+    }
+
+    /**
+     * Replace the Siddhi app with its broker based fallback, if the partial app publishes events in-process to
+     * co-located peers.
+     *
+     * @return true if the Siddhi app got replaced.
+     */
+    public boolean switchToFallbackApp() {
+        if (fallbackSiddhiApp == null) {
+            return false;
+        }
+        siddhiApp = fallbackSiddhiApp;
+        fallbackSiddhiApp = null;
+        localPeers = new ArrayList<>();
+        return true;
+    }
+
     @Override
     public String toString() {
         return String.format("SiddhiApp { parentName: %s, groupName: %s, appName: %s }",
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.sp.jobmanager.core.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Persisted row of a {@link SiddhiAppHolder}. The node the partial app is deployed in is referred by its id, and
+ * the position of the partial app within its parent app is kept so that the holder lists can be restored in order.
+ */
+public class SiddhiAppHolderRecord {
+    private final String parentAppName;
+    private final String appName;
+    private final String groupName;
+    private final String siddhiApp;
+    private final boolean receiverQueryGroup;
+    private final int parallelism;
+    private final String deployedNodeId;
+    private final boolean waiting;
+    private final int appIndex;
+    private final String fallbackSiddhiApp;
+    private final String localPeers;
+
+    public SiddhiAppHolderRecord(String parentAppName, String appName, String groupName, String siddhiApp,
+                                 boolean receiverQueryGroup, int parallelism, String deployedNodeId,
+                                 boolean waiting, int appIndex, String fallbackSiddhiApp, String localPeers) {
+        this.parentAppName = parentAppName;
+        this.appName = appName;
+        this.groupName = groupName;
+        this.siddhiApp = siddhiApp;
+        this.receiverQueryGroup = receiverQueryGroup;
+        this.parallelism = parallelism;
+        this.deployedNodeId = deployedNodeId;
+        this.waiting = waiting;
+        this.appIndex = appIndex;
+        this.fallbackSiddhiApp = fallbackSiddhiApp;
+        this.localPeers = localPeers;
+    }
+
+    public SiddhiAppHolderRecord(SiddhiAppHolder siddhiAppHolder, boolean waiting, int appIndex) {
+        this(siddhiAppHolder.getParentAppName(), siddhiAppHolder.getAppName(), siddhiAppHolder.getGroupName(),
+                siddhiAppHolder.getSiddhiApp(), siddhiAppHolder.isReceiverQueryGroup(),
+                siddhiAppHolder.getParallelism(), siddhiAppHolder.getDeployedNode() != null
+                        ? siddhiAppHolder.getDeployedNode().getId() : null, waiting, appIndex,
+                siddhiAppHolder.getFallbackSiddhiApp(), siddhiAppHolder.getLocalPeers().isEmpty()
+                        ? null : String.join(",", siddhiAppHolder.getLocalPeers()));
+    }
+
+    public SiddhiAppHolder toSiddhiAppHolder(ResourceNode deployedNode) {
+        SiddhiAppHolder siddhiAppHolder = new SiddhiAppHolder(parentAppName, groupName, appName, siddhiApp,
+                deployedNode, receiverQueryGroup, parallelism);
+        siddhiAppHolder.setFallbackSiddhiApp(fallbackSiddhiApp);
+        siddhiAppHolder.setLocalPeers(localPeers == null
+                ? Collections.emptyList() : Arrays.asList(localPeers.split(",")));
+        return siddhiAppHolder;
+    }
+
+    /**
+     * Key which identifies the row of this partial app.
+     *
+     * @return parent app name and partial app name.
+     */
+    public List<String> getKey() {
+        return Arrays.asList(parentAppName, appName);
+    }
+
+    /**
+     * Check whether the given record holds the same partial Siddhi app, disregarding where it is placed.
+     *
+     * @param that record to compare with.
+     * @return true if only the placement of the partial app differs.
+     */
+    public boolean hasSameDefinition(SiddhiAppHolderRecord that) {
+        return receiverQueryGroup == that.receiverQueryGroup && parallelism == that.parallelism
+                && Objects.equals(parentAppName, that.parentAppName) && Objects.equals(appName, that.appName)
+                && Objects.equals(groupName, that.groupName) && Objects.equals(siddhiApp, that.siddhiApp)
+                && Objects.equals(fallbackSiddhiApp, that.fallbackSiddhiApp)
+                && Objects.equals(localPeers, that.localPeers);
+    }
+
+    public String getParentAppName() {
+        return parentAppName;
+    }
+
+    public String getAppName() {
+        return appName;
+    }
+
+    public String getGroupName() {
+        return groupName;
+    }
+
+    public String getSiddhiApp() {
+        return siddhiApp;
+    }
+
+    public boolean isReceiverQueryGroup() {
+        return receiverQueryGroup;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public String getDeployedNodeId() {
+        return deployedNodeId;
+    }
+
+    public boolean isWaiting() {
+        return waiting;
+    }
+
+    public int getAppIndex() {
+        return appIndex;
+    }
+
+    public String getFallbackSiddhiApp() {
+        return fallbackSiddhiApp;
+    }
+
+    /**
+     * Local peers of the partial app.
+     *
+     * @return comma separated names of the local peers, or null if there are none.
+     */
+    public String getLocalPeers() {
+        return localPeers;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SiddhiAppHolderRecord that = (SiddhiAppHolderRecord) o;
+        return waiting == that.waiting && appIndex == that.appIndex
+                && Objects.equals(deployedNodeId, that.deployedNodeId) && hasSameDefinition(that);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(parentAppName, appName, deployedNodeId, waiting, appIndex);
+    }
+}
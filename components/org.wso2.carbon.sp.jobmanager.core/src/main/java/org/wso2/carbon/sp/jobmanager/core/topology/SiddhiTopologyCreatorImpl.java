@@ -49,8 +49,10 @@ import org.wso2.siddhi.query.api.util.AnnotationHelper;
 import org.wso2.siddhi.query.api.util.ExceptionUtil;
 import org.wso2.siddhi.query.compiler.SiddhiCompiler;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -58,7 +60,6 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
 
@@ -74,10 +75,17 @@ public class SiddhiTopologyCreatorImpl implements SiddhiTopologyCreator {
     //holds the mapping between in-memory aggregation id and set of elements which joins with the aggregations
     private Map<String, Set<ExecutionElement>> inMemoryAggregationJoins = new HashMap<>();
     private String userDefinedSiddhiApp;
+    private Map<String, Integer> parallelismOverrides;
 
     @Override
     public SiddhiTopology createTopology(String userDefinedSiddhiApp) {
+        return createTopology(userDefinedSiddhiApp, Collections.emptyMap());
+    }
+
+    @Override
+    public SiddhiTopology createTopology(String userDefinedSiddhiApp, Map<String, Integer> parallelism) {
         this.userDefinedSiddhiApp = userDefinedSiddhiApp;
+        this.parallelismOverrides = parallelism;
         this.siddhiApp = SiddhiCompiler.parse(userDefinedSiddhiApp);
         this.siddhiAppRuntime = (new SiddhiManager()).createSiddhiAppRuntime(userDefinedSiddhiApp);
         SiddhiQueryGroup siddhiQueryGroup;
@@ -85,16 +93,19 @@ public class SiddhiTopologyCreatorImpl implements SiddhiTopologyCreator {
         int parallel;
         String siddhiAppName = getSiddhiAppName();
         this.siddhiTopologyDataHolder = new SiddhiTopologyDataHolder(siddhiAppName, userDefinedSiddhiApp);
-        String defaultExecGroupName = siddhiAppName + "-" + UUID.randomUUID();
+        // Generated group names only depend on the app name and the stream or aggregation of the group, so that
+        // re-creating the topology of a changed app only changes the partial apps of the groups which changed
+        String defaultExecGroupName = siddhiAppName + "-"
+                + UUID.nameUUIDFromBytes(siddhiAppName.getBytes(StandardCharsets.UTF_8));
         boolean transportChannelCreationEnabled = isTransportChannelCreationEnabled(siddhiApp.getAnnotations());
         Set<String> inMemoryAggregationIds = getInmemoryAggregationIds();
         for (ExecutionElement executionElement : siddhiApp.getExecutionElementList()) {
-            parallel = getExecGroupParallel(executionElement);
             if (inMemoryAggregationIds.size() > 0 && isJoinWithInMemoryAggregation(executionElement,
                     inMemoryAggregationIds)) {
                 continue;
             }
             execGroupName = getExecGroupName(executionElement, siddhiAppName, defaultExecGroupName);
+            parallel = getExecGroupParallel(executionElement, execGroupName);
             siddhiQueryGroup = createSiddhiQueryGroup(execGroupName, parallel);
             addExecutionElement(executionElement, siddhiQueryGroup, execGroupName);
         }
@@ -199,10 +210,13 @@ public class SiddhiTopologyCreatorImpl implements SiddhiTopologyCreator {
     }
 
     /**
-     * Get parallel value of the execGroup if given by the user unless default parallel.
+     * Get parallel value of the execGroup if overridden or given by the user unless default parallel.
      * {@link SiddhiTopologyCreatorConstants#DEFAULT_PARALLEL} value is returned
      */
-    private int getExecGroupParallel(ExecutionElement executionElement) {
+    private int getExecGroupParallel(ExecutionElement executionElement, String execGroupName) {
+        if (parallelismOverrides.containsKey(execGroupName)) {
+            return parallelismOverrides.get(execGroupName);
+        }
         Element element = AnnotationHelper.getAnnotationElement(SiddhiTopologyCreatorConstants.DISTRIBUTED_IDENTIFIER,
                 SiddhiTopologyCreatorConstants.PARALLEL_IDENTIFIER, executionElement.getAnnotations());
         if (element == null) {
@@ -672,7 +686,7 @@ public class SiddhiTopologyCreatorImpl implements SiddhiTopologyCreator {
     private SiddhiQueryGroup createPassthroughQueryGroup(InputStreamDataHolder inputStreamDataHolder,
                                                          String runtimeDefinition, int parallelism) {
         String passthroughExecGroupName = siddhiTopologyDataHolder.getSiddhiAppName() + "-" +
-                SiddhiTopologyCreatorConstants.PASSTHROUGH + "-" + new Random().nextInt(99999);
+                SiddhiTopologyCreatorConstants.PASSTHROUGH + "-" + inputStreamDataHolder.getStreamName();
         SiddhiQueryGroup siddhiQueryGroup = new SiddhiQueryGroup(passthroughExecGroupName,
                 parallelism);
         String streamId = inputStreamDataHolder.getStreamName();
@@ -905,7 +919,7 @@ public class SiddhiTopologyCreatorImpl implements SiddhiTopologyCreator {
     private SiddhiQueryGroup createAggregationQueryGroup(String aggregationId, Map<String, Set<String>>
             filteredInMemoryAggregationMap) {
         String aggregationExecutionGroupName = siddhiTopologyDataHolder.getSiddhiAppName() + "_" +
-                SiddhiTopologyCreatorConstants.AGGREGATION + "-" + new Random().nextInt(99999);
+                SiddhiTopologyCreatorConstants.AGGREGATION + "-" + aggregationId;
         SiddhiQueryGroup siddhiQueryGroup = new SiddhiQueryGroup(aggregationExecutionGroupName,
                 SiddhiTopologyCreatorConstants.DEFAULT_PARALLEL);
 
@@ -138,6 +138,12 @@ public class ResourceManagerConstants {
             + "destination = '${" + TOPIC_LIST +  "}', bootstrap.servers="
             + "'${" + NATS_SERVER_URL + "}',@map(type='" + MAPPING + "'))";
 
+    public static final String IN_MEMORY_SINK_TEMPLATE = "@sink(type='inMemory', topic='${" + TOPIC_LIST
+            + "}', @map(type='passThrough'))";
+
+    public static final String IN_MEMORY_SOURCE_TEMPLATE = "@source(type='inMemory', topic='${" + TOPIC_LIST
+            + "}', @map(type='passThrough'))";
+
     public static final String DESTINATION = "@destination(partition.no = '${" + PARTITION_NO
             + "}')";
 
@@ -172,6 +178,38 @@ public class ResourceManagerConstants {
 
     public static final String PS_SELECT_RESOURCE_MAPPING_ROW = "ps_select_resource_mapping_row";
 
+    public static final String TASK_PERSIST_RESOURCE_POOL_CHANGES = "Persisting resource pool changes of group";
+
+    public static final String CHECK_FOR_RESOURCE_NODE_TABLE = "check_for_resource_node_table";
+
+    public static final String CREATE_RESOURCE_NODE_TABLE = "create_resource_node_table";
+
+    public static final String PS_INSERT_RESOURCE_NODE_ROW = "ps_insert_resource_node_row";
+
+    public static final String PS_UPDATE_RESOURCE_NODE_ROW = "ps_update_resource_node_row";
+
+    public static final String PS_DELETE_RESOURCE_NODE_ROW = "ps_delete_resource_node_row";
+
+    public static final String PS_DELETE_RESOURCE_NODE_ROWS = "ps_delete_resource_node_rows";
+
+    public static final String PS_SELECT_RESOURCE_NODE_ROWS = "ps_select_resource_node_rows";
+
+    public static final String CHECK_FOR_SIDDHI_APP_HOLDER_TABLE = "check_for_siddhi_app_holder_table";
+
+    public static final String CREATE_SIDDHI_APP_HOLDER_TABLE = "create_siddhi_app_holder_table";
+
+    public static final String PS_INSERT_SIDDHI_APP_HOLDER_ROW = "ps_insert_siddhi_app_holder_row";
+
+    public static final String PS_UPDATE_SIDDHI_APP_HOLDER_ROW = "ps_update_siddhi_app_holder_row";
+
+    public static final String PS_UPDATE_SIDDHI_APP_PLACEMENT_ROW = "ps_update_siddhi_app_placement_row";
+
+    public static final String PS_DELETE_SIDDHI_APP_HOLDER_ROW = "ps_delete_siddhi_app_holder_row";
+
+    public static final String PS_DELETE_SIDDHI_APP_HOLDER_ROWS = "ps_delete_siddhi_app_holder_rows";
+
+    public static final String PS_SELECT_SIDDHI_APP_HOLDER_ROWS = "ps_select_siddhi_app_holder_rows";
+
     public static final String QUERY_YAML_FILE_NAME = "queries.yaml";
 
 }
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wso2.carbon.sp.jobmanager.core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.sp.jobmanager.core.autoscaling.AutoScaler;
+import org.wso2.carbon.sp.jobmanager.core.autoscaling.ScalingRecommendation;
+import org.wso2.carbon.sp.jobmanager.core.bean.AutoScalingConfig;
+import org.wso2.carbon.sp.jobmanager.core.model.ResourceNode;
+import org.wso2.carbon.sp.jobmanager.core.model.SiddhiAppHolder;
+import org.wso2.carbon.sp.jobmanager.core.model.WorkerMetrics;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class AutoScalerTestCase {
+
+    private AutoScaler createAutoScaler() {
+        AutoScalingConfig config = new AutoScalingConfig();
+        config.setLagThreshold(1000);
+        config.setScaleUpEvaluations(3);
+        config.setScaleDownEvaluations(2);
+        config.setMaxParallelism(3);
+        config.setCooldownPeriod(10000);
+        return new AutoScaler(config, partialApps -> -1, null);
+    }
+
+    @Test
+    public void testScaleUpOnGrowingLag() {
+        AutoScaler autoScaler = createAutoScaler();
+        Assert.assertNull(autoScaler.evaluateGroup("app", "app-group1", 1, false, 2000, 0));
+        Assert.assertNull(autoScaler.evaluateGroup("app", "app-group1", 1, false, 3000, 1000));
+        ScalingRecommendation recommendation = autoScaler.evaluateGroup("app", "app-group1", 1, false, 4000,
+                2000);
+        Assert.assertNotNull(recommendation);
+        Assert.assertEquals(recommendation.getType(), ScalingRecommendation.Type.SCALE_UP);
+        Assert.assertEquals(recommendation.getRecommendedParallelism(), 2);
+
+        // lag which is being caught up with does not need more instances
+        Assert.assertNull(autoScaler.evaluateGroup("app", "app-group2", 1, false, 5000, 0));
+        Assert.assertNull(autoScaler.evaluateGroup("app", "app-group2", 1, false, 6000, 1000));
+        Assert.assertNull(autoScaler.evaluateGroup("app", "app-group2", 1, false, 4000, 2000));
+        Assert.assertNull(autoScaler.evaluateGroup("app", "app-group2", 1, false, 4500, 3000));
+    }
+
+    @Test
+    public void testCooldownAndScaleDown() {
+        AutoScaler autoScaler = createAutoScaler();
+        for (int i = 0; i < 2; i++) {
+            autoScaler.evaluateGroup("app", "app-group1", 2, false, 2000 + i, i * 1000);
+        }
+        Assert.assertNotNull(autoScaler.evaluateGroup("app", "app-group1", 2, false, 2500, 2000));
+
+        // still growing, but within the cooldown period
+        for (int i = 0; i < 3; i++) {
+            Assert.assertNull(autoScaler.evaluateGroup("app", "app-group1", 3, true, 3000 + i, 3000 + i * 1000));
+        }
+        // idle after the cooldown period, scaled back down only up to the parallelism given by the user
+        Assert.assertNull(autoScaler.evaluateGroup("app", "app-group1", 3, true, 0, 13000));
+        ScalingRecommendation recommendation = autoScaler.evaluateGroup("app", "app-group1", 3, true, 0, 14000);
+        Assert.assertNotNull(recommendation);
+        Assert.assertEquals(recommendation.getType(), ScalingRecommendation.Type.SCALE_DOWN);
+        Assert.assertEquals(recommendation.getRecommendedParallelism(), 2);
+        for (int i = 0; i < 3; i++) {
+            Assert.assertNull(autoScaler.evaluateGroup("app", "app-group1", 2, false, 0, 30000 + i * 1000));
+        }
+    }
+
+    @Test
+    public void testMoveFromOverloadedNode() {
+        ResourceNode busyNode = createNode("node-1", 0.95);
+        ResourceNode idleNode = createNode("node-2", 0.1);
+        Map<String, ResourceNode> nodeMap = new LinkedHashMap<>();
+        nodeMap.put(busyNode.getId(), busyNode);
+        nodeMap.put(idleNode.getId(), idleNode);
+        SiddhiAppHolder app1 = new SiddhiAppHolder("app", "app-group1", "app-group1-1", "", busyNode, false, 1);
+        SiddhiAppHolder app2 = new SiddhiAppHolder("app", "app-group2", "app-group2-1", "", busyNode, false, 1);
+        Map<ResourceNode, List<SiddhiAppHolder>> nodeAppMapping = new HashMap<>();
+        nodeAppMapping.put(busyNode, Arrays.asList(app1, app2));
+        Map<String, Long> lags = new HashMap<>();
+        lags.put("app-group1", 10L);
+        lags.put("app-group2", 5000L);
+
+        AutoScaler autoScaler = createAutoScaler();
+        List<ScalingRecommendation> moves = autoScaler.recommendMoves(nodeMap, nodeAppMapping, lags);
+        Assert.assertEquals(moves.size(), 1);
+        Assert.assertEquals(moves.get(0).getType(), ScalingRecommendation.Type.MOVE);
+        Assert.assertEquals(moves.get(0).getAppName(), "app-group2-1");
+        Assert.assertEquals(moves.get(0).getSourceNodeId(), "node-1");
+        Assert.assertEquals(moves.get(0).getTargetNodeId(), "node-2");
+
+        // a node running a single partial app cannot be relieved by moving it
+        nodeAppMapping.put(busyNode, Collections.singletonList(app1));
+        Assert.assertTrue(autoScaler.recommendMoves(nodeMap, nodeAppMapping, lags).isEmpty());
+    }
+
+    @Test
+    public void testMovesSpreadOverNodes() {
+        Map<String, ResourceNode> nodeMap = new LinkedHashMap<>();
+        Map<ResourceNode, List<SiddhiAppHolder>> nodeAppMapping = new HashMap<>();
+        for (int i = 1; i <= 2; i++) {
+            ResourceNode busyNode = createNode("node-" + i, 0.96 - i * 0.01);
+            nodeMap.put(busyNode.getId(), busyNode);
+            nodeAppMapping.put(busyNode, Arrays.asList(
+                    new SiddhiAppHolder("app" + i, "app" + i + "-group1", "app" + i + "-group1-1", "", busyNode,
+                            false, 1),
+                    new SiddhiAppHolder("app" + i, "app" + i + "-group2", "app" + i + "-group2-1", "", busyNode,
+                            false, 1)));
+        }
+        nodeMap.put("node-3", createNode("node-3", 0.1));
+        nodeMap.put("node-4", createNode("node-4", 0.2));
+
+        AutoScaler autoScaler = createAutoScaler();
+        List<ScalingRecommendation> moves = autoScaler.recommendMoves(nodeMap, nodeAppMapping,
+                Collections.emptyMap());
+        Assert.assertEquals(moves.size(), 2);
+        Assert.assertEquals(moves.get(0).getSourceNodeId(), "node-1");
+        Assert.assertEquals(moves.get(0).getTargetNodeId(), "node-3");
+        Assert.assertEquals(moves.get(1).getSourceNodeId(), "node-2");
+        Assert.assertEquals(moves.get(1).getTargetNodeId(), "node-4");
+
+        // the idle node has room for a single partial app
+        nodeMap.remove("node-4");
+        moves = autoScaler.recommendMoves(nodeMap, nodeAppMapping, Collections.emptyMap());
+        Assert.assertEquals(moves.size(), 1);
+        Assert.assertEquals(moves.get(0).getSourceNodeId(), "node-1");
+        Assert.assertEquals(moves.get(0).getTargetNodeId(), "node-3");
+    }
+
+    @Test
+    public void testMovesHeldBackWithinCooldown() {
+        Map<String, ResourceNode> nodeMap = new LinkedHashMap<>();
+        for (int i = 1; i <= 4; i++) {
+            nodeMap.put("node-" + i, createNode("node-" + i, i <= 2 ? 0.95 : 0.1));
+        }
+        ScalingRecommendation move1 = ScalingRecommendation.move("app", "app-group1", "app-group1-1", "node-1",
+                "node-3", "");
+        ScalingRecommendation move2 = ScalingRecommendation.move("app", "app-group2", "app-group2-1", "node-2",
+                "node-4", "");
+        AutoScaler autoScaler = createAutoScaler();
+        // a single move per evaluation by default
+        Assert.assertEquals(autoScaler.selectMoves(Arrays.asList(move1, move2), nodeMap, 0),
+                Collections.singletonList(move1));
+        // neither the moved partial app nor the nodes it was moved between are touched within the cooldown period
+        ScalingRecommendation moveBack = ScalingRecommendation.move("app", "app-group1", "app-group1-1", "node-3",
+                "node-4", "");
+        ScalingRecommendation moveToSameNode = ScalingRecommendation.move("app", "app-group3", "app-group3-1",
+                "node-2", "node-3", "");
+        Assert.assertTrue(autoScaler.selectMoves(Arrays.asList(moveBack, moveToSameNode), nodeMap, 5000).isEmpty());
+        Assert.assertEquals(autoScaler.selectMoves(Collections.singletonList(move2), nodeMap, 5000),
+                Collections.singletonList(move2));
+        Assert.assertEquals(autoScaler.selectMoves(Collections.singletonList(moveToSameNode), nodeMap, 15000),
+                Collections.singletonList(moveToSameNode));
+
+        // target nodes which got loaded meanwhile, or left, are not moved to
+        nodeMap.put("node-3", createNode("node-3", 0.6));
+        nodeMap.remove("node-4");
+        ScalingRecommendation move3 = ScalingRecommendation.move("app", "app-group4", "app-group4-1", "node-1",
+                "node-3", "");
+        ScalingRecommendation move4 = ScalingRecommendation.move("app", "app-group4", "app-group4-1", "node-1",
+                "node-4", "");
+        Assert.assertTrue(autoScaler.selectMoves(Arrays.asList(move3, move4), nodeMap, 30000).isEmpty());
+    }
+
+    private ResourceNode createNode(String id, double systemCPU) {
+        ResourceNode resourceNode = new ResourceNode(id);
+        resourceNode.updateResourceMetrics(new WorkerMetrics().setSystemCPU(systemCPU).setProcessCPU(systemCPU)
+                .setLoadAverage(1).setTotalMemory(0.5));
+        return resourceNode;
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.sp.jobmanager.core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.sp.jobmanager.core.appcreator.AbstractSiddhiAppCreator;
+import org.wso2.carbon.sp.jobmanager.core.appcreator.CoLocatedSiddhiAppCreator;
+import org.wso2.carbon.sp.jobmanager.core.appcreator.DeployableSiddhiQueryGroup;
+import org.wso2.carbon.sp.jobmanager.core.appcreator.SiddhiQuery;
+import org.wso2.carbon.sp.jobmanager.core.topology.InputStreamDataHolder;
+import org.wso2.carbon.sp.jobmanager.core.topology.OutputStreamDataHolder;
+import org.wso2.carbon.sp.jobmanager.core.topology.PublishingStrategyDataHolder;
+import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiQueryGroup;
+import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiTopology;
+import org.wso2.carbon.sp.jobmanager.core.topology.SubscriptionStrategyDataHolder;
+import org.wso2.carbon.sp.jobmanager.core.util.EventHolder;
+import org.wso2.carbon.sp.jobmanager.core.util.TransportStrategy;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class CoLocatedSiddhiAppCreatorTestCase {
+
+    @Test
+    public void testInProcessStreams() {
+        List<DeployableSiddhiQueryGroup> queryGroups = new CoLocatedSiddhiAppCreator(new BrokerSiddhiAppCreator(), 0)
+                .createApps(createTopology());
+        Assert.assertEquals(queryGroups.size(), 3);
+
+        // Round robin stream between query groups of the same parallelism is passed in-process
+        SiddhiQuery producer = queryGroups.get(0).getSiddhiQueries().get(1);
+        Assert.assertTrue(producer.getApp().contains(
+                "@sink(type='inMemory', topic='app_FilteredStream_group2-2', @map(type='passThrough'))"));
+        Assert.assertFalse(producer.getApp().contains("@sink(type='broker')"));
+        Assert.assertTrue(producer.getFallbackApp().contains("@sink(type='broker')"));
+        Assert.assertEquals(producer.getLocalPeers(), Collections.singletonList("group2-2"));
+
+        // Consumers keep the broker source for producers which fall back
+        SiddhiQuery consumer = queryGroups.get(1).getSiddhiQueries().get(1);
+        Assert.assertTrue(consumer.getApp().contains(
+                "@source(type='inMemory', topic='app_FilteredStream_group2-2', @map(type='passThrough'))"));
+        Assert.assertTrue(consumer.getApp().contains("@source(type='broker')"));
+
+        // Field grouped stream to a query group of a different parallelism is published through the broker
+        Assert.assertTrue(consumer.getApp().contains("@sink(type='broker')"));
+        Assert.assertNull(consumer.getFallbackApp());
+        Assert.assertFalse(queryGroups.get(2).getSiddhiQueries().get(0).getApp().contains("inMemory"));
+    }
+
+    @Test
+    public void testTransportChannelsCreatedOnce() {
+        BrokerSiddhiAppCreator brokerSiddhiAppCreator = new BrokerSiddhiAppCreator();
+        new CoLocatedSiddhiAppCreator(brokerSiddhiAppCreator, 0).createApps(createTopology());
+        Assert.assertEquals(brokerSiddhiAppCreator.channelCreationCount, 1);
+        Assert.assertEquals(brokerSiddhiAppCreator.appCreationCount, 2);
+    }
+
+    @Test
+    public void testWithoutCoLocation() {
+        List<DeployableSiddhiQueryGroup> brokerQueryGroups = new BrokerSiddhiAppCreator().createApps(
+                createTopology());
+        List<DeployableSiddhiQueryGroup> queryGroups = new CoLocatedSiddhiAppCreator(new BrokerSiddhiAppCreator(), 1)
+                .createApps(createTopology());
+        Assert.assertEquals(queryGroups, brokerQueryGroups);
+    }
+
+    private SiddhiTopology createTopology() {
+        SiddhiQueryGroup group1 = new SiddhiQueryGroup("group1", 2);
+        addOutputStream(group1, "FilteredStream", new PublishingStrategyDataHolder(TransportStrategy.ROUND_ROBIN, 2));
+        group1.addQuery("from InputStream select * insert into FilteredStream");
+        SiddhiQueryGroup group2 = new SiddhiQueryGroup("group2", 2);
+        addInputStream(group2, "FilteredStream", TransportStrategy.ROUND_ROBIN);
+        addOutputStream(group2, "AggregatedStream",
+                new PublishingStrategyDataHolder(TransportStrategy.FIELD_GROUPING, "symbol", 1));
+        group2.addQuery("from FilteredStream select * insert into AggregatedStream");
+        SiddhiQueryGroup group3 = new SiddhiQueryGroup("group3", 1);
+        addInputStream(group3, "AggregatedStream", TransportStrategy.FIELD_GROUPING);
+        group3.addQuery("from AggregatedStream select * insert into OutputStream");
+        return new SiddhiTopology("app", Arrays.asList(group1, group2, group3), true);
+    }
+
+    private void addInputStream(SiddhiQueryGroup queryGroup, String streamName, TransportStrategy strategy) {
+        Map<String, InputStreamDataHolder> inputStreams = new HashMap<>();
+        inputStreams.put(streamName, new InputStreamDataHolder(streamName, "${" + streamName + "} define stream "
+                + streamName + " (symbol string)", EventHolder.STREAM, false,
+                new SubscriptionStrategyDataHolder(queryGroup.getParallelism(), strategy, "symbol")));
+        queryGroup.addInputStreams(inputStreams);
+    }
+
+    private void addOutputStream(SiddhiQueryGroup queryGroup, String streamName,
+                                 PublishingStrategyDataHolder publishingStrategy) {
+        OutputStreamDataHolder outputStream = new OutputStreamDataHolder(streamName, "${" + streamName + "} "
+                + "define stream " + streamName + " (symbol string)", EventHolder.STREAM, false);
+        outputStream.addPublishingStrategy(publishingStrategy);
+        queryGroup.addOutputStream(streamName, outputStream);
+    }
+
+    /**
+     * Creates Siddhi apps with placeholder broker sinks and sources.
+     */
+    private static class BrokerSiddhiAppCreator extends AbstractSiddhiAppCreator {
+        private int channelCreationCount = 0;
+        private int appCreationCount = 0;
+
+        @Override
+        public List<DeployableSiddhiQueryGroup> createApps(SiddhiTopology topology) {
+            channelCreationCount++;
+            return createAppsOnExistingChannels(topology);
+        }
+
+        @Override
+        public List<DeployableSiddhiQueryGroup> createAppsOnExistingChannels(SiddhiTopology topology) {
+            appCreationCount++;
+            return super.createApps(topology);
+        }
+
+        @Override
+        protected List<SiddhiQuery> createApps(String siddhiAppName, SiddhiQueryGroup queryGroup) {
+            List<SiddhiQuery> queryList = generateQueryList(queryGroup.getSiddhiApp(), queryGroup.getName(),
+                    queryGroup.getParallelism());
+            Map<String, String> valuesMap = new HashMap<>();
+            queryGroup.getInputStreams().keySet().forEach(stream -> valuesMap.put(stream, "@source(type='broker')"));
+            queryGroup.getOutputStreams().values().forEach(stream -> valuesMap.put(stream.getStreamName(),
+                    stream.getPublishingStrategyList().isEmpty() ? "" : "@sink(type='broker')"));
+            updateQueryList(queryList, valuesMap);
+            return queryList;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wso2.carbon.sp.jobmanager.core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.sp.jobmanager.core.allocation.CoLocationPlanner;
+import org.wso2.carbon.sp.jobmanager.core.bean.InterfaceConfig;
+import org.wso2.carbon.sp.jobmanager.core.model.ResourceNode;
+import org.wso2.carbon.sp.jobmanager.core.model.SiddhiAppHolder;
+import org.wso2.carbon.sp.jobmanager.core.topology.InputStreamDataHolder;
+import org.wso2.carbon.sp.jobmanager.core.topology.OutputStreamDataHolder;
+import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiQueryGroup;
+import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiTopology;
+import org.wso2.carbon.sp.jobmanager.core.topology.SubscriptionStrategyDataHolder;
+import org.wso2.carbon.sp.jobmanager.core.util.EventHolder;
+import org.wso2.carbon.sp.jobmanager.core.util.TransportStrategy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class CoLocationPlannerTestCase {
+
+    @Test
+    public void testCoLocationGroups() {
+        SiddhiQueryGroup group1 = createQueryGroup("group1", 2, null, null, "FilteredStream");
+        SiddhiQueryGroup group2 = createQueryGroup("group2", 2, "FilteredStream", TransportStrategy.FIELD_GROUPING,
+                "AggregatedStream");
+        SiddhiQueryGroup group3 = createQueryGroup("group3", 1, "AggregatedStream", TransportStrategy.ROUND_ROBIN,
+                null);
+        SiddhiTopology topology = new SiddhiTopology("app", Arrays.asList(group1, group2, group3), true);
+
+        Map<String, Integer> coLocationGroups = CoLocationPlanner.createCoLocationGroups(topology, 0);
+        Assert.assertEquals(coLocationGroups.get("group1"), coLocationGroups.get("group2"));
+        Assert.assertEquals(coLocationGroups.get("group2"), coLocationGroups.get("group3"));
+
+        // Field grouping edge is kept as it carries more events than the round robin edge
+        coLocationGroups = CoLocationPlanner.createCoLocationGroups(topology, 2);
+        Assert.assertEquals(coLocationGroups.get("group1"), coLocationGroups.get("group2"));
+        Assert.assertNotEquals(coLocationGroups.get("group2"), coLocationGroups.get("group3"));
+    }
+
+    @Test
+    public void testPlacement() {
+        Map<String, ResourceNode> nodeMap = new LinkedHashMap<>();
+        for (int i = 1; i <= 3; i++) {
+            ResourceNode resourceNode = new ResourceNode("node-" + i);
+            resourceNode.setHttpsInterface(new InterfaceConfig("localhost", 9443 + i, "admin", "admin"));
+            nodeMap.put(resourceNode.getId(), resourceNode);
+        }
+        List<SiddhiAppHolder> appHolders = new ArrayList<>();
+        appHolders.add(createAppHolder("group1", 1));
+        appHolders.add(createAppHolder("group1", 2));
+        appHolders.add(createAppHolder("group2", 1));
+        appHolders.add(createAppHolder("group2", 2));
+        appHolders.add(createAppHolder("group3", 1));
+        Map<String, Integer> coLocationGroups = new HashMap<>();
+        coLocationGroups.put("group1", 0);
+        coLocationGroups.put("group2", 0);
+        coLocationGroups.put("group3", 1);
+
+        Map<String, ResourceNode> assignments = CoLocationPlanner.place(appHolders, coLocationGroups,
+                nodeMap, new HashMap<>(), 0);
+        Assert.assertNotNull(assignments);
+        Assert.assertEquals(assignments.size(), 5);
+        // Same instances of the co-located groups share a node, while parallel instances are spread
+        Assert.assertEquals(assignments.get(appHolders.get(0).getAppName()),
+                assignments.get(appHolders.get(2).getAppName()));
+        Assert.assertEquals(assignments.get(appHolders.get(1).getAppName()),
+                assignments.get(appHolders.get(3).getAppName()));
+        Assert.assertNotEquals(assignments.get(appHolders.get(0).getAppName()),
+                assignments.get(appHolders.get(1).getAppName()));
+        Set<ResourceNode> usedNodes = new HashSet<>(assignments.values());
+        Assert.assertEquals(usedNodes.size(), 3);
+
+        // Slots which do not fit in a node are split across nodes
+        assignments = CoLocationPlanner.place(appHolders, coLocationGroups, nodeMap, new HashMap<>(), 1);
+        Assert.assertNull(assignments);
+        nodeMap.put("node-4", new ResourceNode("node-4"));
+        nodeMap.put("node-5", new ResourceNode("node-5"));
+        assignments = CoLocationPlanner.place(appHolders, coLocationGroups, nodeMap, new HashMap<>(), 1);
+        Assert.assertNotNull(assignments);
+        Assert.assertEquals(new HashSet<>(assignments.values()).size(), 5);
+    }
+
+    private SiddhiQueryGroup createQueryGroup(String name, int parallelism, String inputStream,
+                                              TransportStrategy strategy, String outputStream) {
+        SiddhiQueryGroup queryGroup = new SiddhiQueryGroup(name, parallelism);
+        if (inputStream != null) {
+            Map<String, InputStreamDataHolder> inputStreams = new HashMap<>();
+            inputStreams.put(inputStream, new InputStreamDataHolder(inputStream, "define stream " + inputStream +
+                    " (symbol string);", EventHolder.STREAM, false,
+                    new SubscriptionStrategyDataHolder(parallelism, strategy, "symbol")));
+            queryGroup.addInputStreams(inputStreams);
+        }
+        if (outputStream != null) {
+            queryGroup.addOutputStream(outputStream, new OutputStreamDataHolder(outputStream, "define stream " +
+                    outputStream + " (symbol string);", EventHolder.STREAM, false));
+        }
+        return queryGroup;
+    }
+
+    private SiddhiAppHolder createAppHolder(String groupName, int instance) {
+        String appName = "app-" + groupName + "-" + instance;
+        return new SiddhiAppHolder("app", groupName, appName, "@App:name('" + appName + "')", null, false, 2);
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.sp.jobmanager.core;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.sp.jobmanager.core.appcreator.DeployableSiddhiQueryGroup;
+import org.wso2.carbon.sp.jobmanager.core.appcreator.DistributedSiddhiQuery;
+import org.wso2.carbon.sp.jobmanager.core.appcreator.SiddhiQuery;
+import org.wso2.carbon.sp.jobmanager.core.bean.DeploymentConfig;
+import org.wso2.carbon.sp.jobmanager.core.bean.InterfaceConfig;
+import org.wso2.carbon.sp.jobmanager.core.deployment.DeploymentManagerImpl;
+import org.wso2.carbon.sp.jobmanager.core.deployment.PartialAppDeploymentExecutor;
+import org.wso2.carbon.sp.jobmanager.core.exception.ResourceManagerException;
+import org.wso2.carbon.sp.jobmanager.core.internal.ServiceDataHolder;
+import org.wso2.carbon.sp.jobmanager.core.model.ResourceNode;
+import org.wso2.carbon.sp.jobmanager.core.model.ResourcePool;
+import org.wso2.carbon.sp.jobmanager.core.model.SiddhiAppHolder;
+import org.wso2.carbon.stream.processor.core.distribution.DeploymentStatus;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class DeploymentManagerImplTestCase {
+    private TestNodeClient nodeClient;
+    private DeploymentManagerImpl deploymentManager;
+    private ResourcePool resourcePool;
+
+    @BeforeMethod
+    public void setUp() {
+        DeploymentConfig deploymentConfig = new DeploymentConfig();
+        deploymentConfig.setMinResourceCount(1);
+        // Written synchronously, which is skipped as this node is not the leader
+        deploymentConfig.setResourcePoolPersistDelay(0);
+        ServiceDataHolder.setDeploymentConfig(deploymentConfig);
+        ServiceDataHolder.isLeader(false);
+        // The resource node with the smallest id is picked, so that moves are predictable
+        ServiceDataHolder.setAllocationAlgorithm((nodeMap, minResourceCount) -> nodeMap.values().stream()
+                .min(Comparator.comparing(ResourceNode::getId)).orElse(null));
+        resourcePool = new ResourcePool("test-group");
+        for (int i = 1; i <= 3; i++) {
+            ResourceNode resourceNode = new ResourceNode("node-" + i);
+            resourceNode.setHttpsInterface(new InterfaceConfig("localhost", 9442 + i, "admin", "admin"));
+            resourcePool.getResourceNodeMap().put(resourceNode.getId(), resourceNode);
+        }
+        ServiceDataHolder.setResourcePool(resourcePool);
+        nodeClient = new TestNodeClient();
+        deploymentManager = new DeploymentManagerImpl(nodeClient);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        deploymentManager.shutdown();
+        ServiceDataHolder.setResourcePool(null);
+    }
+
+    @Test
+    public void testMigrate() {
+        SiddhiAppHolder app = deployApp("app-group1-1", "node-1");
+        Assert.assertTrue(deploymentManager.migrate("app", "app-group1-1", "node-3"));
+        Assert.assertEquals(app.getDeployedNode().getId(), "node-3");
+        // the state is persisted with the sources paused before the app is deployed in the target node
+        Assert.assertEquals(nodeClient.calls, Arrays.asList("backup:node-1:app-group1-1",
+                "deploy:node-3:app-group1-1", "unDeploy:node-1:app-group1-1"));
+    }
+
+    @Test
+    public void testMigrateResumesAppOnFailure() {
+        SiddhiAppHolder app = deployApp("app-group1-1", "node-1");
+        nodeClient.failingNodes.add("node-3");
+        Assert.assertFalse(deploymentManager.migrate("app", "app-group1-1", "node-3"));
+        Assert.assertEquals(app.getDeployedNode().getId(), "node-1");
+        Assert.assertEquals(nodeClient.calls, Arrays.asList("backup:node-1:app-group1-1",
+                "deploy:node-3:app-group1-1", "deploy:node-1:app-group1-1"));
+
+        // nothing is deployed in the target node if the state cannot be persisted
+        nodeClient.calls.clear();
+        nodeClient.failingBackups = true;
+        Assert.assertFalse(deploymentManager.migrate("app", "app-group1-1", "node-2"));
+        Assert.assertEquals(app.getDeployedNode().getId(), "node-1");
+        Assert.assertEquals(nodeClient.calls, Arrays.asList("backup:node-1:app-group1-1"));
+    }
+
+    @Test(expectedExceptions = ResourceManagerException.class)
+    public void testMigrateToUnknownNode() {
+        deployApp("app-group1-1", "node-1");
+        deploymentManager.migrate("app", "app-group1-1", "node-4");
+    }
+
+    @Test
+    public void testDrainResourceNode() {
+        SiddhiAppHolder app1 = deployApp("app-group1-1", "node-1");
+        SiddhiAppHolder app2 = deployApp("app-group2-1", "node-1");
+        SiddhiAppHolder app3 = deployApp("app-group3-1", "node-3");
+        Assert.assertTrue(deploymentManager.drainResourceNode("node-1"));
+        Assert.assertEquals(app1.getDeployedNode().getId(), "node-2");
+        Assert.assertEquals(app2.getDeployedNode().getId(), "node-2");
+        Assert.assertEquals(app3.getDeployedNode().getId(), "node-3");
+        Assert.assertNull(resourcePool.getNodeAppMapping().get(resourcePool.getResourceNodeMap().get("node-1")));
+    }
+
+    @Test
+    public void testDrainResourceNodePartially() {
+        SiddhiAppHolder app1 = deployApp("app-group1-1", "node-1");
+        SiddhiAppHolder app2 = deployApp("app-group2-1", "node-1");
+        nodeClient.failingApps.add("app-group2-1");
+        Assert.assertFalse(deploymentManager.drainResourceNode("node-1"));
+        Assert.assertEquals(app1.getDeployedNode().getId(), "node-2");
+        Assert.assertEquals(app2.getDeployedNode().getId(), "node-1");
+    }
+
+    @Test(expectedExceptions = ResourceManagerException.class)
+    public void testDrainUnknownResourceNode() {
+        deploymentManager.drainResourceNode("node-4");
+    }
+
+    @Test
+    public void testReDeployOnlyChangedPartialApps() {
+        Assert.assertTrue(deploymentManager.deploy(createQuery(
+                createQueryGroup("app-group1", "from S select a insert into T;", 2),
+                createQueryGroup("app-group2", "from T select a insert into U;", 1))).isDeployed());
+        List<SiddhiAppHolder> deployedApps = resourcePool.getSiddhiAppHoldersMap().get("app");
+        nodeClient.calls.clear();
+
+        DeployableSiddhiQueryGroup group1 = createQueryGroup("app-group1", "from S select a insert into T;", 3);
+        group1.getSiddhiQueries().get(1).setApp("@App:name('app-group1-2') define stream S (a int); "
+                + "from S[a > 0] select a insert into T;");
+        DeploymentStatus status = deploymentManager.reDeploy(createQuery(group1));
+        Assert.assertTrue(status.isDeployed());
+        // added partial apps go first, then the changed ones are updated in place and the removed ones un-deployed
+        Assert.assertEquals(nodeClient.calls, Arrays.asList("deploy:node-1:app-group1-3",
+                "deploy:node-1:app-group1-2", "unDeploy:node-1:app-group2-1"));
+        List<SiddhiAppHolder> reDeployedApps = resourcePool.getSiddhiAppHoldersMap().get("app");
+        Assert.assertEquals(reDeployedApps.size(), 3);
+        Assert.assertEquals(reDeployedApps.get(0), deployedApps.get(0));
+        Assert.assertEquals(reDeployedApps.get(0).getDeployedNode().getId(), "node-1");
+    }
+
+    @Test
+    public void testReDeployKeepsRunningAppIfNewPartialAppsFail() {
+        deploymentManager.deploy(createQuery(createQueryGroup("app-group1", "from S select a insert into T;", 2),
+                createQueryGroup("app-group2", "from T select a insert into U;", 1)));
+        List<SiddhiAppHolder> deployedApps = new ArrayList<>(resourcePool.getSiddhiAppHoldersMap().get("app"));
+        nodeClient.calls.clear();
+        nodeClient.failingApps.add("app-group1-3");
+
+        DeploymentStatus status = deploymentManager.reDeploy(createQuery(
+                createQueryGroup("app-group1", "from S select a insert into T;", 3)));
+        Assert.assertFalse(status.isDeployed());
+        for (String call : nodeClient.calls) {
+            Assert.assertTrue(call.endsWith(":app-group1-3"), "Running partial app should not be touched: " + call);
+        }
+        Assert.assertEquals(resourcePool.getSiddhiAppHoldersMap().get("app"), deployedApps);
+        deployedApps.forEach(appHolder -> Assert.assertEquals(appHolder.getDeployedNode().getId(), "node-1"));
+    }
+
+    @Test
+    public void testReDeployFallsBackWhenInPlaceUpdateFails() {
+        deploymentManager.deploy(createQuery(createQueryGroup("app-group1", "from S select a insert into T;", 1)));
+        nodeClient.calls.clear();
+        nodeClient.appsFailingOnce.add("app-group1-1");
+
+        // the partial app is un-deployed and allocated again, if it cannot be updated in place
+        Assert.assertTrue(deploymentManager.reDeploy(createQuery(
+                createQueryGroup("app-group1", "from S[a > 0] select a insert into T;", 1))).isDeployed());
+        Assert.assertEquals(nodeClient.calls, Arrays.asList("deploy:node-1:app-group1-1",
+                "unDeploy:node-1:app-group1-1", "deploy:node-1:app-group1-1"));
+        SiddhiAppHolder appHolder = resourcePool.getSiddhiAppHoldersMap().get("app").get(0);
+        Assert.assertTrue(appHolder.getSiddhiApp().contains("from S[a > 0]"));
+        Assert.assertEquals(appHolder.getDeployedNode().getId(), "node-1");
+    }
+
+    private DistributedSiddhiQuery createQuery(DeployableSiddhiQueryGroup... queryGroups) {
+        return new DistributedSiddhiQuery("app", Arrays.asList(queryGroups));
+    }
+
+    private DeployableSiddhiQueryGroup createQueryGroup(String groupName, String query, int parallelism) {
+        DeployableSiddhiQueryGroup queryGroup = new DeployableSiddhiQueryGroup(groupName, false, parallelism);
+        List<SiddhiQuery> siddhiQueries = new ArrayList<>();
+        for (int i = 1; i <= parallelism; i++) {
+            String appName = groupName + "-" + i;
+            siddhiQueries.add(new SiddhiQuery(appName, "@App:name('" + appName + "') define stream S (a int); "
+                    + query, false));
+        }
+        queryGroup.setSiddhiQueries(siddhiQueries);
+        return queryGroup;
+    }
+
+    private SiddhiAppHolder deployApp(String appName, String nodeId) {
+        SiddhiAppHolder appHolder = new SiddhiAppHolder("app", appName.substring(0, appName.lastIndexOf('-')),
+                appName, "@App:name('" + appName + "') define stream S (a int);",
+                resourcePool.getResourceNodeMap().get(nodeId), false, 1);
+        resourcePool.getSiddhiAppHoldersMap().computeIfAbsent("app", name -> new ArrayList<>()).add(appHolder);
+        return appHolder;
+    }
+
+    private static class TestNodeClient implements PartialAppDeploymentExecutor.NodeClient {
+        private final List<String> calls = new ArrayList<>();
+        private final Set<String> failingNodes = new HashSet<>();
+        private final Set<String> failingApps = new HashSet<>();
+        private final Set<String> appsFailingOnce = new HashSet<>();
+        private boolean failingBackups;
+
+        @Override
+        public synchronized String deploy(ResourceNode resourceNode, SiddhiQuery siddhiQuery) {
+            calls.add("deploy:" + resourceNode.getId() + ":" + siddhiQuery.getAppName());
+            if (failingNodes.contains(resourceNode.getId()) || failingApps.contains(siddhiQuery.getAppName())
+                    || appsFailingOnce.remove(siddhiQuery.getAppName())) {
+                return null;
+            }
+            return siddhiQuery.getAppName();
+        }
+
+        @Override
+        public synchronized boolean unDeploy(ResourceNode resourceNode, String siddhiAppName) {
+            calls.add("unDeploy:" + resourceNode.getId() + ":" + siddhiAppName);
+            return true;
+        }
+
+        @Override
+        public synchronized String backup(ResourceNode resourceNode, String siddhiAppName, boolean pauseSources) {
+            calls.add("backup:" + resourceNode.getId() + ":" + siddhiAppName);
+            return failingBackups || !pauseSources ? null : "1";
+        }
+    }
+}
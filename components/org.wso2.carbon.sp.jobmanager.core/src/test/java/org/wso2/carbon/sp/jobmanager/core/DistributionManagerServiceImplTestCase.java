@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.sp.jobmanager.core;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.sp.jobmanager.core.appcreator.AbstractSiddhiAppCreator;
+import org.wso2.carbon.sp.jobmanager.core.appcreator.DeployableSiddhiQueryGroup;
+import org.wso2.carbon.sp.jobmanager.core.appcreator.DistributedSiddhiQuery;
+import org.wso2.carbon.sp.jobmanager.core.appcreator.SiddhiQuery;
+import org.wso2.carbon.sp.jobmanager.core.bean.DeploymentConfig;
+import org.wso2.carbon.sp.jobmanager.core.exception.ResourceManagerException;
+import org.wso2.carbon.sp.jobmanager.core.impl.DistributionManagerServiceImpl;
+import org.wso2.carbon.sp.jobmanager.core.internal.ServiceDataHolder;
+import org.wso2.carbon.sp.jobmanager.core.topology.OutputStreamDataHolder;
+import org.wso2.carbon.sp.jobmanager.core.topology.PublishingStrategyDataHolder;
+import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiQueryGroup;
+import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiTopology;
+import org.wso2.carbon.stream.processor.core.distribution.DeploymentStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class DistributionManagerServiceImplTestCase {
+    private static final String SIDDHI_APP = "@App:name('app')\n"
+            + "@source(type='inMemory', topic='stock', @map(type='passThrough'))\n"
+            + "define stream InputStream (symbol string, price float);\n"
+            + "@info(name = 'filter')@dist(execGroup='group1')\n"
+            + "from InputStream[price > 10]\n"
+            + "select symbol, price\n"
+            + "insert into FilteredStream;\n"
+            + "@info(name = 'sum')@dist(parallel='2', execGroup='group2')\n"
+            + "partition with (symbol of FilteredStream)\n"
+            + "begin\n"
+            + "from FilteredStream\n"
+            + "select symbol, sum(price) as total\n"
+            + "insert into OutputStream;\n"
+            + "end;\n";
+
+    private TestDeploymentManager deploymentManager;
+    private TestSiddhiAppCreator appCreator;
+    private DistributionManagerServiceImpl distributionManagerService;
+
+    @BeforeMethod
+    public void setUp() {
+        ServiceDataHolder.setDeploymentConfig(new DeploymentConfig());
+        deploymentManager = new TestDeploymentManager();
+        appCreator = new TestSiddhiAppCreator();
+        distributionManagerService = new DistributionManagerServiceImpl(appCreator, deploymentManager);
+    }
+
+    @Test
+    public void testRescale() {
+        distributionManagerService.distribute(SIDDHI_APP);
+        DistributedSiddhiQuery deployedQuery = deploymentManager.reDeployedQueries.get(0);
+        Assert.assertEquals(getQueryGroup(deployedQuery, "group2").getSiddhiQueries().size(), 2);
+
+        Assert.assertTrue(distributionManagerService.rescale("app", "app-group2", 3).isDeployed());
+        DistributedSiddhiQuery rescaledQuery = deploymentManager.reDeployedQueries.get(1);
+        Assert.assertEquals(getQueryGroup(rescaledQuery, "group2").getSiddhiQueries().size(), 3);
+        Assert.assertTrue(distributionManagerService.isParallelismOverridden("app", "app-group2"));
+        // the other execution groups keep their partial app names and content, so that they are not re-deployed
+        Assert.assertEquals(getQueryGroup(rescaledQuery, "group1").getSiddhiQueries(),
+                getQueryGroup(deployedQuery, "group1").getSiddhiQueries());
+
+        // a re-distributed app runs with the parallelism given by the user
+        distributionManagerService.distribute(SIDDHI_APP);
+        Assert.assertEquals(getQueryGroup(deploymentManager.reDeployedQueries.get(2), "group2")
+                .getSiddhiQueries().size(), 2);
+        Assert.assertFalse(distributionManagerService.isParallelismOverridden("app", "app-group2"));
+    }
+
+    @Test
+    public void testRescaleBackUsesPlannedTopology() {
+        distributionManagerService.distribute(SIDDHI_APP);
+        distributionManagerService.rescale("app", "app-group2", 3);
+        SiddhiTopology rescaledTopology = appCreator.topologies.get(1);
+        distributionManagerService.rescale("app", "app-group2", 2);
+
+        distributionManagerService.rescale("app", "app-group2", 3);
+        Assert.assertSame(appCreator.topologies.get(3), rescaledTopology, "Cached topology should be used");
+        Assert.assertEquals(getQueryGroup(deploymentManager.reDeployedQueries.get(3), "group2")
+                .getSiddhiQueries().size(), 3);
+        // the filtered stream is still published for the planned parallelism of its consumer
+        OutputStreamDataHolder filteredStream = null;
+        for (SiddhiQueryGroup queryGroup : rescaledTopology.getQueryGroupList()) {
+            if (queryGroup.getName().endsWith("-group1")) {
+                filteredStream = queryGroup.getOutputStreams().get("FilteredStream");
+            }
+        }
+        Assert.assertNotNull(filteredStream);
+        for (PublishingStrategyDataHolder holder : filteredStream.getPublishingStrategyList()) {
+            Assert.assertEquals(holder.getParallelism(), 3);
+        }
+    }
+
+    @Test(expectedExceptions = ResourceManagerException.class)
+    public void testRescaleUnknownApp() {
+        distributionManagerService.rescale("app", "app-group2", 3);
+    }
+
+    @Test(expectedExceptions = ResourceManagerException.class)
+    public void testRescaleUnknownExecutionGroup() {
+        distributionManagerService.distribute(SIDDHI_APP);
+        distributionManagerService.rescale("app", "app-group3", 3);
+    }
+
+    @Test
+    public void testRescaleWithInvalidParallelism() {
+        distributionManagerService.distribute(SIDDHI_APP);
+        try {
+            distributionManagerService.rescale("app", "app-group2", 0);
+            Assert.fail("Parallelism less than one should not be accepted");
+        } catch (ResourceManagerException e) {
+            Assert.assertEquals(deploymentManager.reDeployedQueries.size(), 1);
+        }
+    }
+
+    private DeployableSiddhiQueryGroup getQueryGroup(DistributedSiddhiQuery distributedSiddhiQuery,
+                                                     String execGroupName) {
+        for (DeployableSiddhiQueryGroup queryGroup : distributedSiddhiQuery.getQueryGroups()) {
+            if (queryGroup.getGroupName().endsWith("-" + execGroupName)) {
+                return queryGroup;
+            }
+        }
+        throw new AssertionError("Execution group " + execGroupName + " is not found.");
+    }
+
+    /**
+     * Records the distributed Siddhi apps instead of deploying them.
+     */
+    private static class TestDeploymentManager implements DeploymentManager {
+        private final List<DistributedSiddhiQuery> reDeployedQueries = new ArrayList<>();
+
+        @Override
+        public DeploymentStatus deploy(DistributedSiddhiQuery distributedSiddhiQuery) {
+            return reDeploy(distributedSiddhiQuery);
+        }
+
+        @Override
+        public DeploymentStatus reDeploy(DistributedSiddhiQuery distributedSiddhiQuery) {
+            reDeployedQueries.add(distributedSiddhiQuery);
+            return new DeploymentStatus(true, Collections.emptyMap());
+        }
+
+        @Override
+        public boolean unDeploy(String siddhiAppName) {
+            return true;
+        }
+
+        @Override
+        public boolean isDeployed(String parentSiddhiAppName) {
+            return !reDeployedQueries.isEmpty();
+        }
+    }
+
+    /**
+     * Creates Siddhi apps without any transport, and records the topologies they are created for.
+     */
+    private static class TestSiddhiAppCreator extends AbstractSiddhiAppCreator {
+        private final List<SiddhiTopology> topologies = new ArrayList<>();
+
+        @Override
+        public List<DeployableSiddhiQueryGroup> createApps(SiddhiTopology topology) {
+            topologies.add(topology);
+            return super.createApps(topology);
+        }
+
+        @Override
+        protected List<SiddhiQuery> createApps(String siddhiAppName, SiddhiQueryGroup queryGroup) {
+            return generateQueryList(queryGroup.getSiddhiApp(), queryGroup.getName(), queryGroup.getParallelism());
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wso2.carbon.sp.jobmanager.core;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.sp.jobmanager.core.allocation.LoadAwareAllocationAlgorithm;
+import org.wso2.carbon.sp.jobmanager.core.bean.DeploymentConfig;
+import org.wso2.carbon.sp.jobmanager.core.bean.InterfaceConfig;
+import org.wso2.carbon.sp.jobmanager.core.internal.ServiceDataHolder;
+import org.wso2.carbon.sp.jobmanager.core.model.ResourceNode;
+import org.wso2.carbon.sp.jobmanager.core.model.ResourcePool;
+import org.wso2.carbon.sp.jobmanager.core.model.SiddhiAppHolder;
+import org.wso2.carbon.sp.jobmanager.core.model.WorkerMetrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class LoadAwareAllocationAlgorithmTestCase {
+    private ResourcePool resourcePool;
+
+    @BeforeMethod
+    public void setUp() {
+        ServiceDataHolder.setDeploymentConfig(new DeploymentConfig());
+        resourcePool = new ResourcePool("group-1");
+        ServiceDataHolder.setResourcePool(resourcePool);
+    }
+
+    @Test
+    public void testBurstIsSpreadAcrossNodes() {
+        Map<String, ResourceNode> nodeMap = new LinkedHashMap<>();
+        for (int i = 1; i <= 3; i++) {
+            ResourceNode resourceNode = createNode("node-" + i, 9443 + i);
+            resourceNode.updateResourceMetrics(new WorkerMetrics().setSystemCPU(0.1).setProcessCPU(0.1)
+                    .setLoadAverage(1).setTotalMemory(0.2));
+            nodeMap.put(resourceNode.getId(), resourceNode);
+        }
+        LoadAwareAllocationAlgorithm algorithm = new LoadAwareAllocationAlgorithm();
+        Map<String, Integer> allocations = new HashMap<>();
+        for (int i = 0; i < 6; i++) {
+            ResourceNode resourceNode = algorithm.getNextResourceNode(nodeMap, 1);
+            allocations.merge(resourceNode.getId(), 1, Integer::sum);
+        }
+        Assert.assertEquals(allocations.size(), 3);
+        allocations.values().forEach(count -> Assert.assertEquals(count.intValue(), 2));
+    }
+
+    @Test
+    public void testLoadedNodeIsAvoided() {
+        ResourceNode busyNode = createNode("node-1", 9444);
+        busyNode.updateResourceMetrics(new WorkerMetrics().setSystemCPU(0.9).setProcessCPU(0.8)
+                .setLoadAverage(6).setTotalMemory(0.7));
+        ResourceNode idleNode = createNode("node-2", 9445);
+        idleNode.updateResourceMetrics(new WorkerMetrics().setSystemCPU(0.1).setProcessCPU(0.05)
+                .setLoadAverage(0.5).setTotalMemory(0.2));
+        Map<String, ResourceNode> nodeMap = new LinkedHashMap<>();
+        nodeMap.put(busyNode.getId(), busyNode);
+        nodeMap.put(idleNode.getId(), idleNode);
+
+        LoadAwareAllocationAlgorithm algorithm = new LoadAwareAllocationAlgorithm();
+        Assert.assertEquals(algorithm.getNextResourceNode(nodeMap, 1), idleNode);
+        Assert.assertNull(algorithm.getNextResourceNode(nodeMap, 3));
+    }
+
+    @Test
+    public void testDeployedAppsAreConsidered() {
+        ResourceNode node1 = createNode("node-1", 9444);
+        ResourceNode node2 = createNode("node-2", 9445);
+        Map<String, ResourceNode> nodeMap = new LinkedHashMap<>();
+        nodeMap.put(node1.getId(), node1);
+        nodeMap.put(node2.getId(), node2);
+        List<SiddhiAppHolder> appHolders = new ArrayList<>();
+        appHolders.add(new SiddhiAppHolder("app", "group-1", "app-group-1-1",
+                "@App:name('app-group-1-1') from S select * insert into T; from T select * insert into U;",
+                node1, false, 1));
+        resourcePool.getSiddhiAppHoldersMap().put("app", appHolders);
+
+        // Nodes without metrics are still allocated based on the deployed partial apps
+        LoadAwareAllocationAlgorithm algorithm = new LoadAwareAllocationAlgorithm();
+        Assert.assertEquals(algorithm.getNextResourceNode(nodeMap, 1, createSiddhiApp("app-group-2-1", 1)), node2);
+        Assert.assertEquals(algorithm.getNextResourceNode(nodeMap, 1, createSiddhiApp("app-group-2-2", 1)), node2);
+        Assert.assertEquals(algorithm.getNextResourceNode(nodeMap, 1, createSiddhiApp("app-group-2-3", 1)), node1);
+    }
+
+    @Test
+    public void testPendingAppsAreWeightedByQueries() {
+        ResourceNode node1 = createNode("node-1", 9444);
+        ResourceNode node2 = createNode("node-2", 9445);
+        Map<String, ResourceNode> nodeMap = new LinkedHashMap<>();
+        nodeMap.put(node1.getId(), node1);
+        nodeMap.put(node2.getId(), node2);
+        List<SiddhiAppHolder> appHolders = new ArrayList<>();
+        appHolders.add(createAppHolder("app-group-1-1", 2, node1));
+        resourcePool.getSiddhiAppHoldersMap().put("app", appHolders);
+
+        LoadAwareAllocationAlgorithm algorithm = new LoadAwareAllocationAlgorithm();
+        Assert.assertEquals(algorithm.getNextResourceNode(nodeMap, 1, createSiddhiApp("app-group-2-1", 4)), node2);
+        // The reserved app of node-2 weighs more than the deployed app of node-1
+        Assert.assertEquals(algorithm.getNextResourceNode(nodeMap, 1, createSiddhiApp("app-group-3-1", 1)), node1);
+    }
+
+    @Test
+    public void testFallbackAppIsWeighed() {
+        ResourceNode node1 = createNode("node-1", 9444);
+        ResourceNode node2 = createNode("node-2", 9445);
+        Map<String, ResourceNode> nodeMap = new LinkedHashMap<>();
+        nodeMap.put(node1.getId(), node1);
+        nodeMap.put(node2.getId(), node2);
+        SiddhiAppHolder coLocatedApp = createAppHolder("app-group-1-1", 4, node1);
+        coLocatedApp.setFallbackSiddhiApp(createSiddhiApp("app-group-1-1", 1));
+        List<SiddhiAppHolder> appHolders = new ArrayList<>();
+        appHolders.add(coLocatedApp);
+        appHolders.add(createAppHolder("app-group-2-1", 2, node2));
+        resourcePool.getSiddhiAppHoldersMap().put("app", appHolders);
+
+        LoadAwareAllocationAlgorithm algorithm = new LoadAwareAllocationAlgorithm();
+        Assert.assertEquals(algorithm.getNextResourceNode(nodeMap, 1, createSiddhiApp("app-group-3-1", 1)), node2);
+        Assert.assertTrue(coLocatedApp.switchToFallbackApp());
+        Assert.assertEquals(algorithm.getNextResourceNode(nodeMap, 1, createSiddhiApp("app-group-3-2", 1)), node1);
+    }
+
+    @Test
+    public void testCoLocatedAppsAreReserved() {
+        ResourceNode node1 = createNode("node-1", 9444);
+        ResourceNode node2 = createNode("node-2", 9445);
+        Map<String, ResourceNode> nodeMap = new LinkedHashMap<>();
+        nodeMap.put(node1.getId(), node1);
+        nodeMap.put(node2.getId(), node2);
+
+        // Partial apps placed in node-1 by co-location count as pending until they show up in the resource pool
+        LoadAwareAllocationAlgorithm algorithm = new LoadAwareAllocationAlgorithm();
+        algorithm.reserve(node1, createSiddhiApp("app-group-1-1", 2));
+        algorithm.reserve(node1, createSiddhiApp("app-group-2-1", 2));
+        for (int i = 1; i <= 4; i++) {
+            Assert.assertEquals(algorithm.getNextResourceNode(nodeMap, 1, createSiddhiApp("app-group-3-" + i, 1)),
+                    node2);
+        }
+        Assert.assertEquals(algorithm.getNextResourceNode(nodeMap, 1, createSiddhiApp("app-group-3-5", 1)), node1);
+    }
+
+    private SiddhiAppHolder createAppHolder(String appName, int queries, ResourceNode resourceNode) {
+        return new SiddhiAppHolder("app", appName.substring(0, appName.lastIndexOf('-')), appName,
+                createSiddhiApp(appName, queries), resourceNode, false, 1);
+    }
+
+    private String createSiddhiApp(String appName, int queries) {
+        StringBuilder siddhiApp = new StringBuilder("@App:name('" + appName + "')");
+        for (int i = 0; i < queries; i++) {
+            siddhiApp.append(" from S").append(i).append(" select * insert into T").append(i).append(';');
+        }
+        return siddhiApp.toString();
+    }
+
+    private ResourceNode createNode(String id, int port) {
+        ResourceNode resourceNode = new ResourceNode(id);
+        resourceNode.setState("EXISTS");
+        resourceNode.setHttpsInterface(new InterfaceConfig("localhost", port, "admin", "admin"));
+        return resourceNode;
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.sp.jobmanager.core;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.sp.jobmanager.core.appcreator.SiddhiQuery;
+import org.wso2.carbon.sp.jobmanager.core.bean.InterfaceConfig;
+import org.wso2.carbon.sp.jobmanager.core.deployment.PartialAppDeploymentExecutor;
+import org.wso2.carbon.sp.jobmanager.core.model.ResourceNode;
+import org.wso2.carbon.sp.jobmanager.core.model.SiddhiAppHolder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class PartialAppDeploymentExecutorTestCase {
+    private PartialAppDeploymentExecutor deploymentExecutor;
+
+    @AfterMethod
+    public void tearDown() {
+        if (deploymentExecutor != null) {
+            deploymentExecutor.shutdown();
+        }
+    }
+
+    @Test
+    public void testDeploy() {
+        TestNodeClient nodeClient = new TestNodeClient();
+        deploymentExecutor = new PartialAppDeploymentExecutor(2, 1000, nodeClient);
+        ResourceNode node1 = createNode("node-1", 9443);
+        ResourceNode node2 = createNode("node-2", 9444);
+        SiddhiAppHolder app1 = createApp("TestApp-group1-1");
+        SiddhiAppHolder app2 = createApp("TestApp-group1-2");
+        nodeClient.failingApps.add(app2.getAppName());
+        Map<String, ResourceNode> assignments = new HashMap<>();
+        assignments.put(app1.getAppName(), node1);
+        assignments.put(app2.getAppName(), node2);
+
+        List<SiddhiAppHolder> failedApps = deploymentExecutor.deploy(Arrays.asList(app1, app2), assignments);
+        Assert.assertEquals(failedApps, Collections.singletonList(app2));
+        Assert.assertEquals(app1.getDeployedNode(), node1);
+        Assert.assertNull(app2.getDeployedNode());
+        Assert.assertTrue(nodeClient.deployedApps.contains(node1.getId() + ":" + app1.getAppName()));
+
+        deploymentExecutor.unDeploy(Collections.singletonList(app1));
+        Assert.assertNull(app1.getDeployedNode());
+        Assert.assertTrue(nodeClient.deployedApps.isEmpty());
+    }
+
+    /**
+     * A deployment which times out but succeeds afterwards must not keep running in the node it was sent to, as the
+     * partial app gets deployed in another node.
+     */
+    @Test
+    public void testDeployTimeout() throws InterruptedException {
+        TestNodeClient nodeClient = new TestNodeClient();
+        deploymentExecutor = new PartialAppDeploymentExecutor(2, 200, nodeClient);
+        ResourceNode node1 = createNode("node-1", 9443);
+        ResourceNode node2 = createNode("node-2", 9444);
+        SiddhiAppHolder app1 = createApp("TestApp-group1-1");
+        SiddhiAppHolder app2 = createApp("TestApp-group1-2");
+        nodeClient.slowNode = node2.getId();
+        Map<String, ResourceNode> assignments = new HashMap<>();
+        assignments.put(app1.getAppName(), node1);
+        assignments.put(app2.getAppName(), node2);
+
+        List<SiddhiAppHolder> failedApps = deploymentExecutor.deploy(Arrays.asList(app1, app2), assignments);
+        Assert.assertEquals(failedApps, Collections.singletonList(app2));
+        Assert.assertEquals(app1.getDeployedNode(), node1);
+        Assert.assertNull(app2.getDeployedNode());
+
+        // The pending deployment completes in the slow node after the timeout, and gets un-deployed
+        nodeClient.slowNodeLatch.countDown();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (nodeClient.unDeployCount(node2, app2) < 2 && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        Assert.assertEquals(nodeClient.unDeployCount(node2, app2), 2);
+        Assert.assertFalse(nodeClient.deployedApps.contains(node2.getId() + ":" + app2.getAppName()));
+        Assert.assertTrue(nodeClient.deployedApps.contains(node1.getId() + ":" + app1.getAppName()));
+    }
+
+    private SiddhiAppHolder createApp(String appName) {
+        return new SiddhiAppHolder("TestApp", "group1", appName, "@App:name('" + appName + "')", null, false, 2);
+    }
+
+    private ResourceNode createNode(String id, int port) {
+        ResourceNode resourceNode = new ResourceNode(id);
+        resourceNode.setState("EXISTS");
+        resourceNode.setHttpsInterface(new InterfaceConfig("localhost", port, "admin", "admin"));
+        return resourceNode;
+    }
+
+    private static class TestNodeClient implements PartialAppDeploymentExecutor.NodeClient {
+        private final Set<String> deployedApps = ConcurrentHashMap.newKeySet();
+        private final Set<String> failingApps = ConcurrentHashMap.newKeySet();
+        private final Map<String, Integer> unDeployCounts = new ConcurrentHashMap<>();
+        private final CountDownLatch slowNodeLatch = new CountDownLatch(1);
+        private volatile String slowNode;
+
+        @Override
+        public String deploy(ResourceNode resourceNode, SiddhiQuery siddhiQuery) {
+            if (resourceNode.getId().equals(slowNode)) {
+                try {
+                    slowNodeLatch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failingApps.contains(siddhiQuery.getAppName())) {
+                return null;
+            }
+            deployedApps.add(resourceNode.getId() + ":" + siddhiQuery.getAppName());
+            return siddhiQuery.getAppName();
+        }
+
+        @Override
+        public boolean unDeploy(ResourceNode resourceNode, String siddhiAppName) {
+            String key = resourceNode.getId() + ":" + siddhiAppName;
+            unDeployCounts.merge(key, 1, Integer::sum);
+            return deployedApps.remove(key);
+        }
+
+        @Override
+        public String backup(ResourceNode resourceNode, String siddhiAppName, boolean pauseSources) {
+            return null;
+        }
+
+        private int unDeployCount(ResourceNode resourceNode, SiddhiAppHolder appHolder) {
+            return unDeployCounts.getOrDefault(resourceNode.getId() + ":" + appHolder.getAppName(), 0);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.wso2.carbon.sp.jobmanager.core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.sp.jobmanager.core.bean.InterfaceConfig;
+import org.wso2.carbon.sp.jobmanager.core.model.ResourceNode;
+import org.wso2.carbon.sp.jobmanager.core.model.ResourceNodeRecord;
+import org.wso2.carbon.sp.jobmanager.core.model.ResourcePoolChange;
+import org.wso2.carbon.sp.jobmanager.core.model.SiddhiAppHolder;
+import org.wso2.carbon.sp.jobmanager.core.model.SiddhiAppHolderRecord;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ResourcePoolChangeTestCase {
+
+    @Test
+    public void testNodeChanges() {
+        ResourceNode node1 = createNode("node-1", 9443);
+        ResourceNode node2 = createNode("node-2", 9444);
+        Map<String, ResourceNodeRecord> persisted = new HashMap<>();
+        persisted.put(node1.getId(), new ResourceNodeRecord(node1));
+        persisted.put(node2.getId(), new ResourceNodeRecord(node2));
+
+        // Heartbeat driven attributes should not result in any change
+        node1.updateLastPingTimestamp();
+        node1.incrementFailedPingAttempts();
+        Map<String, ResourceNodeRecord> current = new HashMap<>();
+        current.put(node1.getId(), new ResourceNodeRecord(node1));
+        current.put(node2.getId(), new ResourceNodeRecord(node2));
+        Assert.assertTrue(ResourcePoolChange.diff(persisted, current).isEmpty());
+
+        ResourceNode node3 = createNode("node-3", 9445);
+        current.remove(node2.getId());
+        current.put(node3.getId(), new ResourceNodeRecord(node3));
+        List<ResourcePoolChange<ResourceNodeRecord>> changes = ResourcePoolChange.diff(persisted, current);
+        Assert.assertEquals(changes.size(), 2);
+        Assert.assertEquals(changes.get(0).getOperation(), ResourcePoolChange.Operation.DELETE);
+        Assert.assertEquals(changes.get(0).getPrevious().getNodeId(), "node-2");
+        Assert.assertEquals(changes.get(1).getOperation(), ResourcePoolChange.Operation.INSERT);
+        Assert.assertEquals(changes.get(1).getRecord().getNodeId(), "node-3");
+        Assert.assertEquals(changes.get(1).getRecord().toResourceNode(), node3);
+        // Credentials of the node are not persisted
+        Assert.assertEquals(changes.get(1).getRecord().toResourceNode().getHttpsInterface().getUsername(), "admin");
+        Assert.assertNull(changes.get(1).getRecord().toResourceNode().getHttpsInterface().getPassword());
+    }
+
+    @Test
+    public void testSiddhiAppHolderChanges() {
+        ResourceNode node1 = createNode("node-1", 9443);
+        ResourceNode node2 = createNode("node-2", 9444);
+        SiddhiAppHolder appHolder = new SiddhiAppHolder("app", "group-1", "app-group-1-1",
+                "@App:name('app-group-1-1') define stream S (a int);", node1, false, 1);
+        Map<List<String>, SiddhiAppHolderRecord> persisted = new HashMap<>();
+        SiddhiAppHolderRecord persistedRecord = new SiddhiAppHolderRecord(appHolder, false, 0);
+        persisted.put(persistedRecord.getKey(), persistedRecord);
+
+        appHolder.setDeployedNode(node2);
+        Map<List<String>, SiddhiAppHolderRecord> current = new HashMap<>();
+        SiddhiAppHolderRecord currentRecord = new SiddhiAppHolderRecord(appHolder, false, 0);
+        current.put(currentRecord.getKey(), currentRecord);
+        List<ResourcePoolChange<SiddhiAppHolderRecord>> changes = ResourcePoolChange.diff(persisted, current);
+        Assert.assertEquals(changes.size(), 1);
+        Assert.assertEquals(changes.get(0).getOperation(), ResourcePoolChange.Operation.UPDATE);
+        Assert.assertEquals(changes.get(0).getRecord().getDeployedNodeId(), "node-2");
+        Assert.assertTrue(changes.get(0).getPrevious().hasSameDefinition(changes.get(0).getRecord()));
+
+        appHolder.setSiddhiApp("@App:name('app-group-1-1') define stream S (a long);");
+        currentRecord = new SiddhiAppHolderRecord(appHolder, true, 0);
+        current.put(currentRecord.getKey(), currentRecord);
+        changes = ResourcePoolChange.diff(persisted, current);
+        Assert.assertEquals(changes.size(), 1);
+        Assert.assertFalse(changes.get(0).getPrevious().hasSameDefinition(changes.get(0).getRecord()));
+        Assert.assertEquals(changes.get(0).getRecord().toSiddhiAppHolder(node2), appHolder);
+    }
+
+    private ResourceNode createNode(String id, int port) {
+        ResourceNode resourceNode = new ResourceNode(id);
+        resourceNode.setState("EXISTS");
+        resourceNode.setHttpsInterface(new InterfaceConfig("localhost", port, "admin", "admin"));
+        return resourceNode;
+    }
+}
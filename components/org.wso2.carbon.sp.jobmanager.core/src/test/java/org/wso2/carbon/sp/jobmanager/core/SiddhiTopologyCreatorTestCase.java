@@ -29,6 +29,7 @@ import org.wso2.carbon.sp.jobmanager.core.appcreator.SiddhiQuery;
 import org.wso2.carbon.sp.jobmanager.core.bean.DeploymentConfig;
 import org.wso2.carbon.sp.jobmanager.core.bean.ZooKeeperConfig;
 import org.wso2.carbon.sp.jobmanager.core.internal.ServiceDataHolder;
+import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiQueryGroup;
 import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiTopology;
 import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiTopologyCreatorImpl;
 import org.wso2.carbon.sp.jobmanager.core.util.KafkaTestUtil;
@@ -1749,6 +1750,51 @@ public class SiddhiTopologyCreatorTestCase {
     }
 
 
+    /**
+     * Parallelism of an execution group can be overridden when re-creating the topology, while the names of the
+     * query groups, including the default one, remain the same.
+     */
+    @Test(dependsOnMethods = "testTriggersInExecutionGroups")
+    public void testParallelismOverride() {
+        String siddhiApp = "@App:name('TestPlan20') "
+                + "@source(type='kafka', topic.list='custom_topic', group.id='1', threading.option='single.thread', "
+                + "bootstrap.servers='localhost:9092', @map(type='xml')) "
+                + "define stream StockStream(symbol string, price float, quantity int); "
+                + "@info(name = 'query1')\n"
+                + "from StockStream[price > 100]\n"
+                + "select *\n"
+                + "insert into FilteredStockStream;\n"
+                + "@info(name = 'query2') @dist(parallel ='2', execGroup='001')\n"
+                + "partition with (symbol of FilteredStockStream)\n"
+                + "begin\n"
+                + "from FilteredStockStream#window.lengthBatch(2)\n"
+                + "select symbol, sum(quantity) as totalQuantity\n"
+                + "insert into QuantityStream;\n"
+                + "end;\n";
+
+        SiddhiTopologyCreatorImpl siddhiTopologyCreator = new SiddhiTopologyCreatorImpl();
+        SiddhiTopology topology = siddhiTopologyCreator.createTopology(siddhiApp);
+        Map<String, Integer> parallelism = new HashMap<>();
+        parallelism.put("TestPlan20-001", 3);
+        SiddhiTopology rescaledTopology = siddhiTopologyCreator.createTopology(siddhiApp, parallelism);
+
+        Assert.assertEquals(rescaledTopology.getQueryGroupList().size(), topology.getQueryGroupList().size());
+        for (int i = 0; i < topology.getQueryGroupList().size(); i++) {
+            SiddhiQueryGroup queryGroup = topology.getQueryGroupList().get(i);
+            SiddhiQueryGroup rescaledQueryGroup = rescaledTopology.getQueryGroupList().get(i);
+            Assert.assertEquals(rescaledQueryGroup.getName(), queryGroup.getName());
+            if (queryGroup.getName().equals("TestPlan20-001")) {
+                Assert.assertEquals(queryGroup.getParallelism(), 2);
+                Assert.assertEquals(rescaledQueryGroup.getParallelism(), 3);
+                Assert.assertEquals(rescaledQueryGroup.getInputStreams().get("FilteredStockStream")
+                        .getSubscriptionStrategy().getOfferedParallelism(), 3);
+            } else {
+                Assert.assertEquals(rescaledQueryGroup.getParallelism(), queryGroup.getParallelism());
+            }
+        }
+    }
+
+
     private Map<String, List<SiddhiAppRuntime>> createSiddhiAppRuntimes(
             SiddhiManager siddhiManager, List<DeployableSiddhiQueryGroup> queryGroupList) {
         Map<String, List<SiddhiAppRuntime>> siddhiAppRuntimeMap = new HashMap<>(queryGroupList.size());
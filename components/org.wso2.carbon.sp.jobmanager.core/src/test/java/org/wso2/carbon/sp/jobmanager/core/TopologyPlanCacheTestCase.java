@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.wso2.carbon.sp.jobmanager.core;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.sp.jobmanager.core.impl.TopologyPlanCache;
+import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiQueryGroup;
+import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiTopology;
+import org.wso2.carbon.sp.jobmanager.core.topology.SiddhiTopologyCreatorImpl;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+public class TopologyPlanCacheTestCase {
+
+    @Test
+    public void testKeyIgnoresWhitespace() {
+        String siddhiApp = "@App:name('TestPlan') define stream InStream (symbol string);\n"
+                + "from InStream select * insert into OutStream;";
+        String reformattedApp = "\n  @App:name('TestPlan')  define stream InStream (symbol string);\n\n"
+                + "from InStream\tselect *   insert into OutStream;\n";
+        String reorderedApp = "@App:name('TestPlan') define stream InStream (symbol string);\n"
+                + "from InStream select * insert into OutStream;\n"
+                + "from InStream select * insert into OutStream2;";
+
+        String key = TopologyPlanCache.createKey(siddhiApp, Collections.emptyMap());
+        Assert.assertEquals(TopologyPlanCache.createKey(siddhiApp, Collections.emptyMap()), key);
+        Assert.assertEquals(TopologyPlanCache.createKey(reformattedApp, Collections.emptyMap()), key);
+        Assert.assertNotEquals(TopologyPlanCache.createKey(reorderedApp, Collections.emptyMap()), key);
+    }
+
+    @Test
+    public void testKeyKeepsStringLiterals() {
+        String siddhiApp = "from InStream[symbol == 'WSO2 Inc'] select * insert into OutStream;";
+        String changedLiteralApp = "from InStream[symbol == 'WSO2  Inc'] select * insert into OutStream;";
+        String escapedQuoteApp = "from InStream[symbol == 'WSO2\\' Inc'] select * insert into OutStream;";
+        String changedEscapedQuoteApp = "from InStream[symbol == 'WSO2\\'  Inc'] select * insert into OutStream;";
+
+        Assert.assertNotEquals(TopologyPlanCache.createKey(changedLiteralApp, Collections.emptyMap()),
+                TopologyPlanCache.createKey(siddhiApp, Collections.emptyMap()));
+        Assert.assertNotEquals(TopologyPlanCache.createKey(changedEscapedQuoteApp, Collections.emptyMap()),
+                TopologyPlanCache.createKey(escapedQuoteApp, Collections.emptyMap()));
+    }
+
+    @Test
+    public void testKeyIncludesParallelism() {
+        String siddhiApp = "@App:name('TestPlan') define stream InStream (symbol string);";
+        Map<String, Integer> parallelism = new HashMap<>();
+        parallelism.put("group1", 2);
+        parallelism.put("group2", 3);
+        Map<String, Integer> sameParallelism = new HashMap<>();
+        sameParallelism.put("group2", 3);
+        sameParallelism.put("group1", 2);
+
+        String key = TopologyPlanCache.createKey(siddhiApp, parallelism);
+        Assert.assertNotEquals(TopologyPlanCache.createKey(siddhiApp, Collections.emptyMap()), key);
+        Assert.assertEquals(TopologyPlanCache.createKey(siddhiApp, sameParallelism), key);
+        sameParallelism.put("group2", 4);
+        Assert.assertNotEquals(TopologyPlanCache.createKey(siddhiApp, sameParallelism), key);
+    }
+
+    @Test
+    public void testCacheKeepsRecentPlansOfApp() {
+        TopologyPlanCache topologyPlanCache = new TopologyPlanCache();
+        SiddhiTopology plan1 = new SiddhiTopology("TestPlan", Collections.emptyList(), true);
+        SiddhiTopology plan2 = new SiddhiTopology("TestPlan", Collections.emptyList(), true);
+        SiddhiTopology otherPlan = new SiddhiTopology("OtherPlan", Collections.emptyList(), true);
+
+        topologyPlanCache.put("key1", plan1);
+        topologyPlanCache.put("key3", otherPlan);
+        topologyPlanCache.put("key2", plan2);
+        // Rescaling back to the earlier parallelism hits the cache
+        Assert.assertSame(topologyPlanCache.get("key1"), plan1);
+        Assert.assertSame(topologyPlanCache.get("key2"), plan2);
+
+        topologyPlanCache.remove("TestPlan");
+        Assert.assertNull(topologyPlanCache.get("key1"));
+        Assert.assertNull(topologyPlanCache.get("key2"));
+        Assert.assertSame(topologyPlanCache.get("key3"), otherPlan);
+    }
+
+    @Test
+    public void testCacheEvictsLeastRecentlyUsedPlanOfApp() {
+        TopologyPlanCache topologyPlanCache = new TopologyPlanCache();
+        SiddhiTopology otherPlan = new SiddhiTopology("OtherPlan", Collections.emptyList(), true);
+        topologyPlanCache.put("other", otherPlan);
+        for (int i = 0; i < 4; i++) {
+            topologyPlanCache.put("key" + i, new SiddhiTopology("TestPlan", Collections.emptyList(), true));
+        }
+        Assert.assertNotNull(topologyPlanCache.get("key0"));
+        topologyPlanCache.put("key4", new SiddhiTopology("TestPlan", Collections.emptyList(), true));
+
+        Assert.assertNotNull(topologyPlanCache.get("key0"));
+        Assert.assertNull(topologyPlanCache.get("key1"));
+        for (int i = 2; i <= 4; i++) {
+            Assert.assertNotNull(topologyPlanCache.get("key" + i));
+        }
+        Assert.assertSame(topologyPlanCache.get("other"), otherPlan);
+    }
+
+    /**
+     * Query groups which are not affected by a change of the Siddhi app keep their names, so that only the
+     * changed query groups get re-deployed.
+     */
+    @Test
+    public void testGroupNamesAreStable() {
+        String siddhiApp = "@App:name('TestPlan')\n"
+                + "define stream StockStream (symbol string, price float, quantity int);\n"
+                + "@info(name = 'query1')\n"
+                + "from StockStream[price > 100]\n"
+                + "select *\n"
+                + "insert into FilteredStream;\n"
+                + "@info(name = 'query2')@dist(parallel='2', execGroup='group2')\n"
+                + "partition with (symbol of FilteredStream)\n"
+                + "begin\n"
+                + "from FilteredStream#window.lengthBatch(2)\n"
+                + "select symbol, avg(price) as avgPrice\n"
+                + "insert into AvgStream;\n"
+                + "end;\n";
+        String changedApp = siddhiApp.replace("price > 100", "price > 200");
+
+        List<String> groupNames = getGroupNames(new SiddhiTopologyCreatorImpl().createTopology(siddhiApp));
+        Assert.assertEquals(getGroupNames(new SiddhiTopologyCreatorImpl().createTopology(siddhiApp)), groupNames);
+        Assert.assertEquals(getGroupNames(new SiddhiTopologyCreatorImpl().createTopology(changedApp)), groupNames);
+    }
+
+    private List<String> getGroupNames(SiddhiTopology topology) {
+        return topology.getQueryGroupList().stream().map(SiddhiQueryGroup::getName).collect(Collectors.toList());
+    }
+}
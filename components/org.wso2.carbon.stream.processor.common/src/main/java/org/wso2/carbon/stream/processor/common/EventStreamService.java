@@ -35,4 +35,14 @@ public interface EventStreamService {
             ResourceNotFoundException;
 
     public void pushEvent(String siddhiAppName, String streamName, Event event);
+
+    /**
+     * Pushes a batch of events to the stream. Implementations which can hand the whole batch to the stream at once
+     * should override this, by default the events are pushed one at a time.
+     */
+    default void pushEvents(String siddhiAppName, String streamName, Event[] events) {
+        for (Event event : events) {
+            pushEvent(siddhiAppName, streamName, event);
+        }
+    }
 }
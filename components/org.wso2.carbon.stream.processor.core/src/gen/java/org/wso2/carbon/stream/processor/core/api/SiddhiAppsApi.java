@@ -188,8 +188,11 @@ public class SiddhiAppsApi implements Microservice {
     public Response siddhiAppsAppNameSnapshotPost(
             @Context Request request,
             @ApiParam(value = "The name of the Siddhi Application.", required = true)
-            @PathParam("appName") String appName) throws NotFoundException {
-        return delegate.siddhiAppsAppNameBackupPost(appName, request);
+            @PathParam("appName") String appName,
+            @ApiParam(value = "Whether the sources of the Siddhi Application should be kept paused after the "
+                    + "state is persisted.", required = false)
+            @QueryParam("pauseSources") String pauseSources) throws NotFoundException {
+        return delegate.siddhiAppsAppNameBackupPost(appName, pauseSources, request);
     }
 
     @POST
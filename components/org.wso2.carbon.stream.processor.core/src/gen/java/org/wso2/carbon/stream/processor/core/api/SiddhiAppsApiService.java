@@ -38,7 +38,8 @@ public abstract class SiddhiAppsApiService {
     public abstract Response siddhiAppsAppNameRestorePost(String appName, String revision, Request request)
             throws NotFoundException;
 
-    public abstract Response siddhiAppsAppNameBackupPost(String appName, Request request) throws NotFoundException;
+    public abstract Response siddhiAppsAppNameBackupPost(String appName, String pauseSources, Request request)
+            throws NotFoundException;
 
     public abstract Response siddhiAppsAppNameRevisionsDelete(String appName, String enabledRedeployment, Request request) throws NotFoundException;
 
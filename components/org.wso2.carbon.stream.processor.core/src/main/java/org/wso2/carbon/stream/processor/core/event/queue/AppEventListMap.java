@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.stream.processor.core.event.queue;
+
+import org.apache.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Events of a single Siddhi app queued on the passive node, ordered by their sequence id. Each app keeps its own
+ * lock and last control message sequence id so that events of different apps can be queued and trimmed in parallel.
+ * The events are only accessed while holding that lock, hence they are kept in a plain sorted map.
+ * <p>
+ * At most {@link #capacity} events are kept in memory, once exceeded the oldest events are spilled to an
+ * {@link EventSegmentLog} until the next control message trims them.
+ */
+public class AppEventListMap {
+    private static final Logger log = Logger.getLogger(AppEventListMap.class);
+
+    private final String siddhiAppName;
+    private final TreeMap<Long, QueuedEvent> eventListMap = new TreeMap<>();
+    private final int capacity;
+    private final EventSegmentLog eventSegmentLog;
+    //number of events held in memory, kept alongside the map so that checking the capacity does not count them
+    private int inMemoryEventCount = 0;
+    private long lastControlMessageSequenceId = -1;
+    private boolean spillFailed = false;
+
+    public AppEventListMap(String siddhiAppName, int capacity, Path spillDirectory, int segmentSize) {
+        this.siddhiAppName = siddhiAppName;
+        this.capacity = capacity;
+        this.eventSegmentLog = new EventSegmentLog(spillDirectory.resolve(siddhiAppName), segmentSize);
+    }
+
+    /**
+     * Queues the event unless it is already covered by the last persisted state of the app.
+     *
+     * @return true if the event was queued
+     */
+    public synchronized boolean add(QueuedEvent queuedEvent) {
+        if (queuedEvent.getSequenceID() > lastControlMessageSequenceId) {
+            if (eventListMap.put(queuedEvent.getSequenceID(), queuedEvent) == null) {
+                inMemoryEventCount++;
+            }
+            if (capacity > 0 && inMemoryEventCount > capacity && !spillFailed) {
+                spill();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Remembers the sequence id of a control message and drops all events older than it.
+     */
+    public synchronized void trim(long controlMessageSequenceId) {
+        if (controlMessageSequenceId > lastControlMessageSequenceId) {
+            lastControlMessageSequenceId = controlMessageSequenceId;
+        }
+        SortedMap<Long, QueuedEvent> trimmedEvents = eventListMap.headMap(lastControlMessageSequenceId);
+        inMemoryEventCount -= trimmedEvents.size();
+        trimmedEvents.clear();
+        eventSegmentLog.trim(lastControlMessageSequenceId);
+        spillFailed = false;
+    }
+
+    /**
+     * Streams the queued events to the consumer, first the spilled events and then the ones held in memory.
+     */
+    public synchronized void replay(QueuedEventConsumer consumer) throws InterruptedException {
+        eventSegmentLog.replay(lastControlMessageSequenceId, consumer);
+        for (QueuedEvent queuedEvent : eventListMap.values()) {
+            consumer.accept(queuedEvent);
+        }
+    }
+
+    /**
+     * Drops all queued events including the spilled ones.
+     */
+    public synchronized void clear() {
+        eventListMap.clear();
+        inMemoryEventCount = 0;
+        eventSegmentLog.clear();
+    }
+
+    public String getSiddhiAppName() {
+        return siddhiAppName;
+    }
+
+    /**
+     * Moves the oldest half of the in memory events to the segment log. The events are only removed from memory
+     * once they are appended, hence nothing is lost if the disk cannot be written.
+     */
+    private void spill() {
+        QueuedEvent[] spilledEvents = new QueuedEvent[inMemoryEventCount - capacity / 2];
+        Iterator<QueuedEvent> iterator = eventListMap.values().iterator();
+        for (int i = 0; i < spilledEvents.length; i++) {
+            spilledEvents[i] = iterator.next();
+        }
+        try {
+            eventSegmentLog.append(spilledEvents);
+            eventListMap.headMap(spilledEvents[spilledEvents.length - 1].getSequenceID(), true).clear();
+            inMemoryEventCount -= spilledEvents.length;
+        } catch (IOException | RuntimeException e) {
+            //keep the events in memory and stop spilling until the next control message trims the map
+            spillFailed = true;
+            log.error("Error in spilling " + spilledEvents.length + " events of Siddhi app " + siddhiAppName +
+                    " to disk, hence keeping them in memory", e);
+        }
+    }
+
+    /**
+     * Receives the events replayed from an {@link AppEventListMap}.
+     */
+    public interface QueuedEventConsumer {
+        void accept(QueuedEvent queuedEvent) throws InterruptedException;
+    }
+}
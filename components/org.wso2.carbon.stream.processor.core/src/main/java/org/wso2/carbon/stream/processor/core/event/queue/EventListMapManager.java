@@ -18,40 +18,53 @@
 
 package org.wso2.carbon.stream.processor.core.event.queue;
 
+import io.netty.buffer.ByteBuf;
 import org.apache.log4j.Logger;
-import org.wso2.carbon.stream.processor.core.ha.exception.InvalidByteMessageException;
 import org.wso2.carbon.stream.processor.core.ha.tcp.SiddhiEventConverter;
 import org.wso2.carbon.stream.processor.core.ha.util.HAConstants;
 import org.wso2.carbon.stream.processor.core.internal.SiddhiAppData;
 import org.wso2.carbon.stream.processor.core.internal.StreamProcessorDataHolder;
-import org.wso2.carbon.stream.processor.core.util.BinaryMessageConverterUtil;
+import org.wso2.carbon.stream.processor.core.internal.beans.DeploymentConfig;
+import org.wso2.carbon.utils.Utils;
 import org.wso2.siddhi.core.event.Event;
-import org.wso2.siddhi.core.stream.input.source.Source;
 
 import java.io.UnsupportedEncodingException;
-import java.nio.ByteBuffer;
-import java.util.Collection;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class EventListMapManager {
-    private static ConcurrentSkipListMap<Long,QueuedEvent> eventListMap;
-    private static Map<String,Long> perAppLastControlMessageSequenceNumberList = new HashMap<>();
+    private static ConcurrentMap<String, AppEventListMap> eventListMaps = new ConcurrentHashMap<>();
     private static final Logger log = Logger.getLogger(EventListMapManager.class);
     private static long startTime;
     private static long endTime;
     private static int count = 0;
     private static final int TPS_EVENT_THRESHOLD = 100000;
+    private static int eventListMapCapacity;
+    private static int eventBufferSegmentSize;
+    private static Path eventBufferDirectory;
 
     public EventListMapManager() {
     }
 
-    public static void initializeEventListMap() {
-        eventListMap = new ConcurrentSkipListMap<Long, QueuedEvent>();
+    public static void initializeEventListMap(DeploymentConfig deploymentConfig) {
+        for (AppEventListMap appEventListMap : eventListMaps.values()) {
+            appEventListMap.clear();
+        }
+        eventListMapCapacity = deploymentConfig.getEventListMapCapacity();
+        eventBufferSegmentSize = deploymentConfig.getEventBufferSegmentSize() * 1024 * 1024;
+        if (deploymentConfig.getEventBufferDirectory() != null) {
+            eventBufferDirectory = Paths.get(deploymentConfig.getEventBufferDirectory());
+        } else {
+            eventBufferDirectory = Paths.get(Utils.getRuntimePath().toString(), HAConstants.EVENT_BUFFER_DIRECTORY);
+        }
+        //segments left behind by an earlier passive run are never replayed
+        EventSegmentLog.deleteSegments(eventBufferDirectory);
+        eventListMaps = new ConcurrentHashMap<>();
+        EventSchemaRegistry.clearReceivedSchemas();
     }
 
     public void parseControlMessage(byte[] controlMessageContentByteArray) throws UnsupportedEncodingException {
@@ -67,73 +80,33 @@ public class EventListMapManager {
         }
     }
 
-    public void parseMessage(byte[] eventContentByteArray) {
-        try {
-            ByteBuffer eventContent = ByteBuffer.wrap(eventContentByteArray);
-            int noOfEvents = eventContent.getInt();
-            QueuedEvent queuedEvent;
-            Event[] events = new Event[noOfEvents];
-            for (int i = 0; i < noOfEvents; i++) {
-                String sourceHandlerElementId;
-                String siddhiAppName;
-                long sequenceID = eventContent.getLong();
-                int sourceHandlerLength = eventContent.getInt();
-                if (sourceHandlerLength == 0) {
-                    throw new InvalidByteMessageException("Invalid sourceHandlerLength size = 0");
-                } else {
-                    sourceHandlerElementId = BinaryMessageConverterUtil.getString(eventContent, sourceHandlerLength);
-                }
-
-                int appNameLength = eventContent.getInt();
-                if (appNameLength == 0) {
-                    throw new InvalidByteMessageException("Invalid appNameLength size = 0");
-                } else {
-                    siddhiAppName = BinaryMessageConverterUtil.getString(eventContent, appNameLength);
-                }
-                long lastSequenceIdForApp = -1;
+    public void parseMessage(ByteBuf eventContent) {
+        int noOfEvents = eventContent.readInt();
+        for (int i = 0; i < noOfEvents; i++) {
+            long sequenceID = eventContent.readLong();
+            EventSchema eventSchema = EventSchemaRegistry.getReceivedSchema(eventContent.readInt());
+            Event event = SiddhiEventConverter.getEvent(eventContent, eventSchema);
+            //only the app's own map is locked while checking the event against its last control message, hence
+            // events of different apps are queued in parallel by the extractor threads
+            getEventListMap(eventSchema.getSiddhiAppName()).add(new QueuedEvent(eventSchema, sequenceID, event));
+        }
 
-                if (perAppLastControlMessageSequenceNumberList.size() != 0) {
-                    if (perAppLastControlMessageSequenceNumberList.get(siddhiAppName) != null) {
-                        lastSequenceIdForApp = perAppLastControlMessageSequenceNumberList.get(siddhiAppName);
-                    }
+        if (log.isDebugEnabled()) {
+            synchronized (EventListMapManager.class) {
+                if (startTime == 0L) {
+                    startTime = new Date().getTime();
                 }
-                synchronized (this) {
-                    //we need this block synchronized to ensure if last remembered siddhi app id is smaller than the
-                    // event id then add it to the tree map synchronously, else older event may add to the tree map
-                    if (sequenceID > lastSequenceIdForApp) {
-                        String attributes;
-                        int attributeLength = eventContent.getInt();
-                        if (attributeLength == 0) {
-                            throw new InvalidByteMessageException("Invalid attributeLength size = 0");
-                        } else {
-                            attributes = BinaryMessageConverterUtil.getString(eventContent, attributeLength);
-                        }
-                        String[] attributeTypes = attributes.substring(1, attributes.length() - 1).split(", ");
-                        events[i] = SiddhiEventConverter.getEvent(eventContent, attributeTypes);
-                        queuedEvent = new QueuedEvent(siddhiAppName, sourceHandlerElementId, sequenceID, events[i]);
-                        this.addToEventListMap(sequenceID, queuedEvent);
-                    }
-
-                    if (log.isDebugEnabled()) {
-                        if (startTime == 0L) {
-                            startTime = new Date().getTime();
-                        }
-                        count++;
-                        if (count % TPS_EVENT_THRESHOLD == 0) {
-                            endTime = new Date().getTime();
-                            log.debug("# of events batch : " + count + " start timestamp : " + startTime +
-                                    " end time stamp : " + endTime + " Throughput is (events / sec) : " +
-                                    (((TPS_EVENT_THRESHOLD * 1000) / (endTime - startTime))) +
-                                    " Total Event Count : " + count);
-                            startTime = new Date().getTime();
-                        }
-                    }
+                int previousCount = count;
+                count += noOfEvents;
+                if (count / TPS_EVENT_THRESHOLD != previousCount / TPS_EVENT_THRESHOLD) {
+                    endTime = new Date().getTime();
+                    log.debug("# of events batch : " + count + " start timestamp : " + startTime +
+                            " end time stamp : " + endTime + " Throughput is (events / sec) : " +
+                            (((TPS_EVENT_THRESHOLD * 1000) / Math.max(endTime - startTime, 1))) +
+                            " Total Event Count : " + count);
+                    startTime = new Date().getTime();
                 }
-
-
             }
-        } catch (UnsupportedEncodingException e) {
-            log.error("Error when converting bytes " + e.getMessage(), e);
         }
     }
 
@@ -141,65 +114,35 @@ public class EventListMapManager {
         Map<String, SiddhiAppData> siddhiAppMap = StreamProcessorDataHolder.getStreamProcessorService().
                 getSiddhiAppMap();
 
-        for(Map.Entry<Long,QueuedEvent> listMapValue : eventListMap.entrySet()) {
-            long key = listMapValue.getKey();
-            QueuedEvent queuedEvent = listMapValue.getValue();
-            SiddhiAppData siddhiAppData = siddhiAppMap.get(queuedEvent.getSiddhiAppName());
-            if (siddhiAppData != null) {
-                Collection<List<Source>> sourceCollection = siddhiAppData.getSiddhiAppRuntime().getSources();
-                for (List<Source> sources : sourceCollection) {
-                    boolean isFound = false;
-                    for (Source source : sources) {
-                        if(queuedEvent.getSourceHandlerElementId().equals(source.getMapper().
-                                getHandler().getElementId())){
-                            source.getMapper().getHandler().sendEvent(queuedEvent.getEvent());
-                            eventListMap.remove(key);
-                            isFound = true;
-                            break;
-                        }
-                    }
-                    if (isFound) {
-                        break;
-                    }
-                }
+        for (AppEventListMap appEventListMap : eventListMaps.values()) {
+            SiddhiAppData siddhiAppData = siddhiAppMap.get(appEventListMap.getSiddhiAppName());
+            if (siddhiAppData == null) {
+                continue;
             }
+            QueuedEventReplayer queuedEventReplayer = new QueuedEventReplayer(appEventListMap.getSiddhiAppName(),
+                    siddhiAppData.getSiddhiAppRuntime().getSources(), HAConstants.EVENT_REPLAY_BATCH_SIZE);
+            appEventListMap.replay(queuedEventReplayer);
+            queuedEventReplayer.complete();
+        }
+        for (AppEventListMap appEventListMap : eventListMaps.values()) {
+            appEventListMap.clear();
         }
-        eventListMap.clear();
-        perAppLastControlMessageSequenceNumberList.clear();
+        eventListMaps.clear();
     }
 
     public void trimQueue(String[] persistedAppDetails){
-        synchronized (this) {
-            //need to synchronize to make sure to finish remembering last control message seq id for siddhi app and
-            // trim accordingly
-            if (eventListMap.size() != 0){
-                for(String appDetail : persistedAppDetails) {
-                    String[] details = appDetail.split(HAConstants.PERSISTED_APP_SPLIT_DELIMITER);
-                    long seqId = Long.parseLong(details[0].trim());
-                    String appName = details[2].trim();
-                    if (perAppLastControlMessageSequenceNumberList.get(appName) != null) {
-                        long existingId = perAppLastControlMessageSequenceNumberList.get(appName);
-                        if (existingId < seqId) {
-                            perAppLastControlMessageSequenceNumberList.put(appName, seqId);
-                        }
-                    } else {
-                        perAppLastControlMessageSequenceNumberList.put(appName, seqId);
-                    }
-
-                    for (Iterator<Map.Entry<Long, QueuedEvent>> iterator = eventListMap.entrySet().iterator();
-                         iterator.hasNext();) {
-                        Map.Entry<Long, QueuedEvent> listMapValue = iterator.next();
-                        long key = listMapValue.getKey();
-                        if (appName.equals(listMapValue.getValue().getSiddhiAppName()) && seqId > key) {
-                            eventListMap.remove(key);
-                        }
-                    }
-                }
-            }
+        for(String appDetail : persistedAppDetails) {
+            String[] details = appDetail.split(HAConstants.PERSISTED_APP_SPLIT_DELIMITER);
+            long seqId = Long.parseLong(details[0].trim());
+            String appName = details[2].trim();
+            //remembering the last control message seq id and trimming is done under the app's own lock, the
+            // events are ordered by seq id so only the head of the map needs to be dropped
+            getEventListMap(appName).trim(seqId);
         }
     }
 
-    public void addToEventListMap(long sequenceNum, QueuedEvent queuedEvent){
-        eventListMap.put(sequenceNum, queuedEvent);
+    private static AppEventListMap getEventListMap(String siddhiAppName) {
+        return eventListMaps.computeIfAbsent(siddhiAppName, appName -> new AppEventListMap(appName,
+                eventListMapCapacity, eventBufferDirectory, eventBufferSegmentSize));
     }
 }
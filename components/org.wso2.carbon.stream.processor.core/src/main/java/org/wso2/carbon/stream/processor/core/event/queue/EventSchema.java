@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.stream.processor.core.event.queue;
+
+import org.wso2.siddhi.query.api.definition.Attribute;
+
+/**
+ * Describes the events of a single source handler that are synced to the passive node. The schema is sent to the
+ * passive node once per connection and the events only carry the {@link #schemaId}.
+ */
+public class EventSchema {
+    private int schemaId;
+    private String siddhiAppName;
+    private String sourceHandlerElementId;
+    private Attribute.Type[] attributeTypes;
+
+    public EventSchema(int schemaId, String siddhiAppName, String sourceHandlerElementId,
+                       Attribute.Type[] attributeTypes) {
+        this.schemaId = schemaId;
+        this.siddhiAppName = siddhiAppName;
+        this.sourceHandlerElementId = sourceHandlerElementId;
+        this.attributeTypes = attributeTypes.clone();
+    }
+
+    public int getSchemaId() {
+        return schemaId;
+    }
+
+    public String getSiddhiAppName() {
+        return siddhiAppName;
+    }
+
+    public String getSourceHandlerElementId() {
+        return sourceHandlerElementId;
+    }
+
+    public Attribute.Type[] getAttributeTypes() {
+        return attributeTypes.clone();
+    }
+
+    public int getAttributeCount() {
+        return attributeTypes.length;
+    }
+
+    public Attribute.Type getAttributeType(int index) {
+        return attributeTypes[index];
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.stream.processor.core.event.queue;
+
+import org.wso2.carbon.stream.processor.core.ha.exception.InvalidByteMessageException;
+import org.wso2.siddhi.query.api.definition.Attribute;
+import org.wso2.siddhi.query.api.definition.StreamDefinition;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the {@link EventSchema}s used by the event sync channel.
+ * Active node creates a schema for each source handler and passive node remembers the schemas received from the
+ * active node, so that an event only needs to carry the schema id.
+ */
+public class EventSchemaRegistry {
+    private static AtomicInteger schemaIdGenerator = new AtomicInteger();
+    private static Map<Integer, EventSchema> receivedSchemaMap = new ConcurrentHashMap<>();
+
+    public static EventSchema createSchema(String siddhiAppName, String sourceHandlerElementId,
+                                           StreamDefinition streamDefinition) {
+        List<Attribute> attributeList = streamDefinition.getAttributeList();
+        Attribute.Type[] attributeTypes = new Attribute.Type[attributeList.size()];
+        for (int i = 0; i < attributeTypes.length; i++) {
+            attributeTypes[i] = attributeList.get(i).getType();
+        }
+        return new EventSchema(schemaIdGenerator.incrementAndGet(), siddhiAppName, sourceHandlerElementId,
+                attributeTypes);
+    }
+
+    /**
+     * Registers a schema received from the active node. A schema is always sent before the events which refer it,
+     * hence an existing schema with the same id (i.e. from a restarted active node) is replaced.
+     *
+     * @param eventSchema schema received from the active node
+     */
+    public static void addReceivedSchema(EventSchema eventSchema) {
+        receivedSchemaMap.put(eventSchema.getSchemaId(), eventSchema);
+    }
+
+    public static EventSchema getReceivedSchema(int schemaId) {
+        EventSchema eventSchema = receivedSchemaMap.get(schemaId);
+        if (eventSchema == null) {
+            throw new InvalidByteMessageException("Event schema with id " + schemaId + " is not received from " +
+                    "the active node");
+        }
+        return eventSchema;
+    }
+
+    public static void clearReceivedSchemas() {
+        receivedSchemaMap.clear();
+    }
+}
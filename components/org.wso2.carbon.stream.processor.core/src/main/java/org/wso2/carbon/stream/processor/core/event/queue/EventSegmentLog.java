@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.stream.processor.core.event.queue;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.internal.PlatformDependent;
+import org.apache.log4j.Logger;
+import org.wso2.carbon.stream.processor.core.ha.tcp.SiddhiEventConverter;
+import org.wso2.carbon.stream.processor.core.util.BinaryEventConverter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+
+/**
+ * Append only log of memory mapped segment files holding the events of a Siddhi app that were spilled from the
+ * in memory event list map of the passive node. Events are stored in the same binary format they are synced in,
+ * and a segment is deleted as a whole once all of its events are covered by a control message.
+ * <p>
+ * This class is not thread safe, it is guarded by the owning {@link AppEventListMap}.
+ */
+public class EventSegmentLog {
+    private static final Logger log = Logger.getLogger(EventSegmentLog.class);
+    private static final String SEGMENT_FILE_PREFIX = "segment-";
+    private static final String SEGMENT_FILE_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private long nextSegmentIndex = 0;
+
+    public EventSegmentLog(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Appends the given events, which must be sorted by sequence id, as a single record.
+     */
+    public void append(QueuedEvent[] queuedEvents) throws IOException {
+        int recordSize = BinaryEventConverter.getMessageSize(queuedEvents);
+        Segment segment = segments.peekLast();
+        if (segment == null || segment.buffer.writableBytes() < 4 + recordSize) {
+            segment = createSegment(4 + recordSize);
+        }
+        ByteBuf buffer = segment.buffer;
+        int recordStartIndex = buffer.writerIndex();
+        try {
+            buffer.writeInt(recordSize);
+            BinaryEventConverter.convertToBinaryMessage(queuedEvents, buffer);
+        } catch (RuntimeException e) {
+            buffer.writerIndex(recordStartIndex);
+            throw e;
+        }
+        segment.addEvents(queuedEvents[queuedEvents.length - 1].getSequenceID());
+    }
+
+    /**
+     * Deletes the segments of which all events are older than the given sequence id.
+     */
+    public void trim(long sequenceId) {
+        for (Iterator<Segment> iterator = segments.iterator(); iterator.hasNext(); ) {
+            Segment segment = iterator.next();
+            if (segment.maxSequenceId < sequenceId) {
+                iterator.remove();
+                segment.delete();
+            }
+        }
+    }
+
+    /**
+     * Streams the events of all segments in the order they were appended, skipping the events older than the
+     * given sequence id.
+     */
+    public void replay(long sequenceId, AppEventListMap.QueuedEventConsumer consumer)
+            throws InterruptedException {
+        for (Segment segment : segments) {
+            ByteBuf records = segment.buffer.duplicate();
+            while (records.isReadable()) {
+                int recordSize = records.readInt();
+                ByteBuf record = records.readSlice(recordSize);
+                int noOfEvents = record.readInt();
+                for (int i = 0; i < noOfEvents; i++) {
+                    long sequenceID = record.readLong();
+                    EventSchema eventSchema = EventSchemaRegistry.getReceivedSchema(record.readInt());
+                    QueuedEvent queuedEvent = new QueuedEvent(eventSchema, sequenceID,
+                            SiddhiEventConverter.getEvent(record, eventSchema));
+                    if (sequenceID >= sequenceId) {
+                        consumer.accept(queuedEvent);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes all segments of the log.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.delete();
+        }
+        segments.clear();
+    }
+
+    private Segment createSegment(int minimumSize) throws IOException {
+        Files.createDirectories(directory);
+        File file = directory.resolve(SEGMENT_FILE_PREFIX + nextSegmentIndex++ + SEGMENT_FILE_SUFFIX).toFile();
+        int size = Math.max(segmentSize, minimumSize);
+        MappedByteBuffer mappedBuffer;
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            //the mapping stays valid after the file channel is closed
+            mappedBuffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        Segment segment = new Segment(file, mappedBuffer);
+        segments.addLast(segment);
+        if (log.isDebugEnabled()) {
+            log.debug("Created event buffer segment " + file.getPath() + " of " + size + " bytes");
+        }
+        return segment;
+    }
+
+    /**
+     * Deletes the segments left in the app directories of the given directory by an earlier run. Only the segment
+     * files are deleted, and an app directory is deleted only if nothing else is left in it.
+     */
+    public static void deleteSegments(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> appDirectories = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path appDirectory : appDirectories) {
+                try (DirectoryStream<Path> segmentFiles = Files.newDirectoryStream(appDirectory,
+                        path -> isSegmentFile(path.getFileName().toString()))) {
+                    for (Path segmentFile : segmentFiles) {
+                        Files.deleteIfExists(segmentFile);
+                    }
+                }
+                try {
+                    Files.deleteIfExists(appDirectory);
+                } catch (DirectoryNotEmptyException e) {
+                    log.debug("Keeping the event buffer directory " + appDirectory + " as it holds other files");
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Error in deleting the event buffer segments in " + directory, e);
+        }
+    }
+
+    private static boolean isSegmentFile(String fileName) {
+        if (!fileName.startsWith(SEGMENT_FILE_PREFIX) || !fileName.endsWith(SEGMENT_FILE_SUFFIX)) {
+            return false;
+        }
+        String segmentIndex = fileName.substring(SEGMENT_FILE_PREFIX.length(),
+                fileName.length() - SEGMENT_FILE_SUFFIX.length());
+        return !segmentIndex.isEmpty() && segmentIndex.chars().allMatch(Character::isDigit);
+    }
+
+    private static class Segment {
+        private final File file;
+        private final MappedByteBuffer mappedBuffer;
+        private final ByteBuf buffer;
+        private long maxSequenceId = Long.MIN_VALUE;
+
+        private Segment(File file, MappedByteBuffer mappedBuffer) {
+            this.file = file;
+            this.mappedBuffer = mappedBuffer;
+            this.buffer = Unpooled.wrappedBuffer(mappedBuffer).clear();
+        }
+
+        private void addEvents(long lastSequenceId) {
+            maxSequenceId = Math.max(maxSequenceId, lastSequenceId);
+        }
+
+        private void delete() {
+            //unmap eagerly, else the disk space is only reclaimed once the mapping is garbage collected
+            PlatformDependent.freeDirectBuffer(mappedBuffer);
+            if (!file.delete()) {
+                log.warn("Error in deleting the event buffer segment " + file.getPath());
+            }
+        }
+    }
+}
@@ -26,6 +26,7 @@ public class QueuedEvent {
     private Event event;
     private long timestamp;
     private String siddhiAppName;
+    private EventSchema eventSchema;
 
     public QueuedEvent(String siddhiAppName, String sourceHandlerElementId, long sequenceID, Event event) {
         this.sourceHandlerElementId = sourceHandlerElementId;
@@ -34,6 +35,11 @@ public class QueuedEvent {
         this.event = event;
     }
 
+    public QueuedEvent(EventSchema eventSchema, long sequenceID, Event event) {
+        this(eventSchema.getSiddhiAppName(), eventSchema.getSourceHandlerElementId(), sequenceID, event);
+        this.eventSchema = eventSchema;
+    }
+
     public long getSequenceID() {
         return sequenceID;
     }
@@ -76,4 +82,12 @@ public class QueuedEvent {
 
         this.siddhiAppName = siddhiAppName;
     }
+
+    public EventSchema getEventSchema() {
+        return eventSchema;
+    }
+
+    public void setEventSchema(EventSchema eventSchema) {
+        this.eventSchema = eventSchema;
+    }
 }
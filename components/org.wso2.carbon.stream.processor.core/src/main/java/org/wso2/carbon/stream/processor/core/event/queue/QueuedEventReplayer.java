@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.stream.processor.core.event.queue;
+
+import org.apache.log4j.Logger;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.stream.input.source.Source;
+import org.wso2.siddhi.core.stream.input.source.SourceHandler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replays the events queued on the passive node to the source handlers of a Siddhi app when the node becomes active.
+ * Source handlers are indexed by their element id upfront and consecutive events of the same handler are sent as
+ * one batch.
+ */
+public class QueuedEventReplayer implements AppEventListMap.QueuedEventConsumer {
+    private static final Logger log = Logger.getLogger(QueuedEventReplayer.class);
+    private static final int PROGRESS_EVENT_THRESHOLD = 100000;
+
+    private final String siddhiAppName;
+    private final int batchSize;
+    private final Map<String, SourceHandler> sourceHandlers = new HashMap<>();
+    private final List<Event> batch = new ArrayList<>();
+    private SourceHandler batchSourceHandler;
+    private long replayedEventCount = 0;
+    private long skippedEventCount = 0;
+    private final long startTime = System.currentTimeMillis();
+
+    public QueuedEventReplayer(String siddhiAppName, Collection<List<Source>> sourceCollection, int batchSize) {
+        this.siddhiAppName = siddhiAppName;
+        this.batchSize = batchSize;
+        for (List<Source> sources : sourceCollection) {
+            for (Source source : sources) {
+                SourceHandler sourceHandler = source.getMapper().getHandler();
+                if (sourceHandler != null) {
+                    sourceHandlers.put(sourceHandler.getElementId(), sourceHandler);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void accept(QueuedEvent queuedEvent) throws InterruptedException {
+        SourceHandler sourceHandler = sourceHandlers.get(queuedEvent.getSourceHandlerElementId());
+        if (sourceHandler == null) {
+            skippedEventCount++;
+            return;
+        }
+        if (sourceHandler != batchSourceHandler || batch.size() >= batchSize) {
+            flush();
+            batchSourceHandler = sourceHandler;
+        }
+        batch.add(queuedEvent.getEvent());
+    }
+
+    /**
+     * Sends the events of the current batch to their source handler.
+     */
+    public void flush() throws InterruptedException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        batchSourceHandler.sendEvent(batch.toArray(new Event[batch.size()]));
+        long previousCount = replayedEventCount;
+        replayedEventCount += batch.size();
+        batch.clear();
+        if (replayedEventCount / PROGRESS_EVENT_THRESHOLD != previousCount / PROGRESS_EVENT_THRESHOLD) {
+            log.info("Replayed " + replayedEventCount + " events of Siddhi app " + siddhiAppName + " at " +
+                    getReplayRate() + " events / sec");
+        }
+    }
+
+    /**
+     * Flushes the remaining events and logs the summary of the replay.
+     */
+    public void complete() throws InterruptedException {
+        flush();
+        if (replayedEventCount > 0 || skippedEventCount > 0) {
+            log.info("Completed replaying " + replayedEventCount + " events of Siddhi app " + siddhiAppName +
+                    " in " + (System.currentTimeMillis() - startTime) + " ms at " + getReplayRate() +
+                    " events / sec");
+        }
+        if (skippedEventCount > 0) {
+            log.warn("Skipped " + skippedEventCount + " events of Siddhi app " + siddhiAppName +
+                    " as their source is no longer deployed");
+        }
+    }
+
+    private long getReplayRate() {
+        return (replayedEventCount * 1000) / Math.max(System.currentTimeMillis() - startTime, 1);
+    }
+}
@@ -18,25 +18,19 @@
 
 package org.wso2.carbon.stream.processor.core.ha;
 
-import org.apache.commons.pool.impl.GenericKeyedObjectPool;
 import org.apache.log4j.Logger;
-import org.wso2.carbon.stream.processor.core.event.queue.QueuedEvent;
-import org.wso2.carbon.stream.processor.core.ha.transport.EventSyncConnection;
+import org.wso2.carbon.stream.processor.core.event.queue.EventSchema;
+import org.wso2.carbon.stream.processor.core.event.queue.EventSchemaRegistry;
+import org.wso2.carbon.stream.processor.core.ha.transport.EventSyncBatchPublisher;
 import org.wso2.carbon.stream.processor.core.ha.transport.EventSyncConnectionPoolManager;
 import org.wso2.carbon.stream.processor.core.ha.util.CoordinationConstants;
-import org.wso2.carbon.stream.processor.core.ha.util.HAConstants;
-import org.wso2.carbon.stream.processor.core.util.BinaryEventConverter;
 import org.wso2.siddhi.core.event.Event;
-import org.wso2.siddhi.core.exception.ConnectionUnavailableException;
 import org.wso2.siddhi.core.stream.input.InputHandler;
 import org.wso2.siddhi.core.stream.input.source.SourceHandler;
 import org.wso2.siddhi.query.api.definition.StreamDefinition;
 
-import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Implementation of {@link SourceHandler} used for 2 node minimum HA
@@ -47,20 +41,16 @@ public class HACoordinationSourceHandler extends SourceHandler {
     private long lastProcessedEventTimestamp = 0L;
     private String sourceHandlerElementId;
     private String siddhiAppName;
-    private GenericKeyedObjectPool eventSyncConnectionPoolFactory;
-    private AtomicLong sequenceIDGenerator;
+    private EventSchema eventSchema;
     private volatile boolean passiveNodeAdded;
 
     private static final Logger log = Logger.getLogger(HACoordinationSourceHandler.class);
 
-    public HACoordinationSourceHandler() {
-        this.sequenceIDGenerator = EventSyncConnectionPoolManager.getSequenceID();
-    }
-
     @Override
     public void init(String siddhiAppName, String sourceElementId, StreamDefinition streamDefinition) {
         this.sourceHandlerElementId = sourceElementId;
         this.siddhiAppName = siddhiAppName;
+        this.eventSchema = EventSchemaRegistry.createSchema(siddhiAppName, sourceElementId, streamDefinition);
     }
 
     /**
@@ -138,73 +128,16 @@ public class HACoordinationSourceHandler extends SourceHandler {
     }
 
     private void sendEventsToPassiveNode(Event event) {
-        EventSyncConnection eventSyncConnection = getTCPNettyClient();
-        ByteBuffer messageBuffer = null;
-        if (eventSyncConnection != null) {
-            QueuedEvent queuedEvent = new QueuedEvent(siddhiAppName, sourceHandlerElementId, sequenceIDGenerator
-                    .incrementAndGet(), event);
-            try {
-                messageBuffer = BinaryEventConverter.convertToBinaryMessage(new QueuedEvent[]{queuedEvent});
-            } catch (IOException e) {
-                log.error("Error in converting events to binary message.Hence not sending message to the passive node");
-                return;
-            }
-            if (messageBuffer != null) {
-                try {
-                    eventSyncConnection.send(HAConstants.CHANNEL_ID_MESSAGE, messageBuffer.array());
-                } catch (ConnectionUnavailableException e) {
-                    log.error("Error in sending events to the passive node. " + e.getMessage());
-                }
-            }
-            try {
-                eventSyncConnectionPoolFactory.returnObject(HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID, eventSyncConnection);
-            } catch (Exception e) {
-                log.error("Error in returning the tcpClient connection object to the pool. ", e);
-            }
+        EventSyncBatchPublisher eventSyncBatchPublisher = EventSyncConnectionPoolManager.getEventSyncBatchPublisher();
+        if (eventSyncBatchPublisher != null) {
+            eventSyncBatchPublisher.publish(eventSchema, event);
         }
     }
 
     private void sendEventsToPassiveNode(Event[] events) {
-        EventSyncConnection eventSyncConnection = getTCPNettyClient();
-        ByteBuffer messageBuffer = null;
-        if (eventSyncConnection != null) {
-            QueuedEvent[] queuedEvents = new QueuedEvent[events.length];
-            int i = 0;
-            for (Event event : events) {
-                QueuedEvent queuedEvent = new QueuedEvent(siddhiAppName, sourceHandlerElementId, sequenceIDGenerator
-                        .incrementAndGet(), event);
-                queuedEvents[i] = queuedEvent;
-                i++;
-            }
-            try {
-                messageBuffer = BinaryEventConverter.convertToBinaryMessage(queuedEvents);
-            } catch (IOException e) {
-                log.error("Error in converting events to binary message.Hence not sending message to the passive node");
-            }
-            if (messageBuffer != null) {
-                try {
-                    eventSyncConnection.send(HAConstants.CHANNEL_ID_MESSAGE, messageBuffer.array());
-                } catch (ConnectionUnavailableException e) {
-                    log.error("Error in sending events to the passive node. " + e.getMessage());
-                }
-            }
-            try {
-                eventSyncConnectionPoolFactory.returnObject(HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID, eventSyncConnection);
-            } catch (Exception e) {
-                log.error("Error in returning the tcpClient connection object to the pool. ", e);
-            }
-        }
-    }
-
-    private EventSyncConnection getTCPNettyClient() {
-        eventSyncConnectionPoolFactory = EventSyncConnectionPoolManager.getConnectionPool();
-        EventSyncConnection eventSyncConnection = null;
-        try {
-            eventSyncConnection = (EventSyncConnection) eventSyncConnectionPoolFactory.borrowObject(HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID);
-        } catch (Exception e) {
-            log.warn("Error in obtaining a tcp connection to the passive node. Hence not sending events to the " +
-                    "passive node. " + e.getMessage());
+        EventSyncBatchPublisher eventSyncBatchPublisher = EventSyncConnectionPoolManager.getEventSyncBatchPublisher();
+        if (eventSyncBatchPublisher != null) {
+            eventSyncBatchPublisher.publish(eventSchema, events);
         }
-        return eventSyncConnection;
     }
 }
@@ -120,7 +120,7 @@ public class HAManager {
             passiveNodeDetailsPropertiesMap.put(HAConstants.ADVERTISED_PORT, deploymentConfig.eventSyncServerConfigs()
                     .getAdvertisedPort());
             clusterCoordinator.setPropertiesMap(passiveNodeDetailsPropertiesMap);
-            EventListMapManager.initializeEventListMap();
+            EventListMapManager.initializeEventListMap(deploymentConfig);
 
             //start tcp server
             tcpServerInstance.start(deploymentConfig);
@@ -213,8 +213,10 @@ public class HAManager {
             listener.stop();
         }
         stopSiddhiAppRuntimes();
+        //send the events received before the runtimes were stopped
+        EventSyncConnectionPoolManager.shutdownBatchPublisher();
         //initialize event list map
-        EventListMapManager.initializeEventListMap();
+        EventListMapManager.initializeEventListMap(deploymentConfig);
 
         NodeInfo nodeInfo = StreamProcessorDataHolder.getNodeInfo();
         nodeInfo.setActiveNode(isActiveNode);
@@ -19,6 +19,8 @@
 package org.wso2.carbon.stream.processor.core.ha.tcp;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
@@ -33,10 +35,9 @@ import org.wso2.carbon.stream.processor.core.ha.transport.handlers.MessageDecode
 import org.wso2.carbon.stream.processor.core.ha.util.HAConstants;
 import org.wso2.carbon.stream.processor.core.internal.beans.DeploymentConfig;
 import org.wso2.carbon.stream.processor.core.internal.beans.EventSyncServerConfig;
-import org.wso2.carbon.stream.processor.core.util.BinaryMessageConverterUtil;
 
 import java.io.UnsupportedEncodingException;
-import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
@@ -59,7 +60,7 @@ public class EventSyncServer {
     private EventSyncServerConfig serverConfig;
     private static final Logger log = Logger.getLogger(EventSyncServer.class);
     private EventListMapManager eventListMapManager = new EventListMapManager();
-    private BlockingQueue<ByteBuffer> eventByteBufferQueue;
+    private BlockingQueue<ByteBuf> eventByteBufferQueue;
     private ExecutorService eventBufferExtractorExecutorService = Executors.newFixedThreadPool(
             HAConstants.EVENT_BUFFER_EXTRACTOR_THREAD_POOL_SIZE);
     private EventBufferExtractor eventBufferExtractor = new EventBufferExtractor();
@@ -84,7 +85,8 @@ public class EventSyncServer {
                     }
                 })
                 .option(ChannelOption.TCP_NODELAY, true)
-                .childOption(ChannelOption.SO_KEEPALIVE, true);
+                .childOption(ChannelOption.SO_KEEPALIVE, true)
+                .childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
 
         try {
             // Bind and start to accept incoming connections.
@@ -116,7 +118,10 @@ public class EventSyncServer {
     public void clearResources() {
         eventBufferExtractor.run = false;
         eventBufferExtractorExecutorService.shutdownNow();
-        eventByteBufferQueue.clear();
+        ByteBuf message;
+        while ((message = eventByteBufferQueue.poll()) != null) {
+            message.release();
+        }
     }
 
     /**
@@ -128,28 +133,31 @@ public class EventSyncServer {
         public void run() {
             try {
                 while (run) {
-                    ByteBuffer in = eventByteBufferQueue.take();
+                    ByteBuf in = eventByteBufferQueue.take();
                     try {
-                        int channelIdSize = in.getInt();
-                        String channelId = BinaryMessageConverterUtil.getString(in, channelIdSize);
-                        int dataLength = in.getInt();
-                        byte[] bytes = new byte[dataLength];
-                        in.get(bytes);
+                        int channelIdSize = in.readInt();
+                        String channelId = in.toString(in.readerIndex(), channelIdSize, StandardCharsets.UTF_8);
+                        in.skipBytes(channelIdSize);
+                        int dataLength = in.readInt();
                         if (channelId.equals(HAConstants.CHANNEL_ID_CONTROL_MESSAGE)) {
                             if (log.isDebugEnabled()) {
                                 log.debug("Received a control message");
                             }
+                            byte[] bytes = new byte[dataLength];
+                            in.readBytes(bytes);
                             eventListMapManager.parseControlMessage(bytes);
                         } else if (channelId.equals(HAConstants.CHANNEL_ID_MESSAGE)) {
                             if (log.isDebugEnabled()) {
                                 log.debug("Received a event message");
                             }
-                            eventListMapManager.parseMessage(bytes);
+                            eventListMapManager.parseMessage(in);
                         }
                     } catch (UnsupportedEncodingException e) {
                         log.warn("Error when converting bytes " + e.getMessage(), e);
                     } catch (Throwable t) {
                         log.error("Error occurred while processing eventByteBufferQueue " + t.getMessage(), t);
+                    } finally {
+                        in.release();
                     }
                 }
             } catch (InterruptedException e) {
@@ -162,7 +170,7 @@ public class EventSyncServer {
         }
     }
 
-    public BlockingQueue<ByteBuffer> getEventByteBufferQueue() {
+    public BlockingQueue<ByteBuf> getEventByteBufferQueue() {
         return eventByteBufferQueue;
     }
 }
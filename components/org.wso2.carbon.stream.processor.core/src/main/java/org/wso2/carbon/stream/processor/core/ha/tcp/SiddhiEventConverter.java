@@ -18,14 +18,18 @@
 package org.wso2.carbon.stream.processor.core.ha.tcp;
 
 
+import io.netty.buffer.ByteBuf;
 import org.apache.log4j.Logger;
-import org.wso2.carbon.stream.processor.core.util.BinaryMessageConverterUtil;
+import org.wso2.carbon.stream.processor.core.event.queue.EventSchema;
+import org.wso2.carbon.stream.processor.core.ha.exception.InvalidByteMessageException;
+import org.wso2.carbon.stream.processor.core.util.BinaryEventConverter;
 import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.query.api.definition.Attribute;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.zip.DataFormatException;
 import java.util.zip.Inflater;
 
@@ -36,6 +40,7 @@ import java.util.zip.Inflater;
 public class SiddhiEventConverter {//todo
     static final Logger LOG = Logger.getLogger(SiddhiEventConverter.class);
     private static int count = 0;
+    private static final Attribute.Type[] ATTRIBUTE_TYPES = Attribute.Type.values();
 
 
     public static ByteBuffer decompress(ByteBuffer byteBuffer) throws IOException, DataFormatException {
@@ -55,51 +60,73 @@ public class SiddhiEventConverter {//todo
         return ByteBuffer.wrap(output);
     }
 
-    public static Event getEvent(ByteBuffer byteBuffer, String[] attributeTypes) throws UnsupportedEncodingException {
+    public static Event getEvent(ByteBuf byteBuf, EventSchema eventSchema) {
         Event event = new Event();
-        long timeStamp = byteBuffer.getLong();
+        long timeStamp = byteBuf.readLong();
         event.setTimestamp(timeStamp);
-        event.setData(toObjectArray(byteBuffer, attributeTypes));
+        event.setData(toObjectArray(byteBuf, eventSchema));
         return event;
     }
 
-    static Object[] toObjectArray(ByteBuffer byteBuffer,
-                                  String[] attributeTypeOrder) throws UnsupportedEncodingException {
-        if (attributeTypeOrder != null) {
-            Object[] objects = new Object[attributeTypeOrder.length];
-            for (int i = 0; i < attributeTypeOrder.length; i++) {
-                switch (attributeTypeOrder[i]) {
-                    case "INT":
-                        objects[i] = byteBuffer.getInt();
-                        break;
-                    case "LONG":
-                        objects[i] = byteBuffer.getLong();
-                        break;
-                    case "STRING":
-                        int stringSize = byteBuffer.getInt();
-                        if (stringSize == 0) {
-                            objects[i] = null;
-                        } else {
-                            objects[i] = BinaryMessageConverterUtil.getString(byteBuffer, stringSize);
-                        }
-                        break;
-                    case "DOUBLE":
-                        objects[i] = byteBuffer.getDouble();
-                        break;
-                    case "FLOAT":
-                        objects[i] = byteBuffer.getFloat();
-                        break;
-                    case "BOOL":
-                        objects[i] = byteBuffer.get() == 1;
-                        break;
-                    default:
-                        // will not occur
-                }
+    public static EventSchema getEventSchema(ByteBuf byteBuf) {
+        int schemaId = byteBuf.readInt();
+        int appNameLength = byteBuf.readInt();
+        if (appNameLength == 0) {
+            throw new InvalidByteMessageException("Invalid appNameLength size = 0");
+        }
+        String siddhiAppName = getUTF8String(byteBuf, appNameLength);
+        int sourceHandlerLength = byteBuf.readInt();
+        if (sourceHandlerLength == 0) {
+            throw new InvalidByteMessageException("Invalid sourceHandlerLength size = 0");
+        }
+        String sourceHandlerElementId = getUTF8String(byteBuf, sourceHandlerLength);
+        int attributeCount = byteBuf.readInt();
+        Attribute.Type[] attributeTypes = new Attribute.Type[attributeCount];
+        for (int i = 0; i < attributeCount; i++) {
+            attributeTypes[i] = ATTRIBUTE_TYPES[byteBuf.readByte()];
+        }
+        return new EventSchema(schemaId, siddhiAppName, sourceHandlerElementId, attributeTypes);
+    }
+
+    static Object[] toObjectArray(ByteBuf byteBuf, EventSchema eventSchema) {
+        int attributeCount = eventSchema.getAttributeCount();
+        int nullBitmapIndex = byteBuf.readerIndex();
+        byteBuf.skipBytes(BinaryEventConverter.getNullBitmapSize(attributeCount));
+        Object[] objects = new Object[attributeCount];
+        for (int i = 0; i < attributeCount; i++) {
+            if ((byteBuf.getByte(nullBitmapIndex + (i >> 3)) & (1 << (i & 7))) != 0) {
+                continue;
+            }
+            switch (eventSchema.getAttributeType(i)) {
+                case INT:
+                    objects[i] = byteBuf.readInt();
+                    break;
+                case LONG:
+                    objects[i] = byteBuf.readLong();
+                    break;
+                case STRING:
+                    objects[i] = getUTF8String(byteBuf, byteBuf.readInt());
+                    break;
+                case DOUBLE:
+                    objects[i] = byteBuf.readDouble();
+                    break;
+                case FLOAT:
+                    objects[i] = byteBuf.readFloat();
+                    break;
+                case BOOL:
+                    objects[i] = byteBuf.readByte() == 1;
+                    break;
+                default:
+                    // will not occur
             }
-            return objects;
-        } else {
-            return null;
         }
+        return objects;
+    }
+
+    private static String getUTF8String(ByteBuf byteBuf, int size) {
+        String value = byteBuf.toString(byteBuf.readerIndex(), size, StandardCharsets.UTF_8);
+        byteBuf.skipBytes(size);
+        return value;
     }
 
 }
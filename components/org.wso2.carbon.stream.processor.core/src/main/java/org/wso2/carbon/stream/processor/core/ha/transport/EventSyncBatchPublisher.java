@@ -0,0 +1,259 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.stream.processor.core.ha.transport;
+
+import io.netty.buffer.ByteBuf;
+import org.apache.commons.pool.impl.GenericKeyedObjectPool;
+import org.apache.log4j.Logger;
+import org.wso2.carbon.metrics.core.Level;
+import org.wso2.carbon.metrics.core.MetricService;
+import org.wso2.carbon.siddhi.metrics.core.internal.SiddhiMetricsDataHolder;
+import org.wso2.carbon.stream.processor.core.event.queue.EventSchema;
+import org.wso2.carbon.stream.processor.core.event.queue.QueuedEvent;
+import org.wso2.carbon.stream.processor.core.ha.util.HAConstants;
+import org.wso2.carbon.stream.processor.core.util.BinaryEventConverter;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.exception.ConnectionUnavailableException;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coalesces the events synced to the passive node into micro batches. A batch is sent to the passive node once it
+ * reaches the configured batch size, or when the batch timeout elapses, whichever comes first.
+ */
+public class EventSyncBatchPublisher {
+    private static final Logger log = Logger.getLogger(EventSyncBatchPublisher.class);
+    private static final int BATCH_COUNT_LOG_THRESHOLD = 10000;
+    private static final String METRIC_PREFIX = "org.wso2.carbon.stream.processor.core.ha.event.sync.";
+    private static final String BATCH_COUNT_METRIC = METRIC_PREFIX + "batches";
+    private static final String BATCH_SIZE_METRIC = METRIC_PREFIX + "batch.size";
+    private final int batchSize;
+    private final long batchTimeoutMillis;
+    private final AtomicLong sequenceIDGenerator;
+    private final BatchSender batchSender;
+    private final QueuedEvent[] pendingEvents;
+    private int pendingEventCount = 0;
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong syncedEventCount = new AtomicLong();
+    private ScheduledExecutorService scheduledExecutorService;
+
+    public EventSyncBatchPublisher(int batchSize, long batchTimeoutMillis, AtomicLong sequenceIDGenerator) {
+        this(batchSize, batchTimeoutMillis, sequenceIDGenerator, null);
+    }
+
+    /**
+     * @param batchSender sends the batches instead of the connection pool to the passive node, if not null
+     */
+    public EventSyncBatchPublisher(int batchSize, long batchTimeoutMillis, AtomicLong sequenceIDGenerator,
+                                   BatchSender batchSender) {
+        this.batchSize = batchSize;
+        this.batchTimeoutMillis = batchTimeoutMillis;
+        this.sequenceIDGenerator = sequenceIDGenerator;
+        this.batchSender = (batchSender != null) ? batchSender : this::sendToPassiveNode;
+        this.pendingEvents = new QueuedEvent[batchSize];
+    }
+
+    public synchronized void start() {
+        if (scheduledExecutorService == null) {
+            scheduledExecutorService = Executors.newSingleThreadScheduledExecutor();
+            scheduledExecutorService.scheduleAtFixedRate(() -> {
+                try {
+                    flush();
+                } catch (Throwable t) {
+                    log.error("Error in sending the pending event batch to the passive node. " + t.getMessage(), t);
+                }
+            }, batchTimeoutMillis, batchTimeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops the periodic flushing and sends the events which are still pending, so that they are not lost when the
+     * node changes its HA state or shuts down.
+     */
+    public void stop() {
+        synchronized (this) {
+            if (scheduledExecutorService != null) {
+                scheduledExecutorService.shutdownNow();
+                scheduledExecutorService = null;
+            }
+        }
+        flush();
+    }
+
+    public synchronized void publish(EventSchema eventSchema, Event event) {
+        pendingEvents[pendingEventCount++] = new QueuedEvent(eventSchema, sequenceIDGenerator.incrementAndGet(), event);
+        if (pendingEventCount == batchSize) {
+            send(takePendingEvents());
+        }
+    }
+
+    public synchronized void publish(EventSchema eventSchema, Event[] events) {
+        if (pendingEventCount > 0 && (events.length >= batchSize || pendingEventCount + events.length > batchSize)) {
+            send(takePendingEvents());
+        }
+        if (events.length >= batchSize) {
+            // Event array is already large enough to be a batch on its own
+            QueuedEvent[] eventBatch = new QueuedEvent[events.length];
+            for (int i = 0; i < events.length; i++) {
+                eventBatch[i] = new QueuedEvent(eventSchema, sequenceIDGenerator.incrementAndGet(), events[i]);
+            }
+            send(eventBatch);
+            return;
+        }
+        for (Event event : events) {
+            pendingEvents[pendingEventCount++] = new QueuedEvent(eventSchema, sequenceIDGenerator.incrementAndGet(),
+                    event);
+        }
+    }
+
+    /**
+     * Sends the pending events to the passive node without waiting for the batch to be filled.
+     */
+    public synchronized void flush() {
+        if (pendingEventCount > 0) {
+            send(takePendingEvents());
+        }
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    public long getSyncedEventCount() {
+        return syncedEventCount.get();
+    }
+
+    private QueuedEvent[] takePendingEvents() {
+        QueuedEvent[] batch = Arrays.copyOf(pendingEvents, pendingEventCount);
+        Arrays.fill(pendingEvents, 0, pendingEventCount, null);
+        pendingEventCount = 0;
+        return batch;
+    }
+
+    /**
+     * Sends the given batch while holding the lock of the publisher, so that the batches are written to the passive
+     * node in the order of their sequence ids. Only the write is enqueued on the connection, it is flushed to the
+     * network asynchronously.
+     */
+    private void send(QueuedEvent[] batch) {
+        if (batchSender.send(batch)) {
+            updateBatchCount(batch.length);
+        }
+    }
+
+    private boolean sendToPassiveNode(QueuedEvent[] batch) {
+        GenericKeyedObjectPool connectionPool = EventSyncConnectionPoolManager.getConnectionPool();
+        EventSyncConnection eventSyncConnection;
+        try {
+            eventSyncConnection = (EventSyncConnection) connectionPool.borrowObject(
+                    HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID);
+        } catch (Exception e) {
+            log.warn("Error in obtaining a tcp connection to the passive node. Hence not sending events to the " +
+                    "passive node. " + e.getMessage());
+            return false;
+        }
+        try {
+            if (sendEventSchemas(eventSyncConnection, batch)) {
+                ByteBuf messageBuffer = eventSyncConnection.allocateMessageBuffer(HAConstants.CHANNEL_ID_MESSAGE,
+                        BinaryEventConverter.getMessageSize(batch));
+                try {
+                    BinaryEventConverter.convertToBinaryMessage(batch, messageBuffer);
+                } catch (RuntimeException e) {
+                    messageBuffer.release();
+                    throw e;
+                }
+                eventSyncConnection.send(HAConstants.CHANNEL_ID_MESSAGE, messageBuffer);
+                return true;
+            }
+        } catch (ConnectionUnavailableException e) {
+            log.error("Error in sending events to the passive node. " + e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("Error in converting events to binary message.Hence not sending message to the passive node", e);
+        } finally {
+            try {
+                connectionPool.returnObject(HAConstants.ACTIVE_NODE_CONNECTION_POOL_ID, eventSyncConnection);
+            } catch (Exception e) {
+                log.error("Error in returning the tcpClient connection object to the pool. ", e);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sends the event schemas of the given batch which are not already sent through the given connection, so that
+     * the events sent afterwards through the same connection can refer them by the schema id.
+     *
+     * @param eventSyncConnection connection to the passive node
+     * @param batch               events to be sent
+     * @return true if the passive node has all the event schemas of the batch
+     */
+    private boolean sendEventSchemas(EventSyncConnection eventSyncConnection, QueuedEvent[] batch) {
+        EventSchema lastEventSchema = null;
+        for (QueuedEvent queuedEvent : batch) {
+            EventSchema eventSchema = queuedEvent.getEventSchema();
+            if (eventSchema == lastEventSchema || eventSyncConnection.isSchemaSent(eventSchema.getSchemaId())) {
+                lastEventSchema = eventSchema;
+                continue;
+            }
+            try {
+                ByteBuf messageBuffer = eventSyncConnection.allocateMessageBuffer(
+                        HAConstants.CHANNEL_ID_SCHEMA_MESSAGE, BinaryEventConverter.getMessageSize(eventSchema));
+                BinaryEventConverter.convertToBinaryMessage(eventSchema, messageBuffer);
+                eventSyncConnection.send(HAConstants.CHANNEL_ID_SCHEMA_MESSAGE, messageBuffer);
+                eventSyncConnection.setSchemaSent(eventSchema.getSchemaId());
+                lastEventSchema = eventSchema;
+            } catch (ConnectionUnavailableException e) {
+                log.error("Error in sending the event schema to the passive node. Hence not sending events to the " +
+                        "passive node. " + e.getMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void updateBatchCount(int eventCount) {
+        long totalBatchCount = batchCount.incrementAndGet();
+        long totalEventCount = syncedEventCount.addAndGet(eventCount);
+        MetricService metricService = SiddhiMetricsDataHolder.getInstance().getMetricService();
+        if (metricService != null) {
+            metricService.counter(BATCH_COUNT_METRIC, Level.INFO).inc();
+            metricService.histogram(BATCH_SIZE_METRIC, Level.INFO).update(eventCount);
+        }
+        if (log.isDebugEnabled() && totalBatchCount % BATCH_COUNT_LOG_THRESHOLD == 0) {
+            log.debug("Event batches sent to the passive node : " + totalBatchCount + " Events sent to the passive " +
+                    "node : " + totalEventCount + " Average batch size : " + (totalEventCount / totalBatchCount));
+        }
+    }
+
+    /**
+     * Sends a batch of events to the passive node.
+     */
+    public interface BatchSender {
+
+        /**
+         * @param batch events to be sent
+         * @return true if the batch was sent
+         */
+        boolean send(QueuedEvent[] batch);
+    }
+}
@@ -19,6 +19,8 @@
 package org.wso2.carbon.stream.processor.core.ha.transport;
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
@@ -33,6 +35,8 @@ import org.apache.log4j.Logger;
 import org.wso2.carbon.stream.processor.core.ha.transport.handlers.MessageEncoder;
 import org.wso2.siddhi.core.exception.ConnectionUnavailableException;
 
+import java.util.HashSet;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -46,6 +50,7 @@ public class EventSyncConnection {
     private Channel channel;
     private String sessionId;
     private String hostAndPort;
+    private Set<Integer> sentSchemaIds = new HashSet<>();
 
     public EventSyncConnection() {
         this(0, true, true);
@@ -58,6 +63,7 @@ public class EventSyncConnection {
                 .channel(NioSocketChannel.class)
                 .option(ChannelOption.SO_KEEPALIVE, keepAlive)
                 .option(ChannelOption.TCP_NODELAY, noDelay)
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
                 .handler(new ChannelInitializer<SocketChannel>() {
                     @Override
                     protected void initChannel(SocketChannel ch) throws Exception {
@@ -73,6 +79,7 @@ public class EventSyncConnection {
             hostAndPort = host + ":" + port;
             channel = bootstrap.connect(host, port).sync().channel();
             sessionId = UUID.randomUUID() + "-" + hostAndPort;
+            sentSchemaIds.clear();
         } catch (Throwable e) {
             throw new ConnectionUnavailableException("Error connecting to '" + hostAndPort + "', " + e.getMessage(), e);
         }
@@ -80,7 +87,39 @@ public class EventSyncConnection {
 
     public ChannelFuture send(final String channelId, final byte[] message) throws ConnectionUnavailableException {
         EventComposite eventComposite = new EventComposite(sessionId, channelId, message);
-        ChannelFuture future = channel.writeAndFlush(eventComposite);
+        return handleSendFuture(channelId, channel.writeAndFlush(eventComposite));
+    }
+
+    /**
+     * Allocates a pooled direct buffer for a message of the given channel, with the message header already written.
+     * The message data should be written to the returned buffer before sending it with
+     * {@link #send(String, ByteBuf)}.
+     *
+     * @param channelId  channel id of the message
+     * @param dataLength exact length of the message data
+     * @return buffer to write the message data to
+     */
+    public ByteBuf allocateMessageBuffer(String channelId, int dataLength) {
+        ByteBuf messageBuffer = channel.alloc().directBuffer(MessageEncoder.getHeaderSize(channelId) + dataLength);
+        MessageEncoder.writeHeader(channelId, dataLength, messageBuffer);
+        return messageBuffer;
+    }
+
+    /**
+     * Sends a message buffer obtained from {@link #allocateMessageBuffer(String, int)}. The buffer is released once
+     * it is written to the channel.
+     *
+     * @param channelId     channel id of the message
+     * @param messageBuffer buffer containing the message
+     * @return future of the write operation
+     * @throws ConnectionUnavailableException if the message could not be written to the channel
+     */
+    public ChannelFuture send(final String channelId, ByteBuf messageBuffer) throws ConnectionUnavailableException {
+        return handleSendFuture(channelId, channel.writeAndFlush(messageBuffer));
+    }
+
+    private ChannelFuture handleSendFuture(final String channelId, ChannelFuture future)
+            throws ConnectionUnavailableException {
         future.addListener(new ChannelFutureListener() {
             @Override
             public void operationComplete(ChannelFuture future) throws Exception {
@@ -98,6 +137,21 @@ public class EventSyncConnection {
         return future;
     }
 
+    /**
+     * Checks whether the given event schema is already sent through this connection. Connection is used by a
+     * single thread at a time as it is borrowed from the pool, hence this is not synchronized.
+     *
+     * @param schemaId id of the event schema
+     * @return true if the schema is already sent to the passive node through this connection
+     */
+    public boolean isSchemaSent(int schemaId) {
+        return sentSchemaIds.contains(schemaId);
+    }
+
+    public void setSchemaSent(int schemaId) {
+        sentSchemaIds.add(schemaId);
+    }
+
     public void disconnect() {
         if (channel != null && channel.isOpen()) {
             try {
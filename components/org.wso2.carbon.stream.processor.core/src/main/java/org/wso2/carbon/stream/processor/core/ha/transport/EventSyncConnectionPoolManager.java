@@ -31,6 +31,7 @@ import java.util.concurrent.atomic.AtomicLong;
 public class EventSyncConnectionPoolManager {
     private static GenericKeyedObjectPool connectionPool;
     private static AtomicLong sequenceID = new AtomicLong();
+    private static EventSyncBatchPublisher eventSyncBatchPublisher;
 
 
     public static void initializeConnectionPool(String host, int port, DeploymentConfig deploymentConfig) {
@@ -39,6 +40,26 @@ public class EventSyncConnectionPoolManager {
         initializeConnectionPool(eventSyncConnectionPoolFactory, eventSyncClientPoolConfig.getMaxActive(), eventSyncClientPoolConfig.getMaxTotal(),
                 eventSyncClientPoolConfig.getMaxIdle(), eventSyncClientPoolConfig.getMaxWait(),
                 eventSyncClientPoolConfig.getMinEvictableIdleTimeMillis());
+        initializeBatchPublisher(deploymentConfig.getEventSyncBatchSize(),
+                deploymentConfig.getEventSyncBatchTimeout());
+    }
+
+    public synchronized static void initializeBatchPublisher(int batchSize, long batchTimeoutMillis) {
+        if (eventSyncBatchPublisher == null) {
+            eventSyncBatchPublisher = new EventSyncBatchPublisher(batchSize, batchTimeoutMillis, sequenceID);
+            eventSyncBatchPublisher.start();
+        }
+    }
+
+    /**
+     * Stops the batch publisher after sending its pending events. A new publisher is created when the connection
+     * pool is initialized again.
+     */
+    public synchronized static void shutdownBatchPublisher() {
+        if (eventSyncBatchPublisher != null) {
+            eventSyncBatchPublisher.stop();
+            eventSyncBatchPublisher = null;
+        }
     }
 
     public synchronized static void initializeConnectionPool(EventSyncConnectionPoolFactory factory,
@@ -65,6 +86,10 @@ public class EventSyncConnectionPoolManager {
         return connectionPool;
     }
 
+    public static EventSyncBatchPublisher getEventSyncBatchPublisher() {
+        return eventSyncBatchPublisher;
+    }
+
     public static AtomicLong getSequenceID() {
         return sequenceID;
     }
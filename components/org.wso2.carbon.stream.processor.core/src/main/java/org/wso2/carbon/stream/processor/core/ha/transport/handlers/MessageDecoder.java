@@ -22,10 +22,12 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import org.apache.log4j.Logger;
+import org.wso2.carbon.stream.processor.core.event.queue.EventSchema;
+import org.wso2.carbon.stream.processor.core.event.queue.EventSchemaRegistry;
+import org.wso2.carbon.stream.processor.core.ha.tcp.SiddhiEventConverter;
 import org.wso2.carbon.stream.processor.core.ha.util.HAConstants;
-import org.wso2.carbon.stream.processor.core.util.BinaryMessageConverterUtil;
 
-import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
@@ -34,36 +36,61 @@ import java.util.concurrent.BlockingQueue;
  * Byte to message decoder.
  */
 public class MessageDecoder extends ByteToMessageDecoder {
-    private BlockingQueue<ByteBuffer> byteBufferQueue;
+    private BlockingQueue<ByteBuf> byteBufQueue;
     private static long startTime;
     private static long endTime;
     private static int count = 0;
     private static final int TPS_EVENT_BATCH_THRESHOLD = 10000;
     private static final Logger log = Logger.getLogger(MessageDecoder.class);
+    private static final byte[] SCHEMA_CHANNEL_ID = HAConstants.CHANNEL_ID_SCHEMA_MESSAGE.getBytes(
+            StandardCharsets.UTF_8);
+    /**
+     * Messages up to this size which are followed by more received bytes are copied, instead of being sliced.
+     */
+    private static final int MAX_COPIED_MESSAGE_SIZE = 64 * 1024;
 
-    public MessageDecoder(BlockingQueue<ByteBuffer> byteBufferQueue) {
-        this.byteBufferQueue = byteBufferQueue;
+    public MessageDecoder(BlockingQueue<ByteBuf> byteBufQueue) {
+        this.byteBufQueue = byteBufQueue;
     }
 
+    /**
+     * Hands over each received message to the event buffer extractors, which release it once it is processed.
+     * <p>
+     * A retained slice keeps the whole cumulation buffer of the decoder alive until it is released, which makes the
+     * decoder copy the cumulation to append the bytes received afterwards. Hence only the messages which are large,
+     * or which are the last bytes received, are handed over as retained slices. The other messages are copied into
+     * their own buffer, so that the cumulation is not held by them.
+     */
     @Override
     protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
-        if (in.readableBytes() < 5) {
+        if (in.readableBytes() < HAConstants.PROTOCOL_AND_MESSAGE_BYTE_LENGTH) {
             return;
         }
+        int frameStartIndex = in.readerIndex();
         int protocol = in.readByte();
         int messageSize = in.readInt();
         if (protocol != 2 || messageSize > in.readableBytes()) {
-            in.resetReaderIndex();
+            in.readerIndex(frameStartIndex);
             return;
         }
-        byte[] bytes = new byte[messageSize];
-        in.readBytes(bytes);
-        in.markReaderIndex();
-        in.resetReaderIndex();
+        if (isSchemaMessage(in)) {
+            // Event schemas are registered in the I/O thread itself, so that they are available before the events
+            // received afterwards in the same connection are processed by the event buffer extractors.
+            registerEventSchema(in.readSlice(messageSize));
+            return;
+        }
+        ByteBuf message;
+        if (messageSize > MAX_COPIED_MESSAGE_SIZE || messageSize == in.readableBytes()) {
+            message = in.readRetainedSlice(messageSize);
+        } else {
+            message = ctx.alloc().buffer(messageSize);
+            in.readBytes(message, messageSize);
+        }
         try {
-            byteBufferQueue.put(ByteBuffer.wrap(bytes));
+            byteBufQueue.put(message);
         } catch (InterruptedException e) {
-            log.error("Error while waiting for the insertion of ByteBufferQueue " + e.getMessage(), e);
+            message.release();
+            log.error("Error while waiting for the insertion of ByteBufQueue " + e.getMessage(), e);
         }
         if (log.isDebugEnabled()) {
             synchronized (this) {
@@ -79,6 +106,29 @@ public class MessageDecoder extends ByteToMessageDecoder {
                 }
             }
         }
-        in.markReaderIndex();
+    }
+
+    private static boolean isSchemaMessage(ByteBuf in) {
+        int messageStartIndex = in.readerIndex();
+        int channelIdSize = in.getInt(messageStartIndex);
+        if (channelIdSize != SCHEMA_CHANNEL_ID.length) {
+            return false;
+        }
+        for (int i = 0; i < channelIdSize; i++) {
+            if (in.getByte(messageStartIndex + 4 + i) != SCHEMA_CHANNEL_ID[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void registerEventSchema(ByteBuf message) {
+        message.skipBytes(4 + SCHEMA_CHANNEL_ID.length + 4);
+        EventSchema eventSchema = SiddhiEventConverter.getEventSchema(message);
+        EventSchemaRegistry.addReceivedSchema(eventSchema);
+        if (log.isDebugEnabled()) {
+            log.debug("Received event schema " + eventSchema.getSchemaId() + " of source handler " +
+                    eventSchema.getSourceHandlerElementId() + " in Siddhi app " + eventSchema.getSiddhiAppName());
+        }
     }
 }
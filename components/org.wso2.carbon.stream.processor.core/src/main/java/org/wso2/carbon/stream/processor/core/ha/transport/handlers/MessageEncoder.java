@@ -19,6 +19,7 @@
 package org.wso2.carbon.stream.processor.core.ha.transport.handlers;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
 import org.wso2.carbon.stream.processor.core.ha.transport.EventComposite;
@@ -31,17 +32,30 @@ public class MessageEncoder extends MessageToByteEncoder<EventComposite> {
     @Override
     protected void encode(ChannelHandlerContext channelHandlerContext, EventComposite eventComposite,
                           ByteBuf byteBuf) throws Exception {
-        String streamId = eventComposite.getChannelId();
-        int dataLength = eventComposite.getMessage().length;
+        byte[] message = eventComposite.getMessage();
+        writeHeader(eventComposite.getChannelId(), message.length, byteBuf);
+        byteBuf.writeBytes(message);
+    }
+
+    public static int getHeaderSize(String channelId) {
+        return 1 + 4 + 4 + channelId.length() + 4;
+    }
 
-        int messageSize = 4 + streamId.length() + 4 + dataLength;
+    /**
+     * Writes the protocol, message size and channel id of a message, followed by the length of its data.
+     *
+     * @param channelId  channel id of the message
+     * @param dataLength length of the data written after the header
+     * @param byteBuf    buffer the header is written to
+     */
+    public static void writeHeader(String channelId, int dataLength, ByteBuf byteBuf) {
+        int messageSize = 4 + channelId.length() + 4 + dataLength;
 
         byteBuf.writeByte((byte) 2);  //1
         byteBuf.writeInt(messageSize); //4
-        byteBuf.writeInt(streamId.length()); //4
-        byteBuf.writeBytes(streamId.getBytes("UTF-8"));
+        byteBuf.writeInt(channelId.length()); //4
+        ByteBufUtil.writeAscii(byteBuf, channelId);
         byteBuf.writeInt(dataLength); //4
-        byteBuf.writeBytes(eventComposite.getMessage());
     }
 
 }
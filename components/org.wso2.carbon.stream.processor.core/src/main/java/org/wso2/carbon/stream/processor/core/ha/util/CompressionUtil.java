@@ -18,39 +18,100 @@
 
 package org.wso2.carbon.stream.processor.core.ha.util;
 
+import org.wso2.carbon.stream.processor.core.persistence.codec.GzipSnapshotCodec;
+import org.wso2.carbon.stream.processor.core.persistence.codec.SnapshotCodec;
+import org.wso2.carbon.stream.processor.core.persistence.codec.SnapshotCodecFactory;
+
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
 
 /**
  * CompressionUtil class that holds compression and decompression algorithms.
+ * <p>
+ * Data compressed with a {@link SnapshotCodec} other than GZIP is prefixed with a header made of {@link #MAGIC}
+ * and the codec id. Data without the header is GZIP compressed, which keeps the data written by the earlier
+ * versions readable.
  */
 public class CompressionUtil {
+    private static final byte[] MAGIC = {'S', 'P', 'C'};
+    private static final int HEADER_SIZE = MAGIC.length + 1;
+    private static final int SCRATCH_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_SIZE_HINT = 64 * 1024 * 1024;
+    private static final ThreadLocal<byte[]> scratchBuffer = ThreadLocal.withInitial(
+            () -> new byte[SCRATCH_BUFFER_SIZE]);
 
     public static byte[] compressGZIP(byte[] data) throws IOException {
-        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-        GZIPOutputStream gzip = new GZIPOutputStream(byteArrayOutputStream);
-        gzip.write(data);
-        gzip.close();
-        byteArrayOutputStream.close();
-        return byteArrayOutputStream.toByteArray();
+        return compress(data, SnapshotCodecFactory.getDefaultCodec());
     }
 
     public static byte[] decompressGZIP(byte[] data) throws IOException {
-        byte[] uncompressedBytes = new byte[1000000];
-        InputStream inputStream = new ByteArrayInputStream(data);
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        return decompress(data);
+    }
+
+    public static byte[] compress(byte[] data, SnapshotCodec snapshotCodec) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream(data.length / 4 + HEADER_SIZE);
+        try (OutputStream outputStream = compress(byteArrayOutputStream, snapshotCodec)) {
+            outputStream.write(data);
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+    /**
+     * Writes the header of the codec and wraps the given stream with it. Closing the returned stream completes the
+     * compressed data and closes the given stream.
+     */
+    public static OutputStream compress(OutputStream outputStream, SnapshotCodec snapshotCodec) throws IOException {
+        if (snapshotCodec.getId() != GzipSnapshotCodec.ID) {
+            outputStream.write(MAGIC);
+            outputStream.write(snapshotCodec.getId());
+        }
+        return snapshotCodec.compress(outputStream);
+    }
+
+    public static byte[] decompress(byte[] data) throws IOException {
+        try (InputStream inputStream = decompress(new ByteArrayInputStream(data))) {
+            return readFully(inputStream, data.length * 4L);
+        }
+    }
+
+    /**
+     * Reads the header from the given stream and wraps the stream with the codec the data was compressed with.
+     */
+    public static InputStream decompress(InputStream inputStream) throws IOException {
+        PushbackInputStream pushbackInputStream = new PushbackInputStream(inputStream, HEADER_SIZE);
+        byte[] header = new byte[HEADER_SIZE];
+        int headerLength = 0;
+        int length;
+        while (headerLength < HEADER_SIZE &&
+                (length = pushbackInputStream.read(header, headerLength, HEADER_SIZE - headerLength)) > 0) {
+            headerLength += length;
+        }
+        if (headerLength == HEADER_SIZE && header[0] == MAGIC[0] && header[1] == MAGIC[1] &&
+                header[2] == MAGIC[2]) {
+            SnapshotCodec snapshotCodec = SnapshotCodecFactory.getCodec(header[MAGIC.length]);
+            if (snapshotCodec == null) {
+                throw new IOException("Unknown compression codec id " + header[MAGIC.length]);
+            }
+            return snapshotCodec.decompress(pushbackInputStream);
+        }
+        pushbackInputStream.unread(header, 0, headerLength);
+        return SnapshotCodecFactory.getDefaultCodec().decompress(pushbackInputStream);
+    }
 
-        GZIPInputStream gzip = new GZIPInputStream(inputStream);
+    /**
+     * Reads the given stream to the end using a scratch buffer reused by the calling thread.
+     */
+    public static byte[] readFully(InputStream inputStream, long sizeHint) throws IOException {
+        byte[] buffer = scratchBuffer.get();
+        ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.max(Math.min(sizeHint, MAX_SIZE_HINT), 32));
         int len;
-        while ((len = gzip.read(uncompressedBytes)) > 0) {
-            out.write(uncompressedBytes, 0, len);
+        while ((len = inputStream.read(buffer)) > 0) {
+            out.write(buffer, 0, len);
         }
-        gzip.close();
-        inputStream.close();
         return out.toByteArray();
     }
 }
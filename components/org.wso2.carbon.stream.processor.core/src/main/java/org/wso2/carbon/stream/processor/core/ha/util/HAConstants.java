@@ -22,6 +22,7 @@ public class HAConstants {
     public static final int EVENT_BUFFER_EXTRACTOR_THREAD_POOL_SIZE = 5;
     public static final String CHANNEL_ID_MESSAGE = "eventMessage";
     public static final String CHANNEL_ID_CONTROL_MESSAGE = "controlMessage";
+    public static final String CHANNEL_ID_SCHEMA_MESSAGE = "schemaMessage";
     public static final String PERSISTED_APP_SPLIT_DELIMITER = "__";
     public static final int PROTOCOL_AND_MESSAGE_BYTE_LENGTH = 5;
     public static final String DEFAULT_CHARSET = "UTF-8";
@@ -30,6 +31,8 @@ public class HAConstants {
     public static final String PORT = "port";
     public static final String ADVERTISED_HOST = "advertisedHost";
     public static final String ADVERTISED_PORT = "advertisedPort";
+    public static final String EVENT_BUFFER_DIRECTORY = "ha-event-buffer";
+    public static final int EVENT_REPLAY_BATCH_SIZE = 1000;
 
 
 }
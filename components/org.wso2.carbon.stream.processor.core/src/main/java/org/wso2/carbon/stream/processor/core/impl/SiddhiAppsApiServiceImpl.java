@@ -65,6 +65,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import javax.ws.rs.core.Response;
 
 
@@ -79,6 +83,7 @@ public class SiddhiAppsApiServiceImpl extends SiddhiAppsApiService {
     private static final String PERMISSION_APP_NAME = "SAPP";
     private static final String MANAGE_SIDDHI_APP_PERMISSION_STRING = "siddhiApp.manage";
     private static final String VIEW_SIDDHI_APP_PERMISSION_STRING = "siddhiApp.view";
+    private static final long PERSISTENCE_TIMEOUT_MILLIS = 60000;
 
     public Response siddhiAppsPost(String body) throws NotFoundException {
         String jsonString;
@@ -242,15 +247,23 @@ public class SiddhiAppsApiServiceImpl extends SiddhiAppsApiService {
         return Response.status(Response.Status.NOT_FOUND).entity(jsonString).build();
     }
 
-    public Response siddhiAppsAppNameBackupPost(String appName) throws NotFoundException {
+    public Response siddhiAppsAppNameBackupPost(String appName, boolean pauseSources) throws NotFoundException {
         String jsonString;
         Response.Status status = Response.Status.OK;
+        SiddhiAppRuntime siddhiAppRuntime = null;
 
         try {
-            SiddhiAppRuntime siddhiAppRuntime = StreamProcessorDataHolder.getSiddhiManager().
-                    getSiddhiAppRuntime(appName);
+            siddhiAppRuntime = StreamProcessorDataHolder.getSiddhiManager().getSiddhiAppRuntime(appName);
             if (siddhiAppRuntime != null) {
+                if (pauseSources) {
+                    // Stop consuming so that no event is processed after the snapshot, which is then handed over
+                    // to another node. The sources are kept paused once the state is persisted.
+                    pauseSources(siddhiAppRuntime);
+                }
                 PersistenceReference persistenceReference = siddhiAppRuntime.persist();
+                if (pauseSources) {
+                    waitForPersistence(persistenceReference);
+                }
                 SiddhiAppRevision siddhiAppRevision = new SiddhiAppRevision();
                 siddhiAppRevision.setrevision(persistenceReference.getRevision());
                 return Response.status(Response.Status.CREATED).entity(siddhiAppRevision).build();
@@ -262,6 +275,9 @@ public class SiddhiAppsApiServiceImpl extends SiddhiAppsApiService {
             }
         } catch (Exception e) {
             log.error("Exception occurred when backup the state for Siddhi App : " + appName, e);
+            if (pauseSources && siddhiAppRuntime != null) {
+                resumeSources(siddhiAppRuntime);
+            }
             jsonString = new Gson().
                     toJson(new ApiResponseMessageWithCode(ApiResponseMessageWithCode.FILE_PROCESSING_ERROR,
                             e.getMessage()));
@@ -271,6 +287,36 @@ public class SiddhiAppsApiServiceImpl extends SiddhiAppsApiService {
         return Response.status(status).entity(jsonString).build();
     }
 
+    private void pauseSources(SiddhiAppRuntime siddhiAppRuntime) {
+        for (List<Source> sources : siddhiAppRuntime.getSources()) {
+            for (Source source : sources) {
+                source.pause();
+            }
+        }
+    }
+
+    private void resumeSources(SiddhiAppRuntime siddhiAppRuntime) {
+        for (List<Source> sources : siddhiAppRuntime.getSources()) {
+            for (Source source : sources) {
+                source.resume();
+            }
+        }
+    }
+
+    /**
+     * Waits until the snapshot referred by the given reference is saved in the persistence store.
+     */
+    private void waitForPersistence(PersistenceReference persistenceReference) throws InterruptedException,
+            ExecutionException, TimeoutException {
+        if (persistenceReference.getFullStateFuture() != null) {
+            persistenceReference.getFullStateFuture().get(PERSISTENCE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        } else if (persistenceReference.getIncrementalStateFuture() != null) {
+            for (Future future : persistenceReference.getIncrementalStateFuture()) {
+                future.get(PERSISTENCE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
     public Response siddhiAppsAppNameRestorePost(String appName, String revision)
             throws NotFoundException {
 
@@ -917,14 +963,15 @@ public class SiddhiAppsApiServiceImpl extends SiddhiAppsApiService {
     }
 
     @Override
-    public Response siddhiAppsAppNameBackupPost(String appName, Request request) throws NotFoundException {
+    public Response siddhiAppsAppNameBackupPost(String appName, String pauseSources, Request request)
+            throws NotFoundException {
 
         if (getUserName(request) != null && !getPermissionProvider().hasPermission(getUserName(request), new
                 Permission(PERMISSION_APP_NAME, MANAGE_SIDDHI_APP_PERMISSION_STRING))) {
             return Response.status(Response.Status.UNAUTHORIZED).entity("Insufficient permissions to backup current " +
                     "state of the Siddhi App" + appName).build();
         }
-        return siddhiAppsAppNameBackupPost(appName);
+        return siddhiAppsAppNameBackupPost(appName, Boolean.parseBoolean(pauseSources));
 
     }
 
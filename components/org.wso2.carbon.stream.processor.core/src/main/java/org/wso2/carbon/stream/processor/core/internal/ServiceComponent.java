@@ -46,6 +46,7 @@ import org.wso2.carbon.stream.processor.common.SiddhiAppRuntimeService;
 import org.wso2.carbon.stream.processor.core.distribution.DistributionService;
 import org.wso2.carbon.stream.processor.core.ha.HAManager;
 import org.wso2.carbon.stream.processor.core.ha.exception.HAModeException;
+import org.wso2.carbon.stream.processor.core.ha.transport.EventSyncConnectionPoolManager;
 import org.wso2.carbon.stream.processor.core.ha.util.CoordinationConstants;
 import org.wso2.carbon.stream.processor.core.internal.beans.DeploymentConfig;
 import org.wso2.carbon.stream.processor.core.internal.util.SiddhiAppProcessorConstants;
@@ -140,6 +141,7 @@ public class ServiceComponent {
 
             int persistenceInterval = persistenceConfigurations.getIntervalInMin();
             scheduledExecutorService = Executors.newScheduledThreadPool(1);
+            PersistenceManager.startPersistenceExecutor(persistenceConfigurations.getPersistenceThreadPoolSize());
 
             if (persistenceInterval > 0) {
                 scheduledFuture = scheduledExecutorService.scheduleAtFixedRate(new PersistenceManager(),
@@ -233,6 +235,8 @@ public class ServiceComponent {
         if (scheduledExecutorService != null) {
             scheduledExecutorService.shutdown();
         }
+        PersistenceManager.stopPersistenceExecutor();
+        EventSyncConnectionPoolManager.shutdownBatchPublisher();
 
         streamServiceRegistration.unregister();
         siddhiAppRuntimeServiceRegistration.unregister();
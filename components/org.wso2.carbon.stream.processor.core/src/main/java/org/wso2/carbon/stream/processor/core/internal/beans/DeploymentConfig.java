@@ -33,6 +33,18 @@ public class DeploymentConfig {
     private EventSyncClientPoolConfig eventSyncClientPool = new EventSyncClientPoolConfig();
     @Element(description = "Pool of threads to retrieve bytes from byte buffer queue", required = false)
     private int byteBufferExtractorThreadPoolSize = 5;
+    @Element(description = "Maximum number of events sent to the passive node in one batch", required = false)
+    private int eventSyncBatchSize = 1000;
+    @Element(description = "Maximum time in milliseconds an event waits for its batch to be sent to the passive node",
+            required = false)
+    private long eventSyncBatchTimeout = 10;
+    @Element(description = "Maximum number of synced events of a Siddhi app kept in memory by the passive node " +
+            "before they are spilled to disk, 0 to keep all events in memory", required = false)
+    private int eventListMapCapacity = 100000;
+    @Element(description = "Size in megabytes of a segment file holding the spilled events", required = false)
+    private int eventBufferSegmentSize = 64;
+    @Element(description = "Directory to which the passive node spills the synced events", required = false)
+    private String eventBufferDirectory;
 
     public String getType() {
         return type;
@@ -78,4 +90,44 @@ public class DeploymentConfig {
 
         this.byteBufferExtractorThreadPoolSize = byteBufferExtractorThreadPoolSize;
     }
+
+    public int getEventSyncBatchSize() {
+        return eventSyncBatchSize;
+    }
+
+    public void setEventSyncBatchSize(int eventSyncBatchSize) {
+        this.eventSyncBatchSize = eventSyncBatchSize;
+    }
+
+    public long getEventSyncBatchTimeout() {
+        return eventSyncBatchTimeout;
+    }
+
+    public void setEventSyncBatchTimeout(long eventSyncBatchTimeout) {
+        this.eventSyncBatchTimeout = eventSyncBatchTimeout;
+    }
+
+    public int getEventListMapCapacity() {
+        return eventListMapCapacity;
+    }
+
+    public void setEventListMapCapacity(int eventListMapCapacity) {
+        this.eventListMapCapacity = eventListMapCapacity;
+    }
+
+    public int getEventBufferSegmentSize() {
+        return eventBufferSegmentSize;
+    }
+
+    public void setEventBufferSegmentSize(int eventBufferSegmentSize) {
+        this.eventBufferSegmentSize = eventBufferSegmentSize;
+    }
+
+    public String getEventBufferDirectory() {
+        return eventBufferDirectory;
+    }
+
+    public void setEventBufferDirectory(String eventBufferDirectory) {
+        this.eventBufferDirectory = eventBufferDirectory;
+    }
 }
@@ -21,12 +21,18 @@ package org.wso2.carbon.stream.processor.core.persistence;
 import com.google.common.io.Files;
 import org.apache.log4j.Logger;
 import org.wso2.carbon.stream.processor.core.ha.util.CompressionUtil;
+import org.wso2.carbon.stream.processor.core.persistence.codec.SnapshotCodec;
+import org.wso2.carbon.stream.processor.core.persistence.codec.SnapshotCodecFactory;
 import org.wso2.carbon.stream.processor.core.persistence.util.PersistenceConstants;
 import org.wso2.siddhi.core.exception.CannotClearSiddhiAppStateException;
 import org.wso2.siddhi.core.util.persistence.PersistenceStore;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Map;
 
 /**
@@ -37,28 +43,28 @@ public class FileSystemPersistenceStore implements PersistenceStore {
     private static final Logger log = Logger.getLogger(FileSystemPersistenceStore.class);
     private int numberOfRevisionsToSave;
     private String folder;
+    private SnapshotCodec snapshotCodec = SnapshotCodecFactory.getDefaultCodec();
 
     @Override
     public void save(String siddhiAppName, String revision, byte[] snapshot) {
         File file = new File(folder + File.separator + siddhiAppName + File.separator + revision);
-        byte[] compressedSnapshot;
-        try {
-            compressedSnapshot = CompressionUtil.compressGZIP(snapshot);
-        } catch (IOException e) {
-            log.error("Error occurred while trying to compress the snapshot. Failed to " +
-                    "persist revision: " + revision + " of Siddhi app: " + siddhiAppName);
-            return;
-        }
         try {
             Files.createParentDirs(file);
-            Files.write(compressedSnapshot, file);
-            cleanOldRevisions(siddhiAppName);
-            if (log.isDebugEnabled()) {
-                log.debug("Periodic persistence of " + siddhiAppName + " persisted successfully.");
+            try (OutputStream fileOutputStream = new FileOutputStream(file);
+                 OutputStream outputStream = CompressionUtil.compress(fileOutputStream, snapshotCodec)) {
+                outputStream.write(snapshot);
             }
         } catch (IOException e) {
             log.error("Cannot save the revision " + revision + " of SiddhiApp: " + siddhiAppName +
                     " to the file system.", e);
+            if (file.exists() && !file.delete()) {
+                log.error("Error deleting incomplete revision " + revision + " of SiddhiApp: " + siddhiAppName);
+            }
+            return;
+        }
+        cleanOldRevisions(siddhiAppName);
+        if (log.isDebugEnabled()) {
+            log.debug("Periodic persistence of " + siddhiAppName + " persisted successfully.");
         }
     }
 
@@ -86,6 +92,8 @@ public class FileSystemPersistenceStore implements PersistenceStore {
             } else {
                 folder = String.valueOf(folderObject);
             }
+            snapshotCodec = SnapshotCodecFactory.getConfiguredCodec(
+                    configurationMap.get(PersistenceConstants.STATE_PERSISTENCE_COMPRESSION));
 
         } else {
             folder = PersistenceConstants.DEFAULT_FILE_PERSISTENCE_FOLDER;
@@ -98,16 +106,15 @@ public class FileSystemPersistenceStore implements PersistenceStore {
     @Override
     public byte[] load(String siddhiAppName, String revision) {
         File file = new File(folder + File.separator + siddhiAppName + File.separator + revision);
-        try {
-            byte[] bytes = Files.toByteArray(file);
-            log.info("State loaded for " + siddhiAppName + " revision " + revision + " from the file system.");
-            byte[] decompressedSnapshot;
-            try {
-                decompressedSnapshot = CompressionUtil.decompressGZIP(bytes);
+        byte[] decompressedSnapshot;
+        try (InputStream inputStream = new FileInputStream(file)) {
+            try (InputStream decompressedInputStream = CompressionUtil.decompress(inputStream)) {
+                decompressedSnapshot = CompressionUtil.readFully(decompressedInputStream, file.length() * 4);
             } catch (IOException e) {
                 throw new RuntimeException("Error occurred while trying to decompress the snapshot. Failed to " +
                         "load revision: " + revision + " of Siddhi app: " + siddhiAppName, e);
             }
+            log.info("State loaded for " + siddhiAppName + " revision " + revision + " from the file system.");
             return decompressedSnapshot;
         } catch (IOException e) {
             log.error("Cannot load the revision " + revision + " of SiddhiApp: " + siddhiAppName +
@@ -18,6 +18,7 @@
 
 package org.wso2.carbon.stream.processor.core.persistence;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.zaxxer.hikari.HikariDataSource;
 import org.apache.log4j.Logger;
 import org.wso2.carbon.datasource.core.exception.DataSourceException;
@@ -46,8 +47,17 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class IncrementalDBPersistenceStore implements IncrementalPersistenceStore {
     private static final Logger log = Logger.getLogger(IncrementalDBPersistenceStore.class);
@@ -61,9 +71,27 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
     private String databaseType;
     private String databaseVersion;
     private String tableName;
+    private int batchSize;
+    private int cleanupInterval;
+    private int saveTimeout;
+    private volatile boolean tableInitialized = false;
+    private volatile ScheduledExecutorService executorService;
+    private final BlockingQueue<PendingSnapshot> pendingSnapshots = new LinkedBlockingQueue<>();
+    private final ConcurrentMap<String, IncrementalSnapshotInfo> pendingCleanups = new ConcurrentHashMap<>();
 
+    /**
+     * Queues the snapshot to be written by the batch writer and waits until the batch containing it is committed,
+     * so that the caller still observes a completed save when this method returns. The wait is bounded, and the
+     * snapshot is not queued at all when the batch writer is not running.
+     */
     @Override
     public void save(IncrementalSnapshotInfo incrementalSnapshotInfo, byte[] bytes) {
+        ScheduledExecutorService writerExecutorService = executorService;
+        if (writerExecutorService == null || writerExecutorService.isShutdown()) {
+            log.error("Persistence store is not running. Revision " + incrementalSnapshotInfo.getRevision() +
+                    " of the siddhiApp " + incrementalSnapshotInfo.getSiddhiAppId() + " is not persisted.");
+            return;
+        }
         byte[] compressedSnapshot;
         try {
             compressedSnapshot = CompressionUtil.compressGZIP(bytes);
@@ -73,50 +101,52 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
                     " of Siddhi app: " + incrementalSnapshotInfo.getSiddhiAppId());
             return;
         }
-        DBPersistenceStoreUtils.createTableIfNotExist(executionInfo, datasource, datasourceName, tableName);
-
-        Connection con = null;
-        PreparedStatement stmt = null;
+        PendingSnapshot pendingSnapshot = new PendingSnapshot(incrementalSnapshotInfo, compressedSnapshot);
+        pendingSnapshots.add(pendingSnapshot);
         try {
-            try {
-                con = datasource.getConnection();
-            } catch (SQLException e) {
-                log.error("Cannot establish connection to datasource " + datasourceName +
-                        " while saving revision " + incrementalSnapshotInfo.getRevision(), e);
+            if (!pendingSnapshot.latch.await(saveTimeout, TimeUnit.SECONDS)) {
+                // A snapshot which the writer has not taken yet is dropped, so that it is not written after the
+                // caller has been told that the save failed
+                if (pendingSnapshots.remove(pendingSnapshot)) {
+                    log.error("Revision " + incrementalSnapshotInfo.getRevision() + " of the siddhiApp " +
+                            incrementalSnapshotInfo.getSiddhiAppId() + " is not persisted within " +
+                            saveTimeout + " seconds. Hence it is discarded.");
+                } else {
+                    log.error("Revision " + incrementalSnapshotInfo.getRevision() + " of the siddhiApp " +
+                            incrementalSnapshotInfo.getSiddhiAppId() + " is still being written to the database " +
+                            "after " + saveTimeout + " seconds.");
+                }
                 return;
             }
-            con.setAutoCommit(false);
-            stmt = con.prepareStatement(executionInfo.getPreparedInsertStatement());
-            stmt.setString(1, incrementalSnapshotInfo.getSiddhiAppId());
-            stmt.setString(2, incrementalSnapshotInfo.getRevision());
-            if (databaseType.equals(POSTGRES_DATABASE_TYPE)) {
-                stmt.setBlob(3, new SerialBlob(compressedSnapshot));
-            } else {
-                Blob blob = con.createBlob();
-                blob.setBytes(1, compressedSnapshot);
-                stmt.setBlob(3, blob);
-            }
-            stmt.executeUpdate();
-            con.commit();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while waiting for revision " + incrementalSnapshotInfo.getRevision() +
+                    " of the siddhiApp " + incrementalSnapshotInfo.getSiddhiAppId() + " to be persisted.", e);
+            return;
+        }
+        if (pendingSnapshot.persisted) {
             if (log.isDebugEnabled()) {
-                log.debug("Periodic persistence of " + incrementalSnapshotInfo.getSiddhiAppId() + " persisted successfully.");
+                log.debug("Periodic persistence of " + incrementalSnapshotInfo.getSiddhiAppId() +
+                        " persisted successfully.");
             }
-        } catch (SQLException e) {
-            log.error("Error while saving revision" + incrementalSnapshotInfo.getRevision() + " of the siddhiApp " +
-                    incrementalSnapshotInfo.getSiddhiAppId() + " to the database with datasource name " + datasourceName, e);
-        } finally {
-            DBPersistenceStoreUtils.cleanupConnections(stmt, con);
+            scheduleCleanup(incrementalSnapshotInfo);
         }
-        cleanOldRevisions(incrementalSnapshotInfo);
     }
 
     @Override
     public void setProperties(Map map) {
         Map configurationMap = (Map) map.get(PersistenceConstants.STATE_PERSISTENCE_CONFIGS);
 
+        batchSize = PersistenceConstants.DEFAULT_DB_PERSISTENCE_BATCH_SIZE;
+        cleanupInterval = PersistenceConstants.DEFAULT_DB_PERSISTENCE_CLEANUP_INTERVAL;
+        saveTimeout = PersistenceConstants.DEFAULT_DB_PERSISTENCE_SAVE_TIMEOUT;
         if (configurationMap != null) {
             Object datasourceObject = configurationMap.get("datasource");
             Object tableObject = configurationMap.get("table");
+            Object batchSizeObject = configurationMap.get(PersistenceConstants.STATE_PERSISTENCE_BATCH_SIZE);
+            Object cleanupIntervalObject =
+                    configurationMap.get(PersistenceConstants.STATE_PERSISTENCE_CLEANUP_INTERVAL);
+            Object saveTimeoutObject = configurationMap.get(PersistenceConstants.STATE_PERSISTENCE_SAVE_TIMEOUT);
             if (datasourceObject == null || !(datasourceObject instanceof String)) {
                 datasourceName = PersistenceConstants.DEFAULT_DB_PERSISTENCE_DATASOURCE;
                 if (log.isDebugEnabled()) {
@@ -133,6 +163,24 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
             } else {
                 tableName = String.valueOf(tableObject);
             }
+            if (batchSizeObject instanceof Integer && (Integer) batchSizeObject > 0) {
+                batchSize = (Integer) batchSizeObject;
+            } else if (log.isDebugEnabled()) {
+                log.debug("Batch size for database system persistence not set or invalid. Default batch size " +
+                        batchSize + " will be used.");
+            }
+            if (cleanupIntervalObject instanceof Integer && (Integer) cleanupIntervalObject > 0) {
+                cleanupInterval = (Integer) cleanupIntervalObject;
+            } else if (log.isDebugEnabled()) {
+                log.debug("Cleanup interval for database system persistence not set or invalid. Default interval " +
+                        cleanupInterval + " seconds will be used.");
+            }
+            if (saveTimeoutObject instanceof Integer && (Integer) saveTimeoutObject > 0) {
+                saveTimeout = (Integer) saveTimeoutObject;
+            } else if (log.isDebugEnabled()) {
+                log.debug("Save timeout for database system persistence not set or invalid. Default timeout " +
+                        saveTimeout + " seconds will be used.");
+            }
 
         } else {
             datasourceName = PersistenceConstants.DEFAULT_DB_PERSISTENCE_DATASOURCE;
@@ -161,6 +209,7 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
                     datasourceName, e);
         }
         initializeDatabaseExecutionInfo();
+        startExecutorService();
     }
 
     @Override
@@ -212,14 +261,16 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
 
     @Override
     public List<IncrementalSnapshotInfo> getListOfRevisionsToLoad(long restoreTime, String siddhiAppName) {
+        initializeTable();
         List<IncrementalSnapshotInfo> results = new ArrayList<>();
-        List<String> revisions = getListOfRevisionsFromDB(siddhiAppName);
+        List<String> revisions = getListOfRevisionsFromDB(executionInfo.getPreparedSelectRevisionsToLoadStatement(),
+                siddhiAppName, restoreTime);
+        if (revisions == null) {
+            return results;
+        }
         for (String revision : revisions) {
             IncrementalSnapshotInfo snapshotInfo = PersistenceHelper.convertRevision(revision);
-            if (snapshotInfo.getTime() <= restoreTime &&
-                    siddhiAppName.equals(snapshotInfo.getSiddhiAppId()) &&
-                    snapshotInfo.getElementId() != null &&
-                    snapshotInfo.getQueryName() != null) {
+            if (snapshotInfo.getElementId() != null && snapshotInfo.getQueryName() != null) {
                 //Note: Here we discard the (items.length == 2) scenario which is handled
                 // by the full snapshot handling
                 if (log.isDebugEnabled()) {
@@ -233,37 +284,42 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
 
     @Override
     public String getLastRevision(String siddhiAppName) {
-        createTableIfNotExist();
-        List<String> revisions = getListOfRevisionsFromDB(siddhiAppName);
-        long restoreTime = -1;
-        IncrementalSnapshotInfo snapshotToLoad = null;
-        for (String revision : revisions) {
-            IncrementalSnapshotInfo snapshotInfo = PersistenceHelper.convertRevision(revision);
-            if (snapshotInfo.getTime() > restoreTime &&
-                    siddhiAppName.equals(snapshotInfo.getSiddhiAppId()) &&
-                    snapshotInfo.getElementId() != null &&
-                    snapshotInfo.getQueryName() != null) {
-                //Note: Here we discard the (items.length == 2) scenario which is handled
-                // by the full snapshot handling
-                restoreTime = snapshotInfo.getTime();
-                snapshotToLoad = snapshotInfo;
+        initializeTable();
+        PreparedStatement stmt = null;
+        Connection con = null;
+        String lastRevision = null;
+        try {
+            try {
+                con = datasource.getConnection();
+            } catch (SQLException e) {
+                log.error("Cannot establish connection to datasource " + datasourceName +
+                        " . Could not load the last revision for Siddhi app: " + siddhiAppName, e);
+                return null;
             }
-        }
-        if (restoreTime != -1) {
-            if (log.isDebugEnabled()) {
-                log.debug("Latest revision to load: " + restoreTime + PersistenceConstants.REVISION_SEPARATOR +
-                        siddhiAppName);
+            con.setAutoCommit(false);
+            stmt = con.prepareStatement(executionInfo.getPreparedSelectLastIncrementalRevisionStatement());
+            stmt.setString(1, siddhiAppName);
+            try (ResultSet resultSet = stmt.executeQuery()) {
+                con.commit();
+                if (resultSet.next()) {
+                    lastRevision = resultSet.getString("revision");
+                }
             }
-            return restoreTime + PersistenceConstants.REVISION_SEPARATOR + siddhiAppName
-                    + PersistenceConstants.REVISION_SEPARATOR + snapshotToLoad.getQueryName()
-                    + PersistenceConstants.REVISION_SEPARATOR + snapshotToLoad.getElementId()
-                    + PersistenceConstants.REVISION_SEPARATOR + snapshotToLoad.getType();
+        } catch (SQLException e) {
+            log.error("Could not load the last revision, for Siddhi app: " + siddhiAppName +
+                    ", from the database with datasource " + datasourceName, e);
+        } finally {
+            DBPersistenceStoreUtils.cleanupConnections(stmt, con);
         }
-        return null;
+        if (lastRevision != null && log.isDebugEnabled()) {
+            log.debug("Latest revision to load: " + lastRevision);
+        }
+        return lastRevision;
     }
 
     @Override
     public void clearAllRevisions(String siddhiAppName) {
+        pendingCleanups.values().removeIf(snapshotInfo -> siddhiAppName.equals(snapshotInfo.getSiddhiAppId()));
         PreparedStatement stmt = null;
         Connection con;
         try {
@@ -298,7 +354,7 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
         }
     }
 
-    private List<String> getListOfRevisionsFromDB(String siddhiAppName) {
+    private List<String> getListOfRevisionsFromDB(String query, String siddhiAppName, long revisionTime) {
         List<String> revisions = new ArrayList<>();
         PreparedStatement stmt = null;
         Connection con = null;
@@ -311,8 +367,9 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
                 return null;
             }
             con.setAutoCommit(false);
-            stmt = con.prepareStatement(executionInfo.getPreparedSelectRevisionsStatement());
+            stmt = con.prepareStatement(query);
             stmt.setString(1, siddhiAppName);
+            stmt.setLong(2, revisionTime);
             try (ResultSet resultSet = stmt.executeQuery()) {
                 con.commit();
                 while (resultSet.next()) {
@@ -322,6 +379,7 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
         } catch (SQLException e) {
             log.error("Could not load the list of revisions, for Siddhi app: " + siddhiAppName +
                     ", from the database with datasource " + datasourceName, e);
+            return null;
         } finally {
             DBPersistenceStoreUtils.cleanupConnections(stmt, con);
         }
@@ -330,6 +388,7 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
 
     private void initializeDatabaseExecutionInfo() {
         executionInfo = new ExecutionInfo();
+        tableInitialized = false;
         RDBMSQueryConfigurationEntry databaseQueryEntries =
                 RDBMSConfiguration.getInstance().getDatabaseQueryEntries(databaseType, databaseVersion, tableName);
 
@@ -348,21 +407,167 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
         executionInfo.setPreparedDeleteOldRevisionsStatement(databaseQueryEntries.getDeleteOldRevisionsQuery());
         executionInfo.setPreparedCountStatement(databaseQueryEntries.getCountQuery());
         executionInfo.setPreparedDeleteAllRevisionsStatement(databaseQueryEntries.getDeleteAllRevisionsQuery());
+        executionInfo.setPreparedInsertIncrementalStatement(databaseQueryEntries.getInsertIncrementalSnapshotQuery());
+        executionInfo.setPreparedRevisionTimeExistenceCheckStatement(
+                databaseQueryEntries.getIsRevisionTimeExistQuery());
+        executionInfo.setPreparedAddRevisionTimeColumnStatement(databaseQueryEntries.getAddRevisionTimeColumnQuery());
+        executionInfo.setPreparedCreateRevisionTimeIndexStatement(
+                databaseQueryEntries.getCreateRevisionTimeIndexQuery());
+        executionInfo.setPreparedSelectRevisionsToLoadStatement(databaseQueryEntries.getSelectRevisionsToLoadQuery());
+        executionInfo.setPreparedSelectLastIncrementalRevisionStatement(
+                databaseQueryEntries.getSelectLastIncrementalRevisionQuery());
+        executionInfo.setPreparedSelectRevisionsBeforeStatement(databaseQueryEntries.getSelectRevisionsBeforeQuery());
+        executionInfo.setPreparedDeleteRevisionStatement(databaseQueryEntries.getDeleteRevisionQuery());
+        executionInfo.setPreparedSelectRevisionsWithoutTimeStatement(
+                databaseQueryEntries.getSelectRevisionsWithoutTimeQuery());
+        executionInfo.setPreparedUpdateRevisionTimeStatement(databaseQueryEntries.getUpdateRevisionTimeQuery());
+    }
+
+    /**
+     * Starts the thread that writes queued snapshots in batches and the periodic cleanup of old revisions.
+     */
+    private synchronized void startExecutorService() {
+        if (executorService != null) {
+            executorService.shutdownNow();
+        }
+        executorService = Executors.newScheduledThreadPool(2, new ThreadFactoryBuilder()
+                .setNameFormat("Incremental-DB-Persistence-" + tableName + "-%d").setDaemon(true).build());
+        executorService.execute(this::writePendingSnapshots);
+        executorService.scheduleWithFixedDelay(this::cleanOldRevisions, cleanupInterval, cleanupInterval,
+                TimeUnit.SECONDS);
+    }
+
+    private void writePendingSnapshots() {
+        List<PendingSnapshot> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(pendingSnapshots.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            pendingSnapshots.drainTo(batch, batchSize - 1);
+            boolean persisted = false;
+            try {
+                persisted = persistBatch(batch);
+            } catch (RuntimeException e) {
+                log.error("Unexpected error while persisting a batch of " + batch.size() + " revisions to the " +
+                        "database with datasource " + datasourceName, e);
+            } finally {
+                for (PendingSnapshot pendingSnapshot : batch) {
+                    pendingSnapshot.complete(persisted);
+                }
+                batch.clear();
+            }
+        }
+        pendingSnapshots.drainTo(batch);
+        for (PendingSnapshot pendingSnapshot : batch) {
+            log.error("Persistence store is shutting down. Revision " + pendingSnapshot.snapshotInfo.getRevision() +
+                    " of the siddhiApp " + pendingSnapshot.snapshotInfo.getSiddhiAppId() + " is not persisted.");
+            pendingSnapshot.complete(false);
+        }
+    }
+
+    private boolean persistBatch(List<PendingSnapshot> batch) {
+        initializeTable();
+        Connection con = null;
+        PreparedStatement stmt = null;
+        try {
+            try {
+                con = datasource.getConnection();
+            } catch (SQLException e) {
+                log.error("Cannot establish connection to datasource " + datasourceName +
+                        " while saving " + batch.size() + " revisions", e);
+                return false;
+            }
+            con.setAutoCommit(false);
+            stmt = con.prepareStatement(executionInfo.getPreparedInsertIncrementalStatement());
+            for (PendingSnapshot pendingSnapshot : batch) {
+                stmt.setString(1, pendingSnapshot.snapshotInfo.getSiddhiAppId());
+                stmt.setString(2, pendingSnapshot.snapshotInfo.getRevision());
+                if (databaseType.equals(POSTGRES_DATABASE_TYPE)) {
+                    stmt.setBlob(3, new SerialBlob(pendingSnapshot.snapshot));
+                } else {
+                    Blob blob = con.createBlob();
+                    blob.setBytes(1, pendingSnapshot.snapshot);
+                    stmt.setBlob(3, blob);
+                }
+                stmt.setLong(4, pendingSnapshot.snapshotInfo.getTime());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+            con.commit();
+            if (log.isDebugEnabled()) {
+                log.debug(batch.size() + " revisions persisted in a single batch to the database with datasource " +
+                        datasourceName);
+            }
+            return true;
+        } catch (SQLException e) {
+            log.error("Error while saving a batch of " + batch.size() + " revisions, starting from revision " +
+                    batch.get(0).snapshotInfo.getRevision() + ", to the database with datasource " +
+                    datasourceName, e);
+            try {
+                con.rollback();
+            } catch (SQLException rollbackException) {
+                log.error("Error while rolling back the batch of " + batch.size() + " revisions in the database " +
+                        "with datasource " + datasourceName, rollbackException);
+            }
+            return false;
+        } finally {
+            DBPersistenceStoreUtils.cleanupConnections(stmt, con);
+        }
     }
 
-    private void cleanOldRevisions(IncrementalSnapshotInfo incrementalSnapshotInfo) {
+    /**
+     * Remembers the latest base or periodic snapshot of each element, so that the revisions it supersedes are removed
+     * by the next periodic cleanup.
+     */
+    private void scheduleCleanup(IncrementalSnapshotInfo incrementalSnapshotInfo) {
         if (incrementalSnapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.INCREMENT) {
-            List<String> allRevisions = getListOfRevisionsFromDB(incrementalSnapshotInfo.getSiddhiAppId());
-            if (allRevisions != null) {
-                String revisionsToClean = getRevisionsToClean(incrementalSnapshotInfo, allRevisions);
-                if (revisionsToClean != null) {
-                    cleanOldRevisionsFromDB(revisionsToClean, incrementalSnapshotInfo.getSiddhiAppId());
+            String key = incrementalSnapshotInfo.getSiddhiAppId() + PersistenceConstants.REVISION_SEPARATOR +
+                    incrementalSnapshotInfo.getQueryName() + PersistenceConstants.REVISION_SEPARATOR +
+                    incrementalSnapshotInfo.getElementId() + PersistenceConstants.REVISION_SEPARATOR +
+                    incrementalSnapshotInfo.getType();
+            pendingCleanups.merge(key, incrementalSnapshotInfo, (oldInfo, newInfo) ->
+                    newInfo.getTime() >= oldInfo.getTime() ? newInfo : oldInfo);
+        }
+    }
+
+    private void cleanOldRevisions() {
+        try {
+            Map<String, List<IncrementalSnapshotInfo>> cleanupsPerApp = new HashMap<>();
+            for (String key : pendingCleanups.keySet()) {
+                IncrementalSnapshotInfo snapshotInfo = pendingCleanups.remove(key);
+                if (snapshotInfo != null) {
+                    cleanupsPerApp.computeIfAbsent(snapshotInfo.getSiddhiAppId(), k -> new ArrayList<>())
+                            .add(snapshotInfo);
+                }
+            }
+            for (Map.Entry<String, List<IncrementalSnapshotInfo>> entry : cleanupsPerApp.entrySet()) {
+                long latestTime = -1;
+                for (IncrementalSnapshotInfo snapshotInfo : entry.getValue()) {
+                    latestTime = Math.max(latestTime, snapshotInfo.getTime());
+                }
+                List<String> allRevisions = getListOfRevisionsFromDB(
+                        executionInfo.getPreparedSelectRevisionsBeforeStatement(), entry.getKey(), latestTime);
+                if (allRevisions == null) {
+                    entry.getValue().forEach(this::scheduleCleanup);
+                    continue;
+                }
+                List<IncrementalSnapshotInfo> revisionsToClean = new ArrayList<>();
+                for (IncrementalSnapshotInfo snapshotInfo : entry.getValue()) {
+                    revisionsToClean.addAll(getRevisionsToClean(snapshotInfo, allRevisions));
+                }
+                if (!revisionsToClean.isEmpty()) {
+                    cleanOldRevisionsFromDB(revisionsToClean, entry.getKey());
                 }
             }
+        } catch (RuntimeException e) {
+            log.error("Error while cleaning old revisions from the database with datasource " + datasourceName, e);
         }
     }
 
-    private void cleanOldRevisionsFromDB(String revisionsToClean, String siddhiAppId) {
+    private void cleanOldRevisionsFromDB(List<IncrementalSnapshotInfo> revisionsToClean, String siddhiAppId) {
         PreparedStatement stmt = null;
         Connection con = null;
         try {
@@ -371,32 +576,33 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
         } catch (SQLException e) {
             log.error("Cannot establish connection to data source " + datasourceName +
                     " to clean old revisions", e);
+            DBPersistenceStoreUtils.cleanupConnections(null, con);
             return;
         }
         try {
-            stmt = con.prepareStatement(executionInfo.getPreparedDeleteOldRevisionsStatement());
-            stmt.setString(1, revisionsToClean);
-            stmt.setString(2, siddhiAppId);
-            stmt.executeUpdate();
+            stmt = con.prepareStatement(executionInfo.getPreparedDeleteRevisionStatement());
+            for (IncrementalSnapshotInfo snapshotInfo : revisionsToClean) {
+                stmt.setString(1, siddhiAppId);
+                stmt.setLong(2, snapshotInfo.getTime());
+                stmt.setString(3, snapshotInfo.getRevision());
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
             con.commit();
+            if (log.isDebugEnabled()) {
+                log.debug("Cleaned " + revisionsToClean.size() + " old revisions of siddhiApp: " + siddhiAppId);
+            }
         } catch (SQLException e) {
             log.error("Error in cleaning old revisions of siddhiApp: " +
                     siddhiAppId + "from the database with datasource " + datasourceName, e);
         } finally {
-            if (stmt != null) {
-                try {
-                    stmt.close();
-                } catch (SQLException e) {
-                    log.error("Unable to close statement." + e.getMessage(), e);
-                }
-            }
             DBPersistenceStoreUtils.cleanupConnections(stmt, con);
         }
     }
 
-    private String getRevisionsToClean(IncrementalSnapshotInfo incrementalSnapshotInfo,
-                                       List<String> allRevisions) {
-        StringBuilder revisionsToClean = new StringBuilder();
+    private List<IncrementalSnapshotInfo> getRevisionsToClean(IncrementalSnapshotInfo incrementalSnapshotInfo,
+                                                              List<String> allRevisions) {
+        List<IncrementalSnapshotInfo> revisionsToClean = new ArrayList<>();
         long baseTimeStamp = (incrementalSnapshotInfo.getTime());
         for (String revision : allRevisions) {
             IncrementalSnapshotInfo snapshotInfo = PersistenceHelper.convertRevision(revision);
@@ -406,58 +612,105 @@ public class IncrementalDBPersistenceStore implements IncrementalPersistenceStor
                     incrementalSnapshotInfo.getElementId().equals(snapshotInfo.getElementId())) {
                 if (incrementalSnapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.BASE &&
                         snapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.PERIODIC) {
-                    revisionsToClean.append(",").append(revision);
+                    revisionsToClean.add(snapshotInfo);
                 } else if (incrementalSnapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.PERIODIC &&
                         snapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.PERIODIC) {
-                    revisionsToClean.append(",").append(revision);
+                    revisionsToClean.add(snapshotInfo);
                 }
             }
         }
-        if (revisionsToClean.length() != 0) {
-            return revisionsToClean.substring(1); //removing leading comma
-        }
-        return null;
+        return revisionsToClean;
     }
 
     /**
-     * Method that would create the persistence table
+     * Method that would create the persistence table together with the indexed revision time column, and fill the
+     * revision time of incremental revisions written before the column was introduced.
      */
-    private void createTableIfNotExist() {
+    private synchronized void initializeTable() {
+        if (tableInitialized) {
+            return;
+        }
+        DBPersistenceStoreUtils.createTableIfNotExist(executionInfo, datasource, datasourceName, tableName);
         if (!executionInfo.isTableExist()) {
-            Statement stmt = null;
-            Connection con = null;
+            return;
+        }
+        try (Connection con = datasource.getConnection(); Statement stmt = con.createStatement()) {
+            con.setAutoCommit(true);
+            try (ResultSet ignored = stmt.executeQuery(
+                    executionInfo.getPreparedRevisionTimeExistenceCheckStatement())) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Revision time column already exists in table " + tableName);
+                }
+            } catch (SQLException e) {
+                log.info("Adding revision time column to persistence table " + tableName);
+                stmt.executeUpdate(executionInfo.getPreparedAddRevisionTimeColumnStatement());
+            }
             try {
-                try {
-                    con = datasource.getConnection();
-                    con.setAutoCommit(false);
-                    stmt = con.createStatement();
-                } catch (SQLException e) {
-                    log.error("Cannot establish connection to datasource " + datasourceName +
-                            " when checking persistence table exists", e);
-                    return;
+                stmt.executeUpdate(executionInfo.getPreparedCreateRevisionTimeIndexStatement());
+            } catch (SQLException e) {
+                if (log.isDebugEnabled()) {
+                    log.debug("Revision time index of table " + tableName + " was not created, as it already " +
+                            "exists. " + e.getMessage());
                 }
-                try (ResultSet ignored = stmt.executeQuery(executionInfo.getPreparedTableExistenceCheckStatement())) {
-                    executionInfo.setTableExist(true);
-                } catch (SQLException e) {
-                    if (log.isDebugEnabled()) {
-                        log.debug("Table " + tableName + " does not Exist. Table Will be created. ");
-                    }
-                    DBPersistenceStoreUtils.cleanupConnections(stmt, con);
-                    try {
-                        con = datasource.getConnection();
-                        stmt = con.createStatement();
-                        con.setAutoCommit(false);
-                        stmt.executeUpdate(executionInfo.getPreparedCreateTableStatement());
-                        con.commit();
-                        executionInfo.setTableExist(true);
-                    } catch (SQLException ex) {
-                        log.error("Could not create table " + tableName +
-                                " using datasource " + datasourceName, ex);
-                    }
+            }
+            fillRevisionTimes(con, stmt);
+            tableInitialized = true;
+        } catch (SQLException e) {
+            log.error("Could not initialize the revision time column of table " + tableName +
+                    " using datasource " + datasourceName, e);
+        }
+    }
+
+    private void fillRevisionTimes(Connection con, Statement stmt) throws SQLException {
+        List<IncrementalSnapshotInfo> revisionsToFill = new ArrayList<>();
+        try (ResultSet resultSet = stmt.executeQuery(executionInfo.getPreparedSelectRevisionsWithoutTimeStatement())) {
+            while (resultSet.next()) {
+                IncrementalSnapshotInfo snapshotInfo =
+                        PersistenceHelper.convertRevision(resultSet.getString("revision"));
+                if (snapshotInfo.getElementId() != null && snapshotInfo.getQueryName() != null) {
+                    revisionsToFill.add(snapshotInfo);
+                }
+            }
+        }
+        if (revisionsToFill.isEmpty()) {
+            return;
+        }
+        con.setAutoCommit(false);
+        try (PreparedStatement updateStmt = con.prepareStatement(
+                executionInfo.getPreparedUpdateRevisionTimeStatement())) {
+            int batchedRevisions = 0;
+            for (IncrementalSnapshotInfo snapshotInfo : revisionsToFill) {
+                updateStmt.setLong(1, snapshotInfo.getTime());
+                updateStmt.setString(2, snapshotInfo.getSiddhiAppId());
+                updateStmt.setString(3, snapshotInfo.getRevision());
+                updateStmt.addBatch();
+                if (++batchedRevisions % batchSize == 0) {
+                    updateStmt.executeBatch();
                 }
-            } finally {
-                DBPersistenceStoreUtils.cleanupConnections(stmt, con);
             }
+            updateStmt.executeBatch();
+            con.commit();
+        }
+        log.info("Filled revision time of " + revisionsToFill.size() + " existing revisions in table " + tableName);
+    }
+
+    /**
+     * Snapshot waiting to be written by the batch writer.
+     */
+    private static class PendingSnapshot {
+        private final IncrementalSnapshotInfo snapshotInfo;
+        private final byte[] snapshot;
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile boolean persisted;
+
+        private PendingSnapshot(IncrementalSnapshotInfo snapshotInfo, byte[] snapshot) {
+            this.snapshotInfo = snapshotInfo;
+            this.snapshot = snapshot;
+        }
+
+        private void complete(boolean persisted) {
+            this.persisted = persisted;
+            latch.countDown();
         }
     }
 }
@@ -21,6 +21,8 @@ package org.wso2.carbon.stream.processor.core.persistence;
 import com.google.common.io.Files;
 import org.apache.log4j.Logger;
 import org.wso2.carbon.stream.processor.core.ha.util.CompressionUtil;
+import org.wso2.carbon.stream.processor.core.persistence.codec.SnapshotCodec;
+import org.wso2.carbon.stream.processor.core.persistence.codec.SnapshotCodecFactory;
 import org.wso2.carbon.stream.processor.core.persistence.util.PersistenceConstants;
 import org.wso2.siddhi.core.exception.CannotClearSiddhiAppStateException;
 import org.wso2.siddhi.core.util.persistence.IncrementalPersistenceStore;
@@ -28,7 +30,11 @@ import org.wso2.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
 import org.wso2.siddhi.core.util.persistence.util.PersistenceHelper;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -40,6 +46,7 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
 
     private static final Logger log = Logger.getLogger(IncrementalFileSystemPersistenceStore.class);
     private String folder;
+    private SnapshotCodec snapshotCodec = SnapshotCodecFactory.getDefaultCodec();
 
     public IncrementalFileSystemPersistenceStore() {
     }
@@ -52,26 +59,25 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
     public void save(IncrementalSnapshotInfo snapshotInfo, byte[] snapshot) {
         File file = new File(folder + File.separator + snapshotInfo.getSiddhiAppId() + File.separator +
                 snapshotInfo.getRevision());
-        byte[] compressedSnapshot;
-        try {
-            compressedSnapshot = CompressionUtil.compressGZIP(snapshot);
-        } catch (IOException e) {
-            log.error("Error occurred while trying to compress the snapshot. Failed to " +
-                    "persist revision: " + snapshotInfo.getRevision() + " of Siddhi app: " +
-                    snapshotInfo.getSiddhiAppId());
-            return;
-        }
         try {
             Files.createParentDirs(file);
-            Files.write(compressedSnapshot, file);
-            cleanOldRevisions(snapshotInfo);
-            if (log.isDebugEnabled()) {
-                log.debug("Incremental persistence of '" + snapshotInfo.getSiddhiAppId() +
-                        "' with revision '" + snapshotInfo.getRevision() + "' persisted successfully.");
+            try (OutputStream fileOutputStream = new FileOutputStream(file);
+                 OutputStream outputStream = CompressionUtil.compress(fileOutputStream, snapshotCodec)) {
+                outputStream.write(snapshot);
             }
         } catch (IOException e) {
             log.error("Cannot save the revision '" + snapshotInfo.getRevision() + "' of SiddhiApp: '" +
                     snapshotInfo.getSiddhiAppId() + "' to the file system.", e);
+            if (file.exists() && !file.delete()) {
+                log.error("Error deleting incomplete revision '" + snapshotInfo.getRevision() + "' of SiddhiApp: '" +
+                        snapshotInfo.getSiddhiAppId() + "'");
+            }
+            return;
+        }
+        cleanOldRevisions(snapshotInfo);
+        if (log.isDebugEnabled()) {
+            log.debug("Incremental persistence of '" + snapshotInfo.getSiddhiAppId() +
+                    "' with revision '" + snapshotInfo.getRevision() + "' persisted successfully.");
         }
     }
 
@@ -89,6 +95,8 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
             } else {
                 folder = String.valueOf(folderObject);
             }
+            snapshotCodec = SnapshotCodecFactory.getConfiguredCodec(
+                    configurationMap.get(PersistenceConstants.STATE_PERSISTENCE_COMPRESSION));
 
         } else {
             folder = PersistenceConstants.DEFAULT_FILE_PERSISTENCE_FOLDER;
@@ -102,23 +110,23 @@ public class IncrementalFileSystemPersistenceStore implements IncrementalPersist
     public byte[] load(IncrementalSnapshotInfo snapshotInfo) {
         File file = new File(folder + File.separator + snapshotInfo.getSiddhiAppId() + File.separator +
                 snapshotInfo.getRevision());
-        byte[] bytes = null;
-        try {
-            bytes = Files.toByteArray(file);
-            if (log.isDebugEnabled()) {
-                log.debug("State loaded for SiddhiApp '" + snapshotInfo.getSiddhiAppId() + "' revision '" +
-                        snapshotInfo.getRevision() + "' from file system.");
+        byte[] decompressedSnapshot;
+        try (InputStream inputStream = new FileInputStream(file)) {
+            try (InputStream decompressedInputStream = CompressionUtil.decompress(inputStream)) {
+                decompressedSnapshot = CompressionUtil.readFully(decompressedInputStream, file.length() * 4);
+            } catch (IOException e) {
+                throw new RuntimeException("Error occurred while trying to decompress the snapshot. Failed to " +
+                        "load revision: " + snapshotInfo.getRevision() + " of Siddhi app: " +
+                        snapshotInfo.getSiddhiAppId(), e);
             }
         } catch (IOException e) {
             log.error("Cannot load the revision '" + snapshotInfo.getRevision() + "' of SiddhiApp '" +
                     snapshotInfo.getSiddhiAppId() + "' from file system.", e);
+            return null;
         }
-        byte[] decompressedSnapshot;
-        try {
-            decompressedSnapshot = CompressionUtil.decompressGZIP(bytes);
-        } catch (IOException e) {
-            throw new RuntimeException("Error occurred while trying to decompress the snapshot. Failed to " +
-                    "load revision: " + snapshotInfo.getRevision() + " of Siddhi app: " + snapshotInfo.getSiddhiAppId(), e);
+        if (log.isDebugEnabled()) {
+            log.debug("State loaded for SiddhiApp '" + snapshotInfo.getSiddhiAppId() + "' revision '" +
+                    snapshotInfo.getRevision() + "' from file system.");
         }
         return decompressedSnapshot;
     }
@@ -0,0 +1,285 @@
+/*
+ * Copyright (c) 2017, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.wso2.carbon.stream.processor.core.persistence;
+
+import org.apache.log4j.Logger;
+import org.wso2.carbon.stream.processor.core.ha.util.CompressionUtil;
+import org.wso2.carbon.stream.processor.core.persistence.codec.SnapshotCodec;
+import org.wso2.carbon.stream.processor.core.persistence.codec.SnapshotCodecFactory;
+import org.wso2.carbon.stream.processor.core.persistence.util.PersistenceConstants;
+import org.wso2.carbon.stream.processor.core.persistence.util.SnapshotSegmentLog;
+import org.wso2.siddhi.core.exception.CannotClearSiddhiAppStateException;
+import org.wso2.siddhi.core.util.persistence.IncrementalPersistenceStore;
+import org.wso2.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
+import org.wso2.siddhi.core.util.persistence.util.PersistenceHelper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Implementation of Persistence Store that would append incremental snapshots to pre-allocated, memory mapped
+ * segment files, one set of segments per Siddhi app. The revisions of each app are kept in an in memory index that is
+ * rebuilt from the segment footers when the app is first accessed, so neither saving nor restoring lists the
+ * revisions on the file system.
+ */
+public class IncrementalSegmentedFileSystemPersistenceStore implements IncrementalPersistenceStore {
+
+    private static final Logger log = Logger.getLogger(IncrementalSegmentedFileSystemPersistenceStore.class);
+    private String folder;
+    private int segmentSize = PersistenceConstants.DEFAULT_SEGMENT_SIZE * 1024 * 1024;
+    private SnapshotCodec snapshotCodec = SnapshotCodecFactory.getDefaultCodec();
+    private final ConcurrentMap<String, SnapshotSegmentLog> segmentLogs = new ConcurrentHashMap<>();
+
+    public IncrementalSegmentedFileSystemPersistenceStore() {
+    }
+
+    public IncrementalSegmentedFileSystemPersistenceStore(String storageFilePath) {
+        folder = storageFilePath;
+    }
+
+    @Override
+    public void save(IncrementalSnapshotInfo snapshotInfo, byte[] snapshot) {
+        byte[] compressedSnapshot;
+        try {
+            compressedSnapshot = CompressionUtil.compress(snapshot, snapshotCodec);
+        } catch (IOException e) {
+            log.error("Error occurred while trying to compress the snapshot. Failed to persist revision '" +
+                    snapshotInfo.getRevision() + "' of SiddhiApp: '" + snapshotInfo.getSiddhiAppId() + "'", e);
+            return;
+        }
+        SnapshotSegmentLog segmentLog = getSegmentLog(snapshotInfo.getSiddhiAppId());
+        if (segmentLog == null) {
+            log.error("Cannot save the revision '" + snapshotInfo.getRevision() + "' of SiddhiApp: '" +
+                    snapshotInfo.getSiddhiAppId() + "' as its snapshot segments could not be opened.");
+            return;
+        }
+        synchronized (segmentLog) {
+            try {
+                segmentLog.append(snapshotInfo.getRevision(), compressedSnapshot);
+            } catch (IOException e) {
+                log.error("Cannot save the revision '" + snapshotInfo.getRevision() + "' of SiddhiApp: '" +
+                        snapshotInfo.getSiddhiAppId() + "' to the file system.", e);
+                return;
+            }
+            cleanOldRevisions(segmentLog, snapshotInfo);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Incremental persistence of '" + snapshotInfo.getSiddhiAppId() +
+                    "' with revision '" + snapshotInfo.getRevision() + "' persisted successfully.");
+        }
+    }
+
+    @Override
+    public void setProperties(Map properties) {
+        Map configurationMap = (Map) properties.get(PersistenceConstants.STATE_PERSISTENCE_CONFIGS);
+
+        if (configurationMap != null) {
+            Object folderObject = configurationMap.get("location");
+            if (folderObject == null || !(folderObject instanceof String)) {
+                folder = PersistenceConstants.DEFAULT_FILE_PERSISTENCE_FOLDER;
+                if (log.isDebugEnabled()) {
+                    log.debug("File system persistence location not set. Default persistence location will be used.");
+                }
+            } else {
+                folder = String.valueOf(folderObject);
+            }
+            Object segmentSizeObject = configurationMap.get(PersistenceConstants.STATE_PERSISTENCE_SEGMENT_SIZE);
+            if (segmentSizeObject instanceof Integer && (Integer) segmentSizeObject > 0
+                    && (Integer) segmentSizeObject < 2048) {
+                segmentSize = (Integer) segmentSizeObject * 1024 * 1024;
+            } else if (log.isDebugEnabled()) {
+                log.debug("Snapshot segment size not set or invalid. Default segment size of " +
+                        PersistenceConstants.DEFAULT_SEGMENT_SIZE + " MB will be used.");
+            }
+            snapshotCodec = SnapshotCodecFactory.getConfiguredCodec(
+                    configurationMap.get(PersistenceConstants.STATE_PERSISTENCE_COMPRESSION));
+
+        } else {
+            folder = PersistenceConstants.DEFAULT_FILE_PERSISTENCE_FOLDER;
+            if (log.isDebugEnabled()) {
+                log.debug("File system persistence config not set. Default persistence location will be used.");
+            }
+        }
+    }
+
+    @Override
+    public byte[] load(IncrementalSnapshotInfo snapshotInfo) {
+        SnapshotSegmentLog segmentLog = getSegmentLog(snapshotInfo.getSiddhiAppId());
+        byte[] compressedSnapshot = null;
+        if (segmentLog != null) {
+            synchronized (segmentLog) {
+                compressedSnapshot = segmentLog.read(snapshotInfo.getRevision());
+            }
+        }
+        if (compressedSnapshot == null) {
+            log.error("Cannot load the revision '" + snapshotInfo.getRevision() + "' of SiddhiApp '" +
+                    snapshotInfo.getSiddhiAppId() + "' from file system.");
+            return null;
+        }
+        byte[] decompressedSnapshot;
+        try {
+            decompressedSnapshot = CompressionUtil.decompress(compressedSnapshot);
+        } catch (IOException e) {
+            throw new RuntimeException("Error occurred while trying to decompress the snapshot. Failed to " +
+                    "load revision: " + snapshotInfo.getRevision() + " of Siddhi app: " +
+                    snapshotInfo.getSiddhiAppId(), e);
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("State loaded for SiddhiApp '" + snapshotInfo.getSiddhiAppId() + "' revision '" +
+                    snapshotInfo.getRevision() + "' from file system.");
+        }
+        return decompressedSnapshot;
+    }
+
+    @Override
+    public List<IncrementalSnapshotInfo> getListOfRevisionsToLoad(long restoreTime, String siddhiAppName) {
+        SnapshotSegmentLog segmentLog = getSegmentLog(siddhiAppName);
+        if (segmentLog == null) {
+            return null;
+        }
+        List<IncrementalSnapshotInfo> results = new ArrayList<>();
+        synchronized (segmentLog) {
+            if (segmentLog.getRevisions().isEmpty()) {
+                return null;
+            }
+            for (String revision : segmentLog.getRevisions()) {
+                IncrementalSnapshotInfo snapshotInfo = PersistenceHelper.convertRevision(revision);
+                if (snapshotInfo.getTime() <= restoreTime &&
+                        siddhiAppName.equals(snapshotInfo.getSiddhiAppId()) &&
+                        snapshotInfo.getElementId() != null &&
+                        snapshotInfo.getQueryName() != null) {
+                    //Note: Here we discard the (items.length == 2) scenario which is handled
+                    // by the full snapshot handling
+                    if (log.isDebugEnabled()) {
+                        log.debug("List of revisions to load : " + revision);
+                    }
+                    results.add(snapshotInfo);
+                }
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public String getLastRevision(String siddhiAppName) {
+        SnapshotSegmentLog segmentLog = getSegmentLog(siddhiAppName);
+        if (segmentLog == null) {
+            return null;
+        }
+        long restoreTime = -1;
+        synchronized (segmentLog) {
+            for (String revision : segmentLog.getRevisions()) {
+                IncrementalSnapshotInfo snapshotInfo = PersistenceHelper.convertRevision(revision);
+                if (snapshotInfo.getTime() > restoreTime &&
+                        siddhiAppName.equals(snapshotInfo.getSiddhiAppId()) &&
+                        snapshotInfo.getElementId() != null &&
+                        snapshotInfo.getQueryName() != null) {
+                    //Note: Here we discard the (items.length == 2) scenario which is handled
+                    // by the full snapshot handling
+                    restoreTime = snapshotInfo.getTime();
+                }
+            }
+        }
+        if (restoreTime != -1) {
+            if (log.isDebugEnabled()) {
+                log.debug("Latest revision to load: " + restoreTime + PersistenceConstants.REVISION_SEPARATOR +
+                        siddhiAppName);
+            }
+            return restoreTime + PersistenceConstants.REVISION_SEPARATOR + siddhiAppName;
+        }
+        return null;
+    }
+
+    @Override
+    public void clearAllRevisions(String siddhiAppName) {
+        SnapshotSegmentLog segmentLog = getSegmentLog(siddhiAppName);
+        if (segmentLog == null) {
+            throw new CannotClearSiddhiAppStateException("Snapshot segments of SiddhiApp: " + siddhiAppName +
+                    " could not be opened to delete the persistence state");
+        }
+        synchronized (segmentLog) {
+            if (segmentLog.getRevisions().isEmpty()) {
+                log.info("No revisions were found to delete for the Siddhi App " + siddhiAppName);
+            }
+            try {
+                segmentLog.clear();
+            } catch (IOException e) {
+                log.error("Persistence state of SiddhiApp: " + siddhiAppName + " is not deleted successfully", e);
+                throw new CannotClearSiddhiAppStateException("Persistence state of SiddhiApp: " + siddhiAppName +
+                        " is not deleted", e);
+            }
+        }
+    }
+
+    private SnapshotSegmentLog getSegmentLog(String siddhiAppName) {
+        return segmentLogs.computeIfAbsent(siddhiAppName, this::openSegmentLog);
+    }
+
+    private SnapshotSegmentLog openSegmentLog(String siddhiAppName) {
+        SnapshotSegmentLog segmentLog;
+        try {
+            segmentLog = new SnapshotSegmentLog(new File(folder + File.separator + siddhiAppName), segmentSize);
+        } catch (IOException e) {
+            log.error("Cannot open the snapshot segments of SiddhiApp: '" + siddhiAppName + "'", e);
+            return null;
+        }
+        //revisions superseded after their segment was sealed are still listed in its footer
+        Map<String, IncrementalSnapshotInfo> latestSnapshots = new HashMap<>();
+        for (String revision : segmentLog.getRevisions()) {
+            IncrementalSnapshotInfo snapshotInfo = PersistenceHelper.convertRevision(revision);
+            if (snapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.INCREMENT &&
+                    snapshotInfo.getElementId() != null && snapshotInfo.getQueryName() != null) {
+                latestSnapshots.merge(snapshotInfo.getQueryName() + PersistenceConstants.REVISION_SEPARATOR +
+                                snapshotInfo.getElementId() + PersistenceConstants.REVISION_SEPARATOR +
+                                snapshotInfo.getType(), snapshotInfo,
+                        (oldInfo, newInfo) -> newInfo.getTime() >= oldInfo.getTime() ? newInfo : oldInfo);
+            }
+        }
+        for (IncrementalSnapshotInfo snapshotInfo : latestSnapshots.values()) {
+            cleanOldRevisions(segmentLog, snapshotInfo);
+        }
+        return segmentLog;
+    }
+
+    private void cleanOldRevisions(SnapshotSegmentLog segmentLog, IncrementalSnapshotInfo incrementalSnapshotInfo) {
+        if (incrementalSnapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.INCREMENT) {
+            long baseTimeStamp = (incrementalSnapshotInfo.getTime());
+            for (String revision : new ArrayList<>(segmentLog.getRevisions())) {
+                IncrementalSnapshotInfo snapshotInfo = PersistenceHelper.convertRevision(revision);
+                if (snapshotInfo.getTime() < baseTimeStamp &&
+                        incrementalSnapshotInfo.getSiddhiAppId().equals(snapshotInfo.getSiddhiAppId()) &&
+                        incrementalSnapshotInfo.getQueryName().equals(snapshotInfo.getQueryName()) &&
+                        incrementalSnapshotInfo.getElementId().equals(snapshotInfo.getElementId())) {
+                    if (incrementalSnapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.BASE &&
+                            snapshotInfo.getType() != IncrementalSnapshotInfo.SnapshotType.PERIODIC) {
+                        segmentLog.remove(revision);
+                    } else if (incrementalSnapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.PERIODIC &&
+                            snapshotInfo.getType() == IncrementalSnapshotInfo.SnapshotType.PERIODIC) {
+                        segmentLog.remove(revision);
+                    }
+                }
+            }
+        }
+    }
+}
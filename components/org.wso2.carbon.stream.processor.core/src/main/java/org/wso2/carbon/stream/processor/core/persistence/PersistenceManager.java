@@ -18,6 +18,7 @@
 
 package org.wso2.carbon.stream.processor.core.persistence;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.pool.impl.GenericKeyedObjectPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,16 +29,23 @@ import org.wso2.carbon.stream.processor.core.ha.transport.EventSyncConnection;
 import org.wso2.carbon.stream.processor.core.ha.util.HAConstants;
 import org.wso2.carbon.stream.processor.core.internal.StreamProcessorDataHolder;
 import org.wso2.carbon.stream.processor.core.internal.beans.DeploymentConfig;
+import org.wso2.carbon.stream.processor.core.persistence.util.PersistenceMetrics;
 import org.wso2.siddhi.core.SiddhiAppRuntime;
 import org.wso2.siddhi.core.exception.ConnectionUnavailableException;
 import org.wso2.siddhi.core.util.snapshot.PersistenceReference;
 
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -46,6 +54,9 @@ import java.util.concurrent.atomic.AtomicLong;
 public class PersistenceManager implements Runnable {
 
     private static final Logger log = LoggerFactory.getLogger(PersistenceManager.class);
+    private static final long PERSISTENCE_TIMEOUT_MILLIS = 60000;
+    private static final long ROUND_TIMEOUT_MILLIS = 2 * PERSISTENCE_TIMEOUT_MILLIS;
+    private static ExecutorService persistenceExecutorService;
     private HAManager haManager;
     private DeploymentConfig deploymentConfig;
     private EventSyncConnection eventSyncConnection;
@@ -55,6 +66,24 @@ public class PersistenceManager implements Runnable {
     public PersistenceManager() {
     }
 
+    /**
+     * Starts the pool of threads used to persist the Siddhi apps of a persistence round in parallel. Until it is
+     * started the apps are persisted one after the other by the thread running the round.
+     */
+    public static synchronized void startPersistenceExecutor(int threadPoolSize) {
+        if (persistenceExecutorService == null && threadPoolSize > 0) {
+            persistenceExecutorService = Executors.newFixedThreadPool(threadPoolSize,
+                    new ThreadFactoryBuilder().setNameFormat("Siddhi-App-Persistence-%d").setDaemon(true).build());
+        }
+    }
+
+    public static synchronized void stopPersistenceExecutor() {
+        if (persistenceExecutorService != null) {
+            persistenceExecutorService.shutdown();
+            persistenceExecutorService = null;
+        }
+    }
+
     @Override
     public void run() {
         haManager = StreamProcessorDataHolder.getHAManager();
@@ -71,47 +100,15 @@ public class PersistenceManager implements Runnable {
     }
 
     private void persist() {
-        ConcurrentMap<String, SiddhiAppRuntime> siddhiAppRuntimeMap = StreamProcessorDataHolder.
-                getSiddhiManager().getSiddhiAppRuntimeMap();
-        for (SiddhiAppRuntime siddhiAppRuntime : siddhiAppRuntimeMap.values()) {
-            PersistenceReference persistenceReference = siddhiAppRuntime.persist();
-            if (log.isDebugEnabled()) {
-                log.debug("Revision " + persistenceReference.getRevision() +
-                        " of siddhi App " + siddhiAppRuntime.getName() + " persisted successfully");
-            }
-        }
+        persistSiddhiApps();
         if (StreamProcessorDataHolder.getNodeInfo() != null) {
             StreamProcessorDataHolder.getNodeInfo().setLastPersistedTimestamp(System.currentTimeMillis());
         }
     }
 
     private void persistAndSendControlMessage() {
-        ConcurrentMap<String, SiddhiAppRuntime> siddhiAppRuntimeMap = StreamProcessorDataHolder.
-                getSiddhiManager().getSiddhiAppRuntimeMap();
-        String[] siddhiRevisionArray = new String[siddhiAppRuntimeMap.size()];
-        int siddhiAppCount = 0;
-        for (SiddhiAppRuntime siddhiAppRuntime : siddhiAppRuntimeMap.values()) {
-            PersistenceReference persistenceReference = siddhiAppRuntime.persist();
-            Future fullStateFuture = persistenceReference.getFullStateFuture();
-            try {
-                if (fullStateFuture != null) {
-                    fullStateFuture.get(60000, TimeUnit.MILLISECONDS);
-                } else {
-                    for (Future future : persistenceReference.getIncrementalStateFuture()) {
-                        future.get(60000, TimeUnit.MILLISECONDS);
-                    }
-                }
-            } catch (Throwable e) {
-                log.error("Active Node: Persisting of Siddhi app is not successful. Check if app deployed properly");
-            }
-            siddhiRevisionArray[siddhiAppCount] = sequenceIDGenerator.incrementAndGet() + HAConstants
-                    .PERSISTED_APP_SPLIT_DELIMITER + persistenceReference.getRevision();
-            siddhiAppCount++;
-            if (log.isDebugEnabled()) {
-                log.debug("Revision " + persistenceReference.getRevision() +
-                        " of siddhi App " + siddhiAppRuntime.getName() + " persisted successfully");
-            }
-        }
+        List<String> siddhiRevisions = persistSiddhiApps();
+        String[] siddhiRevisionArray = siddhiRevisions.toArray(new String[siddhiRevisions.size()]);
         if (haManager != null && haManager.isActiveNode() && haManager.isPassiveNodeAdded()) {
             if (log.isDebugEnabled()) {
                 log.debug("Control Message is sent to the passive node - " + Arrays.toString(siddhiRevisionArray));
@@ -124,6 +121,99 @@ public class PersistenceManager implements Runnable {
         log.info("siddhi Apps are persisted successfully");
     }
 
+    /**
+     * Persists all Siddhi apps in parallel and waits for the round to complete. The wait is bounded, so that an app
+     * which does not complete its persistence does not hold back the following rounds. Such an app keeps being
+     * persisted in the background, but its revision is left out of the round.
+     *
+     * @return the revisions of the apps persisted successfully, in the order of the runtime map. When running as
+     * the active node each revision is prefixed by a sequence id greater than all events synced before its snapshot.
+     */
+    private List<String> persistSiddhiApps() {
+        long startTime = System.currentTimeMillis();
+        ConcurrentMap<String, SiddhiAppRuntime> siddhiAppRuntimeMap = StreamProcessorDataHolder.
+                getSiddhiManager().getSiddhiAppRuntimeMap();
+        List<SiddhiAppRuntime> siddhiAppRuntimes = new ArrayList<>(siddhiAppRuntimeMap.values());
+        List<Future<String>> persistenceFutures = new ArrayList<>(siddhiAppRuntimes.size());
+        ExecutorService executorService = persistenceExecutorService;
+        for (SiddhiAppRuntime siddhiAppRuntime : siddhiAppRuntimes) {
+            if (executorService != null && !executorService.isShutdown()) {
+                persistenceFutures.add(executorService.submit(() -> persistSiddhiApp(siddhiAppRuntime)));
+            } else {
+                FutureTask<String> persistenceTask = new FutureTask<>(() -> persistSiddhiApp(siddhiAppRuntime));
+                persistenceTask.run();
+                persistenceFutures.add(persistenceTask);
+            }
+        }
+
+        List<String> siddhiRevisions = new ArrayList<>(siddhiAppRuntimes.size());
+        long roundDeadline = startTime + ROUND_TIMEOUT_MILLIS;
+        for (int i = 0; i < persistenceFutures.size(); i++) {
+            try {
+                String siddhiRevision = persistenceFutures.get(i).get(
+                        Math.max(0, roundDeadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                if (siddhiRevision != null) {
+                    siddhiRevisions.add(siddhiRevision);
+                }
+            } catch (TimeoutException e) {
+                log.error("Persisting of Siddhi app " + siddhiAppRuntimes.get(i).getName() + " did not complete " +
+                        "within " + ROUND_TIMEOUT_MILLIS + " ms. Hence its revision is not included in this round");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.error("Interrupted while persisting Siddhi app " + siddhiAppRuntimes.get(i).getName());
+            } catch (ExecutionException e) {
+                log.error("Persisting of Siddhi app " + siddhiAppRuntimes.get(i).getName() + " is not successful",
+                        e.getCause());
+            }
+        }
+        long roundDuration = System.currentTimeMillis() - startTime;
+        PersistenceMetrics.retainSiddhiApps(siddhiAppRuntimeMap.keySet());
+        PersistenceMetrics.markRoundCompleted(roundDuration);
+        if (log.isDebugEnabled()) {
+            log.debug("Persisted " + siddhiRevisions.size() + " of " + siddhiAppRuntimes.size() +
+                    " Siddhi apps in " + roundDuration + " ms");
+        }
+        return siddhiRevisions;
+    }
+
+    /**
+     * Persists a Siddhi app and waits until its state is saved.
+     *
+     * @return the revision of the app, or null if the state could not be saved in time
+     */
+    private String persistSiddhiApp(SiddhiAppRuntime siddhiAppRuntime) {
+        PersistenceReference persistenceReference = siddhiAppRuntime.persist();
+        //the snapshot is taken by the time persist returns, hence the events synced so far are covered by it
+        String siddhiRevision = persistenceReference.getRevision();
+        if (sequenceIDGenerator != null) {
+            siddhiRevision = sequenceIDGenerator.incrementAndGet() + HAConstants.PERSISTED_APP_SPLIT_DELIMITER +
+                    siddhiRevision;
+        }
+        Future fullStateFuture = persistenceReference.getFullStateFuture();
+        try {
+            if (fullStateFuture != null) {
+                fullStateFuture.get(PERSISTENCE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            } else if (persistenceReference.getIncrementalStateFuture() != null) {
+                for (Future future : persistenceReference.getIncrementalStateFuture()) {
+                    future.get(PERSISTENCE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while persisting Siddhi app " + siddhiAppRuntime.getName());
+            return null;
+        } catch (Throwable e) {
+            log.error("Persisting of Siddhi app " + siddhiAppRuntime.getName() + " is not successful. Check if " +
+                    "app deployed properly", e);
+            return null;
+        }
+        PersistenceMetrics.markPersisted(siddhiAppRuntime.getName(), System.currentTimeMillis());
+        if (log.isDebugEnabled()) {
+            log.debug("Revision " + persistenceReference.getRevision() +
+                    " of siddhi App " + siddhiAppRuntime.getName() + " persisted successfully");
+        }
+        return siddhiRevision;
+    }
 
     private EventSyncConnection getTCPConnection() {
         deploymentConfig = StreamProcessorDataHolder.getDeploymentConfig();
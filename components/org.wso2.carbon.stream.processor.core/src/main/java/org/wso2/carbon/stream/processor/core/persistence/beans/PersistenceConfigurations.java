@@ -26,6 +26,7 @@ public class PersistenceConfigurations {
     private boolean enabled = false;
     private int intervalInMin = 1;
     private int revisionsToKeep = 3;
+    private int persistenceThreadPoolSize = 4;
     private String persistenceStore = FileSystemPersistenceStore.class.getName();
     private PersistenceStoreConfigs config;
 
@@ -53,6 +54,14 @@ public class PersistenceConfigurations {
         this.revisionsToKeep = revisionsToKeep;
     }
 
+    public int getPersistenceThreadPoolSize() {
+        return persistenceThreadPoolSize;
+    }
+
+    public void setPersistenceThreadPoolSize(int persistenceThreadPoolSize) {
+        this.persistenceThreadPoolSize = persistenceThreadPoolSize;
+    }
+
     public String getPersistenceStore() {
         return persistenceStore;
     }
@@ -27,6 +27,14 @@ public class PersistenceStoreConfigs {
     private String location = "siddhi-app-persistence";
     private String datasource;
     private String table = "PERSISTENCE_TABLE";
+    @Element(description = "Snapshot compression codec, one of gzip, lz4 or zstd")
+    private String compression = "gzip";
+    @Element(description = "Maximum number of incremental snapshots written to the database in one batch")
+    private int batchSize = 100;
+    @Element(description = "Interval in seconds between cleanups of obsolete incremental revisions")
+    private int cleanupInterval = 60;
+    @Element(description = "Size in MB of the segment files of the segmented file system persistence store")
+    private int segmentSize = 64;
     @Element(description = "Database query map")
     private List<Queries> queries;
 
@@ -54,6 +62,38 @@ public class PersistenceStoreConfigs {
         this.table = table;
     }
 
+    public String getCompression() {
+        return compression;
+    }
+
+    public void setCompression(String compression) {
+        this.compression = compression;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getCleanupInterval() {
+        return cleanupInterval;
+    }
+
+    public void setCleanupInterval(int cleanupInterval) {
+        this.cleanupInterval = cleanupInterval;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
     public List<Queries> getQueries() {
         return queries;
     }
@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.stream.processor.core.persistence.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compression codec used by the persistence stores to compress Siddhi app snapshots. Codecs are registered in
+ * {@link SnapshotCodecFactory} and selected by name through the persistence store configuration, while the
+ * {@link #getId()} is written in front of each snapshot so that it can be read back with the codec it was written
+ * with.
+ */
+public interface SnapshotCodec {
+
+    /**
+     * @return the name used to select the codec in the persistence store configuration
+     */
+    String getName();
+
+    /**
+     * @return the unique id written in the snapshot header
+     */
+    byte getId();
+
+    /**
+     * Wraps the given stream such that the data written to the returned stream is compressed to it.
+     */
+    OutputStream compress(OutputStream outputStream) throws IOException;
+
+    /**
+     * Wraps the given stream such that the data read from the returned stream is decompressed from it.
+     */
+    InputStream decompress(InputStream inputStream) throws IOException;
+}
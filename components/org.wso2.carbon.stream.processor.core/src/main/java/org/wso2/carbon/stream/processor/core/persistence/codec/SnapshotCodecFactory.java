@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.stream.processor.core.persistence.codec;
+
+import org.apache.log4j.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds the {@link SnapshotCodec}s known to the persistence stores, by name and by id.
+ */
+public class SnapshotCodecFactory {
+    private static final Logger log = Logger.getLogger(SnapshotCodecFactory.class);
+    private static final Map<String, SnapshotCodec> codecsByName = new ConcurrentHashMap<>();
+    private static final Map<Byte, SnapshotCodec> codecsById = new ConcurrentHashMap<>();
+
+    static {
+        registerCodec(new GzipSnapshotCodec());
+        registerCodec(new LZ4SnapshotCodec());
+        registerCodec(new ZstdSnapshotCodec());
+    }
+
+    private SnapshotCodecFactory() {
+    }
+
+    /**
+     * Registers a codec, replacing any codec registered with the same name or id.
+     */
+    public static void registerCodec(SnapshotCodec snapshotCodec) {
+        codecsByName.put(snapshotCodec.getName().toLowerCase(), snapshotCodec);
+        codecsById.put(snapshotCodec.getId(), snapshotCodec);
+    }
+
+    /**
+     * @return the codec registered with the given name, or null if there is no such codec
+     */
+    public static SnapshotCodec getCodec(String name) {
+        return codecsByName.get(name.trim().toLowerCase());
+    }
+
+    /**
+     * @return the codec registered with the given id, or null if there is no such codec
+     */
+    public static SnapshotCodec getCodec(byte id) {
+        return codecsById.get(id);
+    }
+
+    public static SnapshotCodec getDefaultCodec() {
+        return codecsByName.get(GzipSnapshotCodec.NAME);
+    }
+
+    /**
+     * Resolves the codec configured for a persistence store, falling back to the default codec if the configured
+     * value is not set or unknown.
+     */
+    public static SnapshotCodec getConfiguredCodec(Object compressionObject) {
+        if (!(compressionObject instanceof String)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Snapshot compression not set. Default compression '" + GzipSnapshotCodec.NAME +
+                        "' will be used.");
+            }
+            return getDefaultCodec();
+        }
+        SnapshotCodec snapshotCodec = getCodec((String) compressionObject);
+        if (snapshotCodec == null) {
+            log.warn("Unknown snapshot compression '" + compressionObject + "'. Default compression '" +
+                    GzipSnapshotCodec.NAME + "' will be used.");
+            return getDefaultCodec();
+        }
+        return snapshotCodec;
+    }
+}
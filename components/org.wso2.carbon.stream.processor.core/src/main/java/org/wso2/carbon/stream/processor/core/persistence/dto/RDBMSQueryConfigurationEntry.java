@@ -33,6 +33,16 @@ public class RDBMSQueryConfigurationEntry {
     private String deleteOldRevisionsQuery;
     private String countQuery;
     private String deleteAllRevisionsQuery;
+    private String insertIncrementalSnapshotQuery;
+    private String isRevisionTimeExistQuery;
+    private String addRevisionTimeColumnQuery;
+    private String createRevisionTimeIndexQuery;
+    private String selectRevisionsToLoadQuery;
+    private String selectLastIncrementalRevisionQuery;
+    private String selectRevisionsBeforeQuery;
+    private String deleteRevisionQuery;
+    private String selectRevisionsWithoutTimeQuery;
+    private String updateRevisionTimeQuery;
 
     public String getDatabaseName() {
         return databaseName;
@@ -122,4 +132,83 @@ public class RDBMSQueryConfigurationEntry {
         this.deleteAllRevisionsQuery = deleteAllRevisionsQuery;
     }
 
+    public String getInsertIncrementalSnapshotQuery() {
+        return insertIncrementalSnapshotQuery;
+    }
+
+    public void setInsertIncrementalSnapshotQuery(String insertIncrementalSnapshotQuery) {
+        this.insertIncrementalSnapshotQuery = insertIncrementalSnapshotQuery;
+    }
+
+    public String getIsRevisionTimeExistQuery() {
+        return isRevisionTimeExistQuery;
+    }
+
+    public void setIsRevisionTimeExistQuery(String isRevisionTimeExistQuery) {
+        this.isRevisionTimeExistQuery = isRevisionTimeExistQuery;
+    }
+
+    public String getAddRevisionTimeColumnQuery() {
+        return addRevisionTimeColumnQuery;
+    }
+
+    public void setAddRevisionTimeColumnQuery(String addRevisionTimeColumnQuery) {
+        this.addRevisionTimeColumnQuery = addRevisionTimeColumnQuery;
+    }
+
+    public String getCreateRevisionTimeIndexQuery() {
+        return createRevisionTimeIndexQuery;
+    }
+
+    public void setCreateRevisionTimeIndexQuery(String createRevisionTimeIndexQuery) {
+        this.createRevisionTimeIndexQuery = createRevisionTimeIndexQuery;
+    }
+
+    public String getSelectRevisionsToLoadQuery() {
+        return selectRevisionsToLoadQuery;
+    }
+
+    public void setSelectRevisionsToLoadQuery(String selectRevisionsToLoadQuery) {
+        this.selectRevisionsToLoadQuery = selectRevisionsToLoadQuery;
+    }
+
+    public String getSelectLastIncrementalRevisionQuery() {
+        return selectLastIncrementalRevisionQuery;
+    }
+
+    public void setSelectLastIncrementalRevisionQuery(String selectLastIncrementalRevisionQuery) {
+        this.selectLastIncrementalRevisionQuery = selectLastIncrementalRevisionQuery;
+    }
+
+    public String getSelectRevisionsBeforeQuery() {
+        return selectRevisionsBeforeQuery;
+    }
+
+    public void setSelectRevisionsBeforeQuery(String selectRevisionsBeforeQuery) {
+        this.selectRevisionsBeforeQuery = selectRevisionsBeforeQuery;
+    }
+
+    public String getDeleteRevisionQuery() {
+        return deleteRevisionQuery;
+    }
+
+    public void setDeleteRevisionQuery(String deleteRevisionQuery) {
+        this.deleteRevisionQuery = deleteRevisionQuery;
+    }
+
+    public String getSelectRevisionsWithoutTimeQuery() {
+        return selectRevisionsWithoutTimeQuery;
+    }
+
+    public void setSelectRevisionsWithoutTimeQuery(String selectRevisionsWithoutTimeQuery) {
+        this.selectRevisionsWithoutTimeQuery = selectRevisionsWithoutTimeQuery;
+    }
+
+    public String getUpdateRevisionTimeQuery() {
+        return updateRevisionTimeQuery;
+    }
+
+    public void setUpdateRevisionTimeQuery(String updateRevisionTimeQuery) {
+        this.updateRevisionTimeQuery = updateRevisionTimeQuery;
+    }
 }
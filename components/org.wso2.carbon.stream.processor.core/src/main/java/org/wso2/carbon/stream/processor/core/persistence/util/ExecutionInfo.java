@@ -33,6 +33,16 @@ public class ExecutionInfo {
     private String preparedDeleteOldRevisionsStatement;
     private String preparedCountStatement;
     private String preparedDeleteAllRevisionsStatement;
+    private String preparedInsertIncrementalStatement;
+    private String preparedRevisionTimeExistenceCheckStatement;
+    private String preparedAddRevisionTimeColumnStatement;
+    private String preparedCreateRevisionTimeIndexStatement;
+    private String preparedSelectRevisionsToLoadStatement;
+    private String preparedSelectLastIncrementalRevisionStatement;
+    private String preparedSelectRevisionsBeforeStatement;
+    private String preparedDeleteRevisionStatement;
+    private String preparedSelectRevisionsWithoutTimeStatement;
+    private String preparedUpdateRevisionTimeStatement;
 
     private boolean tableExist = false;
 
@@ -124,4 +134,84 @@ public class ExecutionInfo {
         this.preparedDeleteAllRevisionsStatement = preparedDeleteAllRevisionsStatement;
     }
 
+    public String getPreparedInsertIncrementalStatement() {
+        return preparedInsertIncrementalStatement;
+    }
+
+    public void setPreparedInsertIncrementalStatement(String preparedInsertIncrementalStatement) {
+        this.preparedInsertIncrementalStatement = preparedInsertIncrementalStatement;
+    }
+
+    public String getPreparedRevisionTimeExistenceCheckStatement() {
+        return preparedRevisionTimeExistenceCheckStatement;
+    }
+
+    public void setPreparedRevisionTimeExistenceCheckStatement(String preparedRevisionTimeExistenceCheckStatement) {
+        this.preparedRevisionTimeExistenceCheckStatement = preparedRevisionTimeExistenceCheckStatement;
+    }
+
+    public String getPreparedAddRevisionTimeColumnStatement() {
+        return preparedAddRevisionTimeColumnStatement;
+    }
+
+    public void setPreparedAddRevisionTimeColumnStatement(String preparedAddRevisionTimeColumnStatement) {
+        this.preparedAddRevisionTimeColumnStatement = preparedAddRevisionTimeColumnStatement;
+    }
+
+    public String getPreparedCreateRevisionTimeIndexStatement() {
+        return preparedCreateRevisionTimeIndexStatement;
+    }
+
+    public void setPreparedCreateRevisionTimeIndexStatement(String preparedCreateRevisionTimeIndexStatement) {
+        this.preparedCreateRevisionTimeIndexStatement = preparedCreateRevisionTimeIndexStatement;
+    }
+
+    public String getPreparedSelectRevisionsToLoadStatement() {
+        return preparedSelectRevisionsToLoadStatement;
+    }
+
+    public void setPreparedSelectRevisionsToLoadStatement(String preparedSelectRevisionsToLoadStatement) {
+        this.preparedSelectRevisionsToLoadStatement = preparedSelectRevisionsToLoadStatement;
+    }
+
+    public String getPreparedSelectLastIncrementalRevisionStatement() {
+        return preparedSelectLastIncrementalRevisionStatement;
+    }
+
+    public void setPreparedSelectLastIncrementalRevisionStatement(String preparedSelectLastIncrementalRevisionStatement) {
+        this.preparedSelectLastIncrementalRevisionStatement = preparedSelectLastIncrementalRevisionStatement;
+    }
+
+    public String getPreparedSelectRevisionsBeforeStatement() {
+        return preparedSelectRevisionsBeforeStatement;
+    }
+
+    public void setPreparedSelectRevisionsBeforeStatement(String preparedSelectRevisionsBeforeStatement) {
+        this.preparedSelectRevisionsBeforeStatement = preparedSelectRevisionsBeforeStatement;
+    }
+
+    public String getPreparedDeleteRevisionStatement() {
+        return preparedDeleteRevisionStatement;
+    }
+
+    public void setPreparedDeleteRevisionStatement(String preparedDeleteRevisionStatement) {
+        this.preparedDeleteRevisionStatement = preparedDeleteRevisionStatement;
+    }
+
+    public String getPreparedSelectRevisionsWithoutTimeStatement() {
+        return preparedSelectRevisionsWithoutTimeStatement;
+    }
+
+    public void setPreparedSelectRevisionsWithoutTimeStatement(String preparedSelectRevisionsWithoutTimeStatement) {
+        this.preparedSelectRevisionsWithoutTimeStatement = preparedSelectRevisionsWithoutTimeStatement;
+    }
+
+    public String getPreparedUpdateRevisionTimeStatement() {
+        return preparedUpdateRevisionTimeStatement;
+    }
+
+    public void setPreparedUpdateRevisionTimeStatement(String preparedUpdateRevisionTimeStatement) {
+        this.preparedUpdateRevisionTimeStatement = preparedUpdateRevisionTimeStatement;
+    }
+
 }
@@ -23,10 +23,20 @@ public class PersistenceConstants {
     private PersistenceConstants(){}
 
     public static final String PLACEHOLDER_TABLE_NAME = "{{TABLE_NAME}}";
+    public static final String PLACEHOLDER_INDEX_NAME = "{{INDEX_NAME}}";
     public static final String STATE_PERSISTENCE_NS = "state.persistence";
     public static final String STATE_PERSISTENCE_REVISIONS_TO_KEEP = "revisionsToKeep";
     public static final String STATE_PERSISTENCE_CONFIGS = "config";
     public static final String DEFAULT_FILE_PERSISTENCE_FOLDER = "siddhi-app-persistence";
+    public static final String STATE_PERSISTENCE_COMPRESSION = "compression";
+    public static final String STATE_PERSISTENCE_BATCH_SIZE = "batchSize";
+    public static final String STATE_PERSISTENCE_CLEANUP_INTERVAL = "cleanupInterval";
+    public static final String STATE_PERSISTENCE_SAVE_TIMEOUT = "saveTimeout";
+    public static final String STATE_PERSISTENCE_SEGMENT_SIZE = "segmentSize";
+    public static final int DEFAULT_DB_PERSISTENCE_BATCH_SIZE = 100;
+    public static final int DEFAULT_DB_PERSISTENCE_CLEANUP_INTERVAL = 60;
+    public static final int DEFAULT_DB_PERSISTENCE_SAVE_TIMEOUT = 60;
+    public static final int DEFAULT_SEGMENT_SIZE = 64;
     public static final String REVISION_SEPARATOR = "__";
     public static final String DEFAULT_DB_PERSISTENCE_DATASOURCE = "WSO2_CARBON_DB";
     public static final String DEFAULT_DB_PERSISTENCE_TABLE_NAME = "PERSISTENCE_TABLE";
@@ -40,5 +50,18 @@ public class PersistenceConstants {
     public static final String DELETE_OLD_REVISIONS = "DELETE_OLD_REVISIONS";
     public static final String COUNT_NUMBER_REVISIONS = "COUNT_NUMBER_REVISIONS";
     public static final String DELETE_ALL_REVISIONS = "DELETE_ALL_REVISIONS";
+    public static final String INSERT_INCREMENTAL_SNAPSHOT = "INSERT_INCREMENTAL_SNAPSHOT";
+    public static final String IS_REVISION_TIME_EXISTS = "IS_REVISION_TIME_EXISTS";
+    public static final String ADD_REVISION_TIME_COLUMN = "ADD_REVISION_TIME_COLUMN";
+    public static final String CREATE_REVISION_TIME_INDEX = "CREATE_REVISION_TIME_INDEX";
+    public static final String REVISION_TIME_INDEX_SUFFIX = "_RT_IDX";
+    //oracle versions before 12.2 do not allow identifiers longer than 30 characters
+    public static final int MAX_INDEX_NAME_LENGTH = 30;
+    public static final String SELECT_REVISIONS_TO_LOAD = "SELECT_REVISIONS_TO_LOAD";
+    public static final String SELECT_LAST_INCREMENTAL_REVISION = "SELECT_LAST_INCREMENTAL_REVISION";
+    public static final String SELECT_REVISIONS_BEFORE = "SELECT_REVISIONS_BEFORE";
+    public static final String DELETE_REVISION = "DELETE_REVISION";
+    public static final String SELECT_REVISIONS_WITHOUT_TIME = "SELECT_REVISIONS_WITHOUT_TIME";
+    public static final String UPDATE_REVISION_TIME = "UPDATE_REVISION_TIME";
 
 }
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.stream.processor.core.persistence.util;
+
+import org.wso2.carbon.metrics.core.Gauge;
+import org.wso2.carbon.metrics.core.Level;
+import org.wso2.carbon.metrics.core.MetricService;
+import org.wso2.carbon.siddhi.metrics.core.internal.SiddhiMetricsDataHolder;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the duration of the periodic persistence rounds and the persistence lag of each Siddhi app, that is the
+ * time since the state of the app was last persisted successfully. The values are published through the carbon
+ * metrics service when it is available.
+ */
+public class PersistenceMetrics {
+    private static final String METRIC_PREFIX = "org.wso2.carbon.stream.processor.core.persistence.";
+    private static final String ROUND_DURATION_METRIC = METRIC_PREFIX + "round.duration";
+    private static final String LAG_METRIC_SUFFIX = ".lag";
+
+    private static final Map<String, Long> lastPersistedTimestamps = new ConcurrentHashMap<>();
+    private static volatile long lastRoundDuration = -1;
+
+    private PersistenceMetrics() {
+    }
+
+    public static void markPersisted(String siddhiAppName, long timestamp) {
+        if (lastPersistedTimestamps.put(siddhiAppName, timestamp) == null) {
+            MetricService metricService = getMetricService();
+            if (metricService != null) {
+                metricService.gauge(METRIC_PREFIX + siddhiAppName + LAG_METRIC_SUFFIX, Level.INFO,
+                        (Gauge<Long>) () -> getLag(siddhiAppName));
+            }
+        }
+    }
+
+    public static void markRoundCompleted(long durationInMillis) {
+        lastRoundDuration = durationInMillis;
+        MetricService metricService = getMetricService();
+        if (metricService != null) {
+            metricService.timer(ROUND_DURATION_METRIC, Level.INFO).update(durationInMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stops tracking the Siddhi apps which are no longer deployed.
+     */
+    public static void retainSiddhiApps(Set<String> siddhiAppNames) {
+        for (Iterator<String> iterator = lastPersistedTimestamps.keySet().iterator(); iterator.hasNext(); ) {
+            String siddhiAppName = iterator.next();
+            if (!siddhiAppNames.contains(siddhiAppName)) {
+                iterator.remove();
+                MetricService metricService = getMetricService();
+                if (metricService != null) {
+                    metricService.remove(METRIC_PREFIX + siddhiAppName + LAG_METRIC_SUFFIX);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return milliseconds since the state of the Siddhi app was last persisted, or -1 if it was never persisted
+     */
+    public static long getLag(String siddhiAppName) {
+        Long lastPersistedTimestamp = lastPersistedTimestamps.get(siddhiAppName);
+        if (lastPersistedTimestamp == null) {
+            return -1;
+        }
+        return System.currentTimeMillis() - lastPersistedTimestamp;
+    }
+
+    /**
+     * @return duration of the last persistence round in milliseconds, or -1 if no round completed yet
+     */
+    public static long getLastRoundDuration() {
+        return lastRoundDuration;
+    }
+
+    private static MetricService getMetricService() {
+        return SiddhiMetricsDataHolder.getInstance().getMetricService();
+    }
+}
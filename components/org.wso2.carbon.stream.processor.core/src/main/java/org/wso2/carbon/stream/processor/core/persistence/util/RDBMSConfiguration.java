@@ -72,6 +72,36 @@ public class RDBMSConfiguration {
             databaseQueryEntries.setDeleteAllRevisionsQuery(queryManager.
                     getQuery(PersistenceConstants.DELETE_ALL_REVISIONS).
                     replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setInsertIncrementalSnapshotQuery(queryManager.
+                    getQuery(PersistenceConstants.INSERT_INCREMENTAL_SNAPSHOT).
+                    replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setIsRevisionTimeExistQuery(queryManager.
+                    getQuery(PersistenceConstants.IS_REVISION_TIME_EXISTS).
+                    replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setAddRevisionTimeColumnQuery(queryManager.
+                    getQuery(PersistenceConstants.ADD_REVISION_TIME_COLUMN).
+                    replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setCreateRevisionTimeIndexQuery(queryManager.
+                    getQuery(PersistenceConstants.CREATE_REVISION_TIME_INDEX).
+                    replace(PersistenceConstants.PLACEHOLDER_INDEX_NAME, getRevisionTimeIndexName(tableName)).
+                    replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setSelectRevisionsToLoadQuery(queryManager.
+                    getQuery(PersistenceConstants.SELECT_REVISIONS_TO_LOAD).
+                    replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setSelectLastIncrementalRevisionQuery(queryManager.
+                    getQuery(PersistenceConstants.SELECT_LAST_INCREMENTAL_REVISION).
+                    replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setSelectRevisionsBeforeQuery(queryManager.
+                    getQuery(PersistenceConstants.SELECT_REVISIONS_BEFORE).
+                    replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setDeleteRevisionQuery(queryManager.getQuery(PersistenceConstants.DELETE_REVISION).
+                    replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setSelectRevisionsWithoutTimeQuery(queryManager.
+                    getQuery(PersistenceConstants.SELECT_REVISIONS_WITHOUT_TIME).
+                    replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
+            databaseQueryEntries.setUpdateRevisionTimeQuery(queryManager.
+                    getQuery(PersistenceConstants.UPDATE_REVISION_TIME).
+                    replace(PersistenceConstants.PLACEHOLDER_TABLE_NAME, tableName));
 
         } catch (QueryMappingNotAvailableException | ConfigurationException | IOException e) {
             throw new DatasourceConfigurationException("Error reading queries for database: " + databaseType + " "
@@ -79,4 +109,24 @@ public class RDBMSConfiguration {
         }
         return databaseQueryEntries;
     }
+
+    /**
+     * Get the name of the revision time index of the given table. The name is derived from the table name, and when
+     * that is too long for the identifier limit of the database the table name is cut short and its hash is added,
+     * so that the indexes of different tables still get different names.
+     *
+     * @param tableName name of the persistence table
+     * @return name of the revision time index
+     */
+    public static String getRevisionTimeIndexName(String tableName) {
+        String indexName = tableName + PersistenceConstants.REVISION_TIME_INDEX_SUFFIX;
+        if (indexName.length() <= PersistenceConstants.MAX_INDEX_NAME_LENGTH) {
+            return indexName;
+        }
+        String tableNameHash = String.format("%08X", tableName.hashCode());
+        int prefixLength = PersistenceConstants.MAX_INDEX_NAME_LENGTH - tableNameHash.length() - 1 -
+                PersistenceConstants.REVISION_TIME_INDEX_SUFFIX.length();
+        return tableName.substring(0, prefixLength) + "_" + tableNameHash +
+                PersistenceConstants.REVISION_TIME_INDEX_SUFFIX;
+    }
 }
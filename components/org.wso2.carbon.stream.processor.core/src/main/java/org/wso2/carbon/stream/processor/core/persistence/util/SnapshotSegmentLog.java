@@ -0,0 +1,331 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ *  WSO2 Inc. licenses this file to you under the Apache License,
+ *  Version 2.0 (the "License"); you may not use this file except
+ *  in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied. See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ */
+
+package org.wso2.carbon.stream.processor.core.persistence.util;
+
+import io.netty.util.internal.PlatformDependent;
+import org.apache.log4j.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Append only log of pre-allocated, memory mapped segment files holding the incremental snapshots of a Siddhi app.
+ * Each record holds the revision name followed by the compressed snapshot. When a segment is full an index of its
+ * live records is written as a footer, so that the revision index can be rebuilt on startup without reading the
+ * snapshots. Only the segment that is still being appended to is scanned record by record.
+ * <p>
+ * This class is not thread safe, it is guarded by the owning persistence store.
+ */
+public class SnapshotSegmentLog {
+    private static final Logger log = Logger.getLogger(SnapshotSegmentLog.class);
+    private static final String SEGMENT_FILE_PREFIX = "segment-";
+    private static final String SEGMENT_FILE_SUFFIX = ".snapshots";
+    private static final long FOOTER_MAGIC = 0x5350534e41505346L;
+    private static final int TRAILER_SIZE = 12;
+    private static final int END_OF_RECORDS = -1;
+
+    private final File directory;
+    private final int segmentSize;
+    private final List<Segment> segments = new ArrayList<>();
+    private final Map<String, SnapshotEntry> index = new HashMap<>();
+    private long nextSegmentIndex = 0;
+
+    public SnapshotSegmentLog(File directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        open();
+    }
+
+    /**
+     * Appends the snapshot of the given revision, replacing any snapshot previously stored under the same revision.
+     */
+    public void append(String revision, byte[] snapshot) throws IOException {
+        remove(revision);
+        byte[] revisionBytes = revision.getBytes(StandardCharsets.UTF_8);
+        int recordSize = 4 + revisionBytes.length + snapshot.length;
+        int entrySize = 4 + revisionBytes.length + 8;
+        Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || segment.sealed || !segment.fits(recordSize, entrySize)) {
+            if (segment != null && !segment.sealed) {
+                segment.seal();
+            }
+            segment = createSegment(4 + recordSize + 4 + 4 + entrySize + TRAILER_SIZE);
+        }
+        int recordStart = segment.writePosition;
+        ByteBuffer buffer = segment.buffer.duplicate();
+        buffer.position(recordStart + 4);
+        buffer.putInt(revisionBytes.length);
+        buffer.put(revisionBytes);
+        int snapshotOffset = buffer.position();
+        buffer.put(snapshot);
+        //the size is written last, so that a partially written record is never read back
+        segment.buffer.putInt(recordStart, recordSize);
+        segment.writePosition = buffer.position();
+        addEntry(new SnapshotEntry(revision, segment, snapshotOffset, snapshot.length));
+    }
+
+    /**
+     * Returns a copy of the snapshot stored under the given revision, or null if there is no such revision.
+     */
+    public byte[] read(String revision) {
+        SnapshotEntry entry = index.get(revision);
+        if (entry == null) {
+            return null;
+        }
+        byte[] snapshot = new byte[entry.length];
+        ByteBuffer buffer = entry.segment.buffer.duplicate();
+        buffer.position(entry.offset);
+        buffer.get(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Returns the live revisions of the log.
+     */
+    public Set<String> getRevisions() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    /**
+     * Removes the given revision from the index. A full segment is deleted once none of its revisions are live.
+     */
+    public void remove(String revision) {
+        SnapshotEntry entry = index.remove(revision);
+        if (entry == null) {
+            return;
+        }
+        Segment segment = entry.segment;
+        segment.entries.remove(entry);
+        if (segment.entries.isEmpty() && segment.sealed) {
+            segments.remove(segment);
+            if (!segment.delete()) {
+                log.error("Error deleting snapshot segment " + segment.file.getPath());
+            }
+        }
+    }
+
+    /**
+     * Deletes all segments of the log.
+     */
+    public void clear() throws IOException {
+        index.clear();
+        List<Segment> segmentsToDelete = new ArrayList<>(segments);
+        segments.clear();
+        for (Segment segment : segmentsToDelete) {
+            if (!segment.delete()) {
+                throw new IOException("Snapshot segment " + segment.file.getPath() + " is not deleted");
+            }
+        }
+    }
+
+    private void open() throws IOException {
+        File[] files = directory.listFiles((dir, name) ->
+                name.startsWith(SEGMENT_FILE_PREFIX) && name.endsWith(SEGMENT_FILE_SUFFIX));
+        if (files == null || files.length == 0) {
+            return;
+        }
+        List<File> segmentFiles = new ArrayList<>();
+        Collections.addAll(segmentFiles, files);
+        segmentFiles.sort(Comparator.comparingLong(SnapshotSegmentLog::getSegmentIndex));
+        for (File file : segmentFiles) {
+            Segment segment = new Segment(file, map(file, (int) file.length()));
+            segments.add(segment);
+            nextSegmentIndex = getSegmentIndex(file) + 1;
+            if (!segment.readFooter()) {
+                segment.scanRecords();
+            }
+            for (SnapshotEntry entry : segment.entries) {
+                SnapshotEntry previousEntry = index.put(entry.revision, entry);
+                if (previousEntry != null) {
+                    previousEntry.segment.entries.remove(previousEntry);
+                }
+            }
+        }
+        //only the last segment is appended to, an earlier one without a footer was left behind by a crash
+        for (int i = 0; i < segments.size() - 1; i++) {
+            segments.get(i).sealed = true;
+        }
+        for (Iterator<Segment> iterator = segments.iterator(); iterator.hasNext(); ) {
+            Segment segment = iterator.next();
+            if (segment.sealed && segment.entries.isEmpty()) {
+                iterator.remove();
+                if (!segment.delete()) {
+                    log.error("Error deleting snapshot segment " + segment.file.getPath());
+                }
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Loaded " + index.size() + " revisions from " + segments.size() + " snapshot segments in " +
+                    directory.getPath());
+        }
+    }
+
+    private void addEntry(SnapshotEntry entry) {
+        entry.segment.entries.add(entry);
+        entry.segment.footerSize += entry.getFooterEntrySize();
+        index.put(entry.revision, entry);
+    }
+
+    private Segment createSegment(int minimumSize) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Cannot create snapshot segment directory " + directory.getPath());
+        }
+        File file = new File(directory, SEGMENT_FILE_PREFIX + nextSegmentIndex++ + SEGMENT_FILE_SUFFIX);
+        Segment segment = new Segment(file, map(file, Math.max(segmentSize, minimumSize)));
+        segments.add(segment);
+        if (log.isDebugEnabled()) {
+            log.debug("Created snapshot segment " + file.getPath() + " of " + segment.buffer.capacity() + " bytes");
+        }
+        return segment;
+    }
+
+    private static MappedByteBuffer map(File file, int size) throws IOException {
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw")) {
+            randomAccessFile.setLength(size);
+            //the mapping stays valid after the file channel is closed
+            return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static long getSegmentIndex(File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_FILE_PREFIX.length(),
+                    name.length() - SEGMENT_FILE_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static class Segment {
+        private final File file;
+        private final MappedByteBuffer buffer;
+        private final Set<SnapshotEntry> entries = new LinkedHashSet<>();
+        private int writePosition = 0;
+        private int footerSize = 4;
+        private boolean sealed = false;
+
+        private Segment(File file, MappedByteBuffer buffer) {
+            this.file = file;
+            this.buffer = buffer;
+        }
+
+        private boolean fits(int recordSize, int entrySize) {
+            return (long) writePosition + 4 + recordSize + 4 + footerSize + entrySize + TRAILER_SIZE
+                    <= buffer.capacity();
+        }
+
+        /**
+         * Writes the index of the live records after the last record and marks the segment as full.
+         */
+        private void seal() {
+            int footerOffset = writePosition + 4;
+            ByteBuffer footer = buffer.duplicate();
+            footer.putInt(writePosition, END_OF_RECORDS);
+            footer.position(footerOffset);
+            footer.putInt(entries.size());
+            for (SnapshotEntry entry : entries) {
+                byte[] revisionBytes = entry.revision.getBytes(StandardCharsets.UTF_8);
+                footer.putInt(revisionBytes.length);
+                footer.put(revisionBytes);
+                footer.putInt(entry.offset);
+                footer.putInt(entry.length);
+            }
+            //the magic number is written last, so that a partially written footer is never read back
+            footer.putInt(buffer.capacity() - TRAILER_SIZE, footerOffset);
+            footer.putLong(buffer.capacity() - 8, FOOTER_MAGIC);
+            sealed = true;
+        }
+
+        private boolean readFooter() {
+            if (buffer.capacity() < TRAILER_SIZE || buffer.getLong(buffer.capacity() - 8) != FOOTER_MAGIC) {
+                return false;
+            }
+            ByteBuffer footer = buffer.duplicate();
+            footer.position(buffer.getInt(buffer.capacity() - TRAILER_SIZE));
+            int noOfEntries = footer.getInt();
+            for (int i = 0; i < noOfEntries; i++) {
+                byte[] revisionBytes = new byte[footer.getInt()];
+                footer.get(revisionBytes);
+                entries.add(new SnapshotEntry(new String(revisionBytes, StandardCharsets.UTF_8), this,
+                        footer.getInt(), footer.getInt()));
+            }
+            sealed = true;
+            return true;
+        }
+
+        private void scanRecords() {
+            ByteBuffer records = buffer.duplicate();
+            int position = 0;
+            while (position + 4 <= buffer.capacity() - TRAILER_SIZE) {
+                int recordSize = records.getInt(position);
+                if (recordSize <= 0 || position + 4L + recordSize > buffer.capacity() - TRAILER_SIZE) {
+                    break;
+                }
+                records.position(position + 4);
+                byte[] revisionBytes = new byte[records.getInt()];
+                records.get(revisionBytes);
+                SnapshotEntry entry = new SnapshotEntry(new String(revisionBytes, StandardCharsets.UTF_8), this,
+                        records.position(), recordSize - 4 - revisionBytes.length);
+                entries.add(entry);
+                footerSize += entry.getFooterEntrySize();
+                position += 4 + recordSize;
+            }
+            writePosition = position;
+        }
+
+        private boolean delete() {
+            //unmap eagerly, else the disk space is only reclaimed once the mapping is garbage collected
+            PlatformDependent.freeDirectBuffer(buffer);
+            return file.delete();
+        }
+    }
+
+    private static class SnapshotEntry {
+        private final String revision;
+        private final Segment segment;
+        private final int offset;
+        private final int length;
+
+        private SnapshotEntry(String revision, Segment segment, int offset, int length) {
+            this.revision = revision;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        private int getFooterEntrySize() {
+            return 4 + revision.getBytes(StandardCharsets.UTF_8).length + 8;
+        }
+    }
+}
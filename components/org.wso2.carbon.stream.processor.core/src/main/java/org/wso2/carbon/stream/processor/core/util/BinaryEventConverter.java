@@ -18,81 +18,141 @@
 
 package org.wso2.carbon.stream.processor.core.util;
 
-import org.wso2.carbon.stream.processor.core.event.queue.EventDataMetaInfo;
-import org.wso2.carbon.stream.processor.core.event.queue.EventMetaInfo;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import org.wso2.carbon.stream.processor.core.event.queue.EventSchema;
 import org.wso2.carbon.stream.processor.core.event.queue.QueuedEvent;
 import org.wso2.siddhi.core.event.Event;
 import org.wso2.siddhi.query.api.definition.Attribute;
 
-import java.io.IOException;
-import java.lang.reflect.Array;
-import java.nio.ByteBuffer;
-import java.nio.charset.Charset;
-import java.util.Arrays;
-
-
 /**
  * This is a Util class help to convert from Siddhi event to Binary message.
+ * <p>
+ * Events are written against an {@link EventSchema} which is sent to the passive node beforehand, hence an event
+ * only carries the sequence id, schema id, timestamp, a null bitmap and the packed non null attribute values.
  */
 public class BinaryEventConverter {
 
-    public static ByteBuffer convertToBinaryMessage(QueuedEvent[] queuedEvents)
-            throws IOException {
-        ByteBuffer messageBuffer = null;
+    public static int getMessageSize(QueuedEvent[] queuedEvents) {
+        int messageSize = 4;
+        for (QueuedEvent queuedEvent : queuedEvents) {
+            messageSize += getEventSize(queuedEvent.getEventSchema(), queuedEvent.getEvent());
+        }
+        return messageSize;
+    }
+
+    public static void convertToBinaryMessage(QueuedEvent[] queuedEvents, ByteBuf messageBuffer) {
+        messageBuffer.writeInt(queuedEvents.length);
         for (QueuedEvent queuedEvent : queuedEvents) {
+            EventSchema eventSchema = queuedEvent.getEventSchema();
             Event event = queuedEvent.getEvent();
-            int messageSize = 4 + BinaryMessageConverterUtil.getSize(queuedEvent.getSourceHandlerElementId());
-            EventMetaInfo eventMetaInfo = getEventMetaInfo(event);
-            String attributes = Arrays.toString(eventMetaInfo.getAttributeTypeOrder());
-            messageSize += BinaryMessageConverterUtil.getSize(attributes) + BinaryMessageConverterUtil.getSize
-                    (queuedEvent.getSequenceID()) + BinaryMessageConverterUtil.getSize(queuedEvent.getSiddhiAppName())
-                    + BinaryMessageConverterUtil.getSize(queuedEvent.getEvent().getTimestamp()) + getEventSize(event);
+            messageBuffer.writeLong(queuedEvent.getSequenceID());
+            messageBuffer.writeInt(eventSchema.getSchemaId());
+            messageBuffer.writeLong(event.getTimestamp());
+            assignData(eventSchema, event.getData(), messageBuffer);
+        }
+    }
 
-            messageBuffer = ByteBuffer.wrap(new byte[messageSize]);
-            messageBuffer.putInt(queuedEvents.length);
-            messageBuffer.putLong(queuedEvent.getSequenceID());
-            messageBuffer.putInt((queuedEvent.getSourceHandlerElementId()).length());
-            messageBuffer.put(((queuedEvent.getSourceHandlerElementId()).getBytes(Charset.defaultCharset())));
-            messageBuffer.putInt((queuedEvent.getSiddhiAppName()).length());
-            messageBuffer.put(((queuedEvent.getSiddhiAppName()).getBytes(Charset.defaultCharset())));
+    public static int getMessageSize(EventSchema eventSchema) {
+        return 4 + 4 + BinaryMessageConverterUtil.getUTF8Size(eventSchema.getSiddhiAppName()) + 4 +
+                BinaryMessageConverterUtil.getUTF8Size(eventSchema.getSourceHandlerElementId()) + 4 +
+                eventSchema.getAttributeCount();
+    }
 
-            messageBuffer.putInt(attributes.length());
-            messageBuffer.put(((attributes).getBytes(Charset.defaultCharset())));
-            messageBuffer.putLong(event.getTimestamp());
-            if (event.getData() != null && event.getData().length != 0) {
-                Object[] data = event.getData();
-                for (int i = 0; i < data.length; i++) {
-                    Object aData = data[i];
-                    BinaryMessageConverterUtil.assignData(aData, messageBuffer);
-                }
-            }
+    public static void convertToBinaryMessage(EventSchema eventSchema, ByteBuf messageBuffer) {
+        messageBuffer.writeInt(eventSchema.getSchemaId());
+        writeString(eventSchema.getSiddhiAppName(), messageBuffer);
+        writeString(eventSchema.getSourceHandlerElementId(), messageBuffer);
+        messageBuffer.writeInt(eventSchema.getAttributeCount());
+        for (int i = 0; i < eventSchema.getAttributeCount(); i++) {
+            messageBuffer.writeByte(eventSchema.getAttributeType(i).ordinal());
         }
-        return messageBuffer;
     }
 
-    private static int getEventSize(Event event) {
-        int eventSize = 8;
+    private static int getEventSize(EventSchema eventSchema, Event event) {
+        int attributeCount = eventSchema.getAttributeCount();
+        int eventSize = 8 + 4 + 8 + getNullBitmapSize(attributeCount);
         Object[] data = event.getData();
         if (data != null) {
-            for (int i = 0; i < data.length; i++) {
+            for (int i = 0; i < attributeCount && i < data.length; i++) {
                 Object aData = data[i];
-                eventSize += BinaryMessageConverterUtil.getSize(aData);
+                if (aData == null) {
+                    continue;
+                }
+                switch (eventSchema.getAttributeType(i)) {
+                    case STRING:
+                        eventSize += 4 + BinaryMessageConverterUtil.getUTF8Size((String) aData);
+                        break;
+                    case INT:
+                    case FLOAT:
+                        eventSize += 4;
+                        break;
+                    case LONG:
+                    case DOUBLE:
+                        eventSize += 8;
+                        break;
+                    case BOOL:
+                        eventSize += 1;
+                        break;
+                    default:
+                        // OBJECT attributes are not synced
+                }
             }
         }
         return eventSize;
     }
 
-    private static EventMetaInfo getEventMetaInfo(Event event) {
-        int eventSize = 8;
-        Object[] data = event.getData();
-        Attribute.Type[] attributeTypeOrder = new Attribute.Type[data.length];
-        EventDataMetaInfo eventDataMetaInfo;
-        for (int i = 0; i < data.length; i++) {
+    private static void assignData(EventSchema eventSchema, Object[] data, ByteBuf messageBuffer) {
+        int attributeCount = eventSchema.getAttributeCount();
+        int dataLength = data != null ? Math.min(data.length, attributeCount) : 0;
+        int nullBitmap = 0;
+        for (int i = 0; i < attributeCount; i++) {
+            if (i >= dataLength || data[i] == null || eventSchema.getAttributeType(i) == Attribute.Type.OBJECT) {
+                nullBitmap |= 1 << (i & 7);
+            }
+            if ((i & 7) == 7 || i == attributeCount - 1) {
+                messageBuffer.writeByte(nullBitmap);
+                nullBitmap = 0;
+            }
+        }
+        for (int i = 0; i < dataLength; i++) {
             Object aData = data[i];
-            eventDataMetaInfo = BinaryMessageConverterUtil.getEventMetaInfo(aData);
-            eventSize += eventDataMetaInfo.getEventSize();
-            attributeTypeOrder[i] = eventDataMetaInfo.getAttributeType();
+            if (aData == null) {
+                continue;
+            }
+            switch (eventSchema.getAttributeType(i)) {
+                case STRING:
+                    writeString((String) aData, messageBuffer);
+                    break;
+                case INT:
+                    messageBuffer.writeInt((Integer) aData);
+                    break;
+                case LONG:
+                    messageBuffer.writeLong((Long) aData);
+                    break;
+                case FLOAT:
+                    messageBuffer.writeFloat((Float) aData);
+                    break;
+                case DOUBLE:
+                    messageBuffer.writeDouble((Double) aData);
+                    break;
+                case BOOL:
+                    messageBuffer.writeByte(((Boolean) aData) ? 1 : 0);
+                    break;
+                default:
+                    // OBJECT attributes are not synced
+            }
         }
-        return new EventMetaInfo(eventSize, attributeTypeOrder);
+    }
+
+    private static void writeString(String value, ByteBuf messageBuffer) {
+        int lengthIndex = messageBuffer.writerIndex();
+        messageBuffer.writeInt(0);
+        int length = ByteBufUtil.writeUtf8(messageBuffer, value);
+        messageBuffer.setInt(lengthIndex, length);
+    }
+
+    public static int getNullBitmapSize(int attributeCount) {
+        return (attributeCount + 7) >> 3;
     }
 }
@@ -97,6 +97,31 @@ public final class BinaryMessageConverterUtil {
         }
     }
 
+    /**
+     * Returns the number of bytes the given string takes when encoded in UTF-8, without encoding it.
+     *
+     * @param value string to be encoded
+     * @return UTF-8 encoded size of the string
+     */
+    public static int getUTF8Size(String value) {
+        int size = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                size++;
+            } else if (c < 0x800) {
+                size += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                size += 4;
+                i++;
+            } else {
+                size += 3;
+            }
+        }
+        return size;
+    }
+
     public static String getString(ByteBuf byteBuf, int size) throws UnsupportedEncodingException {
         byte[] bytes = new byte[size];
         byteBuf.readBytes(bytes);
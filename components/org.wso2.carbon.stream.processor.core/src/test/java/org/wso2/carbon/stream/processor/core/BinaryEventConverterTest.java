@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.stream.processor.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+import org.wso2.carbon.stream.processor.core.event.queue.EventSchema;
+import org.wso2.carbon.stream.processor.core.event.queue.EventSchemaRegistry;
+import org.wso2.carbon.stream.processor.core.event.queue.QueuedEvent;
+import org.wso2.carbon.stream.processor.core.ha.tcp.SiddhiEventConverter;
+import org.wso2.carbon.stream.processor.core.util.BinaryEventConverter;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.query.api.definition.Attribute;
+import org.wso2.siddhi.query.api.definition.StreamDefinition;
+
+public class BinaryEventConverterTest {
+
+    private static final String SIDDHI_APP_NAME = "TestApp";
+    private static final String SOURCE_1 = "source-1";
+
+    private EventSchema createEventSchema() {
+        StreamDefinition streamDefinition = StreamDefinition.id("StockStream")
+                .attribute("symbol", Attribute.Type.STRING)
+                .attribute("price", Attribute.Type.FLOAT)
+                .attribute("volume", Attribute.Type.LONG)
+                .attribute("count", Attribute.Type.INT)
+                .attribute("average", Attribute.Type.DOUBLE)
+                .attribute("valid", Attribute.Type.BOOL);
+        return EventSchemaRegistry.createSchema(SIDDHI_APP_NAME, SOURCE_1, streamDefinition);
+    }
+
+    @Test
+    public void testEventSchemaConversion() {
+        EventSchema eventSchema = createEventSchema();
+        ByteBuf schemaMessage = Unpooled.buffer();
+        BinaryEventConverter.convertToBinaryMessage(eventSchema, schemaMessage);
+        Assert.assertEquals(schemaMessage.readableBytes(), BinaryEventConverter.getMessageSize(eventSchema));
+
+        EventSchema receivedSchema = SiddhiEventConverter.getEventSchema(schemaMessage);
+        Assert.assertEquals(receivedSchema.getSchemaId(), eventSchema.getSchemaId());
+        Assert.assertEquals(receivedSchema.getSiddhiAppName(), SIDDHI_APP_NAME);
+        Assert.assertEquals(receivedSchema.getSourceHandlerElementId(), SOURCE_1);
+        Assert.assertEquals(receivedSchema.getAttributeTypes(), eventSchema.getAttributeTypes());
+        Assert.assertFalse(schemaMessage.isReadable());
+    }
+
+    @Test
+    public void testEventConversion() {
+        EventSchema eventSchema = createEventSchema();
+        Event event = new Event(1L, new Object[]{"WSO2\u00e9", 55.6f, 100L, 10, 20.5, true});
+        Event eventWithNulls = new Event(2L, new Object[]{null, 12.5f, null, 3, null, false});
+        QueuedEvent[] queuedEvents = new QueuedEvent[]{new QueuedEvent(eventSchema, 10L, event),
+                new QueuedEvent(eventSchema, 11L, eventWithNulls)};
+        ByteBuf message = Unpooled.buffer();
+        BinaryEventConverter.convertToBinaryMessage(queuedEvents, message);
+        Assert.assertEquals(message.readableBytes(), BinaryEventConverter.getMessageSize(queuedEvents));
+
+        Assert.assertEquals(message.readInt(), 2);
+        Assert.assertEquals(message.readLong(), 10L);
+        Assert.assertEquals(message.readInt(), eventSchema.getSchemaId());
+        Event receivedEvent = SiddhiEventConverter.getEvent(message, eventSchema);
+        Assert.assertEquals(receivedEvent.getTimestamp(), 1L);
+        Assert.assertEquals(receivedEvent.getData(), event.getData());
+
+        Assert.assertEquals(message.readLong(), 11L);
+        Assert.assertEquals(message.readInt(), eventSchema.getSchemaId());
+        receivedEvent = SiddhiEventConverter.getEvent(message, eventSchema);
+        Assert.assertEquals(receivedEvent.getTimestamp(), 2L);
+        Assert.assertEquals(receivedEvent.getData(), eventWithNulls.getData());
+        Assert.assertFalse(message.isReadable());
+    }
+}
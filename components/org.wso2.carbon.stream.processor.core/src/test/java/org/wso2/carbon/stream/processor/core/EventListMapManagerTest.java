@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.stream.processor.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.mockito.internal.util.reflection.Whitebox;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.stream.processor.core.event.queue.AppEventListMap;
+import org.wso2.carbon.stream.processor.core.event.queue.EventListMapManager;
+import org.wso2.carbon.stream.processor.core.event.queue.EventSchema;
+import org.wso2.carbon.stream.processor.core.event.queue.EventSchemaRegistry;
+import org.wso2.carbon.stream.processor.core.event.queue.QueuedEvent;
+import org.wso2.carbon.stream.processor.core.ha.util.HAConstants;
+import org.wso2.carbon.stream.processor.core.internal.beans.DeploymentConfig;
+import org.wso2.carbon.stream.processor.core.util.BinaryEventConverter;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.query.api.definition.Attribute;
+import org.wso2.siddhi.query.api.definition.StreamDefinition;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class EventListMapManagerTest {
+
+    private static final String SIDDHI_APP_NAME = "TestApp";
+    private static final String OTHER_SIDDHI_APP_NAME = "OtherApp";
+    private static final int SEGMENT_SIZE = 256;
+
+    private Path eventBufferDirectory;
+    private EventSchema eventSchema;
+    private EventSchema otherEventSchema;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        eventBufferDirectory = Files.createTempDirectory("event-buffer");
+        DeploymentConfig deploymentConfig = new DeploymentConfig();
+        deploymentConfig.setEventBufferDirectory(eventBufferDirectory.toString());
+        EventListMapManager.initializeEventListMap(deploymentConfig);
+        StreamDefinition streamDefinition = StreamDefinition.id("StockStream")
+                .attribute("symbol", Attribute.Type.STRING)
+                .attribute("price", Attribute.Type.FLOAT);
+        eventSchema = EventSchemaRegistry.createSchema(SIDDHI_APP_NAME, "source-1", streamDefinition);
+        EventSchemaRegistry.addReceivedSchema(eventSchema);
+        otherEventSchema = EventSchemaRegistry.createSchema(OTHER_SIDDHI_APP_NAME, "source-1", streamDefinition);
+        EventSchemaRegistry.addReceivedSchema(otherEventSchema);
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(eventBufferDirectory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void testTrimDropsOnlyOlderEvents() throws InterruptedException {
+        AppEventListMap appEventListMap = new AppEventListMap(SIDDHI_APP_NAME, 0, eventBufferDirectory,
+                SEGMENT_SIZE);
+        for (long sequenceId = 0; sequenceId < 10; sequenceId++) {
+            Assert.assertTrue(appEventListMap.add(createEvent(eventSchema, sequenceId)));
+        }
+
+        appEventListMap.trim(5);
+        Assert.assertEquals(getSequenceIds(replay(appEventListMap)), getSequenceIds(5, 10));
+        Assert.assertFalse(appEventListMap.add(createEvent(eventSchema, 4)));
+
+        // An older control message neither brings back trimmed events nor lowers the last sequence id
+        appEventListMap.trim(3);
+        Assert.assertFalse(appEventListMap.add(createEvent(eventSchema, 4)));
+        Assert.assertTrue(appEventListMap.add(createEvent(eventSchema, 10)));
+        Assert.assertEquals(getSequenceIds(replay(appEventListMap)), getSequenceIds(5, 11));
+    }
+
+    @Test
+    public void testControlMessageTrimsOnlyItsApp() throws Exception {
+        EventListMapManager eventListMapManager = new EventListMapManager();
+        eventListMapManager.parseMessage(createMessage(eventSchema, 0, 10));
+        eventListMapManager.parseMessage(createMessage(otherEventSchema, 0, 10));
+
+        String persistedApps = "[6" + HAConstants.PERSISTED_APP_SPLIT_DELIMITER + "1000" +
+                HAConstants.PERSISTED_APP_SPLIT_DELIMITER + SIDDHI_APP_NAME + "]";
+        eventListMapManager.parseControlMessage(persistedApps.getBytes(HAConstants.DEFAULT_CHARSET));
+        Map<String, AppEventListMap> eventListMaps = getEventListMaps(eventListMapManager);
+        Assert.assertEquals(getSequenceIds(replay(eventListMaps.get(SIDDHI_APP_NAME))), getSequenceIds(6, 10));
+        Assert.assertEquals(getSequenceIds(replay(eventListMaps.get(OTHER_SIDDHI_APP_NAME))),
+                getSequenceIds(0, 10));
+
+        // The last control message is remembered per app, hence old events are only rejected for the trimmed app
+        eventListMapManager.parseMessage(createMessage(eventSchema, 3, 4));
+        eventListMapManager.parseMessage(createMessage(otherEventSchema, 10, 11));
+        Assert.assertEquals(getSequenceIds(replay(eventListMaps.get(SIDDHI_APP_NAME))), getSequenceIds(6, 10));
+        Assert.assertEquals(getSequenceIds(replay(eventListMaps.get(OTHER_SIDDHI_APP_NAME))),
+                getSequenceIds(0, 11));
+    }
+
+    private QueuedEvent createEvent(EventSchema schema, long sequenceId) {
+        return new QueuedEvent(schema, sequenceId,
+                new Event(1000L + sequenceId, new Object[]{"WSO2-" + sequenceId, sequenceId + 0.5f}));
+    }
+
+    private ByteBuf createMessage(EventSchema schema, long from, long to) {
+        QueuedEvent[] queuedEvents = new QueuedEvent[(int) (to - from)];
+        for (int i = 0; i < queuedEvents.length; i++) {
+            queuedEvents[i] = createEvent(schema, from + i);
+        }
+        ByteBuf message = Unpooled.buffer();
+        BinaryEventConverter.convertToBinaryMessage(queuedEvents, message);
+        return message;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, AppEventListMap> getEventListMaps(EventListMapManager eventListMapManager) {
+        return (Map<String, AppEventListMap>) Whitebox.getInternalState(eventListMapManager, "eventListMaps");
+    }
+
+    private List<QueuedEvent> replay(AppEventListMap appEventListMap) throws InterruptedException {
+        List<QueuedEvent> replayedEvents = new ArrayList<>();
+        appEventListMap.replay(replayedEvents::add);
+        return replayedEvents;
+    }
+
+    private List<Long> getSequenceIds(List<QueuedEvent> queuedEvents) {
+        return queuedEvents.stream().map(QueuedEvent::getSequenceID).collect(Collectors.toList());
+    }
+
+    private List<Long> getSequenceIds(long from, long to) {
+        List<Long> sequenceIds = new ArrayList<>();
+        for (long sequenceId = from; sequenceId < to; sequenceId++) {
+            sequenceIds.add(sequenceId);
+        }
+        return sequenceIds;
+    }
+}
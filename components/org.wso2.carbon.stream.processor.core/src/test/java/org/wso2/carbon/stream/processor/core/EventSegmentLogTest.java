@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.stream.processor.core;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.stream.processor.core.event.queue.AppEventListMap;
+import org.wso2.carbon.stream.processor.core.event.queue.EventSchema;
+import org.wso2.carbon.stream.processor.core.event.queue.EventSchemaRegistry;
+import org.wso2.carbon.stream.processor.core.event.queue.EventSegmentLog;
+import org.wso2.carbon.stream.processor.core.event.queue.QueuedEvent;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.query.api.definition.Attribute;
+import org.wso2.siddhi.query.api.definition.StreamDefinition;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class EventSegmentLogTest {
+
+    private static final String SIDDHI_APP_NAME = "TestApp";
+    private static final int SEGMENT_SIZE = 256;
+
+    private Path eventBufferDirectory;
+    private EventSchema eventSchema;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        eventBufferDirectory = Files.createTempDirectory("event-buffer");
+        StreamDefinition streamDefinition = StreamDefinition.id("StockStream")
+                .attribute("symbol", Attribute.Type.STRING)
+                .attribute("price", Attribute.Type.FLOAT);
+        eventSchema = EventSchemaRegistry.createSchema(SIDDHI_APP_NAME, "source-1", streamDefinition);
+        EventSchemaRegistry.addReceivedSchema(eventSchema);
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(eventBufferDirectory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void testSpillAndReplay() throws IOException, InterruptedException {
+        AppEventListMap appEventListMap = new AppEventListMap(SIDDHI_APP_NAME, 4, eventBufferDirectory,
+                SEGMENT_SIZE);
+        for (long sequenceId = 0; sequenceId < 40; sequenceId++) {
+            Assert.assertTrue(appEventListMap.add(createEvent(sequenceId)));
+        }
+        Path appDirectory = eventBufferDirectory.resolve(SIDDHI_APP_NAME);
+        Assert.assertTrue(listFiles(appDirectory).size() > 1, "Events should be spilled to several segments");
+
+        List<QueuedEvent> replayedEvents = replay(appEventListMap);
+        Assert.assertEquals(getSequenceIds(replayedEvents), getSequenceIds(0, 40));
+        QueuedEvent replayedEvent = replayedEvents.get(7);
+        Assert.assertEquals(replayedEvent.getEvent().getTimestamp(), 1007L);
+        Assert.assertEquals(replayedEvent.getEvent().getData(), new Object[]{"WSO2-7", 7.5f});
+
+        int segmentCount = listFiles(appDirectory).size();
+        appEventListMap.trim(30);
+        Assert.assertFalse(appEventListMap.add(createEvent(29)));
+        Assert.assertTrue(listFiles(appDirectory).size() < segmentCount, "Trimmed segments should be deleted");
+        Assert.assertEquals(getSequenceIds(replay(appEventListMap)), getSequenceIds(30, 40));
+
+        appEventListMap.clear();
+        Assert.assertTrue(listFiles(appDirectory).isEmpty());
+        Assert.assertTrue(replay(appEventListMap).isEmpty());
+    }
+
+    @Test
+    public void testReplaySkipsTrimmedEventsOfSegment() throws IOException, InterruptedException {
+        EventSegmentLog eventSegmentLog = new EventSegmentLog(eventBufferDirectory.resolve(SIDDHI_APP_NAME),
+                SEGMENT_SIZE);
+        eventSegmentLog.append(new QueuedEvent[]{createEvent(1), createEvent(2), createEvent(3)});
+        eventSegmentLog.append(new QueuedEvent[]{createEvent(4)});
+        // The segment still holds event 3, hence it is kept
+        eventSegmentLog.trim(3);
+
+        List<QueuedEvent> replayedEvents = new ArrayList<>();
+        eventSegmentLog.replay(3, replayedEvents::add);
+        Assert.assertEquals(getSequenceIds(replayedEvents), getSequenceIds(3, 5));
+        eventSegmentLog.clear();
+    }
+
+    @Test
+    public void testDeleteSegmentsKeepsOtherFiles() throws IOException {
+        Path appDirectory = eventBufferDirectory.resolve(SIDDHI_APP_NAME);
+        Path otherAppDirectory = eventBufferDirectory.resolve("OtherApp");
+        Files.createDirectories(appDirectory);
+        Files.createDirectories(otherAppDirectory);
+        Files.createFile(appDirectory.resolve("segment-0.log"));
+        Files.createFile(appDirectory.resolve("segment-12.log"));
+        Files.createFile(otherAppDirectory.resolve("segment-1.log"));
+        Path userFile = Files.createFile(otherAppDirectory.resolve("segment-backup.log"));
+        Path topLevelFile = Files.createFile(eventBufferDirectory.resolve("segment-2.log"));
+
+        EventSegmentLog.deleteSegments(eventBufferDirectory);
+        Assert.assertTrue(Files.isDirectory(eventBufferDirectory));
+        Assert.assertFalse(Files.exists(appDirectory));
+        Assert.assertEquals(listFiles(otherAppDirectory), Stream.of(userFile).collect(Collectors.toList()));
+        Assert.assertTrue(Files.exists(topLevelFile));
+
+        EventSegmentLog.deleteSegments(eventBufferDirectory.resolve("NonExistingDirectory"));
+    }
+
+    private QueuedEvent createEvent(long sequenceId) {
+        return new QueuedEvent(eventSchema, sequenceId,
+                new Event(1000L + sequenceId, new Object[]{"WSO2-" + sequenceId, sequenceId + 0.5f}));
+    }
+
+    private List<QueuedEvent> replay(AppEventListMap appEventListMap) throws InterruptedException {
+        List<QueuedEvent> replayedEvents = new ArrayList<>();
+        appEventListMap.replay(replayedEvents::add);
+        return replayedEvents;
+    }
+
+    private List<Long> getSequenceIds(List<QueuedEvent> queuedEvents) {
+        return queuedEvents.stream().map(QueuedEvent::getSequenceID).collect(Collectors.toList());
+    }
+
+    private List<Long> getSequenceIds(long from, long to) {
+        List<Long> sequenceIds = new ArrayList<>();
+        for (long sequenceId = from; sequenceId < to; sequenceId++) {
+            sequenceIds.add(sequenceId);
+        }
+        return sequenceIds;
+    }
+
+    private List<Path> listFiles(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> paths = Files.list(directory)) {
+            return paths.collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.stream.processor.core;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.stream.processor.core.event.queue.EventSchema;
+import org.wso2.carbon.stream.processor.core.event.queue.EventSchemaRegistry;
+import org.wso2.carbon.stream.processor.core.event.queue.QueuedEvent;
+import org.wso2.carbon.stream.processor.core.ha.transport.EventSyncBatchPublisher;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.query.api.definition.Attribute;
+import org.wso2.siddhi.query.api.definition.StreamDefinition;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class EventSyncBatchPublisherTest {
+
+    private static final int BATCH_SIZE = 4;
+
+    private final List<QueuedEvent[]> sentBatches = Collections.synchronizedList(new ArrayList<>());
+    private EventSchema eventSchema;
+    private EventSyncBatchPublisher publisher;
+
+    @BeforeMethod
+    public void setUp() {
+        sentBatches.clear();
+        StreamDefinition streamDefinition = StreamDefinition.id("StockStream")
+                .attribute("symbol", Attribute.Type.STRING)
+                .attribute("price", Attribute.Type.FLOAT);
+        eventSchema = EventSchemaRegistry.createSchema("TestApp", "source-1", streamDefinition);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        if (publisher != null) {
+            publisher.stop();
+        }
+    }
+
+    @Test
+    public void testFlushOnBatchSize() {
+        publisher = createPublisher(60000);
+        for (int i = 0; i < BATCH_SIZE - 1; i++) {
+            publisher.publish(eventSchema, createEvent(i));
+        }
+        Assert.assertTrue(sentBatches.isEmpty(), "Batch should not be sent before it is filled");
+
+        publisher.publish(eventSchema, createEvent(BATCH_SIZE - 1));
+        Assert.assertEquals(sentBatches.size(), 1);
+        Assert.assertEquals(getSequenceIds(sentBatches.get(0)), new long[]{1, 2, 3, 4});
+
+        // Pending events are sent before an event array which does not fit into the current batch
+        publisher.publish(eventSchema, createEvent(4));
+        publisher.publish(eventSchema, new Event[]{createEvent(5), createEvent(6), createEvent(7), createEvent(8)});
+        Assert.assertEquals(sentBatches.size(), 3);
+        Assert.assertEquals(getSequenceIds(sentBatches.get(1)), new long[]{5});
+        Assert.assertEquals(getSequenceIds(sentBatches.get(2)), new long[]{6, 7, 8, 9});
+        Assert.assertEquals(publisher.getBatchCount(), 3);
+        Assert.assertEquals(publisher.getSyncedEventCount(), 9);
+    }
+
+    @Test
+    public void testFlushOnBatchTimeout() throws InterruptedException {
+        publisher = createPublisher(50);
+        publisher.publish(eventSchema, createEvent(0));
+        publisher.publish(eventSchema, createEvent(1));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (sentBatches.isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(sentBatches.size(), 1, "Partial batch should be sent once the batch timeout elapses");
+        Assert.assertEquals(getSequenceIds(sentBatches.get(0)), new long[]{1, 2});
+    }
+
+    @Test
+    public void testStopSendsPendingEvents() {
+        publisher = createPublisher(60000);
+        publisher.publish(eventSchema, createEvent(0));
+        publisher.stop();
+        Assert.assertEquals(sentBatches.size(), 1);
+        Assert.assertEquals(getSequenceIds(sentBatches.get(0)), new long[]{1});
+    }
+
+    @Test
+    public void testFailedBatchIsNotCounted() {
+        publisher = new EventSyncBatchPublisher(BATCH_SIZE, 60000, new AtomicLong(), batch -> false);
+        publisher.publish(eventSchema, new Event[]{createEvent(0), createEvent(1), createEvent(2), createEvent(3)});
+        Assert.assertEquals(publisher.getBatchCount(), 0);
+        Assert.assertEquals(publisher.getSyncedEventCount(), 0);
+    }
+
+    @Test(timeOut = 20000)
+    public void testConcurrentBatchesAreSentInOrder() throws Exception {
+        publisher = createPublisher(1);
+        int threadCount = 4;
+        int eventsPerThread = 5000;
+        ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<?>> publishers = new ArrayList<>();
+            for (int i = 0; i < threadCount; i++) {
+                publishers.add(executorService.submit(() -> {
+                    for (int j = 0; j < eventsPerThread; j++) {
+                        if (j % 10 == 0) {
+                            publisher.publish(eventSchema, new Event[]{createEvent(j), createEvent(j)});
+                        } else {
+                            publisher.publish(eventSchema, createEvent(j));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : publishers) {
+                future.get();
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        publisher.stop();
+
+        // Batches taken by the publishing threads and the timeout flush are sent in the order they are taken
+        long lastSequenceId = 0;
+        synchronized (sentBatches) {
+            for (QueuedEvent[] batch : sentBatches) {
+                for (long sequenceId : getSequenceIds(batch)) {
+                    Assert.assertEquals(sequenceId, lastSequenceId + 1);
+                    lastSequenceId = sequenceId;
+                }
+            }
+        }
+        Assert.assertEquals(lastSequenceId, threadCount * (eventsPerThread + eventsPerThread / 10));
+    }
+
+    private EventSyncBatchPublisher createPublisher(long batchTimeoutMillis) {
+        EventSyncBatchPublisher eventSyncBatchPublisher = new EventSyncBatchPublisher(BATCH_SIZE, batchTimeoutMillis,
+                new AtomicLong(), batch -> sentBatches.add(batch));
+        eventSyncBatchPublisher.start();
+        return eventSyncBatchPublisher;
+    }
+
+    private Event createEvent(int index) {
+        return new Event(index, new Object[]{"WSO2", (float) index});
+    }
+
+    private long[] getSequenceIds(QueuedEvent[] batch) {
+        long[] sequenceIds = new long[batch.length];
+        for (int i = 0; i < batch.length; i++) {
+            sequenceIds[i] = batch[i].getSequenceID();
+        }
+        return sequenceIds;
+    }
+}
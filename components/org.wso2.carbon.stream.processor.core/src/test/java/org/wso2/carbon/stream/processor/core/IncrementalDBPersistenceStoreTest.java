@@ -0,0 +1,280 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.stream.processor.core;
+
+import org.mockito.internal.util.reflection.Whitebox;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.stream.processor.core.persistence.IncrementalDBPersistenceStore;
+import org.wso2.carbon.stream.processor.core.persistence.util.ExecutionInfo;
+import org.wso2.carbon.stream.processor.core.persistence.util.PersistenceConstants;
+import org.wso2.carbon.stream.processor.core.persistence.util.RDBMSConfiguration;
+import org.wso2.siddhi.core.util.persistence.util.IncrementalSnapshotInfo;
+
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.sql.Blob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.powermock.api.mockito.PowerMockito.doAnswer;
+import static org.powermock.api.mockito.PowerMockito.doReturn;
+import static org.powermock.api.mockito.PowerMockito.doThrow;
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.when;
+
+public class IncrementalDBPersistenceStoreTest {
+
+    private static final byte[] STATE = "state".getBytes(StandardCharsets.UTF_8);
+
+    private DataSource dataSource;
+    private Connection connection;
+    private PreparedStatement statement;
+    private IncrementalDBPersistenceStore persistenceStore;
+    private ExecutorService saveExecutorService;
+
+    @BeforeMethod
+    public void setUp() throws SQLException {
+        dataSource = mock(DataSource.class);
+        connection = mock(Connection.class);
+        statement = mock(PreparedStatement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(connection.createBlob()).thenReturn(mock(Blob.class));
+        when(statement.executeBatch()).thenReturn(new int[0]);
+        saveExecutorService = Executors.newCachedThreadPool();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        saveExecutorService.shutdownNow();
+        if (persistenceStore != null) {
+            getWriterExecutorService().shutdownNow();
+        }
+    }
+
+    @Test(timeOut = 10000)
+    public void testSnapshotsAreWrittenInBatches() throws Exception {
+        CountDownLatch firstBatchWriting = new CountDownLatch(1);
+        CountDownLatch firstBatchReleased = new CountDownLatch(1);
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        blockFirstBatch(batchSizes, firstBatchWriting, firstBatchReleased);
+        persistenceStore = createPersistenceStore(2);
+
+        List<Future<?>> saves = new ArrayList<>();
+        saves.add(save("query1"));
+        firstBatchWriting.await();
+        saves.add(save("query2"));
+        saves.add(save("query3"));
+        saves.add(save("query4"));
+        waitForPendingSnapshots(3);
+        for (Future<?> save : saves) {
+            Assert.assertFalse(save.isDone(), "Save should wait until its batch is committed");
+        }
+
+        firstBatchReleased.countDown();
+        for (Future<?> save : saves) {
+            save.get();
+        }
+        // Snapshots queued while a batch is being written go together in batches of the configured size
+        Assert.assertEquals(batchSizes, Arrays.asList(1, 2, 1));
+        verify(connection, times(3)).commit();
+        Assert.assertEquals(getPendingCleanups().size(), 4);
+    }
+
+    @Test(timeOut = 10000)
+    public void testFailedCommitIsRolledBack() throws SQLException {
+        doThrow(new SQLException("Commit failed")).when(connection).commit();
+        persistenceStore = createPersistenceStore(2);
+
+        persistenceStore.save(createSnapshotInfo("query1"), STATE);
+        verify(connection).rollback();
+        Assert.assertTrue(getPendingCleanups().isEmpty(), "Revisions which are not saved should not be cleaned");
+    }
+
+    @Test(timeOut = 10000)
+    public void testWriterRecoversFromUnavailableConnection() throws SQLException {
+        when(dataSource.getConnection()).thenThrow(new SQLException("Connection refused"));
+        persistenceStore = createPersistenceStore(2);
+
+        persistenceStore.save(createSnapshotInfo("query1"), STATE);
+        Assert.assertTrue(getPendingCleanups().isEmpty());
+
+        doReturn(connection).when(dataSource).getConnection();
+        persistenceStore.save(createSnapshotInfo("query2"), STATE);
+        verify(connection).commit();
+        Assert.assertEquals(getPendingCleanups().size(), 1);
+    }
+
+    @Test(timeOut = 10000)
+    public void testPendingSavesAreReleasedOnShutdown() throws Exception {
+        CountDownLatch firstBatchWriting = new CountDownLatch(1);
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        blockFirstBatch(batchSizes, firstBatchWriting, new CountDownLatch(1));
+        persistenceStore = createPersistenceStore(2);
+
+        Future<?> writtenSave = save("query1");
+        firstBatchWriting.await();
+        Future<?> pendingSave = save("query2");
+        waitForPendingSnapshots(1);
+
+        getWriterExecutorService().shutdownNow();
+        writtenSave.get();
+        pendingSave.get();
+        // Only the batch which was being written is persisted
+        Assert.assertEquals(batchSizes, Collections.singletonList(1));
+        Assert.assertEquals(getPendingCleanups().size(), 1);
+    }
+
+    @Test(timeOut = 10000)
+    public void testSaveWhenWriterIsStopped() throws Exception {
+        persistenceStore = createPersistenceStore(2);
+        ScheduledExecutorService writerExecutorService = getWriterExecutorService();
+        writerExecutorService.shutdownNow();
+        Assert.assertTrue(writerExecutorService.awaitTermination(5, TimeUnit.SECONDS));
+
+        persistenceStore.save(createSnapshotInfo("query1"), STATE);
+        verify(dataSource, never()).getConnection();
+        Assert.assertTrue(getPendingCleanups().isEmpty());
+    }
+
+    @Test(timeOut = 10000)
+    public void testSnapshotIsDiscardedAfterSaveTimeout() throws Exception {
+        CountDownLatch firstBatchWriting = new CountDownLatch(1);
+        CountDownLatch firstBatchReleased = new CountDownLatch(1);
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        blockFirstBatch(batchSizes, firstBatchWriting, firstBatchReleased);
+        persistenceStore = createPersistenceStore(2, 1);
+
+        Future<?> writtenSave = save("query1");
+        firstBatchWriting.await();
+        save("query2").get();
+        // Snapshot which was still waiting for the writer when the save timed out is not written afterwards
+        Assert.assertTrue(((BlockingQueue) Whitebox.getInternalState(persistenceStore, "pendingSnapshots")).isEmpty());
+        Assert.assertFalse(writtenSave.isDone());
+        firstBatchReleased.countDown();
+        writtenSave.get();
+        Assert.assertEquals(batchSizes, Collections.singletonList(1));
+        Assert.assertEquals(getPendingCleanups().size(), 1);
+    }
+
+    @Test
+    public void testRevisionTimeIndexNameLength() {
+        Assert.assertEquals(RDBMSConfiguration.getRevisionTimeIndexName("PERSISTENCE_TABLE"),
+                "PERSISTENCE_TABLE_RT_IDX");
+        String firstIndexName = RDBMSConfiguration.getRevisionTimeIndexName("SIDDHI_APP_PERSISTENCE_TABLE_1");
+        String secondIndexName = RDBMSConfiguration.getRevisionTimeIndexName("SIDDHI_APP_PERSISTENCE_TABLE_2");
+        Assert.assertEquals(firstIndexName.length(), PersistenceConstants.MAX_INDEX_NAME_LENGTH);
+        Assert.assertTrue(firstIndexName.startsWith("SIDDHI_APP_PER"));
+        Assert.assertTrue(firstIndexName.endsWith(PersistenceConstants.REVISION_TIME_INDEX_SUFFIX));
+        Assert.assertNotEquals(firstIndexName, secondIndexName);
+    }
+
+    /**
+     * Makes the writing of the first batch wait until it is released, and records the size of each batch.
+     */
+    private void blockFirstBatch(List<Integer> batchSizes, CountDownLatch firstBatchWriting,
+                                 CountDownLatch firstBatchReleased) throws SQLException {
+        AtomicInteger batchedRevisions = new AtomicInteger();
+        doAnswer(invocation -> batchedRevisions.incrementAndGet()).when(statement).addBatch();
+        when(statement.executeBatch()).thenAnswer(invocation -> {
+            int batchSize = batchedRevisions.getAndSet(0);
+            batchSizes.add(batchSize);
+            if (batchSizes.size() == 1) {
+                firstBatchWriting.countDown();
+                try {
+                    firstBatchReleased.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new int[batchSize];
+        });
+    }
+
+    private IncrementalDBPersistenceStore createPersistenceStore(int batchSize) throws Exception {
+        return createPersistenceStore(batchSize, 60);
+    }
+
+    private IncrementalDBPersistenceStore createPersistenceStore(int batchSize, int saveTimeout) throws Exception {
+        IncrementalDBPersistenceStore incrementalDBPersistenceStore = new IncrementalDBPersistenceStore();
+        ExecutionInfo executionInfo = new ExecutionInfo();
+        executionInfo.setPreparedInsertIncrementalStatement("INSERT_INCREMENTAL_SNAPSHOT");
+        Whitebox.setInternalState(incrementalDBPersistenceStore, "executionInfo", executionInfo);
+        Whitebox.setInternalState(incrementalDBPersistenceStore, "datasource", dataSource);
+        Whitebox.setInternalState(incrementalDBPersistenceStore, "datasourceName", "TEST_DB");
+        Whitebox.setInternalState(incrementalDBPersistenceStore, "databaseType", "h2");
+        Whitebox.setInternalState(incrementalDBPersistenceStore, "tableName", "PERSISTENCE_TABLE");
+        Whitebox.setInternalState(incrementalDBPersistenceStore, "batchSize", batchSize);
+        Whitebox.setInternalState(incrementalDBPersistenceStore, "cleanupInterval", 60);
+        Whitebox.setInternalState(incrementalDBPersistenceStore, "saveTimeout", saveTimeout);
+        Whitebox.setInternalState(incrementalDBPersistenceStore, "tableInitialized", true);
+        Method startExecutorService = IncrementalDBPersistenceStore.class.getDeclaredMethod("startExecutorService");
+        startExecutorService.setAccessible(true);
+        startExecutorService.invoke(incrementalDBPersistenceStore);
+        return incrementalDBPersistenceStore;
+    }
+
+    private Future<?> save(String queryName) {
+        IncrementalSnapshotInfo snapshotInfo = createSnapshotInfo(queryName);
+        return saveExecutorService.submit(() -> persistenceStore.save(snapshotInfo, STATE));
+    }
+
+    private IncrementalSnapshotInfo createSnapshotInfo(String queryName) {
+        return new IncrementalSnapshotInfo("TestApp", queryName, "element1", System.currentTimeMillis(),
+                IncrementalSnapshotInfo.SnapshotType.BASE);
+    }
+
+    private void waitForPendingSnapshots(int count) throws InterruptedException {
+        BlockingQueue pendingSnapshots = (BlockingQueue) Whitebox.getInternalState(persistenceStore,
+                "pendingSnapshots");
+        while (pendingSnapshots.size() < count) {
+            Thread.sleep(10);
+        }
+    }
+
+    private ScheduledExecutorService getWriterExecutorService() {
+        return (ScheduledExecutorService) Whitebox.getInternalState(persistenceStore, "executorService");
+    }
+
+    private Map getPendingCleanups() {
+        return (Map) Whitebox.getInternalState(persistenceStore, "pendingCleanups");
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.stream.processor.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.stream.processor.core.ha.transport.handlers.MessageDecoder;
+import org.wso2.carbon.stream.processor.core.ha.util.HAConstants;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+public class MessageDecoderTest {
+
+    private static final int LARGE_MESSAGE_SIZE = 128 * 1024;
+
+    private BlockingQueue<ByteBuf> byteBufQueue;
+    private EmbeddedChannel channel;
+
+    @BeforeMethod
+    public void setUp() {
+        byteBufQueue = new LinkedBlockingQueue<>();
+        channel = new EmbeddedChannel(new MessageDecoder(byteBufQueue));
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+        ByteBuf message;
+        while ((message = byteBufQueue.poll()) != null) {
+            message.release();
+        }
+    }
+
+    @Test
+    public void testMessagesAreReleased() {
+        ByteBuf received = Unpooled.buffer();
+        writeFrame(received, createData(10, (byte) 1));
+        writeFrame(received, createData(20, (byte) 2));
+        channel.writeInbound(received);
+
+        List<ByteBuf> messages = takeMessages(2);
+        assertMessage(messages.get(0), createData(10, (byte) 1));
+        assertMessage(messages.get(1), createData(20, (byte) 2));
+        release(messages);
+        Assert.assertEquals(received.refCnt(), 0, "Received bytes should be released with the messages");
+    }
+
+    @Test
+    public void testSmallMessageDoesNotHoldReceivedBytes() {
+        ByteBuf frames = Unpooled.buffer();
+        writeFrame(frames, createData(10, (byte) 1));
+        writeFrame(frames, createData(20, (byte) 2));
+        int firstFrameEnd = frames.readableBytes() - 20;
+        ByteBuf received = Unpooled.buffer(firstFrameEnd);
+        received.writeBytes(frames, firstFrameEnd);
+        channel.writeInbound(received);
+
+        // The first message is followed by a partial frame, so it is copied out of the received bytes
+        List<ByteBuf> messages = takeMessages(1);
+        Assert.assertEquals(received.refCnt(), 1, "Only the decoder should hold the received bytes");
+
+        channel.writeInbound(frames);
+        messages.addAll(takeMessages(1));
+        assertMessage(messages.get(0), createData(10, (byte) 1));
+        assertMessage(messages.get(1), createData(20, (byte) 2));
+        release(messages);
+        channel.finishAndReleaseAll();
+        Assert.assertEquals(received.refCnt(), 0);
+        Assert.assertEquals(frames.refCnt(), 0);
+    }
+
+    @Test
+    public void testLargeMessageIsSliced() {
+        ByteBuf received = Unpooled.buffer();
+        writeFrame(received, createData(LARGE_MESSAGE_SIZE, (byte) 3));
+        writeFrame(received, createData(10, (byte) 4));
+        channel.writeInbound(received);
+
+        List<ByteBuf> messages = takeMessages(2);
+        Assert.assertSame(messages.get(0).unwrap(), received, "Large message should not be copied");
+        assertMessage(messages.get(0), createData(LARGE_MESSAGE_SIZE, (byte) 3));
+        assertMessage(messages.get(1), createData(10, (byte) 4));
+
+        messages.get(1).release();
+        Assert.assertEquals(received.refCnt(), 1, "Large message should hold the received bytes until released");
+        messages.get(0).release();
+        Assert.assertEquals(received.refCnt(), 0);
+    }
+
+    private void writeFrame(ByteBuf buffer, byte[] data) {
+        byte[] channelId = HAConstants.CHANNEL_ID_MESSAGE.getBytes(StandardCharsets.UTF_8);
+        buffer.writeByte(2);
+        buffer.writeInt(4 + channelId.length + 4 + data.length);
+        buffer.writeInt(channelId.length);
+        buffer.writeBytes(channelId);
+        buffer.writeInt(data.length);
+        buffer.writeBytes(data);
+    }
+
+    private byte[] createData(int length, byte value) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (value + i);
+        }
+        return data;
+    }
+
+    private List<ByteBuf> takeMessages(int count) {
+        List<ByteBuf> messages = new ArrayList<>();
+        byteBufQueue.drainTo(messages);
+        Assert.assertEquals(messages.size(), count);
+        return messages;
+    }
+
+    private void assertMessage(ByteBuf message, byte[] data) {
+        int channelIdSize = message.getInt(message.readerIndex());
+        int dataIndex = message.readerIndex() + 4 + channelIdSize;
+        Assert.assertEquals(message.getInt(dataIndex), data.length);
+        byte[] receivedData = new byte[data.length];
+        message.getBytes(dataIndex + 4, receivedData);
+        Assert.assertEquals(receivedData, data);
+    }
+
+    private void release(List<ByteBuf> messages) {
+        for (ByteBuf message : messages) {
+            Assert.assertTrue(message.release(), "Message should not be retained more than once");
+        }
+    }
+}
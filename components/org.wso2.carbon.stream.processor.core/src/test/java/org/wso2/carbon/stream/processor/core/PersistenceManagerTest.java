@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.stream.processor.core;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.stream.processor.core.internal.StreamProcessorDataHolder;
+import org.wso2.carbon.stream.processor.core.persistence.PersistenceManager;
+import org.wso2.carbon.stream.processor.core.persistence.util.PersistenceMetrics;
+import org.wso2.siddhi.core.SiddhiAppRuntime;
+import org.wso2.siddhi.core.SiddhiManager;
+import org.wso2.siddhi.core.util.snapshot.PersistenceReference;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.when;
+
+public class PersistenceManagerTest {
+
+    private static final int APP_COUNT = 3;
+
+    private ConcurrentMap<String, SiddhiAppRuntime> siddhiAppRuntimeMap;
+    private NodeInfo nodeInfo;
+
+    @BeforeMethod
+    public void setUp() {
+        siddhiAppRuntimeMap = new ConcurrentHashMap<>();
+        SiddhiManager siddhiManager = mock(SiddhiManager.class);
+        when(siddhiManager.getSiddhiAppRuntimeMap()).thenReturn(siddhiAppRuntimeMap);
+        StreamProcessorDataHolder.setSiddhiManager(siddhiManager);
+        StreamProcessorDataHolder.setHaManager(null);
+        nodeInfo = new NodeInfo(DeploymentMode.SINGLE_NODE, "node-1");
+        StreamProcessorDataHolder.setNodeInfo(nodeInfo);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        PersistenceManager.stopPersistenceExecutor();
+        StreamProcessorDataHolder.setSiddhiManager(null);
+        StreamProcessorDataHolder.setNodeInfo(null);
+    }
+
+    @Test
+    public void testSiddhiAppsArePersistedInParallel() {
+        PersistenceManager.startPersistenceExecutor(APP_COUNT);
+        CountDownLatch persistingApps = new CountDownLatch(APP_COUNT);
+        AtomicBoolean persistedInParallel = new AtomicBoolean(true);
+        for (int i = 0; i < APP_COUNT; i++) {
+            PersistenceReference persistenceReference = createReference(CompletableFuture.completedFuture(null));
+            addSiddhiApp("ParallelApp" + i, () -> {
+                // Each app waits until all the apps are being persisted, which only happens when run in parallel
+                persistingApps.countDown();
+                if (!persistingApps.await(5, TimeUnit.SECONDS)) {
+                    persistedInParallel.set(false);
+                }
+                return persistenceReference;
+            });
+        }
+
+        new PersistenceManager().run();
+        Assert.assertTrue(persistedInParallel.get(), "Siddhi apps should be persisted in parallel");
+        for (int i = 0; i < APP_COUNT; i++) {
+            Assert.assertTrue(PersistenceMetrics.getLag("ParallelApp" + i) >= 0);
+        }
+        Assert.assertTrue(nodeInfo.getLastPersistedTimestamp() > 0);
+    }
+
+    @DataProvider(name = "threadPoolSizes")
+    public Object[][] threadPoolSizes() {
+        // The apps are persisted by the thread running the round until the executor is started
+        return new Object[][]{{0}, {APP_COUNT}};
+    }
+
+    @Test(dataProvider = "threadPoolSizes")
+    public void testPartialFailure(int threadPoolSize) {
+        PersistenceManager.startPersistenceExecutor(threadPoolSize);
+        String suffix = "-" + threadPoolSize;
+        CompletableFuture<Void> failedSave = new CompletableFuture<>();
+        failedSave.completeExceptionally(new IOException("Persistence store is not available"));
+        addSiddhiApp("FailedSnapshotApp" + suffix, () -> {
+            throw new IllegalStateException("Snapshot failed");
+        });
+        PersistenceReference failedSaveReference = createReference(failedSave);
+        addSiddhiApp("FailedSaveApp" + suffix, () -> failedSaveReference);
+        PersistenceReference persistedReference = createReference(CompletableFuture.completedFuture(null));
+        addSiddhiApp("PersistedApp" + suffix, () -> persistedReference);
+
+        new PersistenceManager().run();
+        // The failures of some apps do not stop the other apps from being persisted or the round from completing
+        Assert.assertTrue(PersistenceMetrics.getLag("PersistedApp" + suffix) >= 0);
+        Assert.assertEquals(PersistenceMetrics.getLag("FailedSaveApp" + suffix), -1);
+        Assert.assertEquals(PersistenceMetrics.getLag("FailedSnapshotApp" + suffix), -1);
+        Assert.assertTrue(nodeInfo.getLastPersistedTimestamp() > 0);
+    }
+
+    private void addSiddhiApp(String siddhiAppName, PersistAction persistAction) {
+        SiddhiAppRuntime siddhiAppRuntime = mock(SiddhiAppRuntime.class);
+        when(siddhiAppRuntime.getName()).thenReturn(siddhiAppName);
+        when(siddhiAppRuntime.persist()).thenAnswer(invocation -> persistAction.persist());
+        siddhiAppRuntimeMap.put(siddhiAppName, siddhiAppRuntime);
+    }
+
+    private PersistenceReference createReference(Future fullStateFuture) {
+        PersistenceReference persistenceReference = mock(PersistenceReference.class);
+        when(persistenceReference.getRevision()).thenReturn(System.nanoTime() + "_revision");
+        when(persistenceReference.getFullStateFuture()).thenReturn(fullStateFuture);
+        return persistenceReference;
+    }
+
+    private interface PersistAction {
+        PersistenceReference persist() throws Exception;
+    }
+}
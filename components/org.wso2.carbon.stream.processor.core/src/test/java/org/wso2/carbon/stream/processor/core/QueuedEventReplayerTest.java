@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.wso2.carbon.stream.processor.core;
+
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.stream.processor.core.event.queue.QueuedEvent;
+import org.wso2.carbon.stream.processor.core.event.queue.QueuedEventReplayer;
+import org.wso2.siddhi.core.event.Event;
+import org.wso2.siddhi.core.stream.input.source.Source;
+import org.wso2.siddhi.core.stream.input.source.SourceHandler;
+import org.wso2.siddhi.core.stream.input.source.SourceMapper;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.mockito.Matchers.any;
+import static org.powermock.api.mockito.PowerMockito.doAnswer;
+import static org.powermock.api.mockito.PowerMockito.mock;
+import static org.powermock.api.mockito.PowerMockito.when;
+
+public class QueuedEventReplayerTest {
+
+    private static final String SIDDHI_APP_NAME = "TestApp";
+    private static final String SOURCE_1 = "source-1";
+    private static final String SOURCE_2 = "source-2";
+    private static final String UNDEPLOYED_SOURCE = "source-3";
+
+    /**
+     * Batches sent to the source handlers in the order they are sent, each as the element id of its handler
+     * followed by the timestamps of its events.
+     */
+    private List<String> sentBatches;
+    private List<List<Source>> sources;
+
+    @BeforeMethod
+    public void setUp() throws InterruptedException {
+        sentBatches = new ArrayList<>();
+        sources = new ArrayList<>();
+        sources.add(Collections.singletonList(createSource(SOURCE_1)));
+        sources.add(Arrays.asList(createSource(SOURCE_2), createSource(null)));
+    }
+
+    @Test
+    public void testEventsAreBatchedPerSourceHandler() throws InterruptedException {
+        QueuedEventReplayer queuedEventReplayer = new QueuedEventReplayer(SIDDHI_APP_NAME, sources, 2);
+        for (long timestamp = 1; timestamp <= 5; timestamp++) {
+            queuedEventReplayer.accept(createEvent(SOURCE_1, timestamp));
+        }
+        Assert.assertEquals(sentBatches, Arrays.asList("source-1:1,2", "source-1:3,4"),
+                "Only full batches should be sent before the replay completes");
+
+        queuedEventReplayer.complete();
+        Assert.assertEquals(sentBatches, Arrays.asList("source-1:1,2", "source-1:3,4", "source-1:5"));
+    }
+
+    @Test
+    public void testBatchIsFlushedWhenSourceHandlerChanges() throws InterruptedException {
+        QueuedEventReplayer queuedEventReplayer = new QueuedEventReplayer(SIDDHI_APP_NAME, sources, 10);
+        queuedEventReplayer.accept(createEvent(SOURCE_1, 1));
+        queuedEventReplayer.accept(createEvent(SOURCE_1, 2));
+        queuedEventReplayer.accept(createEvent(SOURCE_2, 3));
+        Assert.assertEquals(sentBatches, Collections.singletonList("source-1:1,2"));
+
+        queuedEventReplayer.accept(createEvent(SOURCE_1, 4));
+        queuedEventReplayer.complete();
+        // Events of a handler are not reordered across the events of other handlers
+        Assert.assertEquals(sentBatches, Arrays.asList("source-1:1,2", "source-2:3", "source-1:4"));
+    }
+
+    @Test
+    public void testEventsOfUndeployedSourceAreSkipped() throws InterruptedException {
+        QueuedEventReplayer queuedEventReplayer = new QueuedEventReplayer(SIDDHI_APP_NAME, sources, 10);
+        queuedEventReplayer.accept(createEvent(SOURCE_1, 1));
+        queuedEventReplayer.accept(createEvent(UNDEPLOYED_SOURCE, 2));
+        queuedEventReplayer.accept(createEvent(SOURCE_1, 3));
+        queuedEventReplayer.accept(createEvent(UNDEPLOYED_SOURCE, 4));
+        queuedEventReplayer.accept(createEvent(SOURCE_2, 5));
+        queuedEventReplayer.complete();
+        // A skipped event neither drops nor splits the batch it is queued in between
+        Assert.assertEquals(sentBatches, Arrays.asList("source-1:1,3", "source-2:5"));
+    }
+
+    private Source createSource(String elementId) throws InterruptedException {
+        Source source = mock(Source.class);
+        SourceMapper sourceMapper = mock(SourceMapper.class);
+        when(source.getMapper()).thenReturn(sourceMapper);
+        if (elementId != null) {
+            SourceHandler sourceHandler = mock(SourceHandler.class);
+            when(sourceHandler.getElementId()).thenReturn(elementId);
+            doAnswer(invocation -> {
+                Event[] events = (Event[]) invocation.getArguments()[0];
+                sentBatches.add(elementId + ":" + Arrays.stream(events).map(event ->
+                        String.valueOf(event.getTimestamp())).collect(Collectors.joining(",")));
+                return null;
+            }).when(sourceHandler).sendEvent(any(Event[].class));
+            when(sourceMapper.getHandler()).thenReturn(sourceHandler);
+        }
+        return source;
+    }
+
+    private QueuedEvent createEvent(String sourceHandlerElementId, long timestamp) {
+        return new QueuedEvent(SIDDHI_APP_NAME, sourceHandlerElementId, timestamp,
+                new Event(timestamp, new Object[]{"WSO2", 10.5f}));
+    }
+}
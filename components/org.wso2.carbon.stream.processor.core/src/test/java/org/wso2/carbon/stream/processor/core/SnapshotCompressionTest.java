@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.stream.processor.core;
+
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+import org.wso2.carbon.stream.processor.core.ha.util.CompressionUtil;
+import org.wso2.carbon.stream.processor.core.persistence.codec.GzipSnapshotCodec;
+import org.wso2.carbon.stream.processor.core.persistence.codec.LZ4SnapshotCodec;
+import org.wso2.carbon.stream.processor.core.persistence.codec.SnapshotCodecFactory;
+import org.wso2.carbon.stream.processor.core.persistence.codec.ZstdSnapshotCodec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPOutputStream;
+
+public class SnapshotCompressionTest {
+
+    private byte[] createSnapshot() {
+        StringBuilder snapshot = new StringBuilder();
+        Random random = new Random(7);
+        while (snapshot.length() < 3 * 1024 * 1024) {
+            snapshot.append("StockStream:WSO2:").append(random.nextInt(1000)).append(':')
+                    .append(random.nextLong()).append(';');
+        }
+        return snapshot.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @DataProvider(name = "codecs")
+    public Object[][] codecs() {
+        return new Object[][]{{GzipSnapshotCodec.NAME}, {LZ4SnapshotCodec.NAME}, {ZstdSnapshotCodec.NAME}};
+    }
+
+    @Test(dataProvider = "codecs")
+    public void testCompressionRoundTrip(String codecName) throws IOException {
+        byte[] snapshot = createSnapshot();
+        byte[] compressedSnapshot = CompressionUtil.compress(snapshot, SnapshotCodecFactory.getCodec(codecName));
+        Assert.assertTrue(compressedSnapshot.length < snapshot.length);
+        Assert.assertEquals(CompressionUtil.decompress(compressedSnapshot), snapshot);
+        Assert.assertEquals(CompressionUtil.decompress(CompressionUtil.compress(new byte[0],
+                SnapshotCodecFactory.getCodec(codecName))), new byte[0]);
+    }
+
+    @Test
+    public void testGzipSnapshotWithoutHeader() throws IOException {
+        byte[] snapshot = createSnapshot();
+        byte[] compressedSnapshot = CompressionUtil.compressGZIP(snapshot);
+        Assert.assertEquals(compressedSnapshot[0], (byte) 0x1f);
+        Assert.assertEquals(compressedSnapshot[1], (byte) 0x8b);
+
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(byteArrayOutputStream)) {
+            gzip.write(snapshot);
+        }
+        Assert.assertEquals(CompressionUtil.decompressGZIP(byteArrayOutputStream.toByteArray()), snapshot);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testUnknownCodec() throws IOException {
+        CompressionUtil.decompress(new byte[]{'S', 'P', 'C', 99, 0, 0});
+    }
+
+    @Test
+    public void testConfiguredCodec() {
+        Assert.assertEquals(SnapshotCodecFactory.getConfiguredCodec(" LZ4 ").getName(), LZ4SnapshotCodec.NAME);
+        Assert.assertEquals(SnapshotCodecFactory.getConfiguredCodec("snappy").getName(), GzipSnapshotCodec.NAME);
+        Assert.assertEquals(SnapshotCodecFactory.getConfiguredCodec(null).getName(), GzipSnapshotCodec.NAME);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2018, WSO2 Inc. (http://www.wso2.org) All Rights Reserved.
+ *
+ * WSO2 Inc. licenses this file to you under the Apache License,
+ * Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.wso2.carbon.stream.processor.core;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+import org.wso2.carbon.stream.processor.core.persistence.util.SnapshotSegmentLog;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public class SnapshotSegmentLogTest {
+
+    private static final int SEGMENT_SIZE = 4096;
+    private File directory;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("snapshot-segments").toFile();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private static String revision(int i) {
+        return (1000L + i) + "__TestApp__query" + (i % 3) + "__element__I";
+    }
+
+    private static byte[] snapshot(int i) {
+        byte[] snapshot = new byte[100 + i * 7];
+        Arrays.fill(snapshot, (byte) i);
+        return snapshot;
+    }
+
+    @Test
+    public void testRevisionIndexRebuiltFromFootersAndActiveSegment() throws IOException {
+        SnapshotSegmentLog segmentLog = new SnapshotSegmentLog(directory, SEGMENT_SIZE);
+        Set<String> liveRevisions = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            segmentLog.append(revision(i), snapshot(i));
+            liveRevisions.add(revision(i));
+        }
+        for (int i = 0; i < 100; i += 4) {
+            segmentLog.remove(revision(i));
+            liveRevisions.remove(revision(i));
+        }
+        Assert.assertTrue(directory.listFiles().length > 1);
+        Assert.assertEquals(segmentLog.getRevisions(), liveRevisions);
+
+        SnapshotSegmentLog reopenedLog = new SnapshotSegmentLog(directory, SEGMENT_SIZE);
+        for (int i = 0; i < 100; i++) {
+            if (liveRevisions.contains(revision(i))) {
+                Assert.assertEquals(reopenedLog.read(revision(i)), snapshot(i));
+            }
+        }
+        Assert.assertTrue(reopenedLog.getRevisions().containsAll(liveRevisions));
+
+        reopenedLog.append(revision(100), snapshot(100));
+        Assert.assertEquals(reopenedLog.read(revision(100)), snapshot(100));
+        Assert.assertEquals(reopenedLog.read(revision(99)), snapshot(99));
+    }
+
+    @Test
+    public void testSegmentDeletedWhenAllRevisionsRemoved() throws IOException {
+        SnapshotSegmentLog segmentLog = new SnapshotSegmentLog(directory, SEGMENT_SIZE);
+        for (int i = 0; i < 60; i++) {
+            segmentLog.append(revision(i), snapshot(i));
+        }
+        int noOfSegments = directory.listFiles().length;
+        Assert.assertTrue(noOfSegments > 2);
+        for (int i = 0; i < 30; i++) {
+            segmentLog.remove(revision(i));
+        }
+        Assert.assertTrue(directory.listFiles().length < noOfSegments);
+        for (int i = 30; i < 60; i++) {
+            Assert.assertEquals(segmentLog.read(revision(i)), snapshot(i));
+        }
+        Assert.assertNull(segmentLog.read(revision(0)));
+
+        segmentLog.clear();
+        Assert.assertEquals(directory.listFiles().length, 0);
+        Assert.assertTrue(segmentLog.getRevisions().isEmpty());
+    }
+
+    @Test
+    public void testPartiallyWrittenRecordIgnored() throws IOException {
+        SnapshotSegmentLog segmentLog = new SnapshotSegmentLog(directory, SEGMENT_SIZE);
+        segmentLog.append(revision(1), snapshot(1));
+        segmentLog.append(revision(2), snapshot(2));
+        File segmentFile = directory.listFiles()[0];
+        //clear the size of the second record, as if the process died before it was completed
+        int secondRecordStart = 4 + 4 + revision(1).getBytes(StandardCharsets.UTF_8).length + snapshot(1).length;
+        try (RandomAccessFile file = new RandomAccessFile(segmentFile, "rw")) {
+            file.seek(secondRecordStart);
+            file.writeInt(0);
+        }
+
+        SnapshotSegmentLog reopenedLog = new SnapshotSegmentLog(directory, SEGMENT_SIZE);
+        Assert.assertEquals(reopenedLog.getRevisions(), new HashSet<>(Arrays.asList(revision(1))));
+        Assert.assertEquals(reopenedLog.read(revision(1)), snapshot(1));
+        reopenedLog.append(revision(3), snapshot(3));
+        Assert.assertEquals(new SnapshotSegmentLog(directory, SEGMENT_SIZE).read(revision(3)), snapshot(3));
+    }
+}